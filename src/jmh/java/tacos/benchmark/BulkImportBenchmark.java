@@ -0,0 +1,156 @@
+package tacos.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import tacos.data.OrderRepository;
+import tacos.importer.BulkImport;
+import tacos.importer.BulkImportProps;
+import tacos.importer.ImportedOrder;
+import tacos.importer.ImportedOrder.ImportedTaco;
+import tacos.model.bean.Taco;
+import tacos.model.bean.TacoOrder;
+import tacos.model.bean.User;
+import tacos.service.IngredientCatalog;
+
+/**
+ * Throughput of the bulk order import: one invocation imports a generated file
+ * of <code>rows</code> orders (one taco each) for the benchmark user; divide
+ * <code>rows</code> by the reported time for orders per second.
+ * <ul>
+ * <li><code>bulkImport</code> - <code>BulkImport</code>: chunks of
+ * <code>chunkSize</code> lines validated in parallel, one JDBC batch per table
+ * and one transaction per chunk. <code>chunkSize=1</code> shows what the
+ * chunking itself is worth.</li>
+ * <li><code>repositorySave</code> - the baseline: each line parsed and saved
+ * with <code>OrderRepository.save</code> in a transaction of its own, as an
+ * import through the JPA repositories would.</li>
+ * </ul>
+ * <tt>mvn -P benchmark verify -Djmh.args="-f 1 -wi 1 -i 3 BulkImport"</tt>
+ *
+ * @see tacos.importer.BulkImport
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BulkImportBenchmark {
+
+	@Param({ "20000" })
+	public int rows;
+
+	// lines per chunk of bulkImport
+	@Param({ "1", "100", "1000" })
+	public int chunkSize;
+
+	private Path dir;
+	private Path file;
+	private int iteration;
+
+	@Setup(Level.Trial)
+	public void setUp(TacoCloudContext context) throws IOException {
+		context.getBean(BulkImportProps.class).setChunkSize(chunkSize);
+		dir = Files.createTempDirectory("bulk-import-benchmark");
+	}
+
+	/**
+	 * A new file for every iteration: <tt>import_progress</tt> would skip a file
+	 * whose name has been imported before.
+	 */
+	@Setup(Level.Iteration)
+	public void generateFile(TacoCloudContext context) throws IOException {
+		file = dir.resolve("orders-" + chunkSize + "-" + (++iteration) + ".ndjson");
+		ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+		ImportedTaco taco = new ImportedTaco();
+		taco.setName("Imported Taco");
+		taco.setIngredients(Arrays.asList("FLTO", "GRBF", "CHED", "LETC", "SLSA"));
+		ImportedOrder order = new ImportedOrder();
+		order.setUsername(context.getUser().getUsername());
+		order.setDeliveryStreet("1 Bench St");
+		order.setDeliveryCity("Benchville");
+		order.setDeliveryState("CO");
+		order.setCcNumber("4111111111111111");
+		order.setCcExpiration("12/30");
+		order.setCcCVV("123");
+		order.setTacos(Arrays.asList(taco));
+		long placed = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(365);
+		try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			for (int i = 0; i < rows; i++) {
+				order.setDeliveryName("Bench User " + i);
+				order.setDeliveryZip(String.format("%05d", i % 100000));
+				order.setDateOrderPlaced(new Date(placed + i * 1000L));
+				out.write(objectMapper.writeValueAsString(order));
+				out.newLine();
+			}
+		}
+	}// generateFile() END
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		try (Stream<Path> files = Files.list(dir)) {
+			for (Path path : (Iterable<Path>) files::iterator) {
+				Files.delete(path);
+			}
+		}
+		Files.delete(dir);
+	}
+
+	@Benchmark
+	public BulkImport.Result bulkImport(TacoCloudContext context) throws IOException {
+		return context.getBean(BulkImport.class).importOrders(file);
+	}
+
+	@Benchmark
+	public long repositorySave(TacoCloudContext context) throws IOException {
+		if (chunkSize != 1) {
+			// independent of the chunk size; measured once
+			return 0;
+		}
+		ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+		OrderRepository orderRepository = context.getBean(OrderRepository.class);
+		IngredientCatalog ingredientCatalog = context.getBean(IngredientCatalog.class);
+		User user = context.getUser();
+		long saved = 0;
+		try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
+			for (String line : (Iterable<String>) lines::iterator) {
+				ImportedOrder imported = objectMapper.readValue(line, ImportedOrder.class);
+				List<Taco> tacos = new ArrayList<>();
+				for (ImportedTaco importedTaco : imported.getTacos()) {
+					tacos.add(new Taco(importedTaco.getName(),
+							ingredientCatalog.findAllById(importedTaco.getIngredients()),
+							imported.getDateOrderPlaced()));
+				}
+				orderRepository.save(new TacoOrder(imported.getDeliveryName(), imported.getDeliveryStreet(),
+						imported.getDeliveryCity(), imported.getDeliveryState(), imported.getDeliveryZip(),
+						imported.getCcNumber(), imported.getCcExpiration(), imported.getCcCVV(), tacos,
+						imported.getDateOrderPlaced(), user));
+				saved++;
+			}
+		}
+		return saved;
+	}// repositorySave() END
+
+}
@@ -0,0 +1,72 @@
+package tacos.benchmark;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.ui.ExtendedModelMap;
+import org.springframework.ui.Model;
+
+import tacos.controller.web.DesignTacoController;
+import tacos.controller.web.IngredientByIdConverter;
+import tacos.model.bean.Ingredient;
+
+/**
+ * Benchmarks for the taco design flow: building the <tt>/design</tt> model,
+ * converting submitted ingredient ids and full <code>MockMvc</code> round trips
+ * of <tt>GET /design</tt> and <tt>POST /design</tt>.
+ * 
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DesignBenchmark {
+
+	private DesignTacoController designTacoController;
+	private IngredientByIdConverter ingredientByIdConverter;
+
+	@Setup
+	public void setUp(TacoCloudContext context) {
+		designTacoController = context.getBean(DesignTacoController.class);
+		ingredientByIdConverter = context.getBean(IngredientByIdConverter.class);
+	}
+
+	@Benchmark
+	public Model addIngredientsToModel() {
+		Model model = new ExtendedModelMap();
+		designTacoController.addIngredientsToModel(model);
+		return model;
+	}
+
+	@Benchmark
+	public Ingredient convertIngredientById() {
+		return ingredientByIdConverter.convert("CARN");
+	}
+
+	@Benchmark
+	public MvcResult getDesign(TacoCloudContext context) throws Exception {
+		return context.getMockMvc().perform(get("/design").with(user(context.getUser()))).andReturn();
+	}
+
+	@Benchmark
+	public MvcResult postDesign(TacoCloudContext context) throws Exception {
+		return context.getMockMvc()
+				.perform(post("/design").with(user(context.getUser())).with(csrf()).param("name", "Benchmark Taco")
+						.param("ingredients", "COTO", "CARN", "JACK", "TMTO", "SRCR"))
+				.andReturn();
+	}
+
+}
@@ -0,0 +1,157 @@
+package tacos.benchmark;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.slf4j.LoggerFactory;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import tacos.model.bean.Ingredient;
+import tacos.model.bean.IngredientType;
+import tacos.model.bean.Taco;
+import tacos.model.bean.TacoOrder;
+import tacos.service.EntityDumps;
+
+/**
+ * Benchmarks the logging done by the order and taco design handlers, per
+ * request:
+ * <ul>
+ * <li><code>before</code> - the former statements: whole entity graphs
+ * concatenated into the message, written synchronously by the request
+ * thread</li>
+ * <li><code>after</code> - parameterised summaries, entity dumps through
+ * <code>EntityDumps</code> (every 100th request), handed to a bounded, non
+ * blocking <code>AsyncAppender</code> as configured in
+ * <tt>logback-spring.xml</tt></li>
+ * </ul>
+ * Both loggers use the same pattern and write to a stream that discards the
+ * bytes, so the console's I/O cost - which the request thread paid before - is
+ * not even included in <code>before</code>. Runs with 4 threads, as requests
+ * do.
+ * 
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(4)
+public class LoggingBenchmark {
+
+	private static final String PATTERN = "%d{yyyy-MM-dd HH:mm:ss.SSS} %5p --- [%15.15t] %-40.40logger{39} : %m%n";
+
+	private LoggerContext loggerContext;
+	private Logger syncLogger;
+	private Logger asyncLogger;
+	private AsyncAppender asyncAppender;
+	private EntityDumps entityDumps;
+
+	private Taco taco;
+	private List<Taco> tacos;
+	private TacoOrder tacoOrder;
+
+	@Setup
+	public void setUp() {
+		loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+
+		syncLogger = logger("tacos.benchmark.sync");
+		syncLogger.addAppender(discardingAppender("SYNC"));
+
+		asyncAppender = new AsyncAppender();
+		asyncAppender.setContext(loggerContext);
+		asyncAppender.setName("ASYNC");
+		asyncAppender.setQueueSize(8192);
+		asyncAppender.setNeverBlock(true);
+		asyncAppender.addAppender(discardingAppender("ASYNC_TARGET"));
+		asyncAppender.start();
+		asyncLogger = logger("tacos.benchmark.async");
+		asyncLogger.addAppender(asyncAppender);
+
+		entityDumps = new EntityDumps(100);
+
+		List<Ingredient> ingredients = new ArrayList<>();
+		ingredients.add(new Ingredient("FLTO", "Flour Tortilla", IngredientType.WRAP));
+		ingredients.add(new Ingredient("GRBF", "Ground Beef", IngredientType.PROTEIN));
+		ingredients.add(new Ingredient("CHED", "Cheddar", IngredientType.CHEESE));
+		ingredients.add(new Ingredient("SLSA", "Salsa", IngredientType.SAUCE));
+		tacoOrder = new TacoOrder("Bench User", "1 Bench St", "Benchville", "CO", "80000", "4111111111111111", "12/30",
+				"123", new ArrayList<>(), new Date(), null);
+		for (int i = 0; i < 3; i++) {
+			taco = new Taco("Benchmark Taco " + i, ingredients, new Date());
+			tacoOrder.addTaco(taco);
+		}
+		tacoOrder.setId(766507271830683648L);
+		tacos = tacoOrder.getTacos();
+	}
+
+	@TearDown
+	public void tearDown() {
+		asyncAppender.stop();
+		syncLogger.detachAndStopAllAppenders();
+	}
+
+	@Benchmark
+	public void before() {
+		syncLogger.info("\nProcessing taco... " + taco + "\n all tacos: " + tacos);
+		syncLogger.info("\n Order processed: " + tacoOrder);
+	}
+
+	@Benchmark
+	public void after() {
+		asyncLogger.info("Taco designed: {}, {} taco(s) in order", taco.getName(), tacos.size());
+		entityDumps.dump(asyncLogger, "Taco designed: {}, all tacos: {}", taco, tacos);
+		asyncLogger.info("Order processed: id {}, {} taco(s)", tacoOrder.getId(), tacos.size());
+		entityDumps.dump(asyncLogger, "Order processed: {}", tacoOrder);
+	}
+
+	// helper method; an INFO logger that does not propagate to the root logger
+	private Logger logger(String name) {
+		Logger logger = loggerContext.getLogger(name);
+		logger.setLevel(Level.INFO);
+		logger.setAdditive(false);
+		return logger;
+	}
+
+	// helper method; formats events like the console appender, discards the bytes
+	private OutputStreamAppender<ILoggingEvent> discardingAppender(String name) {
+		PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+		encoder.setContext(loggerContext);
+		encoder.setPattern(PATTERN);
+		encoder.start();
+
+		OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+		appender.setContext(loggerContext);
+		appender.setName(name);
+		appender.setEncoder(encoder);
+		appender.setOutputStream(new OutputStream() {
+			@Override
+			public void write(int b) {
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) {
+			}
+		});
+		appender.start();
+		return appender;
+	}
+
+}
@@ -0,0 +1,82 @@
+package tacos.benchmark;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.test.web.servlet.MvcResult;
+
+import tacos.model.bean.Ingredient;
+import tacos.model.bean.IngredientType;
+import tacos.model.bean.Taco;
+import tacos.model.bean.TacoOrder;
+import tacos.model.bean.User;
+
+/**
+ * Benchmarks for the order flow: <code>TacoOrder.toString</code> on a fully
+ * populated object graph and <code>MockMvc</code> round trips of
+ * <tt>GET /orders/current</tt> and <tt>POST /orders</tt>.
+ * 
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OrderBenchmark {
+
+	private TacoOrder populatedOrder;
+
+	@Setup
+	public void setUp() {
+		List<Ingredient> ingredients = new ArrayList<>();
+		ingredients.add(new Ingredient("FLTO", "Flour Tortilla", IngredientType.WRAP));
+		ingredients.add(new Ingredient("GRBF", "Ground Beef", IngredientType.PROTEIN));
+		ingredients.add(new Ingredient("CHED", "Cheddar", IngredientType.CHEESE));
+		ingredients.add(new Ingredient("LETC", "Lettuce", IngredientType.VEGGIES));
+		ingredients.add(new Ingredient("SLSA", "Salsa", IngredientType.SAUCE));
+
+		populatedOrder = new TacoOrder("Bench User", "1 Bench St", "Benchville", "CO", "80000", "4111111111111111",
+				"12/30", "123", new ArrayList<>(), new Date(), new User("bench", "{noop}bench", "Bench User",
+						"1 Bench St", "Benchville", "CO", "80000", "555-0100"));
+		for (int i = 0; i < 5; i++) {
+			populatedOrder.addTaco(new Taco("Benchmark Taco " + i, ingredients, new Date()));
+		}
+	}
+
+	@Benchmark
+	public String tacoOrderToString() {
+		return populatedOrder.toString();
+	}
+
+	@Benchmark
+	public MvcResult getCurrentOrder(TacoCloudContext context) throws Exception {
+		return context.getMockMvc().perform(get("/orders/current").with(user(context.getUser()))
+				.sessionAttr("tacoOrderDraft", context.newTacoOrderDraft())).andReturn();
+	}
+
+	@Benchmark
+	public MvcResult postOrder(TacoCloudContext context) throws Exception {
+		return context.getMockMvc()
+				.perform(post("/orders").with(user(context.getUser())).with(csrf())
+						.sessionAttr("tacoOrderDraft", context.newTacoOrderDraft()).param("deliveryName", "Bench User")
+						.param("deliveryStreet", "1 Bench St").param("deliveryCity", "Benchville")
+						.param("deliveryState", "CO").param("deliveryZip", "80000")
+						.param("ccNumber", "4111111111111111").param("ccExpiration", "12/30").param("ccCVV", "123"))
+				.andReturn();
+	}
+
+}
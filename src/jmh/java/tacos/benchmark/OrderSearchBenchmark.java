@@ -0,0 +1,203 @@
+package tacos.benchmark;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import tacos.data.OrderRepository;
+import tacos.data.OrderSummary;
+
+/**
+ * Order search (<code>OrderRepository.search*</code>) on a table of
+ * <code>orders</code> generated orders: 1000 zip codes, 50 states of 200
+ * cities each, one order every 30 seconds over the last years (1000 days for
+ * 3 million). Every invocation reads one page of 20 (+1) orders, of the next
+ * zip code, state, city or week in turn: H2 answers a repeated query on an
+ * unchanged table from the previous result.
+ * <ul>
+ * <li><code>zipFirstPage</code>, <code>stateFirstPage</code>,
+ * <code>cityFirstPage</code> - the newest orders of a zip code (3000 orders), a
+ * state (60,000) and a city (300)</li>
+ * <li><code>zipDeepPage</code> - a page from the middle of the zip code's
+ * orders, through a keyset cursor</li>
+ * <li><code>dateRangePage</code> - the newest orders of one week of the last
+ * 100</li>
+ * </ul>
+ * <code>indexes=false</code> drops the search indexes for the trial - the
+ * baseline of the same queries without them. The setup prints the
+ * <tt>EXPLAIN ANALYZE</tt> plan of each search: with the indexes every one
+ * reads its index (<tt>TACO_ORDER_*_IDX</tt>), in index order
+ * (<tt>index sorted</tt>), scanning just one page of rows
+ * (<tt>scanCount</tt>).<br>
+ * Generating the orders and the indexes takes a few minutes per fork; the
+ * fork gets a larger heap to hold them in the in-memory database.<br>
+ * <tt>mvn -P benchmark verify -Djmh.args="-f 1 -wi 2 -i 3 OrderSearch"</tt>
+ *
+ * @see tacos.data.OrderRepository
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(jvmArgsAppend = "-Xmx3g")
+public class OrderSearchBenchmark {
+
+	// the search indexes of schema.sql
+	private static final String[] INDEXES = {
+			"taco_order_date_idx on taco_order (date_order_placed desc, id desc)",
+			"taco_order_zip_idx on taco_order (delivery_zip desc, date_order_placed desc, id desc)",
+			"taco_order_state_idx on taco_order (delivery_state desc, date_order_placed desc, id desc)",
+			"taco_order_state_city_idx on taco_order (delivery_state desc, delivery_city desc, "
+					+ "date_order_placed desc, id desc)" };
+
+	private static final int ZIPS = 1000;
+	private static final int STATES = 50;
+	private static final int CITIES = 200;
+	private static final int WEEKS = 100;
+
+	@Param({ "3000000" })
+	public int orders;
+
+	@Param({ "true", "false" })
+	public boolean indexes;
+
+	private OrderRepository orderRepository;
+	private PageRequest page;
+	private Date from;
+	private Date to;
+	// per zip code, the cursor of the order in the middle of its orders
+	private Date[] deepPlaced;
+	private long[] deepId;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp(TacoCloudContext context) {
+		orderRepository = context.getBean(OrderRepository.class);
+		JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+		page = PageRequest.of(0, 21);
+		LocalDateTime start = LocalDateTime.now().minusSeconds(30L * orders);
+
+		// generated once per fork: the Spring context is cached across trials
+		if (jdbcTemplate.queryForObject("select count(*) from taco_order where id <= ?", Long.class,
+				orders) < orders) {
+			long began = System.nanoTime();
+			// indexes are faster built once than maintained row by row
+			dropIndexes(jdbcTemplate);
+			jdbcTemplate.update("insert into taco_order (id, delivery_name, delivery_street, delivery_city, "
+					+ "delivery_state, delivery_zip, cc_number, cc_expiration, cccvv, date_order_placed, user_id) "
+					+ "select x, 'Bench User', '1 Bench St', 'City' || lpad(mod(x / 50, 200), 4, '0'), "
+					+ "'BS' || lpad(mod(x, 50), 2, '0'), 'B' || lpad(mod(x, 1000), 4, '0'), '4111111111111111', "
+					+ "'12/30', '123', dateadd('SECOND', x * 30, ?), ? from system_range(1, ?)",
+					Timestamp.valueOf(start), context.getUser().getId(), orders);
+			System.out.printf("%n%d orders generated in %d s%n", orders,
+					TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - began));
+		}
+		if (indexes) {
+			long began = System.nanoTime();
+			for (String index : INDEXES) {
+				jdbcTemplate.execute("create index if not exists " + index);
+			}
+			System.out.printf("%nIndexes created in %d s%n", TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - began));
+		} else {
+			dropIndexes(jdbcTemplate);
+		}
+		jdbcTemplate.execute("analyze");
+
+		from = new Date(0);
+		to = Timestamp.valueOf(LocalDateTime.now().plusDays(1));
+		deepPlaced = new Date[ZIPS];
+		deepId = new long[ZIPS];
+		for (int zip = 0; zip < ZIPS; zip++) {
+			// orders of a zip code: ids zip, zip + 1000, ...
+			deepId[zip] = zip + ZIPS * (orders / ZIPS / 2);
+			deepPlaced[zip] = jdbcTemplate.queryForObject("select date_order_placed from taco_order where id = ?",
+					Timestamp.class, deepId[zip]);
+		}
+
+		explain(jdbcTemplate, "where delivery_zip = ?1 and date_order_placed >= ?2 and date_order_placed <= ?3 "
+				+ "and (date_order_placed < ?3 or id < ?4) order by delivery_zip desc, date_order_placed desc, id desc",
+				zip(42), from, deepPlaced[42], deepId[42]);
+		explain(jdbcTemplate, "where delivery_state = ?1 and delivery_city = ?2 and date_order_placed >= ?3 "
+				+ "and date_order_placed <= ?4 and (date_order_placed < ?4 or id < ?5) "
+				+ "order by delivery_state desc, delivery_city desc, date_order_placed desc, id desc",
+				state(7), city(123), from, to, Long.MIN_VALUE);
+		explain(jdbcTemplate, "where date_order_placed >= ?1 and date_order_placed <= ?2 "
+				+ "and (date_order_placed < ?2 or id < ?3) order by date_order_placed desc, id desc",
+				weeksAgo(2), weeksAgo(1), Long.MIN_VALUE);
+	}// setUp() END
+
+	private static void dropIndexes(JdbcTemplate jdbcTemplate) {
+		for (String index : INDEXES) {
+			jdbcTemplate.execute("drop index if exists " + index.substring(0, index.indexOf(' ')));
+		}
+	}
+
+	// the plan of the SQL the repository method generates, without the projection
+	private void explain(JdbcTemplate jdbcTemplate, String query, Object... args) {
+		String plan = jdbcTemplate.queryForObject("explain analyze select id from taco_order " + query + " limit 21",
+				String.class, args);
+		System.out.printf("%nindexes=%s:%n%s%n", indexes, plan);
+	}
+
+	@Benchmark
+	public List<OrderSummary> zipFirstPage() {
+		return orderRepository.searchByZip(zip(next++ % ZIPS), from, to, Long.MIN_VALUE, page);
+	}
+
+	@Benchmark
+	public List<OrderSummary> zipDeepPage() {
+		int zip = next++ % ZIPS;
+		return orderRepository.searchByZip(zip(zip), from, deepPlaced[zip], deepId[zip], page);
+	}
+
+	@Benchmark
+	public List<OrderSummary> stateFirstPage() {
+		return orderRepository.searchByState(state(next++ % STATES), from, to, Long.MIN_VALUE, page);
+	}
+
+	@Benchmark
+	public List<OrderSummary> cityFirstPage() {
+		int city = next++ % CITIES;
+		return orderRepository.searchByCity(state(city % STATES), city(city), from, to, Long.MIN_VALUE, page);
+	}
+
+	@Benchmark
+	public List<OrderSummary> dateRangePage() {
+		int week = next++ % WEEKS;
+		return orderRepository.searchByDate(weeksAgo(week + 1), weeksAgo(week), Long.MIN_VALUE, page);
+	}
+
+	// helper methods: the generated values
+	private static String zip(int zip) {
+		return String.format("B%04d", zip);
+	}
+
+	private static String state(int state) {
+		return String.format("BS%02d", state);
+	}
+
+	private static String city(int city) {
+		return String.format("City%04d", city);
+	}
+
+	private static Date weeksAgo(int weeks) {
+		return Timestamp.valueOf(LocalDateTime.now().minusWeeks(weeks));
+	}
+
+}
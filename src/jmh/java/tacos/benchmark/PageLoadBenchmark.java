@@ -0,0 +1,217 @@
+package tacos.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.net.ssl.SSLContext;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dispatcher;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Page loads over real HTTPS connections, HTTP/1.1 compared with HTTP/2, for
+ * <tt>/</tt>, <tt>/design</tt> and <tt>/orders/current</tt>:
+ * <ul>
+ * <li><code>firstByte</code> - time to first byte: from the start of the
+ * request until the response headers of the page arrive, including connection
+ * set-up and the TLS handshake</li>
+ * <li><code>pageLoad</code> - total page-load latency: the page, then all its
+ * images, scripts and styles and <tt>/favicon.ico</tt> in parallel, the way a
+ * browser loads them (at most 6 connections per host over HTTP/1.1, one
+ * multiplexed connection over HTTP/2)</li>
+ * </ul>
+ * Every invocation starts with an empty connection pool, i.e. a new visit.
+ * With <code>visit=first</code> the client also has an empty TLS session cache
+ * and makes full handshakes; with <code>visit=returning</code> it resumes the
+ * sessions of earlier visits.<br>
+ * The <code>handshakes</code> and <code>pages</code> secondary results count
+ * TLS handshakes and loaded pages per iteration; their ratio is the number of
+ * handshakes per page.<br>
+ * <br>
+ * Run with:
+ * <tt>mvn -P benchmark verify -Djmh.args="-f 1 -wi 3 -i 5 PageLoad"</tt>
+ *
+ * @see TacoCloudServer
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PageLoadBenchmark {
+
+	private static final Pattern COMMENT = Pattern.compile("(?s)<!--.*?-->");
+	private static final Pattern SUBRESOURCE = Pattern
+			.compile("<(?:img|script)\\s[^>]*?src=\"([^\"]+)\"|<link\\s[^>]*?href=\"([^\"]+)\"");
+
+	@Param({ "/", "/design", "/orders/current" })
+	public String page;
+
+	@Param({ "HTTP_1_1", "HTTP_2" })
+	public Protocol protocol;
+
+	@Param({ "first", "returning" })
+	public String visit;
+
+	private TacoCloudServer server;
+	private SSLContext returningSslContext;
+	private OkHttpClient client;
+	private final AtomicInteger handshakes = new AtomicInteger();
+
+	@Setup(Level.Trial)
+	public void setUp(TacoCloudServer server) throws Exception {
+		this.server = server;
+		this.returningSslContext = server.newSslContext();
+	}
+
+	@Setup(Level.Invocation)
+	public void newVisit() throws Exception {
+		Dispatcher dispatcher = new Dispatcher();
+		dispatcher.setMaxRequestsPerHost(6);
+		handshakes.set(0);
+		client = server.newClient("first".equals(visit) ? server.newSslContext() : returningSslContext)
+				.protocols(protocol == Protocol.HTTP_2 ? Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1)
+						: Collections.singletonList(Protocol.HTTP_1_1))
+				.dispatcher(dispatcher).eventListener(new EventListener() {
+					@Override
+					public void secureConnectEnd(Call call, Handshake handshake) {
+						handshakes.incrementAndGet();
+					}
+				}).build();
+	}
+
+	@TearDown(Level.Invocation)
+	public void endVisit() {
+		client.dispatcher().executorService().shutdown();
+		client.connectionPool().evictAll();
+	}
+
+	@Benchmark
+	public int firstByte(Counters counters) throws IOException {
+		try (Response response = fetchPage()) {
+			counters.count(handshakes.get());
+			return response.code();
+		}
+	}
+
+	@Benchmark
+	public long pageLoad(Counters counters) throws Exception {
+		String html;
+		try (Response response = fetchPage()) {
+			html = response.body().string();
+		}
+
+		List<HttpUrl> subresources = subresources(html);
+		CountDownLatch done = new CountDownLatch(subresources.size());
+		AtomicLong bytes = new AtomicLong(html.length());
+		AtomicReference<IOException> failure = new AtomicReference<>();
+		for (HttpUrl url : subresources) {
+			client.newCall(new Request.Builder().url(url).build()).enqueue(new Callback() {
+				@Override
+				public void onResponse(Call call, Response response) throws IOException {
+					try (ResponseBody body = response.body()) {
+						bytes.addAndGet(body.bytes().length);
+					} finally {
+						done.countDown();
+					}
+				}
+
+				@Override
+				public void onFailure(Call call, IOException e) {
+					failure.set(e);
+					done.countDown();
+				}
+			});
+		}
+		done.await();
+		if (failure.get() != null) {
+			throw failure.get();
+		}
+		counters.count(handshakes.get());
+		return bytes.get();
+	}// pageLoad() END
+
+	/**
+	 * Fails if the page is not served (e.g. redirected to the login page) or not
+	 * over the protocol under test.
+	 */
+	private Response fetchPage() throws IOException {
+		Response response = client.newCall(new Request.Builder().url(server.url(page)).build()).execute();
+		if (!response.isSuccessful() || response.priorResponse() != null || response.protocol() != protocol) {
+			response.close();
+			throw new IllegalStateException(
+					"GET " + page + ": " + response.code() + " over " + response.protocol() + ", expected " + protocol);
+		}
+		return response;
+	}
+
+	/**
+	 * @param html
+	 * @return URLs of the images, scripts and style sheets referenced by the
+	 *         page, and the favicon every browser asks for
+	 */
+	private List<HttpUrl> subresources(String html) {
+		List<HttpUrl> urls = new ArrayList<>();
+		Matcher matcher = SUBRESOURCE.matcher(COMMENT.matcher(html).replaceAll(""));
+		while (matcher.find()) {
+			urls.add(server.url(matcher.group(1) != null ? matcher.group(1) : matcher.group(2)));
+		}
+		urls.add(server.url("/favicon.ico"));
+		return urls;
+	}
+
+	/**
+	 * Secondary results: TLS handshakes and pages per iteration.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Counters {
+
+		public long handshakes;
+		public long pages;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			handshakes = 0;
+			pages = 0;
+		}
+
+		void count(int pageHandshakes) {
+			handshakes += pageHandshakes;
+			pages++;
+		}
+
+	}// Counters END
+
+}
@@ -0,0 +1,168 @@
+package tacos.benchmark;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import okhttp3.FormBody;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+/**
+ * Load test of Tomcat's platform-thread pool against virtual-thread request
+ * execution (<tt>tacocloud.server.virtual-threads</tt>).<br>
+ * <br>
+ * Every JMH thread is one customer with a session of its own, on its own
+ * keep-alive HTTP/1.1 connection, who repeatedly designs a taco
+ * (<tt>POST /design</tt>) and places the order (<tt>POST /orders</tt>, one
+ * transaction that inserts the order and its taco). The number of concurrent
+ * customers is JMH's thread count; the sample-time mode reports percentiles
+ * (<tt>p0.99</tt>) of the latency of one order, the throughput follows from
+ * the sample count.<br>
+ * <br>
+ * The in-memory database answers in microseconds, so requests would never hold
+ * a thread long enough to matter. <code>dbLatencyMillis</code> adds a
+ * network-database round trip to every statement (the connection is held
+ * meanwhile, as it would be), and the connection pool is sized so that it is
+ * not the limit; what remains is the request-thread limit:
+ * <code>maxThreads</code> platform threads, or none with virtual threads.<br>
+ * Virtual threads need JDK 21, so run the benchmark on it, e.g. with the
+ * thread pool scaled down to the number of customers a small machine can
+ * drive:
+ * <tt>PATH=$JDK21/bin:$PATH mvn -P benchmark verify -Djmh.args="-f 1 -wi 1 -i 3 -t 100 -p maxThreads=25 RequestThreads"</tt>
+ * and add <tt>-jvmArgsAppend -Djdk.tracePinnedThreads=short</tt> to list the
+ * places where a virtual thread blocks while pinned to its carrier.
+ *
+ * @see tacos.server.VirtualThreadsConfig
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RequestThreadsBenchmark {
+
+	@Param({ "platform", "virtual" })
+	public String threads;
+
+	// server.tomcat.threads.max of the platform-thread pool
+	@Param({ "200" })
+	public int maxThreads;
+
+	// simulated database round trip, per statement
+	@Param({ "20" })
+	public int dbLatencyMillis;
+
+	private final TacoCloudServer server = new TacoCloudServer();
+
+	@Setup(Level.Trial)
+	public void start() throws Exception {
+		server.start(Arrays.asList("--tacocloud.server.virtual-threads=" + "virtual".equals(threads),
+				"--server.tomcat.threads.max=" + maxThreads, "--server.tomcat.max-connections=10000",
+				"--spring.datasource.hikari.maximum-pool-size=1000",
+				// customers log in once per trial; the benchmark is not about hashing
+				"--tacocloud.security.password-hashing.bcrypt-strength=4",
+				"--tacocloud.security.password-hashing.queue-capacity=10000"));
+
+		DataSource dataSource = server.getBean(DataSource.class);
+		if (dbLatencyMillis > 0 && dataSource instanceof ProxyDataSource) {
+			((ProxyDataSource) dataSource).getProxyConfig().getQueryListener()
+					.addListener(new QueryExecutionListener() {
+						@Override
+						public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+							try {
+								Thread.sleep(dbLatencyMillis);
+							} catch (InterruptedException e) {
+								Thread.currentThread().interrupt();
+							}
+						}
+
+						@Override
+						public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+						}
+					});
+		}
+	}// start() END
+
+	@TearDown(Level.Trial)
+	public void stop() {
+		server.stop();
+	}
+
+	@Benchmark
+	public int placeOrder(Customer customer) throws IOException {
+		RequestBody taco = new FormBody.Builder().add("_csrf", customer.csrfToken).add("name", "Load Test Taco")
+				.add("ingredients", "FLTO").add("ingredients", "GRBF").add("ingredients", "CHED").build();
+		customer.post("/design", taco, "/orders/current");
+
+		RequestBody order = new FormBody.Builder().add("_csrf", customer.csrfToken)
+				.add("deliveryName", "Bench User").add("deliveryStreet", "1 Bench St")
+				.add("deliveryCity", "Benchville").add("deliveryState", "CO").add("deliveryZip", "80000")
+				.add("ccNumber", "4111111111111111").add("ccExpiration", "12/30").add("ccCVV", "123").build();
+		return customer.post("/orders", order, "/");
+	}
+
+	/**
+	 * One logged-in customer per benchmark thread.
+	 */
+	@State(Scope.Thread)
+	public static class Customer {
+
+		private RequestThreadsBenchmark benchmark;
+		private OkHttpClient client;
+		private String csrfToken;
+
+		@Setup(Level.Trial)
+		public void logIn(RequestThreadsBenchmark benchmark) throws Exception {
+			this.benchmark = benchmark;
+			SSLContext sslContext = benchmark.server.newSslContext();
+			client = benchmark.server.newClient(sslContext, new TacoCloudServer.SessionCookieJar())
+					.protocols(Collections.singletonList(Protocol.HTTP_1_1)).followRedirects(false)
+					.readTimeout(1, TimeUnit.MINUTES).build();
+			benchmark.server.logIn(client);
+			csrfToken = benchmark.server.csrfToken(client, "/design");
+		}
+
+		@TearDown(Level.Trial)
+		public void logOut() {
+			client.connectionPool().evictAll();
+		}
+
+		// posts the form and fails unless it redirects to the expected page
+		int post(String path, RequestBody form, String expectedLocation) throws IOException {
+			Request request = new Request.Builder().url(benchmark.server.url(path)).post(form).build();
+			try (Response response = client.newCall(request).execute()) {
+				String location = response.header("Location", "");
+				if (response.code() != 302 || !location.endsWith(expectedLocation)) {
+					throw new IllegalStateException("POST " + path + ": " + response.code() + " " + location);
+				}
+				return response.code();
+			}
+		}
+
+	}// Customer END
+
+}
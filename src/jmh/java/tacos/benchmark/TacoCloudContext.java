@@ -0,0 +1,105 @@
+package tacos.benchmark;
+
+import java.util.Arrays;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.TestContextManager;
+import org.springframework.test.web.servlet.MockMvc;
+
+import tacos.data.UserRepository;
+import tacos.model.bean.Taco;
+import tacos.model.bean.TacoOrderDraft;
+import tacos.model.bean.User;
+import tacos.service.IngredientCatalog;
+
+/**
+ * Shared benchmark state: one Spring application context (with a mock servlet
+ * environment and <code>MockMvc</code>) per benchmark run.<br>
+ * <br>
+ * The context is bootstrapped through Spring's <tt>TestContextManager</tt>, the
+ * same way <tt>@SpringBootTest</tt> tests are, so benchmarks measure the real
+ * application configuration - security filter chain, converters, validation
+ * and JPA - without starting Tomcat. A registered user and a designed taco are
+ * created up front for the authenticated <tt>/design</tt> and
+ * <tt>/orders</tt> round trips.
+ * 
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@State(Scope.Benchmark)
+@SpringBootTest(properties = { "spring.jpa.show-sql=false", "logging.level.root=WARN" })
+@AutoConfigureMockMvc
+public class TacoCloudContext {
+
+	@Autowired
+	private ApplicationContext applicationContext;
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private IngredientCatalog ingredientCatalog;
+
+	private TestContextManager testContextManager;
+	private User user;
+	private Taco taco;
+
+	@Setup(Level.Trial)
+	public void start() throws Exception {
+		testContextManager = new TestContextManager(TacoCloudContext.class);
+		testContextManager.prepareTestInstance(this);
+		// the catalog is loaded on ApplicationReadyEvent, which a mock
+		// environment publishes as well; reload to be independent of ordering
+		ingredientCatalog.reload();
+
+		// the Spring context is cached across trials in the same fork, and so is
+		// the user (usernames are unique)
+		user = userRepository.findByUsername("bench");
+		if (user == null) {
+			user = userRepository.save(new User("bench", "{noop}bench", "Bench User", "1 Bench St", "Benchville",
+					"CO", "80000", "555-0100"));
+		}
+		taco = new Taco("Benchmark Taco",
+				ingredientCatalog.findAllById(Arrays.asList("FLTO", "GRBF", "CHED", "LETC", "SLSA")), null);
+	}
+
+	@TearDown(Level.Trial)
+	public void stop() throws Exception {
+		testContextManager.afterTestClass();
+	}
+
+	public <T> T getBean(Class<T> type) {
+		return applicationContext.getBean(type);
+	}
+
+	public MockMvc getMockMvc() {
+		return mockMvc;
+	}
+
+	public User getUser() {
+		return user;
+	}
+
+	public Taco getTaco() {
+		return taco;
+	}
+
+	/**
+	 * @return a new, session-held <code>TacoOrderDraft</code> containing the
+	 *         benchmark taco
+	 */
+	public TacoOrderDraft newTacoOrderDraft() {
+		TacoOrderDraft tacoOrderDraft = new TacoOrderDraft();
+		tacoOrderDraft.addTaco(taco);
+		return tacoOrderDraft;
+	}
+
+}
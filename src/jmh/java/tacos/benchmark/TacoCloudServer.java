@@ -0,0 +1,205 @@
+package tacos.benchmark;
+
+import java.io.InputStream;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import okhttp3.Cookie;
+import okhttp3.CookieJar;
+import okhttp3.FormBody;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import tacos.TacoCloudApplication;
+import tacos.data.UserRepository;
+import tacos.model.bean.User;
+
+/**
+ * Shared benchmark state: the whole application running on embedded Tomcat,
+ * with the HTTPS connector configured by <tt>application.properties</tt>
+ * (HTTP/2 over ALPN, TLS session cache) on a random port.<br>
+ * <br>
+ * Unlike <code>TacoCloudContext</code>, requests go over real TLS connections,
+ * so connection set-up and handshakes are part of what is measured. A user is
+ * logged in through the login form once per trial; its session cookie is
+ * shared by every client, so the authenticated pages can be loaded by clients
+ * with fresh connections.<br>
+ * Clients trust the application's own (self-signed) certificate from
+ * <tt>ssl/tacocloud.p12</tt>.
+ *
+ * @see PageLoadBenchmark
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@State(Scope.Benchmark)
+public class TacoCloudServer {
+
+	private static final String USERNAME = "bench-https";
+	private static final String PASSWORD = "bench";
+	private static final Pattern CSRF_TOKEN = Pattern.compile("name=\"_csrf\" value=\"([^\"]+)\"");
+
+	private ServletWebServerApplicationContext context;
+	private HttpUrl baseUrl;
+	private X509TrustManager trustManager;
+	private final SessionCookieJar cookieJar = new SessionCookieJar();
+
+	@Setup(Level.Trial)
+	public void start() throws Exception {
+		start(Collections.<String>emptyList());
+	}
+
+	/**
+	 * @param options additional command line arguments of the application, e.g.
+	 *                <tt>--server.tomcat.threads.max=50</tt>
+	 */
+	public void start(List<String> options) throws Exception {
+		List<String> arguments = new ArrayList<>(
+				Arrays.asList("--server.port=0", "--management.server.port=0",
+				"--tacocloud.reactive-api.port=0", "--logging.level.root=WARN"));
+		arguments.addAll(options);
+		// command line arguments, as they take precedence over application.properties
+		context = (ServletWebServerApplicationContext) new SpringApplicationBuilder(TacoCloudApplication.class)
+				.run(arguments.toArray(new String[0]));
+		baseUrl = new HttpUrl.Builder().scheme("https").host("localhost")
+				.port(context.getWebServer().getPort()).build();
+
+		KeyStore keyStore = KeyStore.getInstance("PKCS12");
+		try (InputStream in = TacoCloudServer.class.getResourceAsStream("/ssl/tacocloud.p12")) {
+			keyStore.load(in, "tacocloud".toCharArray());
+		}
+		TrustManagerFactory trustManagerFactory = TrustManagerFactory
+				.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+		trustManagerFactory.init(keyStore);
+		trustManager = (X509TrustManager) trustManagerFactory.getTrustManagers()[0];
+
+		UserRepository userRepository = context.getBean(UserRepository.class);
+		if (userRepository.findByUsername(USERNAME) == null) {
+			userRepository.save(new User(USERNAME, context.getBean(PasswordEncoder.class).encode(PASSWORD),
+					"Bench User", "1 Bench St", "Benchville", "CO", "80000", "555-0100"));
+		}
+		logIn(newClient(newSslContext()).build());
+	}// start() END
+
+	@TearDown(Level.Trial)
+	public void stop() {
+		context.close();
+	}
+
+	/**
+	 * Logs the benchmark user in through the login form; the authenticated
+	 * session cookie ends up in the client's cookie jar.
+	 *
+	 * @param client
+	 */
+	public void logIn(OkHttpClient client) throws Exception {
+		FormBody form = new FormBody.Builder().add("username", USERNAME).add("password", PASSWORD)
+				.add("_csrf", csrfToken(client, "/login")).build();
+		try (Response response = client.newBuilder().followRedirects(false).build()
+				.newCall(new Request.Builder().url(url("/login")).post(form).build()).execute()) {
+			String location = response.header("Location", "");
+			if (response.code() != 302 || location.contains("error")) {
+				throw new IllegalStateException("Login failed: " + response.code() + " " + location);
+			}
+		}
+	}// logIn() END
+
+	/**
+	 * @param client
+	 * @param path   of a page with a form
+	 * @return the CSRF token of the client's session, read from the form
+	 */
+	public String csrfToken(OkHttpClient client, String path) throws Exception {
+		try (Response response = client.newCall(new Request.Builder().url(url(path)).build()).execute()) {
+			Matcher csrf = CSRF_TOKEN.matcher(response.body().string());
+			if (!csrf.find()) {
+				throw new IllegalStateException("No CSRF token on " + path);
+			}
+			return csrf.group(1);
+		}
+	}
+
+	/**
+	 * @return a client TLS context with an empty session cache, i.e. a client
+	 *         that has never talked to the server
+	 */
+	public SSLContext newSslContext() throws Exception {
+		SSLContext sslContext = SSLContext.getInstance("TLS");
+		sslContext.init(null, new TrustManager[] { trustManager }, null);
+		return sslContext;
+	}
+
+	/**
+	 * @param sslContext client TLS context; clients sharing it resume each
+	 *                   other's TLS sessions
+	 * @return builder of a client with its own connection pool, logged in as the
+	 *         benchmark user
+	 */
+	public OkHttpClient.Builder newClient(SSLContext sslContext) {
+		return newClient(sslContext, cookieJar);
+	}
+
+	/**
+	 * @param sslContext
+	 * @param cookieJar  e.g. a new <code>SessionCookieJar</code> for a client
+	 *                   with a session of its own
+	 * @return builder of a client with its own connection pool
+	 */
+	public OkHttpClient.Builder newClient(SSLContext sslContext, CookieJar cookieJar) {
+		return new OkHttpClient.Builder().sslSocketFactory(sslContext.getSocketFactory(), trustManager)
+				// the certificate is issued to a made-up name
+				.hostnameVerifier((hostname, session) -> "localhost".equals(hostname)).cookieJar(cookieJar);
+	}
+
+	public <T> T getBean(Class<T> type) {
+		return context.getBean(type);
+	}
+
+	public HttpUrl url(String path) {
+		return baseUrl.resolve(path);
+	}
+
+	/**
+	 * Keeps the latest value of every cookie, regardless of the request URL;
+	 * enough for a single-host benchmark.
+	 */
+	static final class SessionCookieJar implements CookieJar {
+
+		private final Map<String, Cookie> cookies = new ConcurrentHashMap<>();
+
+		@Override
+		public void saveFromResponse(HttpUrl url, List<Cookie> cookies) {
+			for (Cookie cookie : cookies) {
+				this.cookies.put(cookie.name(), cookie);
+			}
+		}
+
+		@Override
+		public List<Cookie> loadForRequest(HttpUrl url) {
+			return new ArrayList<>(cookies.values());
+		}
+
+	}// SessionCookieJar END
+
+}
@@ -0,0 +1,88 @@
+package tacos.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.ValidatorFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import tacos.model.bean.Ingredient;
+import tacos.model.bean.IngredientType;
+import tacos.model.bean.Taco;
+import tacos.model.bean.TacoOrder;
+import tacos.security.bean.RegistrationForm;
+
+/**
+ * Benchmarks Bean Validation of the objects bound from the three forms:
+ * <tt>Taco</tt>, <tt>TacoOrder</tt> and <tt>RegistrationForm</tt>. Runs without
+ * a Spring context - the validator is the same Hibernate Validator that Spring
+ * MVC uses for <tt>@Valid</tt>.
+ * 
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ValidationBenchmark {
+
+	private ValidatorFactory validatorFactory;
+	private Validator validator;
+
+	private Taco taco;
+	private TacoOrder tacoOrder;
+	private RegistrationForm registrationForm;
+
+	@Setup
+	public void setUp() {
+		validatorFactory = Validation.buildDefaultValidatorFactory();
+		validator = validatorFactory.getValidator();
+
+		List<Ingredient> ingredients = new ArrayList<>();
+		ingredients.add(new Ingredient("FLTO", "Flour Tortilla", IngredientType.WRAP));
+		ingredients.add(new Ingredient("GRBF", "Ground Beef", IngredientType.PROTEIN));
+		taco = new Taco("Benchmark Taco", ingredients, null);
+
+		tacoOrder = new TacoOrder("Bench User", "1 Bench St", "Benchville", "CO", "80000", "4111111111111111", "12/30",
+				"123", new ArrayList<>(), null, null);
+		tacoOrder.addTaco(taco);
+
+		registrationForm = new RegistrationForm("bench", "secret", "Bench User", "1 Bench St", "Benchville", "CO",
+				"80000", "555-0100");
+		registrationForm.setConfirm("secret");
+	}
+
+	@TearDown
+	public void tearDown() {
+		validatorFactory.close();
+	}
+
+	@Benchmark
+	public Set<ConstraintViolation<Taco>> validateTaco() {
+		return validator.validate(taco);
+	}
+
+	@Benchmark
+	public Set<ConstraintViolation<TacoOrder>> validateTacoOrder() {
+		return validator.validate(tacoOrder);
+	}
+
+	@Benchmark
+	public Set<ConstraintViolation<RegistrationForm>> validateRegistrationForm() {
+		return validator.validate(registrationForm);
+	}
+
+}
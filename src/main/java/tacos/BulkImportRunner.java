@@ -0,0 +1,73 @@
+package tacos;
+
+import java.nio.file.Paths;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import tacos.importer.BulkImport;
+import tacos.importer.BulkImportProps;
+
+/**
+ * Runs a bulk import when the application is started with an import file,
+ * e.g. as a one-off instance next to the running ones, on random ports:<br>
+ * <tt>java -jar taco-cloud.jar --server.port=0 --management.server.port=0
+ * --tacocloud.reactive-api.port=0 --tacocloud.import.users=users.ndjson
+ * --tacocloud.import.orders=orders.ndjson</tt><br>
+ * Users are imported before orders. Once done, the application exits - with
+ * status 1 if the import failed - unless
+ * <tt>tacocloud.import.exit-when-done=false</tt>. A failed import is resumed
+ * by running the same command again. Without an import file this runner does
+ * nothing.
+ * 
+ * @see BulkImport
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class BulkImportRunner implements ApplicationRunner {
+
+	private final BulkImport bulkImport;
+	private final BulkImportProps props;
+	private final ConfigurableApplicationContext context;
+
+	private Logger logger = LoggerFactory.getLogger(BulkImportRunner.class);
+
+	public BulkImportRunner(BulkImport bulkImport, BulkImportProps props, ConfigurableApplicationContext context) {
+		this.bulkImport = bulkImport;
+		this.props = props;
+		this.context = context;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) {
+		if (props.getUsers() == null && props.getOrders() == null) {
+			return;
+		}
+		int status = 0;
+		try {
+			if (props.getUsers() != null) {
+				bulkImport.importUsers(Paths.get(props.getUsers()));
+			}
+			if (props.getOrders() != null) {
+				bulkImport.importOrders(Paths.get(props.getOrders()));
+			}
+		} catch (Exception e) {
+			logger.error("Bulk import failed", e);
+			status = 1;
+		}
+		if (props.isExitWhenDone()) {
+			int exitCode = status;
+			System.exit(SpringApplication.exit(context, () -> exitCode));
+		}
+	}// run() END
+
+}
@@ -4,6 +4,8 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 
 import tacos.data.IngredientRepository;
 import tacos.model.bean.Ingredient;
@@ -80,7 +82,9 @@ public class TacoCloudApplication {
 	 * application.properties;
 	 */
 
+	// before the other runners, e.g. the bulk import, whose orders need the ingredients
 	@Bean
+	@Order(Ordered.HIGHEST_PRECEDENCE)
 	public CommandLineRunner ingredientDataLoader(IngredientRepository repo) {
 		return args -> {
 			repo.save(new Ingredient("FLTO", "Flour Tortilla", IngredientType.WRAP));
@@ -0,0 +1,117 @@
+package tacos.controller.api;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.reactive.function.server.HandlerFilterFunction;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import tacos.data.reactive.ReactiveUserRepository;
+import tacos.security.PasswordHashingRejectedException;
+import tacos.server.ReactiveApiProps;
+
+/**
+ * HTTP Basic authentication of reactive API requests against the registered
+ * users. The id of the authenticated user is put in the request attribute
+ * {@link #USER_ID_ATTRIBUTE}; requests without valid credentials are answered
+ * with <tt>401</tt>.<br>
+ * <br>
+ * API clients send their credentials with every request, and checking a BCrypt
+ * hash costs milliseconds of CPU - far too long for an event-loop thread. The
+ * user is looked up through R2DBC, the hash is checked by the
+ * <code>PasswordEncoder</code> on a worker thread (which hands it to its own
+ * hashing pool), and verified credentials are remembered for
+ * <tt>tacocloud.reactive-api.credentials-cache-ttl</tt>, so a client pays for
+ * one check per TTL. The cache keys are SHA-256 digests of the
+ * <tt>Authorization</tt> header, not the passwords themselves. When the hashing
+ * pool is saturated, requests are answered with <tt>503</tt>.
+ *
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+public class ApiAuthentication implements HandlerFilterFunction<ServerResponse, ServerResponse> {
+
+	public static final String USER_ID_ATTRIBUTE = ApiAuthentication.class.getName() + ".userId";
+
+	private static final String BASIC = "Basic ";
+
+	private final ReactiveUserRepository userRepository;
+	private final PasswordEncoder passwordEncoder;
+	// digest of the Authorization header -> user id
+	private final Cache<String, Long> verified;
+
+	public ApiAuthentication(ReactiveUserRepository userRepository, PasswordEncoder passwordEncoder,
+			ReactiveApiProps props) {
+		this.userRepository = userRepository;
+		this.passwordEncoder = passwordEncoder;
+		this.verified = Caffeine.newBuilder().maximumSize(props.getCredentialsCacheMaxSize())
+				.expireAfterWrite(props.getCredentialsCacheTtl()).build();
+	}
+
+	@Override
+	public Mono<ServerResponse> filter(ServerRequest request, HandlerFunction<ServerResponse> next) {
+		String authorization = request.headers().firstHeader(HttpHeaders.AUTHORIZATION);
+		if (authorization == null || !authorization.regionMatches(true, 0, BASIC, 0, BASIC.length())) {
+			return unauthorized();
+		}
+		String key = digest(authorization);
+		Long userId = verified.getIfPresent(key);
+		Mono<Long> user = userId != null ? Mono.just(userId)
+				: authenticate(authorization.substring(BASIC.length()).trim()).doOnNext(id -> verified.put(key, id));
+
+		return user.flatMap(id -> {
+			request.attributes().put(USER_ID_ATTRIBUTE, id);
+			return next.handle(request);
+		}).switchIfEmpty(Mono.defer(this::unauthorized))
+				.onErrorResume(PasswordHashingRejectedException.class,
+						e -> ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+	}// filter() END
+
+	/**
+	 * @param credentials Base64 of <tt>username:password</tt>
+	 * @return id of the user, empty if the credentials are malformed or wrong
+	 */
+	private Mono<Long> authenticate(String credentials) {
+		String decoded;
+		try {
+			decoded = new String(Base64.getDecoder().decode(credentials), StandardCharsets.UTF_8);
+		} catch (IllegalArgumentException e) {
+			return Mono.empty();
+		}
+		int colon = decoded.indexOf(':');
+		if (colon < 0) {
+			return Mono.empty();
+		}
+		String password = decoded.substring(colon + 1);
+		return userRepository.findByUsername(decoded.substring(0, colon)).publishOn(Schedulers.boundedElastic())
+				.filter(user -> passwordEncoder.matches(password, user.getPassword())).map(user -> user.getId());
+	}
+
+	private Mono<ServerResponse> unauthorized() {
+		return ServerResponse.status(HttpStatus.UNAUTHORIZED)
+				.header(HttpHeaders.WWW_AUTHENTICATE, "Basic realm=\"Taco Cloud API\"").build();
+	}
+
+	private static String digest(String authorization) {
+		try {
+			return Base64.getEncoder().encodeToString(
+					MessageDigest.getInstance("SHA-256").digest(authorization.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			// every JRE has SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
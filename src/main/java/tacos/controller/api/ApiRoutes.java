@@ -0,0 +1,115 @@
+package tacos.controller.api;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RequestPredicates.POST;
+import static org.springframework.web.reactive.function.server.RequestPredicates.contentType;
+
+import javax.validation.Validator;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import tacos.data.reactive.ReactiveIngredientRepository;
+import tacos.data.reactive.ReactiveOrderRepository;
+import tacos.data.reactive.ReactiveTacoRepository;
+import tacos.data.reactive.ReactiveUserRepository;
+import tacos.server.ReactiveApiProps;
+import tacos.service.BusinessMetrics;
+import tacos.service.IngredientCatalog;
+import tacos.service.IngredientPopularity;
+import tacos.service.SalesRollups;
+
+/**
+ * Routes of the reactive JSON API for kiosk and mobile clients, served by
+ * <code>ReactiveApiServer</code>:
+ * <ul>
+ * <li><tt>GET /api/ingredients</tt> - the ingredients a taco can be made
+ * of</li>
+ * <li><tt>GET /api/tacos</tt>, <tt>GET /api/tacos/{id}</tt> - the user's
+ * designed tacos, the most recent first</li>
+ * <li><tt>POST /api/tacos</tt> - designs a taco,
+ * <tt>{"name": "...", "ingredients": ["FLTO", "GRBF", ...]}</tt>; answers
+ * <tt>201</tt> with the stored taco and its id</li>
+ * <li><tt>GET /api/orders</tt>, <tt>GET /api/orders/{id}</tt> - the user's
+ * orders, the most recent first</li>
+ * <li><tt>POST /api/orders</tt> - orders tacos the user designed before,
+ * <tt>{"deliveryName": "...", ..., "ccCVV": "123", "tacos": [id, ...]}</tt>;
+ * answers <tt>201</tt> with a summary of the order</li>
+ * </ul>
+ * Ids are sent as JSON strings, e.g. <tt>"id": "766569196566278144"</tt>: the
+ * time-ordered ids exceed 2<sup>53</sup>, which JavaScript numbers cannot hold
+ * exactly. Ids are accepted as strings or numbers.<br>
+ * Every <tt>GET</tt> response carries a strong <tt>ETag</tt> and is answered
+ * with <tt>304</tt> when the client sends it back in <tt>If-None-Match</tt>
+ * (see {@link ConditionalGet}). Collections are paginated with cursors:
+ * <tt>{"items": [...], "next": "..."}</tt>, and the following page is
+ * requested with <tt>?before=</tt> the <tt>next</tt> value.
+ * The same validation rules as in the browser apply (the constraints of
+ * <code>Taco</code> and <code>TacoOrder</code>); violations are answered with
+ * <tt>400</tt> and <tt>{"errors": {"field": "message", ...}}</tt>. Every request
+ * is authenticated with HTTP Basic credentials of a registered user (see
+ * {@link ApiAuthentication}).
+ *
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Configuration
+@ConditionalOnProperty(name = "tacocloud.reactive-api.enabled", havingValue = "true", matchIfMissing = true)
+public class ApiRoutes {
+
+	public static final String INGREDIENTS = "/api/ingredients";
+	public static final String TACOS = "/api/tacos";
+	public static final String ORDERS = "/api/orders";
+	public static final String TACO = TACOS + "/{id}";
+	public static final String ORDER = ORDERS + "/{id}";
+
+	@Bean
+	public DesignApiHandler designApiHandler(ReactiveIngredientRepository ingredientRepository,
+			ReactiveTacoRepository tacoRepository, TransactionalOperator reactiveTransactionalOperator,
+			Validator validator, BusinessMetrics businessMetrics, IngredientCatalog ingredientCatalog,
+			IngredientPopularity ingredientPopularity, ObjectMapper objectMapper, ReactiveApiProps props) {
+		return new DesignApiHandler(ingredientRepository, tacoRepository, reactiveTransactionalOperator, validator,
+				businessMetrics, ingredientCatalog, ingredientPopularity, new ConditionalGet(objectMapper),
+				props.getPageSize());
+	}
+
+	@Bean
+	public OrderApiHandler orderApiHandler(ReactiveTacoRepository tacoRepository,
+			ReactiveOrderRepository orderRepository, TransactionalOperator reactiveTransactionalOperator,
+			Validator validator, BusinessMetrics businessMetrics, IngredientCatalog ingredientCatalog,
+			IngredientPopularity ingredientPopularity, SalesRollups salesRollups, ObjectMapper objectMapper,
+			ReactiveApiProps props) {
+		return new OrderApiHandler(tacoRepository, orderRepository, reactiveTransactionalOperator, validator,
+				businessMetrics, ingredientCatalog, ingredientPopularity, salesRollups,
+				new ConditionalGet(objectMapper), props.getPageSize());
+	}
+
+	@Bean
+	public ApiAuthentication apiAuthentication(ReactiveUserRepository userRepository,
+			PasswordEncoder passwordEncoder, ReactiveApiProps props) {
+		return new ApiAuthentication(userRepository, passwordEncoder, props);
+	}
+
+	@Bean
+	public RouterFunction<ServerResponse> apiRouterFunction(DesignApiHandler design, OrderApiHandler orders,
+			ApiAuthentication authentication) {
+		return RouterFunctions.route(GET(INGREDIENTS), design::ingredients)
+				.andRoute(GET(TACOS), design::tacos)
+				.andRoute(GET(TACOS + "/{id:\\d+}"), design::taco)
+				.andRoute(GET(ORDERS), orders::orders)
+				.andRoute(GET(ORDERS + "/{id:\\d+}"), orders::order)
+				.andRoute(POST(TACOS).and(contentType(MediaType.APPLICATION_JSON)), design::designTaco)
+				.andRoute(POST(ORDERS).and(contentType(MediaType.APPLICATION_JSON)), orders::placeOrder)
+				.filter(authentication);
+	}
+
+}
@@ -0,0 +1,124 @@
+package tacos.controller.api;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * JSON responses to <tt>GET</tt> requests with a strong <tt>ETag</tt>: the
+ * Base64 of the first 128 bits of the SHA-256 digest of the exact response
+ * bytes. A client that sends the tag back in <tt>If-None-Match</tt> gets
+ * <tt>304 Not Modified</tt> without a body while the representation is
+ * unchanged.<br>
+ * Responses that are built per request still cost the queries behind them, but
+ * not the transfer; a representation that rarely changes can be built once and
+ * answered with {@link #respond(ServerRequest, Representation, CacheControl)}.
+ *
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+class ConditionalGet {
+
+	private final ObjectMapper objectMapper;
+
+	ConditionalGet(ObjectMapper objectMapper) {
+		this.objectMapper = objectMapper;
+	}
+
+	/**
+	 * @param body
+	 * @return the JSON of the body and its entity tag
+	 * @throws JsonProcessingException
+	 */
+	Representation represent(Object body) throws JsonProcessingException {
+		return new Representation(objectMapper.writeValueAsBytes(body));
+	}
+
+	Mono<ServerResponse> respond(ServerRequest request, Object body, CacheControl cacheControl) {
+		return Mono.fromCallable(() -> represent(body))
+				.flatMap(representation -> respond(request, representation, cacheControl));
+	}
+
+	Mono<ServerResponse> respond(ServerRequest request, Representation representation, CacheControl cacheControl) {
+		return respond(request, representation, cacheControl, null);
+	}
+
+	/**
+	 * A page of a collection is the user's own and may change with every new
+	 * item, so it is revalidated on every use. The following page is linked
+	 * with a <tt>Link: &lt;...&gt;; rel="next"</tt> header.
+	 * 
+	 * @param request
+	 * @param page
+	 * @return the page, or <tt>304</tt> if the client's copy is current
+	 */
+	Mono<ServerResponse> respondPage(ServerRequest request, CursorPage<?> page) {
+		String link = page.getNext() == null ? null
+				: "<" + request.uriBuilder().replaceQueryParam("before", page.getNext()).build() + ">; rel=\"next\"";
+		return Mono.fromCallable(() -> represent(page)).flatMap(
+				representation -> respond(request, representation, CacheControl.noCache().cachePrivate(), link));
+	}
+
+	private static Mono<ServerResponse> respond(ServerRequest request, Representation representation,
+			CacheControl cacheControl, String link) {
+		boolean notModified = matches(request, representation.etag);
+		ServerResponse.BodyBuilder response = ServerResponse
+				.status(notModified ? HttpStatus.NOT_MODIFIED : HttpStatus.OK).eTag(representation.etag)
+				.cacheControl(cacheControl);
+		if (link != null) {
+			response.header(HttpHeaders.LINK, link);
+		}
+		return notModified ? response.build()
+				: response.contentType(MediaType.APPLICATION_JSON).bodyValue(representation.body);
+	}// respond() END
+
+	// If-None-Match uses the weak comparison: W/"x" matches "x"
+	private static boolean matches(ServerRequest request, String etag) {
+		for (String tag : request.headers().asHttpHeaders().getIfNoneMatch()) {
+			if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Serialised JSON body and its strong entity tag.
+	 */
+	static final class Representation {
+
+		private final byte[] body;
+		private final String etag;
+
+		private Representation(byte[] body) {
+			this.body = body;
+			try {
+				byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+				this.etag = "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16))
+						+ "\"";
+			} catch (NoSuchAlgorithmException e) {
+				// every JRE has SHA-256
+				throw new IllegalStateException(e);
+			}
+		}
+
+		String getEtag() {
+			return etag;
+		}
+
+	}// Representation END
+
+}
@@ -0,0 +1,31 @@
+package tacos.controller.api;
+
+import java.util.List;
+
+/**
+ * One page of a collection: <tt>{"items": [...], "next": "..."}</tt>.
+ * <tt>next</tt> is the keyset cursor to pass as the <tt>before</tt> parameter
+ * for the following page, <tt>null</tt> on the last page.
+ *
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+public class CursorPage<T> {
+
+	private final List<T> items;
+	private final String next;
+
+	public CursorPage(List<T> items, String next) {
+		this.items = items;
+		this.next = next;
+	}
+
+	public List<T> getItems() {
+		return items;
+	}
+
+	public String getNext() {
+		return next;
+	}
+
+}
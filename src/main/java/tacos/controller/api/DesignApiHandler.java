@@ -0,0 +1,231 @@
+package tacos.controller.api;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import javax.validation.Validator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import tacos.data.reactive.IngredientRow;
+import tacos.data.reactive.ReactiveIngredientRepository;
+import tacos.data.reactive.ReactiveTacoRepository;
+import tacos.data.reactive.TacoRow;
+import tacos.model.bean.Taco;
+import tacos.service.BusinessMetrics;
+import tacos.service.IngredientCatalog;
+import tacos.service.IngredientPopularity;
+
+/**
+ * Reactive counterpart of <code>DesignTacoController</code>: lists the
+ * ingredients and stores designed tacos. Tacos designed in the browser wait in
+ * the session until the order is placed; API clients have no session, so a
+ * taco is stored right away, with the user who designed it, and ordered by its
+ * id. Tacos of other users do not exist as far as the API is concerned: they
+ * are neither listed nor shown (<tt>404</tt>), nor can they be ordered.<br>
+ * <br>
+ * Responses are built from projections (<code>IngredientRow</code>,
+ * {@link TacoView}), never from the JPA entities. The ingredient catalog is
+ * served from <code>IngredientCatalog</code>'s in-memory snapshot: its JSON and
+ * entity tag are computed once per snapshot, so a client polling with
+ * <tt>If-None-Match</tt> costs a string comparison and an empty
+ * <tt>304</tt>.
+ *
+ * @see ApiRoutes
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+public class DesignApiHandler {
+
+	private final ReactiveIngredientRepository ingredientRepository;
+	private final ReactiveTacoRepository tacoRepository;
+	private final TransactionalOperator transactionalOperator;
+	private final Validator validator;
+	private final BusinessMetrics businessMetrics;
+	private final IngredientCatalog ingredientCatalog;
+	private final IngredientPopularity ingredientPopularity;
+	private final ConditionalGet conditionalGet;
+	private final TacoViews tacoViews;
+	private final int pageSize;
+
+	private Logger logger = LoggerFactory.getLogger(DesignApiHandler.class);
+
+	// the catalog's JSON and ETag, for the snapshot they were computed from
+	private final AtomicReference<CatalogRepresentation> catalogRepresentation = new AtomicReference<>();
+
+	public DesignApiHandler(ReactiveIngredientRepository ingredientRepository, ReactiveTacoRepository tacoRepository,
+			TransactionalOperator transactionalOperator, Validator validator, BusinessMetrics businessMetrics,
+			IngredientCatalog ingredientCatalog, IngredientPopularity ingredientPopularity,
+			ConditionalGet conditionalGet, int pageSize) {
+		this.ingredientRepository = ingredientRepository;
+		this.tacoRepository = tacoRepository;
+		this.transactionalOperator = transactionalOperator;
+		this.validator = validator;
+		this.businessMetrics = businessMetrics;
+		this.ingredientCatalog = ingredientCatalog;
+		this.ingredientPopularity = ingredientPopularity;
+		this.conditionalGet = conditionalGet;
+		this.tacoViews = new TacoViews(tacoRepository, ingredientCatalog);
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * <tt>GET /api/ingredients</tt> - revalidated on every use
+	 * (<tt>Cache-Control: no-cache</tt>), so a client sees a change of the
+	 * catalog on its next poll.
+	 * 
+	 * @param request
+	 * @return JSON array of all ingredients, or <tt>304</tt> if the client's
+	 *         copy is current
+	 */
+	public Mono<ServerResponse> ingredients(ServerRequest request) {
+		IngredientCatalog.Snapshot snapshot = ingredientCatalog.snapshot();
+		CatalogRepresentation current = catalogRepresentation.get();
+		if (current == null || current.snapshot != snapshot) {
+			try {
+				current = new CatalogRepresentation(snapshot, conditionalGet.represent(
+						snapshot.findAll().stream().map(IngredientRow::of).collect(Collectors.toList())));
+			} catch (JsonProcessingException e) {
+				return Mono.error(e);
+			}
+			// racing requests compute the same bytes; either may stay
+			catalogRepresentation.set(current);
+		}
+		return conditionalGet.respond(request, current.representation, CacheControl.noCache());
+	}// ingredients() END
+
+	/**
+	 * <tt>GET /api/tacos?before={id}</tt> - the authenticated user's tacos, the
+	 * most recently designed first, <tt>tacocloud.reactive-api.page-size</tt> at a time. The
+	 * <tt>next</tt> cursor of a page (the id of its last taco) is also sent as a
+	 * <tt>Link: &lt;...&gt;; rel="next"</tt> header.
+	 * 
+	 * @param request
+	 * @return a {@link CursorPage} of {@link TacoView}s, or <tt>400</tt> if the
+	 *         cursor is malformed
+	 */
+	public Mono<ServerResponse> tacos(ServerRequest request) {
+		Long userId = (Long) request.attributes().get(ApiAuthentication.USER_ID_ATTRIBUTE);
+		long before;
+		try {
+			before = request.queryParam("before").map(Long::parseLong).orElse(Long.MAX_VALUE);
+		} catch (NumberFormatException e) {
+			return ValidationErrors.badRequest("before", "Malformed cursor");
+		}
+		return tacoRepository.findPageBefore(userId, before, pageSize + 1).collectList().flatMap(rows -> {
+			boolean more = rows.size() > pageSize;
+			return tacoViews.toViews(more ? rows.subList(0, pageSize) : rows).flatMap(views -> {
+				String next = more ? String.valueOf(views.get(views.size() - 1).getId()) : null;
+				return conditionalGet.respondPage(request, new CursorPage<>(views, next));
+			});
+		});
+	}// tacos() END
+
+	/**
+	 * <tt>GET /api/tacos/{id}</tt> - tacos never change once designed, so the
+	 * client may keep its copy for a day without asking again.
+	 * 
+	 * @param request
+	 * @return the {@link TacoView}, or <tt>404</tt> - also for a taco of
+	 *         another user
+	 */
+	public Mono<ServerResponse> taco(ServerRequest request) {
+		Long userId = (Long) request.attributes().get(ApiAuthentication.USER_ID_ATTRIBUTE);
+		return tacoRepository.findById(Long.valueOf(request.pathVariable("id")))
+				.filter(row -> userId.equals(row.getUserId()))
+				.flatMap(row -> tacoViews.toViews(Collections.singletonList(row)))
+				.flatMap(views -> conditionalGet.respond(request, views.get(0),
+						CacheControl.maxAge(1, TimeUnit.DAYS).cachePrivate()))
+				.switchIfEmpty(ServerResponse.notFound().build());
+	}
+
+	/**
+	 * <tt>POST /api/tacos</tt> - validates the taco against the constraints of
+	 * <code>Taco</code> and stores it with its ingredients in one transaction.
+	 * Once committed, its ingredients are counted as designed in
+	 * <code>IngredientPopularity</code>, on a <tt>boundedElastic</tt> thread.
+	 * 
+	 * @param request
+	 * @return <tt>201</tt> with the stored {@link TacoView} and its
+	 *         <tt>Location</tt>, or <tt>400</tt> with the field errors
+	 */
+	public Mono<ServerResponse> designTaco(ServerRequest request) {
+		Long userId = (Long) request.attributes().get(ApiAuthentication.USER_ID_ATTRIBUTE);
+		return request.bodyToMono(TacoRequest.class).flatMap(tacoRequest -> {
+			List<String> ids = tacoRequest.getIngredients() != null ? tacoRequest.getIngredients()
+					: Collections.<String>emptyList();
+			return ingredientRepository.findAllById(ids).collectMap(IngredientRow::getId).flatMap(found -> {
+				Taco taco = new Taco();
+				taco.setName(tacoRequest.getName());
+				taco.setIngredients(new ArrayList<>());
+				ids.stream().map(found::get).filter(Objects::nonNull).map(IngredientRow::toIngredient)
+						.forEach(taco::addIngredient);
+
+				ValidationErrors errors = new ValidationErrors(validator.validate(taco));
+				if (!found.keySet().containsAll(ids)) {
+					errors.reject("ingredients", "Unknown ingredient");
+				}
+				return errors.hasErrors() ? errors.toResponse() : save(taco, userId);
+			});
+		}).switchIfEmpty(ValidationErrors.badRequest("taco", "Request body is required"));
+	}// designTaco() END
+
+	// helper method; the taco row and its ingredient rows, in one transaction
+	private Mono<ServerResponse> save(Taco taco, Long userId) {
+		Date dateCreated = new Date();
+		return tacoRepository
+				.save(new TacoRow(taco.getName(), LocalDateTime.ofInstant(dateCreated.toInstant(), ZoneId.systemDefault()),
+						userId))
+				.flatMap(row -> Flux.fromIterable(taco.getIngredients())
+						.concatMap(ingredient -> tacoRepository.addIngredient(row.getId(), ingredient.getId()))
+						.then(Mono.just(row)))
+				.as(transactionalOperator::transactional)
+				.flatMap(row -> Mono.fromRunnable(() -> ingredientPopularity.tacoDesigned(taco.getIngredients()))
+						.subscribeOn(Schedulers.boundedElastic()).onErrorResume(e -> {
+							logger.warn("Taco {} was stored but not counted in popularity ({})", row.getId(),
+									e.getClass().getName());
+							return Mono.empty();
+						}).thenReturn(row))
+				.flatMap(row -> {
+					businessMetrics.tacoDesigned();
+					List<IngredientRow> ingredients = taco.getIngredients().stream().map(IngredientRow::of)
+							.collect(Collectors.toList());
+					return ServerResponse.created(URI.create(ApiRoutes.TACOS + "/" + row.getId()))
+							.contentType(MediaType.APPLICATION_JSON)
+							.bodyValue(new TacoView(row.getId(), row.getName(), dateCreated, ingredients));
+				});
+	}
+
+	private static final class CatalogRepresentation {
+
+		private final IngredientCatalog.Snapshot snapshot;
+		private final ConditionalGet.Representation representation;
+
+		CatalogRepresentation(IngredientCatalog.Snapshot snapshot, ConditionalGet.Representation representation) {
+			this.snapshot = snapshot;
+			this.representation = representation;
+		}
+
+	}// CatalogRepresentation END
+
+}
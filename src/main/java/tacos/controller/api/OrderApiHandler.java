@@ -0,0 +1,263 @@
+package tacos.controller.api;
+
+import java.net.URI;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.validation.Validator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import tacos.data.OrderSummary;
+import tacos.data.reactive.ReactiveOrderRepository;
+import tacos.data.reactive.ReactiveTacoRepository;
+import tacos.data.reactive.TacoIngredient;
+import tacos.data.reactive.TacoOrderRow;
+import tacos.data.reactive.TacoRow;
+import tacos.model.bean.Taco;
+import tacos.model.bean.TacoOrder;
+import tacos.service.BusinessMetrics;
+import tacos.service.IngredientCatalog;
+import tacos.service.IngredientPopularity;
+import tacos.service.SalesRollups;
+
+/**
+ * Reactive counterpart of <code>OrderController.processOrder</code>: places an
+ * order for tacos stored before with <tt>POST /api/tacos</tt>, on behalf of the
+ * authenticated user.<br>
+ * Orders are always written directly, also when the browser's orders go
+ * through the write-behind queue (<tt>tacocloud.orders.write-behind.enabled</tt>):
+ * the insert does not hold a thread while it waits. Once committed, the order
+ * is counted in <code>IngredientPopularity</code> and <code>SalesRollups</code>
+ * like a browser order, on a <tt>boundedElastic</tt> thread rather than the
+ * event loop; a failure to count it is logged and does not fail the
+ * request.<br>
+ * <br>
+ * The user's order history is read straight into <code>OrderSummary</code>
+ * projections, keyset-paginated like the history page; a single order is
+ * shown as an {@link OrderView}, without the payment details. Orders of other
+ * users do not exist as far as the API is concerned (<tt>404</tt>).
+ *
+ * @see ApiRoutes
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+public class OrderApiHandler {
+
+	private final ReactiveTacoRepository tacoRepository;
+	private final ReactiveOrderRepository orderRepository;
+	private final TransactionalOperator transactionalOperator;
+	private final Validator validator;
+	private final BusinessMetrics businessMetrics;
+	private final IngredientCatalog ingredientCatalog;
+	private final IngredientPopularity ingredientPopularity;
+	private final SalesRollups salesRollups;
+	private final ConditionalGet conditionalGet;
+	private final TacoViews tacoViews;
+	private final int pageSize;
+
+	private Logger logger = LoggerFactory.getLogger(OrderApiHandler.class);
+
+	public OrderApiHandler(ReactiveTacoRepository tacoRepository, ReactiveOrderRepository orderRepository,
+			TransactionalOperator transactionalOperator, Validator validator, BusinessMetrics businessMetrics,
+			IngredientCatalog ingredientCatalog, IngredientPopularity ingredientPopularity, SalesRollups salesRollups,
+			ConditionalGet conditionalGet, int pageSize) {
+		this.tacoRepository = tacoRepository;
+		this.orderRepository = orderRepository;
+		this.transactionalOperator = transactionalOperator;
+		this.validator = validator;
+		this.businessMetrics = businessMetrics;
+		this.ingredientCatalog = ingredientCatalog;
+		this.ingredientPopularity = ingredientPopularity;
+		this.salesRollups = salesRollups;
+		this.conditionalGet = conditionalGet;
+		this.tacoViews = new TacoViews(tacoRepository, ingredientCatalog);
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * <tt>GET /api/orders?before={cursor}</tt> - the authenticated user's orders,
+	 * the most recent first, <tt>tacocloud.reactive-api.page-size</tt> at a time.
+	 * The cursor is <code>OrderSummary.getCursor()</code> of the last order of
+	 * the previous page.
+	 * 
+	 * @param request
+	 * @return a {@link CursorPage} of <code>OrderSummary</code>s, or <tt>400</tt>
+	 *         if the cursor is malformed
+	 */
+	public Mono<ServerResponse> orders(ServerRequest request) {
+		Long userId = (Long) request.attributes().get(ApiAuthentication.USER_ID_ATTRIBUTE);
+		String cursor = request.queryParam("before").orElse(null);
+		Flux<OrderSummary> orders;
+		if (cursor == null) {
+			orders = orderRepository.findHistoryByUser(userId, pageSize + 1);
+		} else {
+			int separator = cursor.indexOf('_');
+			try {
+				LocalDateTime placed = LocalDateTime.ofInstant(
+						Instant.ofEpochMilli(Long.parseLong(cursor.substring(0, Math.max(separator, 0)))),
+						ZoneId.systemDefault());
+				orders = orderRepository.findHistoryByUserBefore(userId, placed,
+						Long.valueOf(cursor.substring(separator + 1)), pageSize + 1);
+			} catch (NumberFormatException e) {
+				return ValidationErrors.badRequest("before", "Malformed cursor");
+			}
+		}
+		return orders.collectList().flatMap(summaries -> {
+			boolean more = summaries.size() > pageSize;
+			List<OrderSummary> items = more ? summaries.subList(0, pageSize) : summaries;
+			String next = more ? items.get(items.size() - 1).getCursor() : null;
+			return conditionalGet.respondPage(request, new CursorPage<>(items, next));
+		});
+	}// orders() END
+
+	/**
+	 * <tt>GET /api/orders/{id}</tt> - orders never change once placed, so the
+	 * client may keep its copy for a day without asking again.
+	 * 
+	 * @param request
+	 * @return the {@link OrderView}, or <tt>404</tt>
+	 */
+	public Mono<ServerResponse> order(ServerRequest request) {
+		Long userId = (Long) request.attributes().get(ApiAuthentication.USER_ID_ATTRIBUTE);
+		return orderRepository.findById(Long.valueOf(request.pathVariable("id")))
+				.filter(row -> userId.equals(row.getUserId()))
+				.flatMap(row -> orderRepository.findTacoIds(row.getId()).collectList()
+						.flatMap(ids -> tacoRepository.findAllById(ids).collectList().flatMap(tacoViews::toViews)
+								.map(views -> {
+									// the same taco may be ordered more than once
+									Map<Long, TacoView> byId = TacoViews.byId(views);
+									return new OrderView(row, toDate(row.getDateOrderPlaced()), ids.stream()
+											.map(byId::get).filter(Objects::nonNull).collect(Collectors.toList()));
+								})))
+				.flatMap(view -> conditionalGet.respond(request, view,
+						CacheControl.maxAge(1, TimeUnit.DAYS).cachePrivate()))
+				.switchIfEmpty(ServerResponse.notFound().build());
+	}// order() END
+
+	/**
+	 * <tt>POST /api/orders</tt> - validates the order against the constraints of
+	 * <code>TacoOrder</code>, checks that every taco exists and was designed by
+	 * the authenticated user, and stores the order with its tacos in one
+	 * transaction.
+	 * 
+	 * @param request
+	 * @return <tt>201</tt> with an <code>OrderSummary</code> and the order's
+	 *         <tt>Location</tt>, or <tt>400</tt> with the field errors
+	 */
+	public Mono<ServerResponse> placeOrder(ServerRequest request) {
+		Long userId = (Long) request.attributes().get(ApiAuthentication.USER_ID_ATTRIBUTE);
+		return request.bodyToMono(OrderRequest.class).flatMap(orderRequest -> {
+			List<Long> ids = orderRequest.getTacos() != null ? orderRequest.getTacos()
+					: Collections.<Long>emptyList();
+			// another user's taco is as unknown as a missing one
+			Flux<TacoRow> ownTacos = tacoRepository.findAllById(ids).filter(row -> userId.equals(row.getUserId()));
+			return ownTacos.collectMap(TacoRow::getId).flatMap(found -> {
+				TacoOrder tacoOrder = toTacoOrder(orderRequest, ids, found);
+
+				ValidationErrors errors = new ValidationErrors(validator.validate(tacoOrder));
+				if (ids.isEmpty()) {
+					errors.reject("tacos", "You must order at least 1 taco");
+				} else if (!found.keySet().containsAll(ids)) {
+					errors.reject("tacos", "Unknown taco");
+				}
+				return errors.hasErrors() ? errors.toResponse() : save(tacoOrder, userId);
+			});
+		}).switchIfEmpty(ValidationErrors.badRequest("order", "Request body is required"));
+	}// placeOrder() END
+
+	// helper method; the order row and its taco rows, in one transaction
+	private Mono<ServerResponse> save(TacoOrder tacoOrder, Long userId) {
+		Date dateOrderPlaced = new Date();
+		TacoOrderRow row = new TacoOrderRow();
+		row.setDeliveryName(tacoOrder.getDeliveryName());
+		row.setDeliveryStreet(tacoOrder.getDeliveryStreet());
+		row.setDeliveryCity(tacoOrder.getDeliveryCity());
+		row.setDeliveryState(tacoOrder.getDeliveryState());
+		row.setDeliveryZip(tacoOrder.getDeliveryZip());
+		row.setCcNumber(tacoOrder.getCcNumber());
+		row.setCcExpiration(tacoOrder.getCcExpiration());
+		row.setCcCVV(tacoOrder.getCcCVV());
+		row.setDateOrderPlaced(LocalDateTime.ofInstant(dateOrderPlaced.toInstant(), ZoneId.systemDefault()));
+		row.setUserId(userId);
+
+		return orderRepository.save(row)
+				.flatMap(saved -> Flux.fromIterable(tacoOrder.getTacos())
+						.concatMap(taco -> orderRepository.addTaco(saved.getId(), taco.getId()))
+						.then(Mono.just(saved)))
+				.as(transactionalOperator::transactional)
+				.flatMap(saved -> counted(tacoOrder, dateOrderPlaced).thenReturn(saved)).flatMap(saved -> {
+					businessMetrics.orderPlaced(false);
+					return ServerResponse.created(URI.create(ApiRoutes.ORDERS + "/" + saved.getId()))
+							.contentType(MediaType.APPLICATION_JSON)
+							.bodyValue(new OrderSummary(saved.getId(), dateOrderPlaced, saved.getDeliveryName(),
+									saved.getDeliveryCity(), saved.getDeliveryState(), saved.getDeliveryZip(),
+									tacoOrder.getTacos().size()));
+				});
+	}// save() END
+
+	// helper method; counts the committed order in popularity and rollups, with
+	// the ingredients of its tacos from the catalog
+	private Mono<Void> counted(TacoOrder tacoOrder, Date dateOrderPlaced) {
+		List<Long> ids = tacoOrder.getTacos().stream().map(Taco::getId).distinct().collect(Collectors.toList());
+		return tacoRepository.findIngredients(ids)
+				.collectMultimap(TacoIngredient::getTacoId, TacoIngredient::getIngredientsId)
+				.publishOn(Schedulers.boundedElastic()).doOnNext(ingredients -> {
+					IngredientCatalog.Snapshot catalog = ingredientCatalog.snapshot();
+					for (Taco taco : tacoOrder.getTacos()) {
+						taco.setIngredients(ingredients.getOrDefault(taco.getId(), Collections.emptyList()).stream()
+								.map(catalog::findById).filter(Objects::nonNull).collect(Collectors.toList()));
+					}
+					tacoOrder.setDateOrderPlaced(dateOrderPlaced);
+					ingredientPopularity.orderPlaced(tacoOrder.getTacos());
+					salesRollups.orderPlaced(tacoOrder);
+				}).then().onErrorResume(e -> {
+					logger.warn("Order placed through the API was written but not counted in popularity and rollups "
+							+ "({})", e.getClass().getName());
+					return Mono.empty();
+				});
+	}// counted() END
+
+	private static Date toDate(LocalDateTime dateTime) {
+		return dateTime != null ? Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant()) : null;
+	}
+
+	// helper method; the order as the browser would have submitted it
+	private static TacoOrder toTacoOrder(OrderRequest orderRequest, List<Long> ids, Map<Long, TacoRow> found) {
+		TacoOrder tacoOrder = new TacoOrder();
+		tacoOrder.setDeliveryName(orderRequest.getDeliveryName());
+		tacoOrder.setDeliveryStreet(orderRequest.getDeliveryStreet());
+		tacoOrder.setDeliveryCity(orderRequest.getDeliveryCity());
+		tacoOrder.setDeliveryState(orderRequest.getDeliveryState());
+		tacoOrder.setDeliveryZip(orderRequest.getDeliveryZip());
+		tacoOrder.setCcNumber(orderRequest.getCcNumber());
+		tacoOrder.setCcExpiration(orderRequest.getCcExpiration());
+		tacoOrder.setCcCVV(orderRequest.getCcCVV());
+		// the same taco may be ordered more than once
+		tacoOrder.setTacos(ids.stream().map(found::get).filter(Objects::nonNull).map(row -> {
+			Taco taco = new Taco();
+			taco.setId(row.getId());
+			taco.setName(row.getName());
+			return taco;
+		}).collect(Collectors.toList()));
+		return tacoOrder;
+	}
+
+}
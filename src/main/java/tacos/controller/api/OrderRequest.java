@@ -0,0 +1,99 @@
+package tacos.controller.api;
+
+import java.util.List;
+
+/**
+ * Body of <tt>POST /api/orders</tt>: delivery and payment details, as on the
+ * order form, and the ids of tacos designed with <tt>POST /api/tacos</tt>.
+ *
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+public class OrderRequest {
+
+	private String deliveryName;
+	private String deliveryStreet;
+	private String deliveryCity;
+	private String deliveryState;
+	private String deliveryZip;
+	private String ccNumber;
+	private String ccExpiration;
+	private String ccCVV;
+	// strings, as the API sends ids, or numbers; Jackson coerces both
+	private List<Long> tacos;
+
+	// getters and setters || accessors and mutators
+	public String getDeliveryName() {
+		return deliveryName;
+	}
+
+	public void setDeliveryName(String deliveryName) {
+		this.deliveryName = deliveryName;
+	}
+
+	public String getDeliveryStreet() {
+		return deliveryStreet;
+	}
+
+	public void setDeliveryStreet(String deliveryStreet) {
+		this.deliveryStreet = deliveryStreet;
+	}
+
+	public String getDeliveryCity() {
+		return deliveryCity;
+	}
+
+	public void setDeliveryCity(String deliveryCity) {
+		this.deliveryCity = deliveryCity;
+	}
+
+	public String getDeliveryState() {
+		return deliveryState;
+	}
+
+	public void setDeliveryState(String deliveryState) {
+		this.deliveryState = deliveryState;
+	}
+
+	public String getDeliveryZip() {
+		return deliveryZip;
+	}
+
+	public void setDeliveryZip(String deliveryZip) {
+		this.deliveryZip = deliveryZip;
+	}
+
+	public String getCcNumber() {
+		return ccNumber;
+	}
+
+	public void setCcNumber(String ccNumber) {
+		this.ccNumber = ccNumber;
+	}
+
+	public String getCcExpiration() {
+		return ccExpiration;
+	}
+
+	public void setCcExpiration(String ccExpiration) {
+		this.ccExpiration = ccExpiration;
+	}
+
+	public String getCcCVV() {
+		return ccCVV;
+	}
+
+	public void setCcCVV(String ccCVV) {
+		this.ccCVV = ccCVV;
+	}
+
+	public List<Long> getTacos() {
+		return tacos;
+	}
+
+	public void setTacos(List<Long> tacos) {
+		this.tacos = tacos;
+	}
+	// getters and setters END
+
+}
@@ -0,0 +1,75 @@
+package tacos.controller.api;
+
+import java.util.Date;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+import tacos.data.reactive.TacoOrderRow;
+
+/**
+ * How the API represents one order: delivery details and the ordered tacos.
+ * Payment details are never sent back.
+ *
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+public class OrderView {
+
+	// time-ordered ids exceed 2^53: sent as strings, JavaScript clients would round numbers
+	@JsonSerialize(using = ToStringSerializer.class)
+	private final Long id;
+	private final Date dateOrderPlaced;
+	private final String deliveryName;
+	private final String deliveryStreet;
+	private final String deliveryCity;
+	private final String deliveryState;
+	private final String deliveryZip;
+	private final List<TacoView> tacos;
+
+	public OrderView(TacoOrderRow row, Date dateOrderPlaced, List<TacoView> tacos) {
+		this.id = row.getId();
+		this.dateOrderPlaced = dateOrderPlaced;
+		this.deliveryName = row.getDeliveryName();
+		this.deliveryStreet = row.getDeliveryStreet();
+		this.deliveryCity = row.getDeliveryCity();
+		this.deliveryState = row.getDeliveryState();
+		this.deliveryZip = row.getDeliveryZip();
+		this.tacos = tacos;
+	}
+
+	// getters || accessors
+	public Long getId() {
+		return id;
+	}
+
+	public Date getDateOrderPlaced() {
+		return dateOrderPlaced;
+	}
+
+	public String getDeliveryName() {
+		return deliveryName;
+	}
+
+	public String getDeliveryStreet() {
+		return deliveryStreet;
+	}
+
+	public String getDeliveryCity() {
+		return deliveryCity;
+	}
+
+	public String getDeliveryState() {
+		return deliveryState;
+	}
+
+	public String getDeliveryZip() {
+		return deliveryZip;
+	}
+
+	public List<TacoView> getTacos() {
+		return tacos;
+	}
+
+}
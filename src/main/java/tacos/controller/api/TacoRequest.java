@@ -0,0 +1,33 @@
+package tacos.controller.api;
+
+import java.util.List;
+
+/**
+ * Body of <tt>POST /api/tacos</tt>: the taco's name and the ids of its
+ * ingredients.
+ *
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+public class TacoRequest {
+
+	private String name;
+	private List<String> ingredients;
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public List<String> getIngredients() {
+		return ingredients;
+	}
+
+	public void setIngredients(List<String> ingredients) {
+		this.ingredients = ingredients;
+	}
+
+}
@@ -0,0 +1,49 @@
+package tacos.controller.api;
+
+import java.util.Date;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+import tacos.data.reactive.IngredientRow;
+
+/**
+ * How the API represents a taco: its id, name, creation date and ingredients.
+ *
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+public class TacoView {
+
+	// time-ordered ids exceed 2^53: sent as strings, JavaScript clients would round numbers
+	@JsonSerialize(using = ToStringSerializer.class)
+	private final Long id;
+	private final String name;
+	private final Date dateCreated;
+	private final List<IngredientRow> ingredients;
+
+	public TacoView(Long id, String name, Date dateCreated, List<IngredientRow> ingredients) {
+		this.id = id;
+		this.name = name;
+		this.dateCreated = dateCreated;
+		this.ingredients = ingredients;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Date getDateCreated() {
+		return dateCreated;
+	}
+
+	public List<IngredientRow> getIngredients() {
+		return ingredients;
+	}
+
+}
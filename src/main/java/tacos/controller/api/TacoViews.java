@@ -0,0 +1,82 @@
+package tacos.controller.api;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import reactor.core.publisher.Mono;
+import tacos.data.reactive.IngredientRow;
+import tacos.data.reactive.ReactiveTacoRepository;
+import tacos.data.reactive.TacoIngredient;
+import tacos.data.reactive.TacoRow;
+import tacos.service.IngredientCatalog;
+
+/**
+ * Builds {@link TacoView}s for taco rows: the ingredient ids of all tacos are
+ * read in one query, their names and types come from the in-memory
+ * <code>IngredientCatalog</code>.
+ *
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+class TacoViews {
+
+	private final ReactiveTacoRepository tacoRepository;
+	private final IngredientCatalog ingredientCatalog;
+
+	TacoViews(ReactiveTacoRepository tacoRepository, IngredientCatalog ingredientCatalog) {
+		this.tacoRepository = tacoRepository;
+		this.ingredientCatalog = ingredientCatalog;
+	}
+
+	/**
+	 * @param rows
+	 * @return a view of every row, in the same order
+	 */
+	Mono<List<TacoView>> toViews(List<TacoRow> rows) {
+		if (rows.isEmpty()) {
+			return Mono.just(Collections.emptyList());
+		}
+		List<Long> ids = rows.stream().map(TacoRow::getId).distinct().collect(Collectors.toList());
+		return tacoRepository.findIngredients(ids)
+				.collectMultimap(TacoIngredient::getTacoId, TacoIngredient::getIngredientsId).map(ingredients -> {
+					IngredientCatalog.Snapshot catalog = ingredientCatalog.snapshot();
+					List<TacoView> views = new ArrayList<>(rows.size());
+					for (TacoRow row : rows) {
+						views.add(new TacoView(row.getId(), row.getName(), toDate(row),
+								toIngredients(ingredients.get(row.getId()), catalog)));
+					}
+					return views;
+				});
+	}
+
+	// helper method; an ingredient missing from the snapshot is shown by id only
+	private static List<IngredientRow> toIngredients(Collection<String> ids, IngredientCatalog.Snapshot catalog) {
+		if (ids == null) {
+			return Collections.emptyList();
+		}
+		return ids.stream().map(id -> {
+			if (catalog.findById(id) != null) {
+				return IngredientRow.of(catalog.findById(id));
+			}
+			IngredientRow unknown = new IngredientRow();
+			unknown.setId(id);
+			return unknown;
+		}).collect(Collectors.toList());
+	}
+
+	static Date toDate(TacoRow row) {
+		return row.getDateCreated() != null ? Date.from(row.getDateCreated().atZone(ZoneId.systemDefault()).toInstant())
+				: null;
+	}
+
+	static Map<Long, TacoView> byId(List<TacoView> views) {
+		return views.stream().collect(Collectors.toMap(TacoView::getId, view -> view, (a, b) -> a));
+	}
+
+}
@@ -0,0 +1,54 @@
+package tacos.controller.api;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.validation.ConstraintViolation;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Field errors of a rejected API request, by field name; answered as
+ * <tt>400</tt> with <tt>{"errors": {"field": "message", ...}}</tt>.
+ *
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+class ValidationErrors {
+
+	private final Map<String, String> errors = new TreeMap<>();
+
+	ValidationErrors(Set<? extends ConstraintViolation<?>> violations) {
+		for (ConstraintViolation<?> violation : violations) {
+			// first message per field, as the form shows it
+			errors.putIfAbsent(violation.getPropertyPath().toString(), violation.getMessage());
+		}
+	}
+
+	void reject(String field, String message) {
+		errors.putIfAbsent(field, message);
+	}
+
+	boolean hasErrors() {
+		return !errors.isEmpty();
+	}
+
+	Mono<ServerResponse> toResponse() {
+		return badRequest(errors);
+	}
+
+	static Mono<ServerResponse> badRequest(String field, String message) {
+		return badRequest(Collections.singletonMap(field, message));
+	}
+
+	private static Mono<ServerResponse> badRequest(Map<String, String> errors) {
+		return ServerResponse.badRequest().contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(Collections.singletonMap("errors", errors));
+	}
+
+}
@@ -1,9 +1,14 @@
 package tacos.controller.security;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import javax.validation.Valid;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -12,12 +17,17 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.SessionAttributes;
 import org.springframework.web.bind.support.SessionStatus;
 
 import tacos.data.UserRepository;
 import tacos.model.bean.User;
+import tacos.security.PasswordHashingRejectedException;
 import tacos.security.bean.RegistrationForm;
+import tacos.service.BusinessMetrics;
+import tacos.service.UsernameRegistry;
 
 /**
  * <code>RegistrationController</code>, like any typical Spring MVC controller
@@ -39,12 +49,17 @@ public class RegistrationController {
 
 	private UserRepository userRepository;
 	private PasswordEncoder passwordEncoder;
+	private UsernameRegistry usernameRegistry;
+	private BusinessMetrics businessMetrics;
 
 	private Logger logger = LoggerFactory.getLogger(RegistrationForm.class);
 
-	public RegistrationController(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+	public RegistrationController(UserRepository userRepository, PasswordEncoder passwordEncoder,
+			UsernameRegistry usernameRegistry, BusinessMetrics businessMetrics) {
 		this.userRepository = userRepository;
 		this.passwordEncoder = passwordEncoder;
+		this.usernameRegistry = usernameRegistry;
+		this.businessMetrics = businessMetrics;
 	}
 
 	/**
@@ -59,14 +74,39 @@ public class RegistrationController {
 		return "registration";
 	}
 
+	/**
+	 * Lets the registration form check whether a username is available while the
+	 * user types it, e.g. <tt>GET /register/available?username=taco</tt> returns
+	 * <tt>{"username":"taco","available":false}</tt>.<br>
+	 * Most free usernames are answered from memory by the
+	 * <code>UsernameRegistry</code>, without a database round trip.
+	 * 
+	 * @param username
+	 * @return <b>Map</b> - rendered as JSON
+	 */
+	@GetMapping(path = "/available", produces = MediaType.APPLICATION_JSON_VALUE)
+	@ResponseBody
+	public Map<String, Object> usernameAvailable(@RequestParam("username") String username) {
+		Map<String, Object> body = new LinkedHashMap<>();
+		body.put("username", username);
+		body.put("available", usernameRegistry.isAvailable(username));
+		return body;
+	}
+
 	/**
 	 * While processing a form submission, <code>processRegistration</code> method
 	 * passes <code>PasswordEncoder</code> to the <code>toUser</code> method which
 	 * uses it to encode the password before saving it to the database. In this way,
 	 * the submitted password is written in an encoded form, and the
-	 * {@link tacos.security.SecurityConfig#userDetailsService(UserRepository)
+	 * {@link tacos.security.SecurityConfig#userDetailsService(tacos.service.UserDetailsCache)
 	 * userDetailsService} will be able to authenticate against that encoded
 	 * password.<br>
+	 * Usernames are unique (unique index on <tt>user.username</tt>); if the
+	 * username is already taken, the form is shown again with an error. The
+	 * <code>UsernameRegistry</code> is asked first, so a taken username is
+	 * reported before the (slow) password hashing. The form is shown again also
+	 * if the password cannot be hashed right now because too many passwords are
+	 * being hashed already.<br>
 	 * The parameter <code>RegistrationForm</code> object is bound to the request
 	 * data and it is defined in class: tacos.security.bean.RegistrationForm.
 	 * 
@@ -82,8 +122,25 @@ public class RegistrationController {
 			return "registration";
 		}
 
-		User persistedUser = userRepository.save(registrationForm.toUser(passwordEncoder));
-		logger.info("\n User registration processed: " + persistedUser);
+		if (!usernameRegistry.isAvailable(registrationForm.getUsername())) {
+			errors.rejectValue("username", "username.taken", "Username is already taken");
+			return "registration";
+		}
+
+		User persistedUser;
+		try {
+			persistedUser = userRepository.save(registrationForm.toUser(passwordEncoder));
+		} catch (DataIntegrityViolationException e) {
+			errors.rejectValue("username", "username.taken", "Username is already taken");
+			return "registration";
+		} catch (PasswordHashingRejectedException e) {
+			errors.reject("registration.busy", "We are very busy right now, please try again in a moment");
+			return "registration";
+		}
+		businessMetrics.userRegistered();
+		// no entity dump: User.toString() includes the password hash
+		logger.info("User registration processed: id {}, username {}", persistedUser.getId(),
+				persistedUser.getUsername());
 		sessionStatus.setComplete();
 		return "redirect:/login";
 
@@ -1,9 +1,5 @@
 package tacos.controller.web;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.stream.Collectors;
-
 import javax.validation.Valid;
 
 import org.slf4j.Logger;
@@ -18,12 +14,13 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.SessionAttributes;
 
-import tacos.data.IngredientRepository;
-import tacos.data.TacoRepositry;
-import tacos.model.bean.Ingredient;
 import tacos.model.bean.IngredientType;
 import tacos.model.bean.Taco;
-import tacos.model.bean.TacoOrder;
+import tacos.model.bean.TacoOrderDraft;
+import tacos.service.BusinessMetrics;
+import tacos.service.EntityDumps;
+import tacos.service.IngredientCatalog;
+import tacos.service.IngredientPopularity;
 
 /**
  * <code>DesignTacoController</code> is a controller class that addresses the
@@ -38,7 +35,7 @@ import tacos.model.bean.TacoOrder;
  * 
  * @see #addIngredientsToModel(Model)
  * @see #showDesignForm(Model)
- * @see #processTaco(Taco, Errors, TacoOrder)
+ * @see #processTaco(Taco, Errors, TacoOrderDraft)
  * 
  * 
  * @author Dejan Smiljić <dej4n.s@gmail.com>
@@ -46,13 +43,17 @@ import tacos.model.bean.TacoOrder;
  */
 @Controller
 @RequestMapping("/design")
-@SessionAttributes("tacoOrder")
+@SessionAttributes("tacoOrderDraft")
 public class DesignTacoController {
 
 	@Autowired
-	private IngredientRepository ingredientRepository;
+	private IngredientCatalog ingredientCatalog;
+	@Autowired
+	private BusinessMetrics businessMetrics;
 	@Autowired
-	private TacoRepositry tacoRepositry;
+	private EntityDumps entityDumps;
+	@Autowired
+	private IngredientPopularity ingredientPopularity;
 
 	private Logger logger = LoggerFactory.getLogger(DesignTacoController.class);
 
@@ -61,17 +62,15 @@ public class DesignTacoController {
 	 * @param model <br>
 	 *              <br>
 	 *              <code>addIngredientsToModel</code> method is invoked when a
-	 *              request is handled and constructs a list of
-	 *              <code>Ingredient</code> objects to be put into the model.<br>
-	 *              The method uses the injected <code>IngredientRepository</code>'s
-	 *              method <code>findAll</code> to fetch all ingredients from the
-	 *              database. <br>
-	 *              Once the list of ingredients is ready, the next few lines of
-	 *              <code>addIngredientsToModel</code> method filters the list by
-	 *              ingredient type (using a helper method named
-	 *              <code>filterByType</code>). A list of ingredient types is then
-	 *              added as an attribute to the <code>Model</code> object that will
-	 *              be passed to <code>showDesignForm</code> method.<br>
+	 *              request is handled and puts the ingredients, grouped by
+	 *              ingredient type, into the model.<br>
+	 *              The ingredients are read from the injected
+	 *              <code>IngredientCatalog</code> - an immutable, in-memory
+	 *              snapshot that is already grouped by type - so the read path
+	 *              never touches the database and no per-request filtering is
+	 *              needed. The list of ingredients for each type is added as an
+	 *              attribute to the <code>Model</code> object that will be passed
+	 *              to <code>showDesignForm</code> method.<br>
 	 *              <code><b>Model</b></code> is an object that ferries data between
 	 *              a controller and whatever view is charged with rendering that
 	 *              data. Ultimately, data that’s placed in <code>Model</code>
@@ -82,21 +81,14 @@ public class DesignTacoController {
 	@ModelAttribute
 	public void addIngredientsToModel(Model model) {
 
-		List<Ingredient> ingredients = new ArrayList<>();
-		ingredientRepository.findAll().forEach(i -> ingredients.add(i));
+		IngredientCatalog.Snapshot catalog = ingredientCatalog.snapshot();
 
 		IngredientType[] types = IngredientType.values();
 		for (IngredientType type : types) {
-			model.addAttribute(type.toString().toLowerCase(), filterByType(ingredients, type));
+			model.addAttribute(type.toString().toLowerCase(), catalog.findByType(type));
 		}
 	}// addIngredientsToModel() END
 
-	// helper method; filters the list by ingredient type
-	private Iterable<Ingredient> filterByType(List<Ingredient> ingredients, IngredientType ingredientType) {
-		return ingredients.stream().filter(x -> x.getIngredientType().equals(ingredientType))
-				.collect(Collectors.toList());
-	}// filterByType() END
-
 	/**
 	 * @param model
 	 * @return <b>String</b> - the logical name of the view that will be used to
@@ -119,17 +111,19 @@ public class DesignTacoController {
 	}// showDesignForm() END
 
 	/**
-	 * <code>@ModelAttribute</code> annotation ensures that an TacoOrder object will
-	 * be created in the model. <br>
+	 * <code>@ModelAttribute</code> annotation ensures that an TacoOrderDraft object
+	 * will be created in the model. <br>
 	 * The class-level <code>@SessionAttributes</code> annotation specifies any
-	 * model objects like the <tt>tacoOrder</tt> attribute that should be kept in
-	 * session and available across multiple requests.
+	 * model objects like the <tt>tacoOrderDraft</tt> attribute that should be kept
+	 * in session and available across multiple requests.<br>
+	 * The draft keeps only taco names and ingredient ids, not whole
+	 * <code>Taco</code> entities, to keep the per-user session small.
 	 * 
-	 * @return TacoOrder
+	 * @return TacoOrderDraft
 	 */
-	@ModelAttribute(name = "tacoOrder")
-	public TacoOrder tacoOrder() {
-		return new TacoOrder();
+	@ModelAttribute(name = "tacoOrderDraft")
+	public TacoOrderDraft tacoOrderDraft() {
+		return new TacoOrderDraft();
 	}
 
 	/**
@@ -152,30 +146,29 @@ public class DesignTacoController {
 	 *         the form is redisplayed. If there are no errors the user’s browser
 	 *         should be redirected to the relative path
 	 *         "<tt>/orders/current</tt>".<br>
-	 *         The <code>TacoOrder</code> parameter is annotated with
+	 *         The <code>TacoOrderDraft</code> parameter is annotated with
 	 *         <tt>@ModelAttribute</tt> to indicate that its value should come from
 	 *         the model and that Spring MVC shouldn’t attempt to bind request
 	 *         parameters to it.<br>
-	 *         After checking for validation errors, injected
-	 *         <code>TacoRepository</code> is used to persist (save) the taco.
-	 *         <code>Taco</code> object is then also added to the
-	 *         <code>TacoOrder</code> that’s kept in the session.
+	 *         After checking for validation errors, the taco's name and ingredient
+	 *         ids are added to the <code>TacoOrderDraft</code> that’s kept in the
+	 *         session. The taco is persisted together with the order, when the
+	 *         order is placed (see <code>OrderController.processOrder</code>).
 	 */
 	@PostMapping
 	public String processTaco(@Valid @ModelAttribute("taco") Taco taco, Errors errors,
-			@ModelAttribute TacoOrder tacoOrder) {
+			@ModelAttribute TacoOrderDraft tacoOrderDraft) {
 		if (errors.hasErrors()) {
 			return "design";
 		}
 
-		// After checking for validation errors, processTaco() uses the injected
-		// TacoRepository to save the taco.
-		Taco persistedTaco = tacoRepositry.save(taco);
-		// Adds the Taco object to the TacoOrder that’s kept in the session.
-		tacoOrder.addTaco(persistedTaco);
-		// tacoOrder.getTacos().add(persistedTaco);
+		// Adds the designed taco to the draft that’s kept in the session.
+		tacoOrderDraft.addTaco(taco);
+		businessMetrics.tacoDesigned();
+		ingredientPopularity.tacoDesigned(taco.getIngredients());
 
-		logger.info("\nProcessing taco... " + persistedTaco + "\n all tacos: " + tacoOrder.getTacos());
+		logger.info("Taco designed: {}, {} taco(s) in order", taco.getName(), tacoOrderDraft.size());
+		entityDumps.dump(logger, "Taco designed: {}, all tacos: {}", taco, tacoOrderDraft.getTacos());
 		return "redirect:/orders/current";
 	}// processTaco() END
 
@@ -4,8 +4,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.stereotype.Component;
 
-import tacos.data.IngredientRepository;
 import tacos.model.bean.Ingredient;
+import tacos.service.IngredientCatalog;
 
 /**
  * @author Dejan Smiljić <dej4n.s@gmail.com> <br>
@@ -19,9 +19,11 @@ import tacos.model.bean.Ingredient;
  *         The overridden <code>convert</code> method takes a <b>String</b>
  *         which is the ingredient ID and uses it to lookup the
  *         <strong>Ingredient</strong>.<br>
- *         Method <code>findById</code> fetches <code>Ingredient</code> object
- *         from database. This method is a member of injected
- *         <code>IngredientRepository</code>.<br>
+ *         Method <code>findById</code> looks the <code>Ingredient</code> object
+ *         up in the injected in-memory <code>IngredientCatalog</code>; the
+ *         database is only queried for ids the catalog does not know yet.<br>
+ *         Lists of ingredients (e.g. <tt>Taco.ingredients</tt>) are converted in
+ *         one go by {@link IngredientsByIdsConverter}.<br>
  *         The <code>IngredientByIdConverter</code> is annotated with
  *         <tt>@Component</tt> to make it recognizable as a bean in the Spring
  *         application context.
@@ -31,7 +33,7 @@ import tacos.model.bean.Ingredient;
 public class IngredientByIdConverter implements Converter<String, Ingredient> {
 
 	@Autowired
-	private IngredientRepository ingredientRepository;
+	private IngredientCatalog ingredientCatalog;
 
 	// constructor
 	public IngredientByIdConverter() {
@@ -39,7 +41,7 @@ public class IngredientByIdConverter implements Converter<String, Ingredient> {
 
 	@Override
 	public Ingredient convert(String id) {
-		return ingredientRepository.findById(id).orElse(null);
+		return ingredientCatalog.findById(id);
 	}
 
 }
@@ -0,0 +1,77 @@
+package tacos.controller.web;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.core.CollectionFactory;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.core.convert.converter.ConditionalGenericConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import tacos.model.bean.Ingredient;
+import tacos.service.IngredientCatalog;
+
+/**
+ * @author Dejan Smiljić <dej4n.s@gmail.com> <br>
+ *         <br>
+ *         Class <code>IngredientsByIdsConverter</code> converts the submitted
+ *         ingredient ids (<b>String[]</b>, or a single comma separated
+ *         <b>String</b>) to a <b>collection of Ingredients</b>, such as
+ *         <tt>List&lt;Ingredient&gt;</tt> of <tt>Taco.ingredients</tt>.<br>
+ *         <br>
+ *         Without this converter Spring converts the collection element by
+ *         element, calling {@link IngredientByIdConverter} once for every
+ *         checked ingredient box. This converter resolves all ids at once
+ *         through <code>IngredientCatalog.findAllById</code>, which serves them
+ *         from memory and costs at most one <tt>IN (...)</tt> query if some ids
+ *         are not in the catalog yet.<br>
+ *         A <tt>ConditionalGenericConverter</tt> is used because the target
+ *         element type (<tt>Ingredient</tt>) can only be checked through the
+ *         <tt>TypeDescriptor</tt>. Spring Boot registers every converter bean
+ *         with the MVC conversion service.
+ * 
+ */
+@Component
+public class IngredientsByIdsConverter implements ConditionalGenericConverter {
+
+	private final IngredientCatalog ingredientCatalog;
+
+	public IngredientsByIdsConverter(IngredientCatalog ingredientCatalog) {
+		this.ingredientCatalog = ingredientCatalog;
+	}
+
+	@Override
+	public Set<ConvertiblePair> getConvertibleTypes() {
+		Set<ConvertiblePair> convertibleTypes = new HashSet<>();
+		convertibleTypes.add(new ConvertiblePair(String[].class, Collection.class));
+		convertibleTypes.add(new ConvertiblePair(String.class, Collection.class));
+		return convertibleTypes;
+	}
+
+	@Override
+	public boolean matches(TypeDescriptor sourceType, TypeDescriptor targetType) {
+		TypeDescriptor elementType = targetType.getElementTypeDescriptor();
+		return elementType != null && elementType.getType() == Ingredient.class;
+	}
+
+	@Override
+	public Object convert(Object source, TypeDescriptor sourceType, TypeDescriptor targetType) {
+		if (source == null) {
+			return null;
+		}
+		String[] ids = source instanceof String[] ? (String[]) source
+				: StringUtils.commaDelimitedListToStringArray((String) source);
+
+		List<Ingredient> ingredients = ingredientCatalog.findAllById(Arrays.asList(ids));
+
+		Collection<Object> target = CollectionFactory.createCollection(targetType.getType(), Ingredient.class,
+				ingredients.size());
+		target.addAll(ingredients);
+		return target;
+	}
+
+}
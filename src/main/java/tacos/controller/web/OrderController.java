@@ -1,23 +1,44 @@
 package tacos.controller.web;
 
+import java.util.Date;
+import java.util.List;
+
 import javax.validation.Valid;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
 import org.springframework.validation.Errors;
+import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.InitBinder;
 import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.SessionAttributes;
 import org.springframework.web.bind.support.SessionStatus;
+import org.springframework.web.server.ResponseStatusException;
 
 import tacos.data.OrderRepository;
+import tacos.data.OrderSummary;
 import tacos.model.bean.TacoOrder;
+import tacos.model.bean.TacoOrderDraft;
 import tacos.model.bean.User;
+import tacos.service.BusinessMetrics;
+import tacos.service.EntityDumps;
+import tacos.service.IngredientCatalog;
+import tacos.service.IngredientPopularity;
+import tacos.service.SalesRollups;
+import tacos.service.OrderGraphService;
+import tacos.service.OrderWriteBehind;
 
 /**
  * The class-level <tt>@RequestMapping</tt> specifies that any request-handling
@@ -31,14 +52,54 @@ import tacos.model.bean.User;
  */
 @Controller
 @RequestMapping(path = "/orders")
-@SessionAttributes("tacoOrder")
+@SessionAttributes("tacoOrderDraft")
 public class OrderController {
 
 	@Autowired
 	private OrderRepository orderRepository;
+	@Autowired
+	private OrderWriteBehind orderWriteBehind;
+	@Autowired
+	private OrderGraphService orderGraphService;
+	@Autowired
+	private IngredientCatalog ingredientCatalog;
+	@Autowired
+	private BusinessMetrics businessMetrics;
+	@Autowired
+	private EntityDumps entityDumps;
+	@Autowired
+	private IngredientPopularity ingredientPopularity;
+	@Autowired
+	private SalesRollups salesRollups;
+
+	@Value("${tacocloud.orders.history.page-size:20}")
+	private int historyPageSize;
 
 	private Logger logger = LoggerFactory.getLogger(OrderController.class);
 
+	/**
+	 * The id of an order is never taken from the request: it is issued when the
+	 * order is saved (or handed to <code>OrderWriteBehind</code>).
+	 * 
+	 * @param binder
+	 */
+	@InitBinder("tacoOrder")
+	public void initBinder(WebDataBinder binder) {
+		binder.setDisallowedFields("id");
+	}
+
+	/**
+	 * Creates an empty <code>TacoOrderDraft</code> if there is none in session yet,
+	 * e.g. if the user types the URL to navigate to <tt>/orders/current</tt>
+	 * before designing a taco. An existing session attribute takes precedence.
+	 * 
+	 * @return TacoOrderDraft
+	 */
+	@ModelAttribute(name = "tacoOrderDraft")
+	public TacoOrderDraft tacoOrderDraft() {
+		return new TacoOrderDraft();
+	}
+
 	/**
 	 * Pre-populates the <code>TacoOrder</code> with the user’s name and address, so
 	 * they don’t have to reenter it for each order. <br>
@@ -79,6 +140,74 @@ public class OrderController {
 		return "orderForm";
 	}
 
+	/**
+	 * Shows the authenticated user’s past orders, newest first, one page at a
+	 * time.<br>
+	 * Pages are addressed by a keyset cursor (<tt>before</tt> request parameter)
+	 * that holds the placement date and id of the last order on the previous page
+	 * - see <code>OrderSummary.getCursor</code>. Unlike an OFFSET, the cursor lets
+	 * the database seek straight to the next page through the
+	 * <tt>(user_id, date_order_placed, id)</tt> index, so a page loads equally
+	 * fast for a customer with 10 orders and one with 100,000.<br>
+	 * One extra row is read to find out whether there is a next page.
+	 * 
+	 * @param user
+	 * @param before keyset cursor; the first page is shown if it is missing or
+	 *               malformed
+	 * @param model
+	 * @return <b>String</b> - the logical name of the view
+	 */
+	@GetMapping(path = "/history")
+	public String orderHistory(@AuthenticationPrincipal User user,
+			@RequestParam(name = "before", required = false) String before, Model model) {
+
+		PageRequest limit = PageRequest.of(0, historyPageSize + 1);
+		List<OrderSummary> orders = null;
+
+		if (before != null) {
+			String[] cursor = before.split("_");
+			try {
+				orders = orderRepository.findHistoryByUserBefore(user.getId(),
+						new Date(Long.parseLong(cursor[0])), Long.valueOf(cursor[1]), limit);
+			} catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+				logger.info("Malformed order history cursor: {}", before);
+			}
+		}
+		if (orders == null) {
+			orders = orderRepository.findHistoryByUser(user.getId(), limit);
+		}
+
+		boolean hasNext = orders.size() > historyPageSize;
+		if (hasNext) {
+			orders = orders.subList(0, historyPageSize);
+		}
+
+		model.addAttribute("orders", orders);
+		model.addAttribute("nextCursor", hasNext ? orders.get(orders.size() - 1).getCursor() : null);
+		return "orderHistory";
+	}// orderHistory() END
+
+	/**
+	 * Shows one of the authenticated user’s orders with all its tacos and their
+	 * ingredients.<br>
+	 * The order is loaded through <code>OrderGraphService</code>, which fetches
+	 * the whole order → taco → ingredient graph in two queries, no matter how many
+	 * tacos the order holds. Orders of other users are reported as not found.
+	 * 
+	 * @param id
+	 * @param user
+	 * @param model
+	 * @return <b>String</b> - the logical name of the view
+	 */
+	@GetMapping(path = "/{id:\\d+}")
+	public String orderDetails(@PathVariable("id") Long id, @AuthenticationPrincipal User user, Model model) {
+		TacoOrder tacoOrder = orderGraphService.findWithTacosAndIngredients(id)
+				.filter(order -> order.getUser() != null && order.getUser().getId().equals(user.getId()))
+				.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+		model.addAttribute("order", tacoOrder);
+		return "orderDetails";
+	}// orderDetails() END
+
 	/*-
 	 * // Uncomment, fix imports...
 	 * // if user types URL to navigate to '/orders/current' page, this method
@@ -100,7 +229,7 @@ public class OrderController {
 	// user types URL to navigate to '/orders' page
 	@GetMapping
 	public String processOrder() {
-		logger.info("\n Attempt GET request for \"/orders\"... Redirect to \"/design\"");
+		logger.debug("Attempt GET request for \"/orders\"... Redirect to \"/design\"");
 		return "redirect:/design";
 	}
 
@@ -115,8 +244,10 @@ public class OrderController {
 	 *         This method saves the <code>TacoOrder</code> object via the
 	 *         <code>save</code> method on the injected
 	 *         <code>OrderRepository</code>. The <code>TacoOrder</code> object is
-	 *         submitted in the form (<tt>orderForm</tt>). It is the same
-	 *         <code>TacoOrder</code> object maintained in <tt>session</tt>.<br>
+	 *         bound from the form (<tt>orderForm</tt>); its tacos are rehydrated
+	 *         from the <code>TacoOrderDraft</code> maintained in <tt>session</tt>,
+	 *         resolving ingredients from the in-memory catalog, and are persisted
+	 *         together with the order.<br>
 	 *         Before the TacoOrder is saved, authenticated <tt>User</tt> is
 	 *         determined. It is done via User object annotated as
 	 *         <tt>@AuthenticationPrincipal</tt>. This annotation limits the
@@ -127,13 +258,21 @@ public class OrderController {
 	 *         needed in session anymore. The <code>processOrder</code> method asks
 	 *         for a <code>SessionStatus</code> parameter and calls its
 	 *         <code>setComplete</code> method to reset the session.<br>
-	 *         If it's not cleaned out, the <code>TacoOrder</code> object remains in
-	 *         session, including its associated <tt>Taco</tt> objects, so the next
-	 *         order will start with whatever tacos the old order contained.
+	 *         If it's not cleaned out, the <code>TacoOrderDraft</code> object
+	 *         remains in session, so the next order will start with whatever tacos
+	 *         the old order contained.<br>
+	 *         If write-behind order persistence is enabled, the validated order is
+	 *         handed to <code>OrderWriteBehind</code> instead, which commits it in
+	 *         a batch with other orders on a background thread; the user is
+	 *         redirected right away with the id the order is saved under.
 	 */
 	@PostMapping
-	public String processOrder(@Valid TacoOrder tacoOrder, Errors errors, SessionStatus sessionStatus,
+	public String processOrder(@Valid TacoOrder tacoOrder, Errors errors,
+			@ModelAttribute TacoOrderDraft tacoOrderDraft, SessionStatus sessionStatus,
 			@AuthenticationPrincipal User user) {
+		if (tacoOrderDraft.isEmpty()) {
+			return "redirect:/design";
+		}
 		if (errors.hasErrors()) {
 			return "orderForm";
 		}
@@ -146,13 +285,28 @@ public class OrderController {
 		 * User user = (User) authentication.getPrincipal();	
 		 */
 
-		logger.info("\n Authenticated user determined");
 		// assigns user to TacoOrder object
 		tacoOrder.setUser(user);
-		logger.info("\n User assigned to order of tacos");
+		logger.debug("User {} assigned to order of tacos", user.getUsername());
+		tacoOrder.setTacos(tacoOrderDraft.toTacos(ingredientCatalog));
+		// the tacos were designed by the same user
+		tacoOrder.getTacos().forEach(taco -> taco.setUser(user));
+
+		if (orderWriteBehind.isEnabled()) {
+			// popularity and rollups count the order once it is written
+			Long id = orderWriteBehind.submit(tacoOrder);
+			businessMetrics.orderPlaced(true);
+			logger.info("Order accepted: id {}, {} taco(s)", id, tacoOrder.getTacos().size());
+			sessionStatus.setComplete();
+			return "redirect:/?order_ref=" + id;
+		}
 
 		TacoOrder persistedOrder = orderRepository.save(tacoOrder);
-		logger.info("\n Order processed: " + persistedOrder);
+		businessMetrics.orderPlaced(false);
+		ingredientPopularity.orderPlaced(persistedOrder.getTacos());
+		salesRollups.orderPlaced(persistedOrder);
+		logger.info("Order processed: id {}, {} taco(s)", persistedOrder.getId(), persistedOrder.getTacos().size());
+		entityDumps.dump(logger, "Order processed: {}", persistedOrder);
 
 		sessionStatus.setComplete();
 		return "redirect:/";
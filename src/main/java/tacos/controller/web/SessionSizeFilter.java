@@ -0,0 +1,124 @@
+package tacos.controller.web;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.Enumeration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * <code>SessionSizeFilter</code> measures how much state every user keeps in
+ * the <tt>HttpSession</tt>. After a sampled request, each session attribute is
+ * serialised (Java serialisation, as a session store or a replicating servlet
+ * container would do) and its size in bytes is recorded:
+ * <ul>
+ * <li><tt>tacocloud.session.size</tt> - serialised size of the whole
+ * session</li>
+ * <li><tt>tacocloud.session.attribute.size</tt>, tagged with the attribute name
+ * - e.g. <tt>tacoOrderDraft</tt>, <tt>registrationForm</tt>,
+ * <tt>SPRING_SECURITY_CONTEXT</tt></li>
+ * </ul>
+ * The serialised size is a good proxy for per-user heap use and is exactly the
+ * serialisation cost of an external session store. Serialising the session
+ * costs time, so only every <tt>tacocloud.session.size-sample-rate</tt>-th
+ * request is measured (0 disables the filter).<br>
+ * The filter is ordered ahead of the Spring Security filter chain.
+ * 
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 100)
+public class SessionSizeFilter extends OncePerRequestFilter {
+
+	private final MeterRegistry meterRegistry;
+	private final DistributionSummary sessionSize;
+	private final int sampleRate;
+	private final AtomicLong requests = new AtomicLong();
+
+	public SessionSizeFilter(MeterRegistry meterRegistry,
+			@Value("${tacocloud.session.size-sample-rate:100}") int sampleRate) {
+		this.meterRegistry = meterRegistry;
+		this.sampleRate = sampleRate;
+		this.sessionSize = DistributionSummary.builder("tacocloud.session.size").baseUnit("bytes")
+				.description("Serialised size of the HTTP session").register(meterRegistry);
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+			FilterChain filterChain) throws ServletException, IOException {
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			if (sampleRate > 0 && requests.incrementAndGet() % sampleRate == 0) {
+				HttpSession session = request.getSession(false);
+				if (session != null) {
+					record(session);
+				}
+			}
+		}
+	}
+
+	// helper method; records the serialised size of every attribute
+	private void record(HttpSession session) {
+		long total = 0;
+		try {
+			Enumeration<String> names = session.getAttributeNames();
+			while (names.hasMoreElements()) {
+				String name = names.nextElement();
+				long size = serialisedSize(session.getAttribute(name));
+				DistributionSummary.builder("tacocloud.session.attribute.size").baseUnit("bytes")
+						.description("Serialised size of an HTTP session attribute").tag("attribute", name)
+						.register(meterRegistry).record(size);
+				total += size;
+			}
+		} catch (IllegalStateException invalidated) {
+			return;
+		}
+		sessionSize.record(total);
+	}// record() END
+
+	static long serialisedSize(Object attribute) {
+		CountingOutputStream counter = new CountingOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(counter)) {
+			out.writeObject(attribute);
+		} catch (IOException e) {
+			// not serialisable; it would not survive a session store either
+			return 0;
+		}
+		return counter.count;
+	}
+
+	// discards the bytes, only counts them
+	private static final class CountingOutputStream extends OutputStream {
+
+		private long count;
+
+		@Override
+		public void write(int b) {
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			count += len;
+		}
+
+	}// CountingOutputStream END
+
+}
@@ -0,0 +1,66 @@
+package tacos.controller.web;
+
+import java.util.regex.Pattern;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Sets the <tt>Cache-Control</tt> header of static resources (images, styles,
+ * favicon).<br>
+ * <br>
+ * Thymeleaf <tt>@{...}</tt> links to static resources are rewritten to
+ * fingerprinted URLs that contain an MD5 hash of the content, e.g.
+ * <tt>/images/mex_home-0d9a6b....png</tt> (Spring's resource chain with the
+ * content version strategy, see <tt>application.properties</tt>). A changed
+ * file gets a new URL, so a fingerprinted URL can be cached by browsers and
+ * proxies for a year without ever being revalidated:
+ * <tt>public, max-age=31536000, immutable</tt>.<br>
+ * Resources requested without a fingerprint (e.g. <tt>/favicon.ico</tt>,
+ * requested by browsers on their own) get <tt>no-cache</tt>: they may be
+ * stored, but must be revalidated, which costs a <tt>304 Not Modified</tt>.<br>
+ * The year applies to a successful response only: if a resource is not found
+ * (or fails), the error response gets <tt>no-cache</tt> before it is sent, so
+ * a <tt>404</tt> is never cached in place of a resource that is deployed
+ * later. A <tt>304</tt> keeps the header of the response it confirms.
+ * 
+ * @see WebConfig#addInterceptors(org.springframework.web.servlet.config.annotation.InterceptorRegistry)
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+public class StaticResourceCacheInterceptor implements HandlerInterceptor {
+
+	static final String IMMUTABLE = "public, max-age=31536000, immutable";
+	static final String REVALIDATE = "no-cache";
+
+	// "-" + 32 hex digits (MD5) before the file extension
+	private static final Pattern FINGERPRINT = Pattern.compile("-[0-9a-f]{32}\\.[^/.]+$");
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		boolean fingerprinted = FINGERPRINT.matcher(request.getRequestURI()).find();
+		response.setHeader(HttpHeaders.CACHE_CONTROL, fingerprinted ? IMMUTABLE : REVALIDATE);
+		return true;
+	}
+
+	/*
+	 * A missing resource has only been marked with sendError() by now; the error
+	 * page is rendered after this, so the header can still be changed (on a
+	 * committed response, the servlet container ignores it).
+	 */
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Exception ex) {
+		if (!cacheable(response.getStatus())) {
+			response.setHeader(HttpHeaders.CACHE_CONTROL, REVALIDATE);
+		}
+	}
+
+	private static boolean cacheable(int status) {
+		return (status >= 200 && status < 300) || status == HttpServletResponse.SC_NOT_MODIFIED;
+	}
+
+}
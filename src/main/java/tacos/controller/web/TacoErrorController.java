@@ -45,11 +45,10 @@ public class TacoErrorController implements ErrorController {
 
 		// log error details
 		// can be commented out (see TacoErrorController javadoc)
-		logger.info("An Error Occured -> \nError status code: "
-				+ httpServletRequest.getAttribute(RequestDispatcher.ERROR_STATUS_CODE) + "\nCause: "
-				+ httpServletRequest.getAttribute(RequestDispatcher.ERROR_EXCEPTION) + "\nError request URI: "
-				+ httpServletRequest.getAttribute(RequestDispatcher.ERROR_REQUEST_URI) + "\nError message: "
-				+ httpServletRequest.getAttribute(RequestDispatcher.ERROR_MESSAGE));
+		logger.info("An Error Occured -> Error status code: {}, Cause: {}, Error request URI: {}, Error message: {}",
+				status, httpServletRequest.getAttribute(RequestDispatcher.ERROR_EXCEPTION),
+				httpServletRequest.getAttribute(RequestDispatcher.ERROR_REQUEST_URI),
+				httpServletRequest.getAttribute(RequestDispatcher.ERROR_MESSAGE));
 
 		// If pages specifically for 401, 404 and 500 error types are designed use the
 		// HTTP status code of the error to determine a suitable error page to display
@@ -1,6 +1,7 @@
 package tacos.controller.web;
 
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -42,4 +43,23 @@ public class WebConfig implements WebMvcConfigurer {
 		registry.addViewController("/login").setViewName("login");
 	}
 
+	/**
+	 * Static resources are served by Spring Boot's resource handler (location
+	 * <tt>classpath:/static/</tt>) through a resource chain that resolves
+	 * fingerprinted URLs and precompressed <tt>.br</tt>/<tt>.gz</tt> variants -
+	 * see <tt>spring.web.resources.chain.*</tt> in
+	 * <tt>application.properties</tt>. The interceptor adds the caching headers.
+	 * 
+	 * @see StaticResourceCacheInterceptor
+	 */
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new StaticResourceCacheInterceptor()).addPathPatterns(STATIC_RESOURCES);
+	}
+
+	/**
+	 * Paths of the static resources under <tt>src/main/resources/static</tt>.
+	 */
+	public static final String[] STATIC_RESOURCES = { "/images/**", "/styles/**", "/favicon.ico" };
+
 }
@@ -0,0 +1,63 @@
+package tacos.data;
+
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.jdbc.metadata.DataSourcePoolMetadataProvidersConfiguration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.TransactionManagementConfigurer;
+import org.springframework.util.StringUtils;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * The JDBC <tt>DataSource</tt> of JPA, Spring Session and the SQL metrics.<br>
+ * <br>
+ * Spring Boot does not auto-configure a <tt>DataSource</tt> once an R2DBC
+ * <tt>ConnectionFactory</tt> is present, and the reactive API
+ * (<tt>tacos.data.reactive</tt>) brings one. This configuration declares the
+ * HikariCP pool the way Boot would have: from the <tt>spring.datasource.*</tt>
+ * properties (embedded H2 database <tt>tacos</tt>) and the
+ * <tt>spring.datasource.hikari.*</tt> pool settings. Both stacks talk to the
+ * same in-memory database.<br>
+ * <br>
+ * Each stack also has its own transaction manager. <tt>@Transactional</tt>
+ * methods (JPA repositories, services) use the JDBC/JPA one; the reactive API
+ * demarcates its transactions explicitly.
+ *
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Configuration
+@EnableConfigurationProperties(DataSourceProperties.class)
+@Import(DataSourcePoolMetadataProvidersConfiguration.class)
+public class DataSourceConfig {
+
+	@Bean
+	@ConfigurationProperties(prefix = "spring.datasource.hikari")
+	public HikariDataSource dataSource(DataSourceProperties properties) {
+		HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		if (StringUtils.hasText(properties.getName())) {
+			dataSource.setPoolName(properties.getName());
+		}
+		return dataSource;
+	}
+
+	/**
+	 * Without it, <tt>@Transactional</tt> would find two
+	 * <tt>TransactionManager</tt> beans - JPA's <tt>transactionManager</tt> and
+	 * R2DBC's <tt>connectionFactoryTransactionManager</tt> - and fail.
+	 * 
+	 * @param transactionManager the only <tt>PlatformTransactionManager</tt>, JPA's
+	 * @return TransactionManagementConfigurer naming the default transaction manager
+	 */
+	@Bean
+	public TransactionManagementConfigurer jpaTransactionManagementConfigurer(
+			PlatformTransactionManager transactionManager) {
+		return () -> transactionManager;
+	}
+
+}
@@ -0,0 +1,79 @@
+package tacos.data;
+
+import java.util.Date;
+
+/**
+ * Read-only projection of a <code>TacoOrder</code> for the finance export:
+ * when, by whom and where to an order was delivered and how many tacos it
+ * held. Payment details are not exported.<br>
+ * Created by a JPQL constructor expression, so - unlike entities - the rows
+ * never enter the persistence context and nothing accumulates there while an
+ * export streams through millions of them.
+ * 
+ * @see OrderRepository#streamForExport(Date, Date)
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+public class OrderExportRow {
+
+	private final Long id;
+	private final Date dateOrderPlaced;
+	private final String username;
+	private final String deliveryName;
+	private final String deliveryStreet;
+	private final String deliveryCity;
+	private final String deliveryState;
+	private final String deliveryZip;
+	private final int tacoCount;
+
+	public OrderExportRow(Long id, Date dateOrderPlaced, String username, String deliveryName,
+			String deliveryStreet, String deliveryCity, String deliveryState, String deliveryZip, int tacoCount) {
+		this.id = id;
+		this.dateOrderPlaced = dateOrderPlaced;
+		this.username = username;
+		this.deliveryName = deliveryName;
+		this.deliveryStreet = deliveryStreet;
+		this.deliveryCity = deliveryCity;
+		this.deliveryState = deliveryState;
+		this.deliveryZip = deliveryZip;
+		this.tacoCount = tacoCount;
+	}
+
+	// getters || accessors
+	public Long getId() {
+		return id;
+	}
+
+	public Date getDateOrderPlaced() {
+		return dateOrderPlaced;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+
+	public String getDeliveryName() {
+		return deliveryName;
+	}
+
+	public String getDeliveryStreet() {
+		return deliveryStreet;
+	}
+
+	public String getDeliveryCity() {
+		return deliveryCity;
+	}
+
+	public String getDeliveryState() {
+		return deliveryState;
+	}
+
+	public String getDeliveryZip() {
+		return deliveryZip;
+	}
+
+	public int getTacoCount() {
+		return tacoCount;
+	}
+
+}
@@ -1,6 +1,18 @@
 package tacos.data;
 
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
 import tacos.model.bean.TacoOrder;
 
@@ -66,4 +78,101 @@ public interface OrderRepository extends CrudRepository<TacoOrder, Long> {
 	// page 89;
 	// Book version: MEAP;
 
+	/*
+	 * TacoOrder.tacos and Taco.ingredients are lazy collections; walking them
+	 * (rendering, toString) costs one query per collection. findWithTacosById()
+	 * loads an order, its user and its tacos in a single query through the
+	 * TacoOrder.tacos entity graph. Both collections are bags (Lists), which
+	 * Hibernate cannot fetch together in one query, so the ingredients of the
+	 * tacos are fetched with a second query - see TacoRepositry and
+	 * tacos.service.OrderGraphService.
+	 */
+	@EntityGraph(TacoOrder.GRAPH_TACOS)
+	Optional<TacoOrder> findWithTacosById(Long id);
+
+	/*
+	 * Order history uses keyset (seek) pagination on (user_id, date_order_placed,
+	 * id) instead of OFFSET: the first page is read with findHistoryByUser(), every
+	 * next page with findHistoryByUserBefore(), passing the date and id of the last
+	 * order of the previous page. With the (user_id, date_order_placed, id) index
+	 * both queries read just one page worth of index entries, no matter how many
+	 * orders the user has, while OFFSET would have to skip all preceding rows.
+	 * Pageable only limits the number of rows (use page 0); the order is fixed.
+	 */
+	@Query("select new tacos.data.OrderSummary(o.id, o.dateOrderPlaced, o.deliveryName, o.deliveryCity, "
+			+ "o.deliveryState, o.deliveryZip, size(o.tacos)) from TacoOrder o where o.user.id = :userId "
+			+ "order by o.dateOrderPlaced desc, o.id desc")
+	List<OrderSummary> findHistoryByUser(@Param("userId") Long userId, Pageable pageable);
+
+	@Query("select new tacos.data.OrderSummary(o.id, o.dateOrderPlaced, o.deliveryName, o.deliveryCity, "
+			+ "o.deliveryState, o.deliveryZip, size(o.tacos)) from TacoOrder o where o.user.id = :userId "
+			+ "and (o.dateOrderPlaced < :placed or (o.dateOrderPlaced = :placed and o.id < :id)) "
+			+ "order by o.dateOrderPlaced desc, o.id desc")
+	List<OrderSummary> findHistoryByUserBefore(@Param("userId") Long userId, @Param("placed") Date placed,
+			@Param("id") Long id, Pageable pageable);
+
+	/*
+	 * Order search for support staff (tacos.service.OrderSearchEndpoint): orders
+	 * delivered to a zip code, a state, or a city of a state, placed in a date
+	 * range, newest first, as OrderSummary projections. Each search has an index
+	 * led by its column, followed by (date_order_placed, id), all descending:
+	 * 
+	 *   taco_order_zip_idx         (delivery_zip, date_order_placed, id)
+	 *   taco_order_state_idx       (delivery_state, date_order_placed, id)
+	 *   taco_order_state_city_idx  (delivery_state, delivery_city, date_order_placed, id)
+	 *   taco_order_date_idx        (date_order_placed, id) - date range only
+	 * 
+	 * The ORDER BY repeats the equality columns, so it lists the index columns
+	 * from the first one: only then does H2 read the rows in index order and stop
+	 * after one page, instead of sorting every match. Pages are keyset-paginated
+	 * like the order history, in one query: rows from 'from' up to the cursor
+	 * (placed, id), excluding the cursor itself. For the first page pass the end
+	 * of the range as 'placed' and Long.MIN_VALUE as 'id'. The redundant
+	 * "dateOrderPlaced <= :placed" bounds the index range, so a deep page is
+	 * sought directly.
+	 */
+	String SEARCH_SELECT = "select new tacos.data.OrderSummary(o.id, o.dateOrderPlaced, o.deliveryName, "
+			+ "o.deliveryCity, o.deliveryState, o.deliveryZip, size(o.tacos)) from TacoOrder o ";
+	String SEARCH_PAGE = "o.dateOrderPlaced >= :from and o.dateOrderPlaced <= :placed "
+			+ "and (o.dateOrderPlaced < :placed or o.id < :id) ";
+
+	@Query(SEARCH_SELECT + "where o.deliveryZip = :zip and " + SEARCH_PAGE
+			+ "order by o.deliveryZip desc, o.dateOrderPlaced desc, o.id desc")
+	List<OrderSummary> searchByZip(@Param("zip") String zip, @Param("from") Date from, @Param("placed") Date placed,
+			@Param("id") Long id, Pageable pageable);
+
+	@Query(SEARCH_SELECT + "where o.deliveryState = :state and " + SEARCH_PAGE
+			+ "order by o.deliveryState desc, o.dateOrderPlaced desc, o.id desc")
+	List<OrderSummary> searchByState(@Param("state") String state, @Param("from") Date from,
+			@Param("placed") Date placed, @Param("id") Long id, Pageable pageable);
+
+	@Query(SEARCH_SELECT + "where o.deliveryState = :state and o.deliveryCity = :city and " + SEARCH_PAGE
+			+ "order by o.deliveryState desc, o.deliveryCity desc, o.dateOrderPlaced desc, o.id desc")
+	List<OrderSummary> searchByCity(@Param("state") String state, @Param("city") String city,
+			@Param("from") Date from, @Param("placed") Date placed, @Param("id") Long id, Pageable pageable);
+
+	@Query(SEARCH_SELECT + "where " + SEARCH_PAGE + "order by o.dateOrderPlaced desc, o.id desc")
+	List<OrderSummary> searchByDate(@Param("from") Date from, @Param("placed") Date placed, @Param("id") Long id,
+			Pageable pageable);
+
+	/*
+	 * Finance export: every order placed in [from, to), one row at a time, in
+	 * placement order - by date, then id. The id alone is not placement order:
+	 * bulk-imported orders get new ids but keep their historic dates. The
+	 * (date_order_placed desc, id desc) index serves both the range and the sort
+	 * on a database that reads an index backwards; H2 1.4 uses it for the range
+	 * only and sorts the rows.
+	 * The Stream is backed by a forward-only JDBC ResultSet, so it must be
+	 * consumed - and closed - inside a read-only transaction (see
+	 * tacos.service.OrderExport). A server database sends it fetch-size rows at
+	 * a time; embedded H2 without LAZY_QUERY_EXECUTION builds the whole result
+	 * before it returns the first row, whatever the fetch size.
+	 */
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"))
+	@Query("select new tacos.data.OrderExportRow(o.id, o.dateOrderPlaced, u.username, o.deliveryName, "
+			+ "o.deliveryStreet, o.deliveryCity, o.deliveryState, o.deliveryZip, size(o.tacos)) "
+			+ "from TacoOrder o left join o.user u where o.dateOrderPlaced >= :from and o.dateOrderPlaced < :to "
+			+ "order by o.dateOrderPlaced, o.id")
+	Stream<OrderExportRow> streamForExport(@Param("from") Date from, @Param("to") Date to);
+
 }
@@ -0,0 +1,86 @@
+package tacos.data;
+
+import java.util.Date;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+/**
+ * Lightweight, read-only projection of a <code>TacoOrder</code> for the order
+ * history. It carries only what the history page shows - no credit card fields
+ * and no taco/ingredient graph - and is created directly by a JPQL constructor
+ * expression, so no entities are loaded into the persistence context.
+ * 
+ * @see OrderRepository#findHistoryByUser(Long, org.springframework.data.domain.Pageable)
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+public class OrderSummary {
+
+	// time-ordered ids exceed 2^53: sent as strings, JavaScript clients would round numbers
+	@JsonSerialize(using = ToStringSerializer.class)
+	private final Long id;
+	private final Date dateOrderPlaced;
+	private final String deliveryName;
+	private final String deliveryCity;
+	private final String deliveryState;
+	private final String deliveryZip;
+	private final int tacoCount;
+
+	public OrderSummary(Long id, Date dateOrderPlaced, String deliveryName, String deliveryCity,
+			String deliveryState, String deliveryZip, int tacoCount) {
+		this.id = id;
+		this.dateOrderPlaced = dateOrderPlaced;
+		this.deliveryName = deliveryName;
+		this.deliveryCity = deliveryCity;
+		this.deliveryState = deliveryState;
+		this.deliveryZip = deliveryZip;
+		this.tacoCount = tacoCount;
+	}
+
+	// getters || accessors
+	public Long getId() {
+		return id;
+	}
+
+	public Date getDateOrderPlaced() {
+		return dateOrderPlaced;
+	}
+
+	public String getDeliveryName() {
+		return deliveryName;
+	}
+
+	public String getDeliveryCity() {
+		return deliveryCity;
+	}
+
+	public String getDeliveryState() {
+		return deliveryState;
+	}
+
+	public String getDeliveryZip() {
+		return deliveryZip;
+	}
+
+	public int getTacoCount() {
+		return tacoCount;
+	}
+
+	/**
+	 * @return keyset cursor of this order - <tt>dateOrderPlaced</tt> (epoch
+	 *         milliseconds) and <tt>id</tt>, separated by an underscore. The next
+	 *         page starts right after the order the cursor points to.
+	 */
+	public String getCursor() {
+		return dateOrderPlaced.getTime() + "_" + id;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"OrderSummary [id=%s, dateOrderPlaced=%s, deliveryName=%s, deliveryCity=%s, deliveryState=%s, deliveryZip=%s, tacoCount=%s]",
+				id, dateOrderPlaced, deliveryName, deliveryCity, deliveryState, deliveryZip, tacoCount);
+	}
+
+}
@@ -3,7 +3,12 @@
  */
 package tacos.data;
 
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
 import tacos.model.bean.Taco;
 
@@ -24,4 +29,16 @@ import tacos.model.bean.Taco;
  */
 public interface TacoRepositry extends CrudRepository<Taco, Long> {
 
+	/**
+	 * Loads the given tacos with their ingredients in one query (fetch join). When
+	 * called within the same transaction as the query that loaded the tacos, it
+	 * initializes the <tt>ingredients</tt> collections of those managed
+	 * instances.
+	 * 
+	 * @param ids
+	 * @return list of <b>Taco</b> objects with initialized ingredients
+	 */
+	@Query("select distinct t from Taco t left join fetch t.ingredients where t.id in :ids")
+	List<Taco> findWithIngredientsByIdIn(@Param("ids") Collection<Long> ids);
+
 }
@@ -1,5 +1,8 @@
 package tacos.data;
 
+import java.util.stream.Stream;
+
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
 import tacos.model.bean.User;
@@ -12,4 +15,14 @@ public interface UserRepository extends CrudRepository<User, Long> {
 
 	User findByUsername(String username);
 
+	boolean existsByUsername(String username);
+
+	/**
+	 * Streams all usernames; must be consumed (and closed) inside a transaction.
+	 * 
+	 * @return Stream of usernames
+	 */
+	@Query("select u.username from User u")
+	Stream<String> streamAllUsernames();
+
 }
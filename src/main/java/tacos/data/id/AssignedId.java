@@ -0,0 +1,22 @@
+package tacos.data.id;
+
+/**
+ * Implemented by entities whose id may be assigned before they are saved, from
+ * a <code>TimeOrderedIds</code> of the same node - e.g. the id
+ * <code>OrderWriteBehind</code> hands out before the order is written.
+ * {@link TimeOrderedIdGenerator} keeps such an id only while
+ * {@link #isIdAssigned()} holds; any other id an entity carries, e.g. one bound
+ * from a request, is replaced by a new one.
+ * 
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+public interface AssignedId {
+
+	/**
+	 * @return <tt>true</tt> if the current id was issued by this node for the
+	 *         entity and has to be kept when it is saved
+	 */
+	boolean isIdAssigned();
+
+}
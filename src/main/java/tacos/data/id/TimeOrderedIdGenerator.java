@@ -0,0 +1,119 @@
+package tacos.data.id;
+
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.hibernate.HibernateException;
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.Configurable;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.StringUtils;
+
+/**
+ * Hibernate identifier generator that assigns node-local, time-ordered 64-bit
+ * ids (see {@link TimeOrderedIds}). It is registered as the
+ * <tt>time-ordered</tt> generator in <tt>tacos.model.bean</tt>'s
+ * <tt>package-info.java</tt> and used by <tt>Taco</tt>, <tt>TacoOrder</tt> and
+ * <tt>User</tt>.<br>
+ * <br>
+ * Unlike the <tt>SEQUENCE</tt> and <tt>AUTO</tt> strategies, the id is created
+ * in memory - there is no extra round trip per insert and no shared database
+ * sequence that all nodes have to serialise on.<br>
+ * <br>
+ * Every application instance that writes to the same database must use a
+ * different node id (0 - 1023). It is read from the Hibernate setting
+ * <tt>tacocloud.id.node-id</tt>, which <tt>application.properties</tt> maps
+ * from the <tt>tacocloud.id.node-id</tt> property (environment variable
+ * <tt>TACOCLOUD_ID_NODE_ID</tt>). An instance without one fails to start,
+ * unless <tt>tacocloud.id.node-id-required=false</tt>, as in the <tt>dev</tt>
+ * profile: a node id is then derived from the process id and host name. That
+ * is fine for a single development instance, but derived ids of two instances
+ * may collide - and they would issue the same primary keys.<br>
+ * <br>
+ * <b>Migration:</b> ids issued by the generator start at
+ * <tt>(milliseconds since 2021-01-01) &lt;&lt; 22</tt>, i.e. above
+ * 10<sup>17</sup>, far above any value issued by the former sequences. Existing
+ * rows keep their ids and no data has to be rewritten; the old sequences can
+ * be dropped once every instance runs the new generator (see
+ * <tt>schema.sql</tt>).
+ * 
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+public class TimeOrderedIdGenerator implements IdentifierGenerator, Configurable {
+
+	public static final String NAME = "time-ordered";
+	public static final String NODE_ID_SETTING = "tacocloud.id.node-id";
+	public static final String NODE_ID_REQUIRED_SETTING = "tacocloud.id.node-id-required";
+
+	private static final Logger logger = LoggerFactory.getLogger(TimeOrderedIdGenerator.class);
+	// one generator is configured per entity; warn about a derived node id once
+	private static final AtomicBoolean derivedNodeIdLogged = new AtomicBoolean();
+
+	private TimeOrderedIds ids;
+
+	@Override
+	public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+		Map<?, ?> settings = serviceRegistry.getService(ConfigurationService.class).getSettings();
+		Object setting = settings.get(NODE_ID_SETTING);
+		if (!isSet(setting) && isSet(settings.get(NODE_ID_REQUIRED_SETTING))
+				&& Boolean.parseBoolean(settings.get(NODE_ID_REQUIRED_SETTING).toString().trim())) {
+			throw new MappingException("'" + NODE_ID_SETTING + "' is not set. Every instance that shares the "
+					+ "database needs a unique node id (0 - " + TimeOrderedIds.MAX_NODE_ID
+					+ "), e.g. environment variable TACOCLOUD_ID_NODE_ID");
+		}
+		ids = TimeOrderedIds.forNode(resolveNodeId(setting));
+	}
+
+	/**
+	 * An id assigned up front, from a <code>TimeOrderedIds</code> of the same
+	 * node, is kept - e.g. the id <code>OrderWriteBehind</code> hands out before
+	 * the order is written; see {@link AssignedId}. Any other id the entity
+	 * carries is replaced.
+	 */
+	@Override
+	public Serializable generate(SharedSessionContractImplementor session, Object object) throws HibernateException {
+		if (object instanceof AssignedId && ((AssignedId) object).isIdAssigned()) {
+			Serializable assigned = session.getEntityPersister(null, object).getIdentifier(object, session);
+			if (assigned != null) {
+				return assigned;
+			}
+		}
+		return ids.nextId();
+	}
+
+	/**
+	 * @param setting value of <tt>tacocloud.id.node-id</tt>, may be empty
+	 * @return the explicit setting or a node id derived from pid@hostname
+	 */
+	public static int resolveNodeId(Object setting) {
+		if (isSet(setting)) {
+			return Integer.parseInt(setting.toString().trim());
+		}
+		String runtimeName = ManagementFactory.getRuntimeMXBean().getName();
+		int nodeId = (runtimeName.hashCode() & Integer.MAX_VALUE) % (TimeOrderedIds.MAX_NODE_ID + 1);
+		if (derivedNodeIdLogged.compareAndSet(false, true)) {
+			logger.warn("'{}' is not set, using derived node id {}. Set a unique node id for every instance "
+					+ "that shares the database.", NODE_ID_SETTING, nodeId);
+		}
+		return nodeId;
+	}// resolveNodeId() END
+
+	/**
+	 * @param setting value of <tt>tacocloud.id.node-id</tt>, may be empty
+	 * @return <tt>true</tt> if a node id is configured, not derived
+	 */
+	public static boolean isSet(Object setting) {
+		return setting != null && StringUtils.hasText(setting.toString());
+	}
+
+}
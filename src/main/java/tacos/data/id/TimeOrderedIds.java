@@ -0,0 +1,145 @@
+package tacos.data.id;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Generates 64-bit, roughly time-ordered identifiers without contacting the
+ * database.<br>
+ * <br>
+ * Layout of an id (most significant bit first):
+ * <ul>
+ * <li>1 bit - always 0, so ids are positive <tt>long</tt> values</li>
+ * <li>41 bits - milliseconds since {@link #EPOCH} (good for ~69 years)</li>
+ * <li>10 bits - node id, 0 - 1023; must be unique per application
+ * instance</li>
+ * <li>12 bits - counter within the millisecond, 0 - 4095</li>
+ * </ul>
+ * The last issued timestamp and counter are packed into a single
+ * <code>AtomicLong</code> and advanced with compare-and-set, so
+ * <code>nextId</code> is lock-free and safe under heavy concurrency.<br>
+ * An id never carries a timestamp ahead of the clock: if all 4096 ids of the
+ * current millisecond have been issued, <code>nextId</code> waits for the next
+ * one, and if the system clock moves backwards it waits until the clock is
+ * past the last issued id again - for at most
+ * {@link #MAX_CLOCK_WAIT_MILLIS}, then it fails with an
+ * <code>IllegalStateException</code> rather than repeat an id. Nothing has to
+ * be remembered across restarts: every id a previous process of the node
+ * issued lies in the past of the clock. Ids issued by one instance are
+ * therefore strictly increasing; ids issued by different nodes never collide
+ * because the node id is part of every id.
+ * Within one instance, writers that insert into the same tables - Hibernate and
+ * the R2DBC repositories of the reactive API - share one generator per node id
+ * ({@link #forNode(int)}), so they cannot issue the same id either.
+ * 
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+public class TimeOrderedIds {
+
+	/** Custom epoch: 2021-01-01T00:00:00Z */
+	public static final long EPOCH = 1609459200000L;
+
+	static final int NODE_BITS = 10;
+	static final int COUNTER_BITS = 12;
+	private static final long MAX_COUNTER = (1L << COUNTER_BITS) - 1;
+	public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+	/** Longest wait for a clock that moved backwards */
+	public static final long MAX_CLOCK_WAIT_MILLIS = 5000;
+
+	private final long nodeId;
+	private final LongSupplier clock;
+
+	// (milliseconds since EPOCH << COUNTER_BITS) | counter, of the last issued id
+	private final AtomicLong last = new AtomicLong();
+
+	private static final ConcurrentMap<Integer, TimeOrderedIds> byNode = new ConcurrentHashMap<>();
+
+	public TimeOrderedIds(int nodeId) {
+		this(nodeId, System::currentTimeMillis);
+	}
+
+	TimeOrderedIds(int nodeId, LongSupplier clock) {
+		if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+			throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ", was " + nodeId);
+		}
+		this.nodeId = nodeId;
+		this.clock = clock;
+	}
+
+	/**
+	 * @param nodeId
+	 * @return the generator of this JVM for the given node id
+	 */
+	public static TimeOrderedIds forNode(int nodeId) {
+		return byNode.computeIfAbsent(nodeId, TimeOrderedIds::new);
+	}
+
+	/**
+	 * @return the next id; waits while the current millisecond is used up or the
+	 *         clock is behind the last issued id
+	 * @throws IllegalStateException if the clock stays more than
+	 *                               {@link #MAX_CLOCK_WAIT_MILLIS} behind
+	 */
+	public long nextId() {
+		while (true) {
+			long previous = last.get();
+			long millis = clock.getAsLong() - EPOCH;
+			long lastMillis = previous >>> COUNTER_BITS;
+			long next;
+			if (millis > lastMillis) {
+				// a new millisecond starts with counter 0
+				next = millis << COUNTER_BITS;
+			} else if (millis == lastMillis && (previous & MAX_COUNTER) < MAX_COUNTER) {
+				next = previous + 1;
+			} else {
+				// millisecond used up, or the clock moved backwards
+				awaitClockAfter(lastMillis, millis);
+				continue;
+			}
+			if (last.compareAndSet(previous, next)) {
+				long counter = next & MAX_COUNTER;
+				return (millis << (NODE_BITS + COUNTER_BITS)) | (nodeId << COUNTER_BITS) | counter;
+			}
+		}
+	}// nextId() END
+
+	// helper method; waits until the clock may have passed lastMillis
+	private void awaitClockAfter(long lastMillis, long millis) {
+		long behind = lastMillis - millis;
+		if (behind > MAX_CLOCK_WAIT_MILLIS) {
+			throw new IllegalStateException("The system clock is " + behind + " ms behind the last id issued by node "
+					+ nodeId + "; no ids are issued until it catches up");
+		}
+		if (behind > 0) {
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(behind));
+		} else {
+			Thread.yield();
+		}
+	}
+
+	public int getNodeId() {
+		return (int) nodeId;
+	}
+
+	/**
+	 * @param id
+	 * @return the time (epoch milliseconds) at which the given id was issued
+	 */
+	public static long timestampOf(long id) {
+		return (id >>> (NODE_BITS + COUNTER_BITS)) + EPOCH;
+	}
+
+	/**
+	 * @param id
+	 * @return the id of the node that issued the given id
+	 */
+	public static int nodeIdOf(long id) {
+		return (int) ((id >>> COUNTER_BITS) & MAX_NODE_ID);
+	}
+
+}
@@ -0,0 +1,62 @@
+package tacos.data.reactive;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import tacos.model.bean.Ingredient;
+import tacos.model.bean.IngredientType;
+
+/**
+ * Row of the <tt>ingredient</tt> table as the reactive API reads it. JPA
+ * claims every repository of an <tt>@Entity</tt> and supports no reactive
+ * ones, so the R2DBC repositories map rows of their own.
+ *
+ * @see tacos.model.bean.Ingredient
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Table("ingredient")
+public class IngredientRow {
+
+	@Id
+	private String id;
+	private String name;
+	private IngredientType ingredientType;
+
+	public String getId() {
+		return id;
+	}
+
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public IngredientType getIngredientType() {
+		return ingredientType;
+	}
+
+	public void setIngredientType(IngredientType ingredientType) {
+		this.ingredientType = ingredientType;
+	}
+
+	public static IngredientRow of(Ingredient ingredient) {
+		IngredientRow row = new IngredientRow();
+		row.id = ingredient.getId();
+		row.name = ingredient.getName();
+		row.ingredientType = ingredient.getIngredientType();
+		return row;
+	}
+
+	public Ingredient toIngredient() {
+		return new Ingredient(id, name, ingredientType);
+	}
+
+}
@@ -0,0 +1,103 @@
+package tacos.data.reactive;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
+import org.springframework.data.r2dbc.dialect.DialectResolver;
+import org.springframework.data.r2dbc.mapping.event.BeforeConvertCallback;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import io.r2dbc.spi.ConnectionFactory;
+import reactor.core.publisher.Mono;
+import tacos.data.id.TimeOrderedIdGenerator;
+import tacos.data.id.TimeOrderedIds;
+
+/**
+ * R2DBC side of the data layer, used by the reactive API
+ * (<tt>tacos.controller.api</tt>). Spring Boot configures the connection pool
+ * from <tt>spring.r2dbc.*</tt> - the same H2 database as JPA - and the
+ * repositories of this package.
+ * <ul>
+ * <li>New rows get their id the way Hibernate's <tt>time-ordered</tt>
+ * generator assigns them, from the same <code>TimeOrderedIds</code> of this
+ * node, just before they are converted to an <tt>INSERT</tt>. A row whose id
+ * is <tt>null</tt> is new to Spring Data, so <tt>save</tt> inserts it.</li>
+ * <li>A <code>TransactionalOperator</code> demarcates transactions in reactive
+ * pipelines; <tt>@Transactional</tt> belongs to JPA (see
+ * <code>DataSourceConfig</code>).</li>
+ * <li>Query results can be read straight into the projections JPA uses, e.g.
+ * <code>OrderSummary</code>, whose dates are <tt>java.util.Date</tt>: H2's
+ * <tt>TIMESTAMP</tt> columns arrive as <tt>LocalDateTime</tt>.</li>
+ * </ul>
+ *
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Configuration
+public class ReactiveDataConfig {
+
+	private final TimeOrderedIds ids;
+
+	public ReactiveDataConfig(@Value("${tacocloud.id.node-id:}") String nodeId) {
+		this.ids = TimeOrderedIds.forNode(TimeOrderedIdGenerator.resolveNodeId(nodeId));
+	}
+
+	@Bean
+	public BeforeConvertCallback<TacoRow> tacoRowIdCallback() {
+		return (taco, table) -> {
+			if (taco.getId() == null) {
+				taco.setId(ids.nextId());
+			}
+			return Mono.just(taco);
+		};
+	}
+
+	@Bean
+	public BeforeConvertCallback<TacoOrderRow> tacoOrderRowIdCallback() {
+		return (order, table) -> {
+			if (order.getId() == null) {
+				order.setId(ids.nextId());
+			}
+			return Mono.just(order);
+		};
+	}
+
+	/**
+	 * Replaces Spring Boot's conversions (store converters of the database's
+	 * dialect only) with the same plus ours.
+	 * 
+	 * @param connectionFactory
+	 * @return R2dbcCustomConversions
+	 */
+	@Bean
+	public R2dbcCustomConversions r2dbcCustomConversions(ConnectionFactory connectionFactory) {
+		return R2dbcCustomConversions.of(DialectResolver.getDialect(connectionFactory),
+				LocalDateTimeToDateConverter.INSTANCE);
+	}
+
+	@Bean
+	public TransactionalOperator reactiveTransactionalOperator(R2dbcTransactionManager transactionManager) {
+		return TransactionalOperator.create(transactionManager);
+	}
+
+	@ReadingConverter
+	enum LocalDateTimeToDateConverter implements Converter<LocalDateTime, Date> {
+
+		INSTANCE;
+
+		@Override
+		public Date convert(LocalDateTime source) {
+			return Date.from(source.atZone(ZoneId.systemDefault()).toInstant());
+		}
+
+	}// LocalDateTimeToDateConverter END
+
+}
@@ -0,0 +1,14 @@
+package tacos.data.reactive;
+
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+
+/**
+ * Non-blocking counterpart of <code>IngredientRepository</code>.
+ *
+ * @see tacos.data.IngredientRepository
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+public interface ReactiveIngredientRepository extends R2dbcRepository<IngredientRow, String> {
+
+}
@@ -0,0 +1,59 @@
+package tacos.data.reactive;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import tacos.data.OrderSummary;
+
+/**
+ * Non-blocking counterpart of <code>OrderRepository</code>.
+ *
+ * @see tacos.data.OrderRepository
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+public interface ReactiveOrderRepository extends R2dbcRepository<TacoOrderRow, Long> {
+
+	/**
+	 * Adds one taco to the order's <tt>tacos</tt> list (JPA's
+	 * <tt>taco_order_tacos</tt> join table).
+	 * 
+	 * @param orderId
+	 * @param tacoId
+	 * @return number of inserted rows
+	 */
+	@Modifying
+	@Query("insert into taco_order_tacos (taco_order_id, tacos_id) values (:orderId, :tacoId)")
+	Mono<Integer> addTaco(Long orderId, Long tacoId);
+
+	/**
+	 * @param orderId
+	 * @return ids of the order's tacos
+	 */
+	@Query("select tacos_id from taco_order_tacos where taco_order_id = :orderId")
+	Flux<Long> findTacoIds(Long orderId);
+
+	/*
+	 * Order history, keyset-paginated on (user_id, date_order_placed, id) like
+	 * OrderRepository.findHistoryByUser() / findHistoryByUserBefore(), and read
+	 * straight into OrderSummary projections.
+	 */
+	@Query("select o.id, o.date_order_placed, o.delivery_name, o.delivery_city, o.delivery_state, o.delivery_zip, "
+			+ "(select count(*) from taco_order_tacos t where t.taco_order_id = o.id) as taco_count "
+			+ "from taco_order o where o.user_id = :userId "
+			+ "order by o.date_order_placed desc, o.id desc limit :limit")
+	Flux<OrderSummary> findHistoryByUser(Long userId, int limit);
+
+	@Query("select o.id, o.date_order_placed, o.delivery_name, o.delivery_city, o.delivery_state, o.delivery_zip, "
+			+ "(select count(*) from taco_order_tacos t where t.taco_order_id = o.id) as taco_count "
+			+ "from taco_order o where o.user_id = :userId "
+			+ "and (o.date_order_placed < :placed or (o.date_order_placed = :placed and o.id < :id)) "
+			+ "order by o.date_order_placed desc, o.id desc limit :limit")
+	Flux<OrderSummary> findHistoryByUserBefore(Long userId, LocalDateTime placed, Long id, int limit);
+
+}
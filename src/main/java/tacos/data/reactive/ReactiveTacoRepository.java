@@ -0,0 +1,55 @@
+package tacos.data.reactive;
+
+import java.util.Collection;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of <code>TacoRepositry</code>.
+ *
+ * @see tacos.data.TacoRepositry
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+public interface ReactiveTacoRepository extends R2dbcRepository<TacoRow, Long> {
+
+	/**
+	 * Adds one ingredient to the taco's <tt>ingredients</tt> list (JPA's
+	 * <tt>taco_ingredients</tt> join table).
+	 * 
+	 * @param tacoId
+	 * @param ingredientId
+	 * @return number of inserted rows
+	 */
+	@Modifying
+	@Query("insert into taco_ingredients (taco_id, ingredients_id) values (:tacoId, :ingredientId)")
+	Mono<Integer> addIngredient(Long tacoId, String ingredientId);
+
+	/**
+	 * One page of a user's tacos, newest first. Ids are time-ordered, so the id
+	 * is the keyset: every page seeks to the last id of the previous one in the
+	 * <tt>(user_id, id)</tt> index.
+	 * 
+	 * @param userId the user who designed the tacos
+	 * @param before id of the last taco of the previous page,
+	 *               <tt>Long.MAX_VALUE</tt> for the first page
+	 * @param limit  maximum number of tacos
+	 * @return the user's tacos with ids lower than <tt>before</tt>, highest id
+	 *         first
+	 */
+	@Query("select * from taco where user_id = :userId and id < :before order by id desc limit :limit")
+	Flux<TacoRow> findPageBefore(Long userId, Long before, int limit);
+
+	/**
+	 * @param tacoIds
+	 * @return the ingredient ids of all given tacos, in one query
+	 */
+	@Query("select taco_id, ingredients_id from taco_ingredients where taco_id in (:tacoIds)")
+	Flux<TacoIngredient> findIngredients(Collection<Long> tacoIds);
+
+}
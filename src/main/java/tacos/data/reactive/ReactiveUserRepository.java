@@ -0,0 +1,18 @@
+package tacos.data.reactive;
+
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Looks up the credentials of reactive API clients.
+ *
+ * @see tacos.data.UserRepository
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+public interface ReactiveUserRepository extends R2dbcRepository<UserCredentials, Long> {
+
+	Mono<UserCredentials> findByUsername(String username);
+
+}
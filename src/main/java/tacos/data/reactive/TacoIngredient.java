@@ -0,0 +1,28 @@
+package tacos.data.reactive;
+
+/**
+ * Projection of a <tt>taco_ingredients</tt> row: one ingredient of one taco.
+ *
+ * @see ReactiveTacoRepository#findIngredients(java.util.Collection)
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+public class TacoIngredient {
+
+	private final Long tacoId;
+	private final String ingredientsId;
+
+	public TacoIngredient(Long tacoId, String ingredientsId) {
+		this.tacoId = tacoId;
+		this.ingredientsId = ingredientsId;
+	}
+
+	public Long getTacoId() {
+		return tacoId;
+	}
+
+	public String getIngredientsId() {
+		return ingredientsId;
+	}
+
+}
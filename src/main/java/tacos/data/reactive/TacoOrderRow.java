@@ -0,0 +1,129 @@
+package tacos.data.reactive;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * Row of the <tt>taco_order</tt> table as the reactive API writes it. The
+ * ordered tacos go to the <tt>taco_order_tacos</tt> join table
+ * ({@link ReactiveOrderRepository#addTaco(Long, Long)}); the owner is
+ * referenced by id.<br>
+ * The id is assigned on insert from the node's <tt>TimeOrderedIds</tt> - see
+ * {@link ReactiveDataConfig}.
+ *
+ * @see tacos.model.bean.TacoOrder
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Table("taco_order")
+public class TacoOrderRow {
+
+	@Id
+	private Long id;
+	private String deliveryName;
+	private String deliveryStreet;
+	private String deliveryCity;
+	private String deliveryState;
+	private String deliveryZip;
+	private String ccNumber;
+	private String ccExpiration;
+	// JPA's naming strategy maps ccCVV to cccvv
+	@Column("cccvv")
+	private String ccCVV;
+	private LocalDateTime dateOrderPlaced;
+	private Long userId;
+
+	// getters and setters || accessors and mutators
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getDeliveryName() {
+		return deliveryName;
+	}
+
+	public void setDeliveryName(String deliveryName) {
+		this.deliveryName = deliveryName;
+	}
+
+	public String getDeliveryStreet() {
+		return deliveryStreet;
+	}
+
+	public void setDeliveryStreet(String deliveryStreet) {
+		this.deliveryStreet = deliveryStreet;
+	}
+
+	public String getDeliveryCity() {
+		return deliveryCity;
+	}
+
+	public void setDeliveryCity(String deliveryCity) {
+		this.deliveryCity = deliveryCity;
+	}
+
+	public String getDeliveryState() {
+		return deliveryState;
+	}
+
+	public void setDeliveryState(String deliveryState) {
+		this.deliveryState = deliveryState;
+	}
+
+	public String getDeliveryZip() {
+		return deliveryZip;
+	}
+
+	public void setDeliveryZip(String deliveryZip) {
+		this.deliveryZip = deliveryZip;
+	}
+
+	public String getCcNumber() {
+		return ccNumber;
+	}
+
+	public void setCcNumber(String ccNumber) {
+		this.ccNumber = ccNumber;
+	}
+
+	public String getCcExpiration() {
+		return ccExpiration;
+	}
+
+	public void setCcExpiration(String ccExpiration) {
+		this.ccExpiration = ccExpiration;
+	}
+
+	public String getCcCVV() {
+		return ccCVV;
+	}
+
+	public void setCcCVV(String ccCVV) {
+		this.ccCVV = ccCVV;
+	}
+
+	public LocalDateTime getDateOrderPlaced() {
+		return dateOrderPlaced;
+	}
+
+	public void setDateOrderPlaced(LocalDateTime dateOrderPlaced) {
+		this.dateOrderPlaced = dateOrderPlaced;
+	}
+
+	public Long getUserId() {
+		return userId;
+	}
+
+	public void setUserId(Long userId) {
+		this.userId = userId;
+	}
+	// getters and setters END
+
+}
@@ -0,0 +1,71 @@
+package tacos.data.reactive;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * Row of the <tt>taco</tt> table as the reactive API reads and writes it.
+ * R2DBC maps no relationships, so the ingredients live in the
+ * <tt>taco_ingredients</tt> join table and are written by
+ * {@link ReactiveTacoRepository#addIngredient(Long, String)}.<br>
+ * The id is assigned on insert from the node's <tt>TimeOrderedIds</tt> - see
+ * {@link ReactiveDataConfig}.
+ *
+ * @see tacos.model.bean.Taco
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Table("taco")
+public class TacoRow {
+
+	@Id
+	private Long id;
+	private String name;
+	private LocalDateTime dateCreated;
+	// the user who designed the taco
+	private Long userId;
+
+	public TacoRow() {
+	}
+
+	public TacoRow(String name, LocalDateTime dateCreated, Long userId) {
+		this.name = name;
+		this.dateCreated = dateCreated;
+		this.userId = userId;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public LocalDateTime getDateCreated() {
+		return dateCreated;
+	}
+
+	public void setDateCreated(LocalDateTime dateCreated) {
+		this.dateCreated = dateCreated;
+	}
+
+	public Long getUserId() {
+		return userId;
+	}
+
+	public void setUserId(Long userId) {
+		this.userId = userId;
+	}
+
+}
@@ -0,0 +1,46 @@
+package tacos.data.reactive;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * The columns of a <tt>user</tt> row the reactive API needs to authenticate a
+ * client: id, username and password hash.
+ *
+ * @see tacos.model.bean.User
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Table("user")
+public class UserCredentials {
+
+	@Id
+	private Long id;
+	private String username;
+	private String password;
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+
+	public void setUsername(String username) {
+		this.username = username;
+	}
+
+	public String getPassword() {
+		return password;
+	}
+
+	public void setPassword(String password) {
+		this.password = password;
+	}
+
+}
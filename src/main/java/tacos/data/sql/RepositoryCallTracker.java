@@ -0,0 +1,50 @@
+package tacos.data.sql;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Remembers, per thread, which Spring Data repository method is running, e.g.
+ * <tt>OrderRepository.findHistoryByUser</tt>, so that a slow statement can be
+ * traced back to the repository method that issued it.<br>
+ * An instance is added as the outermost advice of every repository proxy (see
+ * {@link SqlMetricsConfig}), so statements flushed when the repository's
+ * transaction commits are attributed to the method as well.
+ * 
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+class RepositoryCallTracker implements MethodInterceptor {
+
+	private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+	private final String repositoryName;
+
+	RepositoryCallTracker(Class<?> repositoryInterface) {
+		this.repositoryName = repositoryInterface.getSimpleName();
+	}
+
+	/**
+	 * @return repository method running on the current thread, e.g.
+	 *         <tt>UserRepository.findByUsername</tt>, or <tt>null</tt>
+	 */
+	static String current() {
+		return CURRENT.get();
+	}
+
+	@Override
+	public Object invoke(MethodInvocation invocation) throws Throwable {
+		String previous = CURRENT.get();
+		CURRENT.set(repositoryName + "." + invocation.getMethod().getName());
+		try {
+			return invocation.proceed();
+		} finally {
+			if (previous == null) {
+				CURRENT.remove();
+			} else {
+				CURRENT.set(previous);
+			}
+		}
+	}
+
+}
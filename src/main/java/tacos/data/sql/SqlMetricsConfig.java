@@ -0,0 +1,102 @@
+package tacos.data.sql;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * Wires the SQL statement metrics (<tt>tacocloud.sql.enabled</tt>, on by
+ * default):
+ * <ul>
+ * <li>wraps every <tt>DataSource</tt> bean in a datasource-proxy
+ * <tt>ProxyDataSource</tt> that reports each statement to the
+ * {@link SqlStatementRecorder}</li>
+ * <li>adds a {@link RepositoryCallTracker} to every Spring Data repository, so
+ * slow statements name the repository method that issued them</li>
+ * <li>registers the <tt>sqlstatements</tt> management endpoint</li>
+ * </ul>
+ * This replaces <tt>spring.jpa.show-sql</tt>: rather than printing every
+ * statement, statements are timed and only the slow ones are logged.
+ * 
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Configuration
+@ConditionalOnProperty(name = "tacocloud.sql.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlMetricsConfig {
+
+	@Bean
+	public SqlStatementRecorder sqlStatementRecorder(MeterRegistry meterRegistry, SqlProps props) {
+		return new SqlStatementRecorder(meterRegistry, props);
+	}
+
+	@Bean
+	public SqlStatementsEndpoint sqlStatementsEndpoint(SqlStatementRecorder recorder) {
+		return new SqlStatementsEndpoint(recorder);
+	}
+
+	/**
+	 * Static, as a <tt>BeanPostProcessor</tt> must be created before the beans it
+	 * processes; the recorder is looked up on the first statement.
+	 * 
+	 * @param recorder
+	 * @return BeanPostProcessor that wraps data sources
+	 */
+	@Bean
+	public static BeanPostProcessor sqlRecordingDataSourcePostProcessor(ObjectProvider<SqlStatementRecorder> recorder) {
+		QueryExecutionListener listener = new QueryExecutionListener() {
+			@Override
+			public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+				recorder.getObject().beforeQuery(execInfo, queryInfoList);
+			}
+
+			@Override
+			public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+				recorder.getObject().afterQuery(execInfo, queryInfoList);
+			}
+		};
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof DataSource && !(bean instanceof ProxyDataSource)) {
+					return ProxyDataSourceBuilder.create((DataSource) bean).name(beanName).listener(listener).build();
+				}
+				return bean;
+			}
+		};
+	}
+
+	/**
+	 * @return BeanPostProcessor that adds a {@link RepositoryCallTracker} to
+	 *         every repository
+	 */
+	@Bean
+	public static BeanPostProcessor repositoryCallTrackerPostProcessor() {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessBeforeInitialization(Object bean, String beanName) {
+				if (bean instanceof RepositoryFactoryBeanSupport) {
+					((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(
+							factory -> factory.addRepositoryProxyPostProcessor((proxyFactory, information) -> proxyFactory
+									.addAdvice(0, new RepositoryCallTracker(information.getRepositoryInterface()))));
+				}
+				return bean;
+			}
+		};
+	}
+
+}
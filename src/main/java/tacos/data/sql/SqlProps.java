@@ -0,0 +1,54 @@
+package tacos.data.sql;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration of the SQL statement metrics and the slow-query log, bound from
+ * the <tt>tacocloud.sql.*</tt> properties (see
+ * <tt>application.properties</tt>).
+ * 
+ * @see SqlStatementRecorder
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Component
+@ConfigurationProperties(prefix = "tacocloud.sql")
+public class SqlProps {
+
+	// wrap the data source in the recording proxy
+	private boolean enabled = true;
+	// statements that take longer are logged (WARN, logger tacos.data.sql.SlowQuery)
+	private Duration slowThreshold = Duration.ofMillis(100);
+	// maximum number of distinct (normalised) statements tracked; further
+	// statements are recorded as "other"
+	private int maxStatements = 500;
+
+	// getters and setters || accessors and mutators
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public Duration getSlowThreshold() {
+		return slowThreshold;
+	}
+
+	public void setSlowThreshold(Duration slowThreshold) {
+		this.slowThreshold = slowThreshold;
+	}
+
+	public int getMaxStatements() {
+		return maxStatements;
+	}
+
+	public void setMaxStatements(int maxStatements) {
+		this.maxStatements = maxStatements;
+	}// getters, setters END
+
+}
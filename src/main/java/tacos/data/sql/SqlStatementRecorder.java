@@ -0,0 +1,258 @@
+package tacos.data.sql;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+/**
+ * <code>SqlStatementRecorder</code> times every JDBC statement that goes
+ * through the application's data source (wrapped in a datasource-proxy
+ * <tt>ProxyDataSource</tt>, see {@link SqlMetricsConfig}).<br>
+ * <br>
+ * Statements are <b>normalised</b> first: literals become <tt>?</tt>,
+ * whitespace is collapsed and <tt>IN (?, ?, ...)</tt> lists of any length
+ * become <tt>IN (?)</tt>, so each statement issued by a repository method
+ * maps to one entry, whatever its arguments. Per normalised statement, the
+ * recorder keeps
+ * <ul>
+ * <li>a Micrometer timer <tt>tacocloud.sql.statement</tt> with a percentile
+ * histogram, tagged with a stable statement <tt>id</tt> (hash of the
+ * normalised text), the statement <tt>type</tt> and the <tt>table</tt></li>
+ * <li>count, total and maximum time, for the top-N list of the
+ * <tt>sqlstatements</tt> management endpoint</li>
+ * </ul>
+ * A statement that takes longer than <tt>tacocloud.sql.slow-threshold</tt> is
+ * logged (WARN, logger <tt>tacos.data.sql.SlowQuery</tt>) with the shapes of
+ * its bind parameters (JDBC setter type and, for strings, the length - never
+ * the values) and the repository method that issued it.<br>
+ * At most <tt>tacocloud.sql.max-statements</tt> distinct statements are
+ * tracked, to bound memory and metric cardinality; any further statements
+ * are recorded under the id <tt>other</tt>.
+ * 
+ * @see SqlStatementsEndpoint
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+public class SqlStatementRecorder implements QueryExecutionListener {
+
+	private static final String START = SqlStatementRecorder.class.getName() + ".start";
+	private static final String OTHER = "other";
+
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+	private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+	private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?(?![\\w.])");
+	private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+	private static final Pattern TABLE = Pattern.compile("(?i)\\b(?:from|into|update)\\s+[`\"]?([\\w.]+)");
+
+	private final MeterRegistry meterRegistry;
+	private final long slowThresholdNanos;
+	private final int maxStatements;
+	private final ConcurrentMap<String, Statement> statements = new ConcurrentHashMap<>();
+
+	private Logger slowQueryLogger = LoggerFactory.getLogger("tacos.data.sql.SlowQuery");
+
+	public SqlStatementRecorder(MeterRegistry meterRegistry, SqlProps props) {
+		this.meterRegistry = meterRegistry;
+		this.slowThresholdNanos = props.getSlowThreshold().toNanos();
+		this.maxStatements = props.getMaxStatements();
+	}
+
+	@Override
+	public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+		execInfo.addCustomValue(START, System.nanoTime());
+	}
+
+	@Override
+	public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+		Long start = execInfo.getCustomValue(START, Long.class);
+		if (start == null || queryInfoList.isEmpty()) {
+			return;
+		}
+		// statements executed together (a batch of different statements) share
+		// the elapsed time
+		long elapsed = (System.nanoTime() - start) / queryInfoList.size();
+		for (QueryInfo queryInfo : queryInfoList) {
+			String sql = normalise(queryInfo.getQuery());
+			statement(sql).record(elapsed);
+			if (elapsed >= slowThresholdNanos) {
+				logSlowQuery(sql, elapsed, queryInfo, execInfo.isBatch());
+			}
+		}
+	}// afterQuery() END
+
+	/**
+	 * @param limit   maximum number of statements returned, at least 1
+	 * @param orderBy <tt>max</tt> (default), <tt>mean</tt>, <tt>total</tt> or
+	 *                <tt>count</tt>
+	 * @return the slowest statements, slowest first
+	 * @throws IllegalArgumentException if <tt>limit</tt> is below 1
+	 */
+	public List<Map<String, Object>> top(int limit, String orderBy) {
+		if (limit < 1) {
+			throw new IllegalArgumentException("limit must be at least 1, was " + limit);
+		}
+		Comparator<Statement> order;
+		if ("mean".equals(orderBy)) {
+			order = Comparator.comparingDouble(Statement::meanNanos);
+		} else if ("total".equals(orderBy)) {
+			order = Comparator.comparingLong(statement -> statement.totalNanos.sum());
+		} else if ("count".equals(orderBy)) {
+			order = Comparator.comparingLong(statement -> statement.count.sum());
+		} else {
+			order = Comparator.comparingLong(statement -> statement.maxNanos.get());
+		}
+
+		List<Statement> sorted = new ArrayList<>(statements.values());
+		sorted.sort(order.reversed());
+		List<Map<String, Object>> top = new ArrayList<>();
+		for (Statement statement : sorted.subList(0, Math.min(limit, sorted.size()))) {
+			top.add(statement.toMap());
+		}
+		return top;
+	}// top() END
+
+	/**
+	 * @param sql
+	 * @return the statement with literals replaced by <tt>?</tt>, whitespace
+	 *         collapsed and <tt>IN</tt> lists shortened to one parameter
+	 */
+	static String normalise(String sql) {
+		String normalised = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+		normalised = STRING_LITERAL.matcher(normalised).replaceAll("?");
+		normalised = NUMBER_LITERAL.matcher(normalised).replaceAll("?");
+		return IN_LIST.matcher(normalised).replaceAll("in (?)");
+	}
+
+	// helper method; finds or creates the entry of a normalised statement
+	private Statement statement(String sql) {
+		Statement statement = statements.get(sql);
+		if (statement != null) {
+			return statement;
+		}
+		if (statements.size() >= maxStatements) {
+			return statements.computeIfAbsent(OTHER, key -> new Statement(OTHER, OTHER));
+		}
+		return statements.computeIfAbsent(sql, key -> new Statement(Integer.toHexString(sql.hashCode()), sql));
+	}
+
+	// helper method
+	private void logSlowQuery(String sql, long elapsed, QueryInfo queryInfo, boolean batch) {
+		String caller = RepositoryCallTracker.current();
+		if (caller == null) {
+			caller = applicationCaller();
+		}
+		List<List<ParameterSetOperation>> parameters = queryInfo.getParametersList();
+		slowQueryLogger.warn("Slow SQL statement: {} ms{}, caller {}, statement [{}], parameters {}",
+				TimeUnit.NANOSECONDS.toMillis(elapsed), batch ? " (batch of " + parameters.size() + ")" : "", caller,
+				sql, parameters.isEmpty() ? "[]" : shapes(parameters.get(0)));
+	}
+
+	// bind parameter shapes, e.g. [1:String(5), 2:Long, 3:Null]
+	static String shapes(List<ParameterSetOperation> operations) {
+		List<ParameterSetOperation> sorted = new ArrayList<>(operations);
+		// by parameter index, as a number: 2 before 10
+		sorted.sort(Comparator.comparingInt(operation -> parameterIndex(operation.getArgs()[0])));
+		StringBuilder shapes = new StringBuilder("[");
+		for (ParameterSetOperation operation : sorted) {
+			Object[] args = operation.getArgs();
+			if (shapes.length() > 1) {
+				shapes.append(", ");
+			}
+			shapes.append(args[0]).append(':').append(operation.getMethod().getName().replaceFirst("^set", ""));
+			if (args.length > 1 && args[1] instanceof String) {
+				shapes.append('(').append(((String) args[1]).length()).append(')');
+			}
+		}
+		return shapes.append(']').toString();
+	}
+
+	// index of a parameter set by position; parameters set by name sort last
+	private static int parameterIndex(Object parameter) {
+		return parameter instanceof Integer ? (Integer) parameter : Integer.MAX_VALUE;
+	}
+
+	// first application frame outside this package, for statements that were
+	// not issued by a repository method (e.g. a commit in a TransactionTemplate)
+	private static String applicationCaller() {
+		for (StackTraceElement frame : new Throwable().getStackTrace()) {
+			String className = frame.getClassName();
+			if (className.startsWith("tacos.") && !className.startsWith("tacos.data.sql.")) {
+				return className.substring(className.lastIndexOf('.') + 1) + "." + frame.getMethodName();
+			}
+		}
+		return "unknown";
+	}
+
+	// statistics of one normalised statement
+	private final class Statement {
+
+		private final String id;
+		private final String sql;
+		private final Timer timer;
+		private final LongAdder count = new LongAdder();
+		private final LongAdder totalNanos = new LongAdder();
+		private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+		Statement(String id, String sql) {
+			this.id = id;
+			this.sql = sql;
+			this.timer = Timer.builder("tacocloud.sql.statement").tag("id", id).tag("type", type(sql))
+					.tag("table", table(sql)).description("Execution time of a (normalised) SQL statement")
+					.publishPercentileHistogram().register(meterRegistry);
+		}
+
+		void record(long nanos) {
+			timer.record(nanos, TimeUnit.NANOSECONDS);
+			count.increment();
+			totalNanos.add(nanos);
+			maxNanos.accumulate(nanos);
+		}
+
+		double meanNanos() {
+			long n = count.sum();
+			return n == 0 ? 0 : (double) totalNanos.sum() / n;
+		}
+
+		Map<String, Object> toMap() {
+			Map<String, Object> map = new LinkedHashMap<>();
+			map.put("id", id);
+			map.put("statement", sql);
+			map.put("count", count.sum());
+			map.put("totalMillis", totalNanos.sum() / 1e6);
+			map.put("meanMillis", meanNanos() / 1e6);
+			map.put("maxMillis", maxNanos.get() / 1e6);
+			return map;
+		}
+
+		private String type(String sql) {
+			int space = sql.indexOf(' ');
+			return (space > 0 ? sql.substring(0, space) : sql).toLowerCase();
+		}
+
+		private String table(String sql) {
+			Matcher matcher = TABLE.matcher(sql);
+			return matcher.find() ? matcher.group(1).toLowerCase() : "none";
+		}
+
+	}// Statement END
+
+}
@@ -0,0 +1,45 @@
+package tacos.data.sql;
+
+import java.util.Collections;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.lang.Nullable;
+
+/**
+ * Management endpoint <tt>/actuator/sqlstatements</tt> that lists the slowest
+ * SQL statements recorded by {@link SqlStatementRecorder}, e.g.
+ * <tt>/actuator/sqlstatements?limit=5&amp;orderBy=mean</tt>. A <tt>limit</tt>
+ * below 1 is answered with <tt>400 Bad Request</tt>.<br>
+ * Served on the management port, to the administrator only.
+ * 
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Endpoint(id = "sqlstatements")
+public class SqlStatementsEndpoint {
+
+	private final SqlStatementRecorder recorder;
+
+	public SqlStatementsEndpoint(SqlStatementRecorder recorder) {
+		this.recorder = recorder;
+	}
+
+	/**
+	 * @param limit   number of statements, 10 by default
+	 * @param orderBy <tt>max</tt> (default), <tt>mean</tt>, <tt>total</tt> or
+	 *                <tt>count</tt>
+	 * @return the slowest statements, slowest first, or an error (status 400)
+	 */
+	@ReadOperation
+	public WebEndpointResponse<Object> top(@Nullable Integer limit, @Nullable String orderBy) {
+		int size = limit != null ? limit : 10;
+		if (size < 1) {
+			return new WebEndpointResponse<>(Collections.singletonMap("error", "limit must be at least 1"),
+					WebEndpointResponse.STATUS_BAD_REQUEST);
+		}
+		return new WebEndpointResponse<>(recorder.top(size, orderBy));
+	}
+
+}
@@ -0,0 +1,590 @@
+package tacos.importer;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import tacos.importer.ImportWriter.Checkpoint;
+import tacos.importer.ImportedOrder.ImportedTaco;
+import tacos.model.bean.Ingredient;
+import tacos.model.bean.Taco;
+import tacos.model.bean.TacoOrder;
+import tacos.service.IngredientCatalog;
+import tacos.service.UsernameRegistry;
+
+/**
+ * Imports users and orders from NDJSON files (one JSON object per line, see
+ * <code>ImportedUser</code> and <code>ImportedOrder</code>), e.g. when a
+ * franchise moves its customers and their order history to Taco Cloud.<br>
+ * <br>
+ * A file is processed in chunks of <tt>tacocloud.import.chunk-size</tt> lines:
+ * <ul>
+ * <li>The lines of a chunk are parsed and validated in parallel on a
+ * <tt>ForkJoinPool</tt> of <tt>tacocloud.import.validation-threads</tt> -
+ * against the same bean-validation constraints as the web forms, with
+ * ingredients looked up in the <code>IngredientCatalog</code> - while the
+ * previous chunk is being written.</li>
+ * <li>A chunk is written in one transaction: one query resolves its usernames,
+ * then each table gets one JDBC batch (<code>ImportWriter</code>). The number
+ * of the chunk's last line is committed with it in <tt>import_progress</tt>,
+ * keyed by the file's absolute path, together with a SHA-256 hash of the lines
+ * up to it.</li>
+ * <li>A run that fails - or is killed - can simply be started again: it skips
+ * the lines committed before and continues with the next chunk, so no line is
+ * imported twice. Lines after the checkpoint may be fixed in between, but if
+ * the committed lines themselves no longer match - the file was replaced, or
+ * edited before the checkpoint - the run is refused with an
+ * <code>IllegalStateException</code> rather than skipping lines that were
+ * never imported.</li>
+ * <li>Lines that fail validation, users whose username is taken and orders of
+ * unknown users are not imported. They are appended, with their line number and
+ * the reasons, to <tt>&lt;file&gt;.rejected</tt> next to the file, to be fixed
+ * and imported from a new file.</li>
+ * </ul>
+ * Progress (lines, percentage of the file, lines per second) is logged every
+ * <tt>tacocloud.import.progress-interval</tt>.
+ *
+ * @see tacos.BulkImportRunner
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Service
+public class BulkImport {
+
+	private final ObjectMapper objectMapper;
+	private final Validator validator;
+	private final IngredientCatalog ingredientCatalog;
+	private final UsernameRegistry usernameRegistry;
+	private final ImportWriter writer;
+	private final TransactionTemplate transactionTemplate;
+	private final BulkImportProps props;
+
+	private Logger logger = LoggerFactory.getLogger(BulkImport.class);
+
+	public BulkImport(ObjectMapper objectMapper, Validator validator, IngredientCatalog ingredientCatalog,
+			UsernameRegistry usernameRegistry, ImportWriter writer, PlatformTransactionManager transactionManager,
+			BulkImportProps props) {
+		this.objectMapper = objectMapper;
+		this.validator = validator;
+		this.ingredientCatalog = ingredientCatalog;
+		this.usernameRegistry = usernameRegistry;
+		this.writer = writer;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.props = props;
+	}
+
+	/**
+	 * Imports users. A user whose username is taken - by an existing user or an
+	 * earlier line - is rejected.
+	 *
+	 * @param file NDJSON file of <code>ImportedUser</code> objects
+	 * @return Result
+	 * @throws IOException if the file cannot be read
+	 */
+	public Result importUsers(Path file) throws IOException {
+		return run(file, new Kind<ImportedUser>(ImportedUser.class) {
+			@Override
+			String validate(ImportedUser user) {
+				Set<String> errors = new TreeSet<>();
+				addViolations(errors, "", validator.validate(user));
+				return errors.isEmpty() ? null : String.join("; ", errors);
+			}
+
+			@Override
+			void write(List<Line<ImportedUser>> valid) {
+				Set<String> taken = writer.existingUsernames(
+						valid.stream().map(line -> line.value.getUsername()).collect(Collectors.toSet()));
+				Set<String> seen = new HashSet<>();
+				List<ImportedUser> users = new ArrayList<>(valid.size());
+				for (Line<ImportedUser> line : valid) {
+					String username = line.value.getUsername();
+					if (taken.contains(username) || !seen.add(username)) {
+						line.error = "username: Username is taken";
+					} else {
+						users.add(line.value);
+					}
+				}
+				writer.insertUsers(users);
+			}
+
+			@Override
+			void committed(ImportedUser user) {
+				usernameRegistry.add(user.getUsername());
+			}
+		});
+	}// importUsers() END
+
+	/**
+	 * Imports orders. An order of a user that does not exist is rejected; import
+	 * the users first.
+	 *
+	 * @param file NDJSON file of <code>ImportedOrder</code> objects
+	 * @return Result
+	 * @throws IOException if the file cannot be read
+	 */
+	public Result importOrders(Path file) throws IOException {
+		return run(file, new Kind<ImportedOrder>(ImportedOrder.class) {
+			@Override
+			String validate(ImportedOrder order) {
+				return validateOrder(order);
+			}
+
+			@Override
+			void write(List<Line<ImportedOrder>> valid) {
+				Map<String, Long> userIds = writer.findUserIds(
+						valid.stream().map(line -> line.value.getUsername()).collect(Collectors.toSet()));
+				List<ImportedOrder> orders = new ArrayList<>(valid.size());
+				for (Line<ImportedOrder> line : valid) {
+					if (userIds.containsKey(line.value.getUsername())) {
+						orders.add(line.value);
+					} else {
+						line.error = "username: Unknown user";
+					}
+				}
+				writer.insertOrders(orders, userIds);
+			}
+		});
+	}// importOrders() END
+
+	/**
+	 * Applies the constraints of <code>TacoOrder</code> and <code>Taco</code> to
+	 * an imported order, as if it had been placed through the order form.
+	 *
+	 * @param imported
+	 * @return the violated constraints, <tt>null</tt> if the order is valid
+	 */
+	String validateOrder(ImportedOrder imported) {
+		Set<String> errors = new TreeSet<>();
+		if (!StringUtils.hasText(imported.getUsername())) {
+			errors.add("username: User is required");
+		}
+		if (imported.getDateOrderPlaced() == null) {
+			errors.add("dateOrderPlaced: Order date is required");
+		}
+		TacoOrder order = new TacoOrder(imported.getDeliveryName(), imported.getDeliveryStreet(),
+				imported.getDeliveryCity(), imported.getDeliveryState(), imported.getDeliveryZip(),
+				imported.getCcNumber(), imported.getCcExpiration(), imported.getCcCVV(), new ArrayList<>(),
+				imported.getDateOrderPlaced(), null);
+		addViolations(errors, "", validator.validate(order));
+
+		List<ImportedTaco> tacos = imported.getTacos();
+		if (tacos == null || tacos.isEmpty()) {
+			errors.add("tacos: You must order at least 1 taco");
+			return String.join("; ", errors);
+		}
+		for (int i = 0; i < tacos.size(); i++) {
+			String path = "tacos[" + i + "].";
+			ImportedTaco importedTaco = tacos.get(i);
+			Set<String> ids = importedTaco.getIngredients() == null ? new LinkedHashSet<>()
+					: importedTaco.getIngredients().stream().filter(StringUtils::hasText)
+							.collect(Collectors.toCollection(LinkedHashSet::new));
+			List<Ingredient> ingredients = ingredientCatalog.findAllById(ids);
+			if (ingredients.size() < ids.size()) {
+				errors.add(path + "ingredients: Unknown ingredient");
+			}
+			Taco taco = new Taco();
+			taco.setName(importedTaco.getName());
+			taco.setIngredients(ingredients);
+			addViolations(errors, path, validator.validate(taco));
+		}
+		return errors.isEmpty() ? null : String.join("; ", errors);
+	}// validateOrder() END
+
+	// helper method
+	private static <T> void addViolations(Set<String> errors, String path, Set<ConstraintViolation<T>> violations) {
+		for (ConstraintViolation<T> violation : violations) {
+			errors.add(path + violation.getPropertyPath() + ": " + violation.getMessage());
+		}
+	}
+
+	/**
+	 * Reads the file chunk by chunk; validation of a chunk overlaps the writing of
+	 * the previous one, so at most two chunks are held in memory.
+	 */
+	private <T> Result run(Path file, Kind<T> kind) throws IOException {
+		String source = file.getFileName().toString();
+		String key = file.toAbsolutePath().normalize().toString();
+		Checkpoint checkpoint = writer.checkpoint(key);
+		long resumeAfter = checkpoint != null ? checkpoint.getLine() : 0;
+		int threads = props.getValidationThreads() > 0 ? props.getValidationThreads()
+				: Runtime.getRuntime().availableProcessors();
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		Progress progress = new Progress(source, Files.size(file), props.getProgressInterval());
+		if (resumeAfter > 0) {
+			logger.info("Resuming import of {} after line {}", source, resumeAfter);
+		}
+
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+				Rejects rejects = new Rejects(file.resolveSibling(source + ".rejected"))) {
+			Prefix prefix = new Prefix();
+			long lineNumber = 0;
+			String text;
+			while (lineNumber < resumeAfter && (text = reader.readLine()) != null) {
+				lineNumber++;
+				progress.read(text);
+				prefix.add(text);
+			}
+			if (checkpoint != null && (lineNumber < resumeAfter || !prefix.hash().equals(checkpoint.getPrefixHash()))) {
+				throw new IllegalStateException(key + " no longer starts with the " + resumeAfter
+						+ " lines a previous run imported; import it under a new name, or delete its row in "
+						+ "import_progress to import the whole file again");
+			}
+			progress.skipped = lineNumber;
+			progress.lines = lineNumber;
+
+			CompletableFuture<List<Line<T>>> pending = null;
+			try {
+				List<Line<T>> chunk;
+				while (!(chunk = readChunk(reader, lineNumber, progress, prefix)).isEmpty()) {
+					lineNumber = chunk.get(chunk.size() - 1).number;
+					List<Line<T>> lines = chunk;
+					CompletableFuture<List<Line<T>>> next = CompletableFuture
+							.supplyAsync(() -> lines.parallelStream().map(line -> parse(line, kind))
+									.collect(Collectors.toList()), pool);
+					if (pending != null) {
+						write(key, pending.join(), kind, rejects, progress);
+					}
+					pending = next;
+				}
+				if (pending != null) {
+					write(key, pending.join(), kind, rejects, progress);
+				}
+			} catch (RuntimeException e) {
+				if (pending != null) {
+					pending.cancel(true);
+				}
+				logger.error("Import of {} failed after line {}; it resumes there when started again", source,
+						progress.lines);
+				throw e;
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		Result result = progress.result();
+		logger.info("Imported {}: {}", source, result);
+		return result;
+	}// run() END
+
+	// helper method
+	private <T> List<Line<T>> readChunk(BufferedReader reader, long lastLine, Progress progress, Prefix prefix)
+			throws IOException {
+		List<Line<T>> chunk = new ArrayList<>(props.getChunkSize());
+		String text;
+		while (chunk.size() < props.getChunkSize() && (text = reader.readLine()) != null) {
+			progress.read(text);
+			prefix.add(text);
+			chunk.add(new Line<>(++lastLine, text));
+		}
+		if (!chunk.isEmpty()) {
+			chunk.get(chunk.size() - 1).prefixHash = prefix.hash();
+		}
+		return chunk;
+	}
+
+	// helper method; runs on the validation pool
+	private <T> Line<T> parse(Line<T> line, Kind<T> kind) {
+		if (!StringUtils.hasText(line.text)) {
+			return line;
+		}
+		try {
+			line.value = objectMapper.readValue(line.text, kind.type);
+			line.error = line.value == null ? "Not a JSON object" : kind.validate(line.value);
+		} catch (JsonProcessingException e) {
+			line.error = "Not valid JSON: " + e.getOriginalMessage();
+		}
+		return line;
+	}
+
+	/**
+	 * Writes the valid lines of a chunk and its checkpoint in one transaction; the
+	 * rejected lines are recorded once it has committed.
+	 */
+	private <T> void write(String key, List<Line<T>> chunk, Kind<T> kind, Rejects rejects, Progress progress)
+			throws IOException {
+		List<Line<T>> valid = chunk.stream().filter(line -> line.value != null && line.error == null)
+				.collect(Collectors.toList());
+		Line<T> last = chunk.get(chunk.size() - 1);
+		long lastLine = last.number;
+		transactionTemplate.executeWithoutResult(status -> {
+			if (!valid.isEmpty()) {
+				kind.write(valid);
+			}
+			writer.saveCheckpoint(key, new Checkpoint(lastLine, last.prefixHash));
+		});
+
+		for (Line<T> line : chunk) {
+			if (line.error != null) {
+				rejects.add(line);
+				progress.rejected++;
+			} else if (line.value != null) {
+				kind.committed(line.value);
+				progress.imported++;
+			}
+		}
+		progress.chunkWritten(lastLine);
+	}// write() END
+
+	/**
+	 * What is imported: the type of a line, its validation and how valid lines are
+	 * written.
+	 */
+	private abstract static class Kind<T> {
+
+		final Class<T> type;
+
+		Kind(Class<T> type) {
+			this.type = type;
+		}
+
+		/**
+		 * @return the violated constraints, <tt>null</tt> if the value is valid
+		 */
+		abstract String validate(T value);
+
+		/**
+		 * Inserts the valid lines of a chunk, inside its transaction. Lines that
+		 * cannot be imported after all get an error.
+		 */
+		abstract void write(List<Line<T>> valid);
+
+		void committed(T value) {
+		}
+
+	}// Kind END
+
+	/**
+	 * A line of the file; blank lines have neither a value nor an error. The last
+	 * line of a chunk carries the hash of the file up to it.
+	 */
+	private static final class Line<T> {
+
+		final long number;
+		final String text;
+		T value;
+		String error;
+		String prefixHash;
+
+		Line(long number, String text) {
+			this.number = number;
+			this.text = text;
+		}
+
+	}// Line END
+
+	/**
+	 * SHA-256 hash of the lines read so far, each followed by a line feed
+	 * (whatever the file's line separator). Updated by the reading thread only.
+	 */
+	private static final class Prefix {
+
+		private final MessageDigest digest;
+
+		Prefix() {
+			try {
+				digest = MessageDigest.getInstance("SHA-256");
+			} catch (NoSuchAlgorithmException e) {
+				// every JRE has SHA-256
+				throw new IllegalStateException(e);
+			}
+		}
+
+		void add(String line) {
+			digest.update(line.getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) '\n');
+		}
+
+		// hash of the lines so far; more lines can be added afterwards
+		String hash() {
+			try {
+				return Base64.getEncoder().encodeToString(((MessageDigest) digest.clone()).digest());
+			} catch (CloneNotSupportedException e) {
+				// the JRE's SHA-256 implementations can be cloned
+				throw new IllegalStateException(e);
+			}
+		}
+
+	}// Prefix END
+
+	/**
+	 * <tt>&lt;file&gt;.rejected</tt>, created with the first rejected line:
+	 * <tt>line number TAB reasons TAB original line</tt>.
+	 */
+	private static final class Rejects implements Closeable {
+
+		private final Path path;
+		private BufferedWriter out;
+
+		Rejects(Path path) {
+			this.path = path;
+		}
+
+		void add(Line<?> line) throws IOException {
+			if (out == null) {
+				out = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+						StandardOpenOption.APPEND);
+			}
+			out.write(line.number + "\t" + line.error + "\t" + line.text);
+			out.newLine();
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (out != null) {
+				out.close();
+			}
+		}
+
+	}// Rejects END
+
+	/**
+	 * Counters of a run, logged periodically. Updated by the reading and writing
+	 * thread only.
+	 */
+	private final class Progress {
+
+		private final String source;
+		private final long size;
+		private final long interval;
+		private final long started = System.nanoTime();
+		private long lastLogged = started;
+		private long bytesRead;
+		long skipped;
+		long imported;
+		long rejected;
+		long lines;
+
+		Progress(String source, long size, Duration interval) {
+			this.source = source;
+			this.size = size;
+			this.interval = interval.toNanos();
+		}
+
+		void read(String text) {
+			// characters, not bytes: exact for ASCII files, close enough otherwise
+			bytesRead += text.length() + 1;
+		}
+
+		void chunkWritten(long lastLine) {
+			lines = lastLine;
+			long now = System.nanoTime();
+			if (now - lastLogged >= interval) {
+				lastLogged = now;
+				logger.info("Importing {}: line {} ({}%), {} imported, {} rejected, {} lines/s", source, lines,
+						size == 0 ? 100 : Math.min(100, bytesRead * 100 / size), imported, rejected,
+						linesPerSecond(now));
+			}
+		}
+
+		long linesPerSecond(long now) {
+			long nanos = Math.max(1, now - started);
+			return (imported + rejected) * 1_000_000_000L / nanos;
+		}
+
+		Result result() {
+			long now = System.nanoTime();
+			return new Result(source, lines, skipped, imported, rejected, Duration.ofNanos(now - started),
+					linesPerSecond(now));
+		}
+
+	}// Progress END
+
+	/**
+	 * Outcome of an import run.
+	 */
+	public static final class Result {
+
+		private final String source;
+		private final long lines;
+		private final long skipped;
+		private final long imported;
+		private final long rejected;
+		private final Duration elapsed;
+		private final long linesPerSecond;
+
+		Result(String source, long lines, long skipped, long imported, long rejected, Duration elapsed,
+				long linesPerSecond) {
+			this.source = source;
+			this.lines = lines;
+			this.skipped = skipped;
+			this.imported = imported;
+			this.rejected = rejected;
+			this.elapsed = elapsed;
+			this.linesPerSecond = linesPerSecond;
+		}
+
+		public String getSource() {
+			return source;
+		}
+
+		/**
+		 * @return number of the last line processed
+		 */
+		public long getLines() {
+			return lines;
+		}
+
+		/**
+		 * @return lines skipped because a previous run had committed them
+		 */
+		public long getSkipped() {
+			return skipped;
+		}
+
+		public long getImported() {
+			return imported;
+		}
+
+		public long getRejected() {
+			return rejected;
+		}
+
+		public Duration getElapsed() {
+			return elapsed;
+		}
+
+		public long getLinesPerSecond() {
+			return linesPerSecond;
+		}
+
+		@Override
+		public String toString() {
+			return lines + " lines (" + skipped + " skipped as imported before), " + imported + " imported, "
+					+ rejected + " rejected, in " + elapsed.toMillis() + " ms (" + linesPerSecond + " lines/s)";
+		}
+
+	}// Result END
+
+}
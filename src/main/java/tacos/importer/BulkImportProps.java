@@ -0,0 +1,83 @@
+package tacos.importer;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration of the bulk import, bound from the <tt>tacocloud.import.*</tt>
+ * properties (see <tt>application.properties</tt>), usually given on the
+ * command line.
+ * 
+ * @see tacos.BulkImportRunner
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Component
+@ConfigurationProperties(prefix = "tacocloud.import")
+public class BulkImportProps {
+
+	// NDJSON file of users to import; imported before the orders
+	private String users;
+	// NDJSON file of orders to import
+	private String orders;
+	// lines validated and committed together
+	private int chunkSize = 1000;
+	// threads that parse and validate lines, 0 = one per available processor
+	private int validationThreads = 0;
+	// how often progress is logged
+	private Duration progressInterval = Duration.ofSeconds(10);
+	// whether the application exits once the import is done
+	private boolean exitWhenDone = true;
+
+	// getters and setters || accessors and mutators
+	public String getUsers() {
+		return users;
+	}
+
+	public void setUsers(String users) {
+		this.users = users;
+	}
+
+	public String getOrders() {
+		return orders;
+	}
+
+	public void setOrders(String orders) {
+		this.orders = orders;
+	}
+
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	public void setChunkSize(int chunkSize) {
+		this.chunkSize = chunkSize;
+	}
+
+	public int getValidationThreads() {
+		return validationThreads;
+	}
+
+	public void setValidationThreads(int validationThreads) {
+		this.validationThreads = validationThreads;
+	}
+
+	public Duration getProgressInterval() {
+		return progressInterval;
+	}
+
+	public void setProgressInterval(Duration progressInterval) {
+		this.progressInterval = progressInterval;
+	}
+
+	public boolean isExitWhenDone() {
+		return exitWhenDone;
+	}
+
+	public void setExitWhenDone(boolean exitWhenDone) {
+		this.exitWhenDone = exitWhenDone;
+	}// getters, setters END
+
+}
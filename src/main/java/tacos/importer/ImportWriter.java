@@ -0,0 +1,200 @@
+package tacos.importer;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import tacos.data.id.TimeOrderedIdGenerator;
+import tacos.data.id.TimeOrderedIds;
+import tacos.importer.ImportedOrder.ImportedTaco;
+
+/**
+ * Writes validated import chunks with plain JDBC batches.<br>
+ * <br>
+ * Going through the JPA repositories would load every row into the persistence
+ * context, dirty-check it at flush and keep it there until the transaction
+ * ends. Here each table of a chunk gets a single <tt>INSERT</tt> executed as
+ * one JDBC batch, ids included: they come from the node's
+ * <code>TimeOrderedIds</code>, the generator Hibernate and the reactive API
+ * use, so there is no sequence round trip either. Imported rows get ids of the
+ * time they are imported; their placement date is kept in
+ * <tt>date_order_placed</tt>, which the date-ordered queries use.<br>
+ * The methods join the caller's transaction.
+ * 
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Component
+public class ImportWriter {
+
+	private final NamedParameterJdbcTemplate jdbc;
+	private final TimeOrderedIds ids;
+
+	public ImportWriter(NamedParameterJdbcTemplate jdbc, @Value("${tacocloud.id.node-id:}") String nodeId) {
+		this.jdbc = jdbc;
+		this.ids = TimeOrderedIds.forNode(TimeOrderedIdGenerator.resolveNodeId(nodeId));
+	}
+
+	/**
+	 * @param source path of the import file
+	 * @return the checkpoint of a previous run, <tt>null</tt> if none
+	 */
+	public Checkpoint checkpoint(String source) {
+		List<Checkpoint> checkpoints = jdbc.query(
+				"select line, prefix_hash from import_progress where source = :source",
+				new MapSqlParameterSource("source", source),
+				(row, rowNum) -> new Checkpoint(row.getLong("line"), row.getString("prefix_hash")));
+		return checkpoints.isEmpty() ? null : checkpoints.get(0);
+	}
+
+	/**
+	 * Records the last line of a chunk; committed together with its rows, so a
+	 * chunk is either imported and checkpointed, or neither.
+	 * 
+	 * @param source     path of the import file
+	 * @param checkpoint
+	 */
+	public void saveCheckpoint(String source, Checkpoint checkpoint) {
+		MapSqlParameterSource params = new MapSqlParameterSource("source", source)
+				.addValue("line", checkpoint.getLine()).addValue("prefixHash", checkpoint.getPrefixHash())
+				.addValue("updated", new Timestamp(System.currentTimeMillis()));
+		if (jdbc.update("update import_progress set line = :line, prefix_hash = :prefixHash, updated = :updated "
+				+ "where source = :source", params) == 0) {
+			jdbc.update("insert into import_progress (source, line, prefix_hash, updated) "
+					+ "values (:source, :line, :prefixHash, :updated)", params);
+		}
+	}
+
+	/**
+	 * @param usernames
+	 * @return id of each of the given usernames that belongs to a user
+	 */
+	public Map<String, Long> findUserIds(Collection<String> usernames) {
+		if (usernames.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		Map<String, Long> userIds = new HashMap<>();
+		jdbc.query("select id, username from `user` where username in (:usernames)",
+				new MapSqlParameterSource("usernames", new HashSet<>(usernames)),
+				rs -> {
+					userIds.put(rs.getString("username"), rs.getLong("id"));
+				});
+		return userIds;
+	}
+
+	/**
+	 * @param usernames
+	 * @return those of the given usernames that already belong to a user
+	 */
+	public Set<String> existingUsernames(Collection<String> usernames) {
+		return findUserIds(usernames).keySet();
+	}
+
+	/**
+	 * @param users validated users whose usernames are not taken
+	 * @return number of users inserted
+	 */
+	public int insertUsers(List<ImportedUser> users) {
+		List<MapSqlParameterSource> rows = new ArrayList<>(users.size());
+		for (ImportedUser user : users) {
+			rows.add(new MapSqlParameterSource("id", ids.nextId()).addValue("username", user.getUsername())
+					.addValue("password", user.getPassword()).addValue("fullname", user.getFullname())
+					.addValue("street", user.getStreet()).addValue("city", user.getCity())
+					.addValue("state", user.getState()).addValue("zip", user.getZip())
+					.addValue("phoneNumber", user.getPhoneNumber()));
+		}
+		jdbc.batchUpdate("insert into `user` (id, username, password, fullname, street, city, state, zip, "
+				+ "phone_number) values (:id, :username, :password, :fullname, :street, :city, :state, :zip, "
+				+ ":phoneNumber)", rows.toArray(new MapSqlParameterSource[0]));
+		return rows.size();
+	}// insertUsers() END
+
+	/**
+	 * @param orders  validated orders
+	 * @param userIds id of the user of each order, by username
+	 * @return number of orders inserted
+	 */
+	public int insertOrders(List<ImportedOrder> orders, Map<String, Long> userIds) {
+		List<MapSqlParameterSource> orderRows = new ArrayList<>(orders.size());
+		List<MapSqlParameterSource> tacoRows = new ArrayList<>();
+		List<MapSqlParameterSource> ingredientRows = new ArrayList<>();
+		List<MapSqlParameterSource> orderTacoRows = new ArrayList<>();
+		for (ImportedOrder order : orders) {
+			long orderId = ids.nextId();
+			Timestamp placed = timestamp(order.getDateOrderPlaced());
+			Long userId = userIds.get(order.getUsername());
+			orderRows.add(new MapSqlParameterSource("id", orderId)
+					.addValue("deliveryName", order.getDeliveryName())
+					.addValue("deliveryStreet", order.getDeliveryStreet())
+					.addValue("deliveryCity", order.getDeliveryCity())
+					.addValue("deliveryState", order.getDeliveryState())
+					.addValue("deliveryZip", order.getDeliveryZip()).addValue("ccNumber", order.getCcNumber())
+					.addValue("ccExpiration", order.getCcExpiration()).addValue("ccCVV", order.getCcCVV())
+					.addValue("placed", placed).addValue("userId", userId));
+			for (ImportedTaco taco : order.getTacos()) {
+				long tacoId = ids.nextId();
+				tacoRows.add(new MapSqlParameterSource("id", tacoId).addValue("name", taco.getName())
+						.addValue("created", placed).addValue("userId", userId));
+				for (String ingredient : new HashSet<>(taco.getIngredients())) {
+					ingredientRows.add(new MapSqlParameterSource("tacoId", tacoId).addValue("ingredient", ingredient));
+				}
+				orderTacoRows.add(new MapSqlParameterSource("orderId", orderId).addValue("tacoId", tacoId));
+			}
+		}
+		// parents first, in case the join tables carry foreign keys
+		jdbc.batchUpdate("insert into taco (id, name, date_created, user_id) values (:id, :name, :created, :userId)",
+				tacoRows.toArray(new MapSqlParameterSource[0]));
+		jdbc.batchUpdate("insert into taco_ingredients (taco_id, ingredients_id) values (:tacoId, :ingredient)",
+				ingredientRows.toArray(new MapSqlParameterSource[0]));
+		jdbc.batchUpdate("insert into taco_order (id, delivery_name, delivery_street, delivery_city, "
+				+ "delivery_state, delivery_zip, cc_number, cc_expiration, cccvv, date_order_placed, user_id) "
+				+ "values (:id, :deliveryName, :deliveryStreet, :deliveryCity, :deliveryState, :deliveryZip, "
+				+ ":ccNumber, :ccExpiration, :ccCVV, :placed, :userId)",
+				orderRows.toArray(new MapSqlParameterSource[0]));
+		jdbc.batchUpdate("insert into taco_order_tacos (taco_order_id, tacos_id) values (:orderId, :tacoId)",
+				orderTacoRows.toArray(new MapSqlParameterSource[0]));
+		return orderRows.size();
+	}// insertOrders() END
+
+	// helper method
+	private static Timestamp timestamp(Date date) {
+		return new Timestamp(date.getTime());
+	}
+
+	/**
+	 * Progress of an import file: the last line committed, and the SHA-256 hash
+	 * (Base64) of the lines up to and including it.
+	 */
+	public static final class Checkpoint {
+
+		private final long line;
+		private final String prefixHash;
+
+		public Checkpoint(long line, String prefixHash) {
+			this.line = line;
+			this.prefixHash = prefixHash;
+		}
+
+		public long getLine() {
+			return line;
+		}
+
+		public String getPrefixHash() {
+			return prefixHash;
+		}
+
+	}// Checkpoint END
+
+}
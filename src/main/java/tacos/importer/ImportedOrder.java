@@ -0,0 +1,147 @@
+package tacos.importer;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * One line of an order import file:
+ * <tt>{"username": "...", "dateOrderPlaced": "2019-05-01T12:30:00Z",
+ * "deliveryName": "...", ..., "ccCVV": "123", "tacos": [{"name": "...",
+ * "ingredients": ["FLTO", "GRBF", ...]}, ...]}</tt>.<br>
+ * The order belongs to the user with the given username, imported before. It
+ * is validated against the constraints of <code>TacoOrder</code> and
+ * <code>Taco</code>, like an order placed in the browser.
+ * 
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+public class ImportedOrder {
+
+	private String username;
+	private Date dateOrderPlaced;
+	private String deliveryName;
+	private String deliveryStreet;
+	private String deliveryCity;
+	private String deliveryState;
+	private String deliveryZip;
+	private String ccNumber;
+	private String ccExpiration;
+	private String ccCVV;
+	private List<ImportedTaco> tacos;
+
+	// getters and setters || accessors and mutators
+	public String getUsername() {
+		return username;
+	}
+
+	public void setUsername(String username) {
+		this.username = username;
+	}
+
+	public Date getDateOrderPlaced() {
+		return dateOrderPlaced;
+	}
+
+	public void setDateOrderPlaced(Date dateOrderPlaced) {
+		this.dateOrderPlaced = dateOrderPlaced;
+	}
+
+	public String getDeliveryName() {
+		return deliveryName;
+	}
+
+	public void setDeliveryName(String deliveryName) {
+		this.deliveryName = deliveryName;
+	}
+
+	public String getDeliveryStreet() {
+		return deliveryStreet;
+	}
+
+	public void setDeliveryStreet(String deliveryStreet) {
+		this.deliveryStreet = deliveryStreet;
+	}
+
+	public String getDeliveryCity() {
+		return deliveryCity;
+	}
+
+	public void setDeliveryCity(String deliveryCity) {
+		this.deliveryCity = deliveryCity;
+	}
+
+	public String getDeliveryState() {
+		return deliveryState;
+	}
+
+	public void setDeliveryState(String deliveryState) {
+		this.deliveryState = deliveryState;
+	}
+
+	public String getDeliveryZip() {
+		return deliveryZip;
+	}
+
+	public void setDeliveryZip(String deliveryZip) {
+		this.deliveryZip = deliveryZip;
+	}
+
+	public String getCcNumber() {
+		return ccNumber;
+	}
+
+	public void setCcNumber(String ccNumber) {
+		this.ccNumber = ccNumber;
+	}
+
+	public String getCcExpiration() {
+		return ccExpiration;
+	}
+
+	public void setCcExpiration(String ccExpiration) {
+		this.ccExpiration = ccExpiration;
+	}
+
+	public String getCcCVV() {
+		return ccCVV;
+	}
+
+	public void setCcCVV(String ccCVV) {
+		this.ccCVV = ccCVV;
+	}
+
+	public List<ImportedTaco> getTacos() {
+		return tacos;
+	}
+
+	public void setTacos(List<ImportedTaco> tacos) {
+		this.tacos = tacos;
+	}// getters, setters END
+
+	/**
+	 * A taco of an imported order; ingredients are given by id.
+	 */
+	public static class ImportedTaco {
+
+		private String name;
+		private List<String> ingredients;
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public List<String> getIngredients() {
+			return ingredients;
+		}
+
+		public void setIngredients(List<String> ingredients) {
+			this.ingredients = ingredients;
+		}
+
+	}// ImportedTaco END
+
+}
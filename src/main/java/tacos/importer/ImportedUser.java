@@ -0,0 +1,105 @@
+package tacos.importer;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Size;
+
+/**
+ * One line of a user import file:
+ * <tt>{"username": "...", "password": "$2a$10$...", "fullname": "...",
+ * "street": "...", "city": "...", "state": "...", "zip": "...",
+ * "phoneNumber": "..."}</tt>.<br>
+ * Passwords are migrated as BCrypt hashes, never in plain text; hashing
+ * hundreds of thousands of passwords during the import would take hours. A
+ * hash of a different cost is upgraded on the user's first login.
+ * 
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+public class ImportedUser {
+
+	@NotBlank(message = "Username is required")
+	@Size(min = 3, message = "Username must be at least 3 characters long")
+	private String username;
+	@NotBlank(message = "Password hash is required")
+	@Pattern(regexp = "^\\$2[aby]?\\$\\d\\d\\$[./A-Za-z0-9]{53}$", message = "Password must be a BCrypt hash")
+	private String password;
+	@NotBlank(message = "Full name is required")
+	private String fullname;
+	@NotBlank(message = "Street is required")
+	private String street;
+	@NotBlank(message = "City is required")
+	private String city;
+	@NotBlank(message = "State is required")
+	private String state;
+	@NotBlank(message = "Zip code is required")
+	private String zip;
+	@NotBlank(message = "Phone number is required")
+	private String phoneNumber;
+
+	// getters and setters || accessors and mutators
+	public String getUsername() {
+		return username;
+	}
+
+	public void setUsername(String username) {
+		this.username = username;
+	}
+
+	public String getPassword() {
+		return password;
+	}
+
+	public void setPassword(String password) {
+		this.password = password;
+	}
+
+	public String getFullname() {
+		return fullname;
+	}
+
+	public void setFullname(String fullname) {
+		this.fullname = fullname;
+	}
+
+	public String getStreet() {
+		return street;
+	}
+
+	public void setStreet(String street) {
+		this.street = street;
+	}
+
+	public String getCity() {
+		return city;
+	}
+
+	public void setCity(String city) {
+		this.city = city;
+	}
+
+	public String getState() {
+		return state;
+	}
+
+	public void setState(String state) {
+		this.state = state;
+	}
+
+	public String getZip() {
+		return zip;
+	}
+
+	public void setZip(String zip) {
+		this.zip = zip;
+	}
+
+	public String getPhoneNumber() {
+		return phoneNumber;
+	}
+
+	public void setPhoneNumber(String phoneNumber) {
+		this.phoneNumber = phoneNumber;
+	}// getters, setters END
+
+}
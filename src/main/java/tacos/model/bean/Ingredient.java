@@ -3,15 +3,23 @@ package tacos.model.bean;
 import java.io.Serializable;
 
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.Id;
 
+import tacos.service.IngredientCatalogListener;
+
 /**
+ * Changes to ingredients are propagated to the in-memory
+ * {@link tacos.service.IngredientCatalog IngredientCatalog} by the
+ * <code>IngredientCatalogListener</code>.
+ * 
  * @author Dejan Smiljić <dej4n.s@gmail.com>
  *
  */
 @Entity
+@EntityListeners(IngredientCatalogListener.class)
 public class Ingredient implements Serializable {
 
 	private static final long serialVersionUID = 1L;
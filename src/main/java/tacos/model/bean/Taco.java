@@ -5,45 +5,42 @@ import java.util.Date;
 import java.util.List;
 
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.ManyToMany;
+import javax.persistence.ManyToOne;
 import javax.persistence.PrePersist;
-import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 
+import tacos.data.id.TimeOrderedIdGenerator;
+
 /**
  * @author Dejan Smiljić <dej4n.s@gmail.com>
  *
  */
 @Entity
+@Table(indexes = @Index(name = "taco_user_idx", columnList = "user_id, id"))
 public class Taco implements Serializable {
 
 	private static final long serialVersionUID = 2L;
 
 	/**
-	 * The sequence strategy consists of two parts - defining a named sequence and
-	 * using the named sequence in one or more fields in one or more classes.
-	 * The @SequenceGenerator annotation is used to define a sequence and accepts a
-	 * name, an initial value (the default is 1) and an allocation size (the default
-	 * is 50). A sequence is global to the application and can be used by one or
-	 * more fields in one or more classes. The SEQUENCE strategy is used in
-	 * the @GeneratedValue annotation to attach the given field to the previously
-	 * defined named sequence. Unlike AUTO and IDENTITY, the SEQUENCE strategy
-	 * generates an automatic value as soon as a new entity object is persisted
-	 * (i.e. before commit). This may be useful when the primary key value is needed
-	 * earlier. To minimize round trips to the database server, IDs are allocated in
-	 * groups. The number of IDs in each allocation is specified by the
-	 * allocationSize attribute. It is possible that some of the IDs in a given
-	 * allocation will not be used. Therefore, this strategy does not guarantee
-	 * there will be no gaps in sequence values.
+	 * The id is assigned by the <tt>time-ordered</tt> generator (declared in
+	 * <tt>package-info.java</tt>): a 64-bit value built from a timestamp, the
+	 * node id and a counter. It is generated in memory as soon as the entity is
+	 * persisted (i.e. before commit), so, unlike the SEQUENCE strategy with an
+	 * allocation size of 1, an insert does not cost an extra round trip to the
+	 * database, and several application instances can write to the same database
+	 * without sharing a sequence.
+	 * 
+	 * @see tacos.data.id.TimeOrderedIdGenerator
 	 */
 	@Id
-	// @GeneratedValue(strategy = GenerationType.AUTO)
-	@SequenceGenerator(name = "T_SEQ_GEN", sequenceName = "taco_sequence_generator", allocationSize = 1)
-	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "T_SEQ_GEN")
+	@GeneratedValue(generator = TimeOrderedIdGenerator.NAME)
 	private Long id;
 	/**
 	 * Spring supports Java’s Bean Validation API (also known as JSR-303; <a href=
@@ -74,6 +71,14 @@ public class Taco implements Serializable {
 
 	// private Date dateCreated = new Date();
 	private Date dateCreated;
+	/**
+	 * The user who designed the taco. The reactive API lists, shows and orders
+	 * only the tacos of the authenticated user; the index on
+	 * <tt>(user_id, id)</tt> serves its newest-first pages. Loaded lazily: the
+	 * order pages never need it.
+	 */
+	@ManyToOne(fetch = FetchType.LAZY)
+	private User user;
 
 	// constructors
 	// default constructor is mandatory; id parameter is not mandatory;
@@ -119,6 +124,14 @@ public class Taco implements Serializable {
 		this.dateCreated = dateCreated;
 	}
 
+	public User getUser() {
+		return user;
+	}
+
+	public void setUser(User user) {
+		this.user = user;
+	}
+
 	// custom, helper methods
 	public void addIngredient(Ingredient ingredient) {
 		this.ingredients.add(ingredient);
@@ -5,18 +5,25 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
+import javax.persistence.CascadeType;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.ManyToMany;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
 import javax.persistence.PrePersist;
+import javax.persistence.Table;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.Pattern;
 
 import org.hibernate.validator.constraints.CreditCardNumber;
 
+import tacos.data.id.AssignedId;
+import tacos.data.id.TimeOrderedIdGenerator;
+
 /**
  * <code>TacoOrder</code> class defines customers specify the tacos that they
  * want to order, along with payment and delivery information. This is a simple
@@ -28,18 +35,40 @@ import org.hibernate.validator.constraints.CreditCardNumber;
  * order with the user that created the order.<br>
  * {@linkplain #addTaco(Taco)} method adds an </tt>taco</tt> object to the
  * <code>tacos</code> List. <br>
+ * The index on <tt>(user_id, date_order_placed, id)</tt> supports the
+ * keyset-paginated order history of a user, the one on
+ * <tt>date_order_placed</tt> the date ranges the sales rollups are rebuilt
+ * from. The zip, state and state/city indexes serve the order search of
+ * support staff (<code>OrderRepository.search*</code>); they are descending,
+ * like the pages they return. <br>
+ * The <tt>TacoOrder.tacos</tt> entity graph loads an order together with its
+ * user and tacos in one query; see <code>OrderRepository.findWithTacosById</code> and
+ * <code>OrderGraphService</code>. <br>
  * 
  * @author Dejan Smiljić <dej4n.s@gmail.com>
  *
  */
 @Entity
-public class TacoOrder implements Serializable {
+@NamedEntityGraph(name = TacoOrder.GRAPH_TACOS, attributeNodes = { @NamedAttributeNode("tacos"),
+		@NamedAttributeNode("user") })
+@Table(indexes = { @Index(name = "taco_order_user_history_idx", columnList = "user_id, dateOrderPlaced, id"),
+		@Index(name = "taco_order_date_idx", columnList = "dateOrderPlaced desc, id desc"),
+		@Index(name = "taco_order_zip_idx", columnList = "deliveryZip desc, dateOrderPlaced desc, id desc"),
+		@Index(name = "taco_order_state_idx", columnList = "deliveryState desc, dateOrderPlaced desc, id desc"),
+		@Index(name = "taco_order_state_city_idx", columnList = "deliveryState desc, deliveryCity desc, "
+				+ "dateOrderPlaced desc, id desc") })
+public class TacoOrder implements Serializable, AssignedId {
 
 	private static final long serialVersionUID = 3L;
 
+	public static final String GRAPH_TACOS = "TacoOrder.tacos";
+
+	// node-local, time-ordered id; see tacos.data.id.TimeOrderedIdGenerator
 	@Id
-	@GeneratedValue(strategy = GenerationType.AUTO)
+	@GeneratedValue(generator = TimeOrderedIdGenerator.NAME)
 	private Long id;
+	// set by assignId() only, never bound from a request; not persisted
+	private transient boolean idAssigned;
 	@NotBlank(message = "Delivery name is required")
 	private String deliveryName;
 	@NotBlank(message = "Street is required")
@@ -58,7 +87,8 @@ public class TacoOrder implements Serializable {
 	@Pattern(regexp = "^[0-9]{3,4}$", message = "CVV must be three-digit or four-digit number")
 	private String ccCVV; // Card Verification Value | three or four-digit code
 
-	@ManyToMany(targetEntity = Taco.class)
+	// tacos are designed in a session draft and persisted together with the order
+	@ManyToMany(targetEntity = Taco.class, cascade = CascadeType.PERSIST)
 	private List<Taco> tacos = new ArrayList<>();
 
 	private Date dateOrderPlaced;
@@ -97,6 +127,23 @@ public class TacoOrder implements Serializable {
 		this.id = id;
 	}
 
+	/**
+	 * Assigns the id the order is saved under before it is saved;
+	 * <code>TimeOrderedIdGenerator</code> keeps it. An id set with
+	 * {@link #setId(Long)} is replaced on insert.
+	 * 
+	 * @param id issued by the <code>TimeOrderedIds</code> of this node
+	 */
+	public void assignId(Long id) {
+		this.id = id;
+		this.idAssigned = true;
+	}
+
+	@Override
+	public boolean isIdAssigned() {
+		return idAssigned;
+	}
+
 	public String getDeliveryName() {
 		return deliveryName;
 	}
@@ -200,12 +247,13 @@ public class TacoOrder implements Serializable {
 		this.dateOrderPlaced = new Date();
 	}
 
+	// logged in entity dumps: no card details
 	@Override
 	public String toString() {
 		return String.format(
-				"TacoOrder [id=%s, deliveryName=%s, deliveryStreet=%s, deliveryCity=%s, deliveryState=%s, deliveryZip=%s, ccNumber=%s, ccExpiration=%s, ccCVV=%s, tacos=%s, dateOrderPlaced=%s, user=%s]",
-				id, deliveryName, deliveryStreet, deliveryCity, deliveryState, deliveryZip, ccNumber, ccExpiration,
-				ccCVV, tacos, dateOrderPlaced, user);
+				"TacoOrder [id=%s, deliveryName=%s, deliveryStreet=%s, deliveryCity=%s, deliveryState=%s, deliveryZip=%s, tacos=%s, dateOrderPlaced=%s, user=%s]",
+				id, deliveryName, deliveryStreet, deliveryCity, deliveryState, deliveryZip, tacos, dateOrderPlaced,
+				user);
 	}
 
 }
@@ -0,0 +1,108 @@
+package tacos.model.bean;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import tacos.service.IngredientCatalog;
+
+/**
+ * <code>TacoOrderDraft</code> is the compact, session-scoped form of an order
+ * that is still being designed. Instead of whole <tt>Taco</tt> entities with
+ * their <tt>Ingredient</tt> lists and <tt>Date</tt>s, it keeps only the name of
+ * every designed taco and the ids of its ingredients.<br>
+ * <br>
+ * The ids are the <tt>String</tt> instances held by the
+ * <code>IngredientCatalog</code>, so the draft only holds references to shared
+ * strings; serialised, an id costs four characters. The draft is rehydrated
+ * into <tt>Taco</tt> objects ({@link #toTacos(IngredientCatalog)}) only when
+ * the order is placed.
+ * 
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+public class TacoOrderDraft implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final List<TacoDraft> tacos = new ArrayList<>();
+
+	/**
+	 * Adds a designed taco to the draft.
+	 * 
+	 * @param taco
+	 */
+	public void addTaco(Taco taco) {
+		String[] ingredientIds = new String[taco.getIngredients().size()];
+		for (int i = 0; i < ingredientIds.length; i++) {
+			ingredientIds[i] = taco.getIngredients().get(i).getId();
+		}
+		tacos.add(new TacoDraft(taco.getName(), ingredientIds));
+	}
+
+	public List<TacoDraft> getTacos() {
+		return Collections.unmodifiableList(tacos);
+	}
+
+	public boolean isEmpty() {
+		return tacos.isEmpty();
+	}
+
+	public int size() {
+		return tacos.size();
+	}
+
+	/**
+	 * Rehydrates the draft into new (not yet persisted) <tt>Taco</tt> objects;
+	 * ingredients are resolved from the in-memory catalog.
+	 * 
+	 * @param ingredientCatalog
+	 * @return list of <b>Taco</b> objects
+	 */
+	public List<Taco> toTacos(IngredientCatalog ingredientCatalog) {
+		List<Taco> designed = new ArrayList<>(tacos.size());
+		for (TacoDraft taco : tacos) {
+			designed.add(new Taco(taco.getName(),
+					ingredientCatalog.findAllById(Arrays.asList(taco.ingredientIds)), null));
+		}
+		return designed;
+	}// toTacos() END
+
+	@Override
+	public String toString() {
+		return "TacoOrderDraft [tacos=" + tacos + "]";
+	}
+
+	/**
+	 * Name and ingredient ids of one designed taco.
+	 */
+	public static final class TacoDraft implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String name;
+		private final String[] ingredientIds;
+
+		TacoDraft(String name, String[] ingredientIds) {
+			this.name = name;
+			this.ingredientIds = ingredientIds;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public List<String> getIngredientIds() {
+			return Collections.unmodifiableList(Arrays.asList(ingredientIds));
+		}
+
+		@Override
+		public String toString() {
+			return name + Arrays.toString(ingredientIds);
+		}
+
+	}// TacoDraft END
+
+}
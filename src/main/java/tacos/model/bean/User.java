@@ -5,31 +5,41 @@ import java.util.Arrays;
 import java.util.Collection;
 
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
-import javax.persistence.SequenceGenerator;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import tacos.data.id.TimeOrderedIdGenerator;
+import tacos.service.UserDetailsCacheListener;
+import tacos.service.UsernameRegistryListener;
+
 /**
  * Implementation of <code>UserDetails</code> will provide some essential user
  * information to the framework, such as what authorities are granted to the
- * user and whether the user’s account is enabled or not.
+ * user and whether the user’s account is enabled or not.<br>
+ * Users are looked up by <tt>username</tt> on every authentication; the unique
+ * index on that column makes the lookup an index seek and rules out duplicate
+ * usernames.
  * 
  * @author Dejan Smiljić <dej4n.s@gmail.com>
  *
  */
 @Entity
+@Table(indexes = @Index(name = "user_username_idx", columnList = "username", unique = true))
+@EntityListeners({ UserDetailsCacheListener.class, UsernameRegistryListener.class })
 public class User implements UserDetails, Serializable {
 
 	private static final long serialVersionUID = 4L;
 
+	// node-local, time-ordered id; see tacos.data.id.TimeOrderedIdGenerator
 	@Id
-	// @GeneratedValue(strategy = GenerationType.AUTO)
-	@SequenceGenerator(name = "U_SEQ_GEN", sequenceName = "user_sequence_generator", allocationSize = 1)
-	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "U_SEQ_GEN")
+	@GeneratedValue(generator = TimeOrderedIdGenerator.NAME)
 	private Long id;
 	private String username;
 	private String password;
@@ -167,11 +177,12 @@ public class User implements UserDetails, Serializable {
 		return true;
 	}// implement UserDetails
 
+	// part of order dumps in the log: no password hash
 	@Override
 	public String toString() {
 		return String.format(
-				"User [id=%s, username=%s, password=%s, fullname=%s, street=%s, city=%s, state=%s, zip=%s, phoneNumber=%s]",
-				id, username, password, fullname, street, city, state, zip, phoneNumber);
+				"User [id=%s, username=%s, fullname=%s, street=%s, city=%s, state=%s, zip=%s, phoneNumber=%s]", id,
+				username, fullname, street, city, state, zip, phoneNumber);
 	}
 
 }
@@ -0,0 +1,18 @@
+/**
+ * Domain classes of the Taco Cloud application.<br>
+ * <br>
+ * The <tt>time-ordered</tt> identifier generator is declared once, at package
+ * level, so entities only refer to it by name:
+ * <tt>@GeneratedValue(generator = "time-ordered")</tt>. Replacing the id
+ * strategy for all entities therefore means changing this one declaration.
+ * 
+ * @see tacos.data.id.TimeOrderedIdGenerator
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@GenericGenerator(name = TimeOrderedIdGenerator.NAME, strategy = "tacos.data.id.TimeOrderedIdGenerator")
+package tacos.model.bean;
+
+import org.hibernate.annotations.GenericGenerator;
+
+import tacos.data.id.TimeOrderedIdGenerator;
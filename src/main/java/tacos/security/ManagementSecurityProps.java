@@ -0,0 +1,44 @@
+package tacos.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * The administrator account of the management endpoints (port
+ * <tt>management.server.port</tt>), bound from the
+ * <tt>tacocloud.management.*</tt> properties (see
+ * <tt>application.properties</tt>).<br>
+ * The password is configured as a BCrypt hash, never in plain text. Without
+ * one there is no administrator account, and every management endpoint but
+ * <tt>health</tt> is refused.
+ *
+ * @see SecurityConfig#managementSecurityFilterChain
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Component
+@ConfigurationProperties(prefix = "tacocloud.management")
+public class ManagementSecurityProps {
+
+	private String username = "admin";
+	// BCrypt hash of the password, e.g. $2a$10$...
+	private String passwordHash = "";
+
+	// getters and setters || accessors and mutators
+	public String getUsername() {
+		return username;
+	}
+
+	public void setUsername(String username) {
+		this.username = username;
+	}
+
+	public String getPasswordHash() {
+		return passwordHash;
+	}
+
+	public void setPasswordHash(String passwordHash) {
+		this.passwordHash = passwordHash;
+	}// getters, setters END
+
+}
@@ -0,0 +1,161 @@
+package tacos.security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * <code>OffloadingPasswordEncoder</code> is a <tt>BCryptPasswordEncoder</tt>
+ * that runs the CPU-bound hashing on a dedicated, bounded thread pool instead
+ * of on the calling (Tomcat request) thread.<br>
+ * <br>
+ * BCrypt is slow by design: at the default cost of 10 one hash takes tens of
+ * milliseconds of CPU. Hashing on request threads means a burst of sign-ups or
+ * logins can keep every connector thread and every core busy at once, and pages
+ * that need no hashing at all queue up behind them. Here at most
+ * <tt>threads</tt> hashes (one per core by default) run at the same time, at
+ * most <tt>queue-capacity</tt> more wait for a thread, and anything beyond that
+ * is rejected right away with a {@link PasswordHashingRejectedException}. The
+ * calling thread waits for its own hash, so callers keep the synchronous
+ * <code>PasswordEncoder</code> contract.<br>
+ * <br>
+ * {@link #upgradeEncoding(String)} reports a hash whose cost differs from the
+ * configured <tt>bcrypt-strength</tt> (higher or lower), so Spring Security
+ * re-hashes the password through <code>UserDetailsPasswordService</code> after
+ * a successful login.<br>
+ * <br>
+ * Metrics: <tt>tacocloud.password.hash</tt> (timer, tag
+ * <tt>operation=encode|matches</tt>, time spent hashing),
+ * <tt>tacocloud.password.hash.wait</tt> (timer, time spent waiting for a
+ * thread), <tt>tacocloud.password.hash.queue.depth</tt> (gauge) and
+ * <tt>tacocloud.password.hash.rejected</tt> (counter).
+ * 
+ * @see SecurityConfig#passwordEncoder(PasswordHashingProps, MeterRegistry)
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+public class OffloadingPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+	// $2a$10$... - version, cost, salt and hash
+	private static final Pattern BCRYPT_COST = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$");
+
+	private final BCryptPasswordEncoder delegate;
+	private final int strength;
+	private final ThreadPoolExecutor executor;
+
+	private final Timer encodeTimer;
+	private final Timer matchesTimer;
+	private final Timer waitTimer;
+	private final Counter rejected;
+
+	public OffloadingPasswordEncoder(PasswordHashingProps props, MeterRegistry meterRegistry) {
+		this.strength = props.getBcryptStrength();
+		this.delegate = new BCryptPasswordEncoder(strength);
+
+		int threads = props.getThreads() > 0 ? props.getThreads() : Runtime.getRuntime().availableProcessors();
+		BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(props.getQueueCapacity());
+		this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, queue,
+				new HashingThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+
+		Gauge.builder("tacocloud.password.hash.queue.depth", queue, BlockingQueue::size)
+				.description("Password hashing tasks waiting for a thread").register(meterRegistry);
+		this.encodeTimer = Timer.builder("tacocloud.password.hash").tag("operation", "encode")
+				.description("Time spent hashing a password").register(meterRegistry);
+		this.matchesTimer = Timer.builder("tacocloud.password.hash").tag("operation", "matches")
+				.description("Time spent hashing a password").register(meterRegistry);
+		this.waitTimer = Timer.builder("tacocloud.password.hash.wait")
+				.description("Time a password hashing task waited for a thread").register(meterRegistry);
+		this.rejected = Counter.builder("tacocloud.password.hash.rejected")
+				.description("Password hashing tasks rejected because the queue was full").register(meterRegistry);
+	}
+
+	@Override
+	public String encode(CharSequence rawPassword) {
+		return run(encodeTimer, () -> delegate.encode(rawPassword));
+	}
+
+	@Override
+	public boolean matches(CharSequence rawPassword, String encodedPassword) {
+		return run(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+	}
+
+	/**
+	 * @return <tt>true</tt> if the hash is not a BCrypt hash of the configured
+	 *         cost
+	 */
+	@Override
+	public boolean upgradeEncoding(String encodedPassword) {
+		if (encodedPassword == null) {
+			return false;
+		}
+		Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+		return !matcher.find() || Integer.parseInt(matcher.group(1)) != strength;
+	}
+
+	@Override
+	public void destroy() {
+		executor.shutdown();
+	}
+
+	// helper method; runs the task on the hashing pool and waits for the result
+	private <T> T run(Timer timer, Callable<T> task) {
+		long queued = System.nanoTime();
+		Future<T> future;
+		try {
+			future = executor.submit(() -> {
+				waitTimer.record(System.nanoTime() - queued, TimeUnit.NANOSECONDS);
+				return timer.recordCallable(task);
+			});
+		} catch (RejectedExecutionException e) {
+			rejected.increment();
+			throw new PasswordHashingRejectedException("Too many password hashing requests, try again later", e);
+		}
+
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}// run() END
+
+	// daemon threads named "password-hash-<n>"
+	private static class HashingThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "password-hash-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+
+	}// HashingThreadFactory END
+
+}
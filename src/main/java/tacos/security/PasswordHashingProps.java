@@ -0,0 +1,52 @@
+package tacos.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration of password hashing, bound from the
+ * <tt>tacocloud.security.password-hashing.*</tt> properties (see
+ * <tt>application.properties</tt>).
+ * 
+ * @see OffloadingPasswordEncoder
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Component
+@ConfigurationProperties(prefix = "tacocloud.security.password-hashing")
+public class PasswordHashingProps {
+
+	// BCrypt cost (log2 of the number of rounds), 4 - 31
+	private int bcryptStrength = 10;
+	// number of hashing threads; 0 means one per available processor
+	private int threads = 0;
+	// maximum number of hashing tasks waiting for a thread; excess work is
+	// rejected
+	private int queueCapacity = 100;
+
+	// getters and setters || accessors and mutators
+	public int getBcryptStrength() {
+		return bcryptStrength;
+	}
+
+	public void setBcryptStrength(int bcryptStrength) {
+		this.bcryptStrength = bcryptStrength;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	public void setQueueCapacity(int queueCapacity) {
+		this.queueCapacity = queueCapacity;
+	}// getters, setters END
+
+}
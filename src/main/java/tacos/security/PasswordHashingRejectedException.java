@@ -0,0 +1,21 @@
+package tacos.security;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+/**
+ * Thrown by {@link OffloadingPasswordEncoder} when the password-hashing queue
+ * is full. It is an <tt>AuthenticationException</tt>, so a login attempt that
+ * is rejected fails like any other login instead of ending in an error page.
+ * 
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+public class PasswordHashingRejectedException extends AuthenticationServiceException {
+
+	private static final long serialVersionUID = 1L;
+
+	public PasswordHashingRejectedException(String msg, Throwable cause) {
+		super(msg, cause);
+	}
+
+}
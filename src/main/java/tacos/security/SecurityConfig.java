@@ -1,16 +1,29 @@
 package tacos.security;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.util.StringUtils;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import tacos.controller.web.WebConfig;
 import tacos.data.UserRepository;
 import tacos.model.bean.User;
+import tacos.service.UserDetailsCache;
 
 /**
  * @author Dejan Smiljić <dej4n.s@gmail.com>
@@ -19,6 +32,8 @@ import tacos.model.bean.User;
 @Configuration
 public class SecurityConfig {
 
+	private Logger logger = LoggerFactory.getLogger(SecurityConfig.class);
+
 	/**
 	 * Spring Security supports few encoding mechanisms. For complete list of
 	 * supported encoders see <tt>PasswordEncoder</tt> implementation.<br>
@@ -30,35 +45,66 @@ public class SecurityConfig {
 	 * <tt>BCrypt</tt> algorithm will internally generate a random salt.<br>
 	 * <tt>BCrypt</tt> algorithm generates a String of length 60.<br>
 	 * Some mechanisms, such as the <tt>MD5PasswordEncoder</tt> and
-	 * <tt>ShaPasswordEncoder</tt> use weaker algorithms and are now deprecated.
+	 * <tt>ShaPasswordEncoder</tt> use weaker algorithms and are now deprecated.<br>
+	 * <br>
+	 * The encoder runs BCrypt with a configurable cost on a dedicated, bounded
+	 * thread pool, so hashing never occupies more than the configured number of
+	 * cores - see <code>OffloadingPasswordEncoder</code>.
 	 * 
+	 * @param props
+	 * @param meterRegistry
 	 * @return Implementation of PasswordEncoder
 	 */
 	@Bean
-	public PasswordEncoder passwordEncoder() {
-		return new BCryptPasswordEncoder();
+	public PasswordEncoder passwordEncoder(PasswordHashingProps props, MeterRegistry meterRegistry) {
+		return new OffloadingPasswordEncoder(props, meterRegistry);
+	}
+
+	/**
+	 * After a successful login, Spring Security asks the
+	 * <code>PasswordEncoder</code> whether the stored hash should be upgraded,
+	 * e.g. because the configured BCrypt cost has changed. If so, it re-hashes the
+	 * password that was just verified and hands it to this
+	 * <code>UserDetailsPasswordService</code>, which stores it.<br>
+	 * Saving the user evicts it from the <code>UserDetailsCache</code>.
+	 * 
+	 * @param userRepository
+	 * @return UserDetailsPasswordService
+	 */
+	@Bean
+	public UserDetailsPasswordService userDetailsPasswordService(UserRepository userRepository) {
+		return (userDetails, newPassword) -> {
+			User user = userRepository.findByUsername(userDetails.getUsername());
+			if (user == null) {
+				return userDetails;
+			}
+			user.setPassword(newPassword);
+			return userRepository.save(user);
+		};
 	}
 
 	/**
 	 * The <code>userDetailsService</code> method is given a
-	 * <code>UserRepository</code> as a parameter. To create the bean, it returns a
-	 * lambda that takes a <code>username</code> parameter and uses it to call
-	 * <code>findByUsername</code> on the given <code>UserRepository</code>.<br>
+	 * <code>UserDetailsCache</code> as a parameter. To create the bean, it returns
+	 * a lambda that takes a <code>username</code> parameter and uses it to call
+	 * <code>findByUsername</code> on the given <code>UserDetailsCache</code>, which
+	 * answers from memory and falls back to
+	 * <code>UserRepository.findByUsername</code> on a cache miss.<br>
 	 * The <tt>loadByUsername</tt> method has one simple rule: it must never return
 	 * <tt>null</tt>. Therefore, if the call to <code>findByUsername</code> returns
 	 * <tt>null</tt>, the lambda will throw a
 	 * <code>UsernameNotFoundException</code>. Otherwise, the <code>User</code> that
 	 * was found will be returned.
 	 * 
-	 * @param userRepository
+	 * @param userDetailsCache
 	 * @return <b>User</b> object
 	 * @throws <b>UsernameNotFoundException</b> if User object is null
 	 * @see org.springframework.security.core.userdetails.UserDetailsService
 	 */
 	@Bean
-	public UserDetailsService userDetailsService(UserRepository userRepository) {
+	public UserDetailsService userDetailsService(UserDetailsCache userDetailsCache) {
 		return username -> {
-			User user = userRepository.findByUsername(username);
+			User user = userDetailsCache.findByUsername(username);
 			if (user != null) {
 				return user;
 			}
@@ -66,6 +112,60 @@ public class SecurityConfig {
 		};
 	}
 
+	/**
+	 * Static resources (images, styles, favicon) are public and need none of the
+	 * security filters, so requests for them bypass the security filter chain
+	 * altogether.
+	 * 
+	 * @return WebSecurityCustomizer
+	 */
+	@Bean
+	public WebSecurityCustomizer staticResourcesWebSecurityCustomizer() {
+		return web -> web.ignoring().antMatchers(WebConfig.STATIC_RESOURCES);
+	}
+
+	/**
+	 * Requests for the management endpoints (<tt>/actuator/**</tt> on the
+	 * management port) are handled by a filter chain of their own, ahead of the
+	 * application's: they export and change business data (order exports,
+	 * searches, sales backfills), so each needs an administrator, authenticated
+	 * with HTTP Basic. Only <tt>health</tt> stays open, for load balancers and
+	 * probes.<br>
+	 * The one administrator account is configured by
+	 * <code>ManagementSecurityProps</code>; application users, who only have
+	 * <tt>ROLE_USER</tt>, are refused. Every request carries its credentials, so
+	 * no session is created and no CSRF token is needed.
+	 * 
+	 * @param httpSecurity
+	 * @param props
+	 * @param passwordEncoder
+	 * @return SecurityFilterChain
+	 * @throws Exception
+	 */
+	@Bean
+	@Order(1)
+	public SecurityFilterChain managementSecurityFilterChain(HttpSecurity httpSecurity, ManagementSecurityProps props,
+			PasswordEncoder passwordEncoder) throws Exception {
+		InMemoryUserDetailsManager administrators = new InMemoryUserDetailsManager();
+		if (StringUtils.hasText(props.getPasswordHash())) {
+			administrators.createUser(org.springframework.security.core.userdetails.User
+					.withUsername(props.getUsername()).password(props.getPasswordHash()).roles("ADMIN").build());
+		} else {
+			logger.warn("tacocloud.management.password-hash is not set: management endpoints other than "
+					+ "health are refused");
+		}
+		DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider();
+		authenticationProvider.setUserDetailsService(administrators);
+		authenticationProvider.setPasswordEncoder(passwordEncoder);
+
+		return httpSecurity.requestMatcher(EndpointRequest.toAnyEndpoint())
+				.authorizeRequests().requestMatchers(EndpointRequest.to(HealthEndpoint.class)).permitAll()
+				.anyRequest().hasRole("ADMIN").and()
+				.authenticationProvider(authenticationProvider).httpBasic().and()
+				.sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS).and()
+				.csrf().disable().build();
+	}// managementSecurityFilterChain() END
+
 	/**
 	 * This method accepts an <code>HttpSecurity</code> object which acts as a
 	 * builder that can be used to configure how security is handled at the web
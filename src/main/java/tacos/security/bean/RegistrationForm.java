@@ -1,5 +1,7 @@
 package tacos.security.bean;
 
+import java.io.Serializable;
+
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.Size;
 
@@ -8,10 +10,16 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import tacos.model.bean.User;
 
 /**
+ * <code>RegistrationForm</code> is kept in session while the user fills in the
+ * registration form, so it must be <tt>Serializable</tt> to be stored in a
+ * shared (JDBC) session store.
+ * 
  * @author Dejan Smiljić <dej4n.s@gmail.com>
  *
  */
-public class RegistrationForm {
+public class RegistrationForm implements Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	@NotBlank(message = "Username is required")
 	@Size(min = 3, message = "Username must be at least 3 characters long")
@@ -0,0 +1,82 @@
+package tacos.server;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration of the reactive API server, bound from the
+ * <tt>tacocloud.reactive-api.*</tt> properties (see
+ * <tt>application.properties</tt>).
+ *
+ * @see ReactiveApiServer
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Component
+@ConfigurationProperties(prefix = "tacocloud.reactive-api")
+public class ReactiveApiProps {
+
+	private boolean enabled = true;
+	// HTTPS port of the API, next to server.port; 0 = a random free port
+	private int port = 8444;
+	// Netty event-loop threads that serve every API connection and request
+	private int eventLoopThreads = 2;
+	// verified Basic credentials are remembered for at most this long...
+	private Duration credentialsCacheTtl = Duration.ofMinutes(10);
+	// ...for at most this many clients
+	private long credentialsCacheMaxSize = 10000;
+	// items per page of the paginated collections (tacos, orders)
+	private int pageSize = 20;
+
+	// getters and setters || accessors and mutators
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public int getPort() {
+		return port;
+	}
+
+	public void setPort(int port) {
+		this.port = port;
+	}
+
+	public int getEventLoopThreads() {
+		return eventLoopThreads;
+	}
+
+	public void setEventLoopThreads(int eventLoopThreads) {
+		this.eventLoopThreads = eventLoopThreads;
+	}
+
+	public Duration getCredentialsCacheTtl() {
+		return credentialsCacheTtl;
+	}
+
+	public void setCredentialsCacheTtl(Duration credentialsCacheTtl) {
+		this.credentialsCacheTtl = credentialsCacheTtl;
+	}
+
+	public long getCredentialsCacheMaxSize() {
+		return credentialsCacheMaxSize;
+	}
+
+	public void setCredentialsCacheMaxSize(long credentialsCacheMaxSize) {
+		this.credentialsCacheMaxSize = credentialsCacheMaxSize;
+	}
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	public void setPageSize(int pageSize) {
+		this.pageSize = pageSize;
+	}// getters, setters END
+
+}
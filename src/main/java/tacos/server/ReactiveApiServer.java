@@ -0,0 +1,136 @@
+package tacos.server;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerInitializedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import reactor.netty.resources.LoopResources;
+import tacos.controller.api.ApiRoutes;
+
+/**
+ * The reactive API (<tt>/api/**</tt>, see <code>ApiRoutes</code>) on a Reactor
+ * Netty server of its own, next to Tomcat.<br>
+ * <br>
+ * Tomcat serves the browser pages on one thread per request; a request that
+ * waits for the database keeps its thread. Kiosk and mobile clients hold many
+ * more connections open and mostly wait, so the API runs on a small, fixed
+ * number of event-loop threads (<tt>tacocloud.reactive-api.event-loop-threads</tt>)
+ * instead: handlers and R2DBC repositories never block, and a thread moves on
+ * to the next request while a query is in flight. The number of concurrent
+ * requests is then bounded by memory and the R2DBC connection pool
+ * (<tt>spring.r2dbc.pool.*</tt>), not by threads.<br>
+ * <br>
+ * The server uses the TLS (<tt>server.ssl.*</tt>) and HTTP/2
+ * (<tt>server.http2.enabled</tt>) settings of the main connector on its own
+ * port (<tt>tacocloud.reactive-api.port</tt>). It is started once Tomcat is up
+ * - i.e. not in tests that run without a web server - and stopped with the
+ * application. Requests over HTTP/1.1 are timed as
+ * <tt>reactor.netty.http.server.*</tt> meters (Reactor Netty 1.0 records none
+ * for HTTP/2 streams).
+ *
+ * @see ReactiveApiProps
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Component
+@ConditionalOnProperty(name = "tacocloud.reactive-api.enabled", havingValue = "true", matchIfMissing = true)
+public class ReactiveApiServer implements ApplicationListener<ServletWebServerInitializedEvent>, DisposableBean {
+
+	// uri tag values of the request metrics; anything else is counted as "/**"
+	private static final Set<String> API_PATHS = new HashSet<>(
+			Arrays.asList(ApiRoutes.INGREDIENTS, ApiRoutes.TACOS, ApiRoutes.ORDERS));
+	private static final Pattern TACO_PATH = Pattern.compile(Pattern.quote(ApiRoutes.TACOS) + "/\\d+");
+	private static final Pattern ORDER_PATH = Pattern.compile(Pattern.quote(ApiRoutes.ORDERS) + "/\\d+");
+
+	private final ReactiveApiProps props;
+	private final ServerProperties serverProperties;
+	private final RouterFunction<ServerResponse> apiRouterFunction;
+	private final ObjectProvider<CodecCustomizer> codecCustomizers;
+
+	private LoopResources loopResources;
+	private WebServer webServer;
+
+	private Logger logger = LoggerFactory.getLogger(ReactiveApiServer.class);
+
+	public ReactiveApiServer(ReactiveApiProps props, ServerProperties serverProperties,
+			RouterFunction<ServerResponse> apiRouterFunction, ObjectProvider<CodecCustomizer> codecCustomizers) {
+		this.props = props;
+		this.serverProperties = serverProperties;
+		this.apiRouterFunction = apiRouterFunction;
+		this.codecCustomizers = codecCustomizers;
+	}
+
+	@Override
+	public synchronized void onApplicationEvent(ServletWebServerInitializedEvent event) {
+		// the management server (namespace "management") announces itself as well
+		if (event.getApplicationContext().getServerNamespace() != null || webServer != null) {
+			return;
+		}
+		loopResources = LoopResources.create("api-loop", 1, props.getEventLoopThreads(), true);
+
+		NettyReactiveWebServerFactory factory = new NettyReactiveWebServerFactory(props.getPort());
+		factory.setAddress(serverProperties.getAddress());
+		factory.setSsl(serverProperties.getSsl());
+		factory.setHttp2(serverProperties.getHttp2());
+		factory.addServerCustomizers(
+				httpServer -> httpServer.runOn(loopResources).metrics(true, ReactiveApiServer::uriTag));
+
+		// JSON codecs with the application's ObjectMapper
+		HandlerStrategies strategies = HandlerStrategies.builder()
+				.codecs(configurer -> codecCustomizers.orderedStream().forEach(c -> c.customize(configurer))).build();
+		webServer = factory.getWebServer(RouterFunctions.toHttpHandler(apiRouterFunction, strategies));
+		webServer.start();
+		logger.info("Reactive API on port {}, {} event-loop threads", webServer.getPort(), props.getEventLoopThreads());
+	}// onApplicationEvent() END
+
+	/**
+	 * @param uri request URI, possibly with a query string
+	 * @return the route the URI belongs to, so that the metrics have one time
+	 *         series per route rather than per id
+	 */
+	static String uriTag(String uri) {
+		int query = uri.indexOf('?');
+		String path = query < 0 ? uri : uri.substring(0, query);
+		if (API_PATHS.contains(path)) {
+			return path;
+		}
+		if (TACO_PATH.matcher(path).matches()) {
+			return ApiRoutes.TACO;
+		}
+		return ORDER_PATH.matcher(path).matches() ? ApiRoutes.ORDER : "/**";
+	}
+
+	/**
+	 * @return the port the API listens on, -1 if it is not running
+	 */
+	public synchronized int getPort() {
+		return webServer != null ? webServer.getPort() : -1;
+	}
+
+	@Override
+	public synchronized void destroy() {
+		if (webServer != null) {
+			webServer.stop();
+			loopResources.dispose();
+		}
+	}
+
+}
@@ -0,0 +1,62 @@
+package tacos.server;
+
+import org.apache.tomcat.util.net.SSLHostConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of the embedded Tomcat HTTPS connector.<br>
+ * <br>
+ * With <tt>server.http2.enabled=true</tt> Spring Boot adds Tomcat's
+ * <tt>Http2Protocol</tt> to the connector, and the JDK's TLS implementation
+ * offers <tt>h2</tt> next to <tt>http/1.1</tt> in the ALPN extension of the
+ * handshake. Clients that speak HTTP/2 then send every request of a page - the
+ * HTML, its images and styles - multiplexed over one connection, so a page load
+ * costs one TLS handshake instead of one per parallel connection. Clients that
+ * do not are served over HTTP/1.1 on the same port.<br>
+ * <br>
+ * The handshakes that remain are made cheaper by resumption: a returning client
+ * presents the session it negotiated earlier (TLS 1.2 session id, or TLS 1.3
+ * pre-shared key from a session ticket) and skips the certificate exchange and
+ * key agreement. This class sizes the server-side session cache and sets how
+ * long a session can be resumed on every <tt>SSLHostConfig</tt> of the
+ * connector; the JDK defaults keep 20,480 sessions for 24 hours.
+ *
+ * @see TlsSessionProps
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Configuration
+@ConditionalOnProperty(name = "server.ssl.enabled", havingValue = "true", matchIfMissing = true)
+public class TlsConnectorConfig {
+
+	private Logger logger = LoggerFactory.getLogger(TlsConnectorConfig.class);
+
+	/**
+	 * Tomcat connector customizers run after Spring Boot has applied the
+	 * <tt>server.ssl.*</tt> properties, so the <tt>SSLHostConfig</tt> they create
+	 * is already in place.
+	 *
+	 * @param tlsSessionProps
+	 * @return WebServerFactoryCustomizer of the Tomcat factory
+	 */
+	@Bean
+	public WebServerFactoryCustomizer<TomcatServletWebServerFactory> tlsSessionCacheCustomizer(
+			TlsSessionProps tlsSessionProps) {
+		int timeoutSeconds = (int) Math.min(Integer.MAX_VALUE, tlsSessionProps.getSessionTimeout().getSeconds());
+		return factory -> factory.addConnectorCustomizers(connector -> {
+			for (SSLHostConfig sslHostConfig : connector.findSslHostConfigs()) {
+				sslHostConfig.setSessionCacheSize(tlsSessionProps.getSessionCacheSize());
+				sslHostConfig.setSessionTimeout(timeoutSeconds);
+				logger.info("TLS session cache on port {}: {} sessions, {}s timeout", connector.getPort(),
+						tlsSessionProps.getSessionCacheSize(), timeoutSeconds);
+			}
+		});
+	}// tlsSessionCacheCustomizer() END
+
+}
@@ -0,0 +1,43 @@
+package tacos.server;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration of TLS session caching on the HTTPS connector, bound from the
+ * <tt>tacocloud.server.tls.*</tt> properties (see
+ * <tt>application.properties</tt>).
+ *
+ * @see TlsConnectorConfig
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Component
+@ConfigurationProperties(prefix = "tacocloud.server.tls")
+public class TlsSessionProps {
+
+	// maximum number of TLS sessions kept for resumption; 0 means no limit
+	private int sessionCacheSize = 20000;
+	// how long a cached TLS session (or session ticket) can be resumed
+	private Duration sessionTimeout = Duration.ofHours(1);
+
+	// getters and setters || accessors and mutators
+	public int getSessionCacheSize() {
+		return sessionCacheSize;
+	}
+
+	public void setSessionCacheSize(int sessionCacheSize) {
+		this.sessionCacheSize = sessionCacheSize;
+	}
+
+	public Duration getSessionTimeout() {
+		return sessionTimeout;
+	}
+
+	public void setSessionTimeout(Duration sessionTimeout) {
+		this.sessionTimeout = sessionTimeout;
+	}// getters, setters END
+
+}
@@ -0,0 +1,145 @@
+package tacos.server;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.coyote.ProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+/**
+ * Opt-in virtual-thread request execution (<tt>tacocloud.server.virtual-threads=true</tt>,
+ * JDK 21 or later).<br>
+ * <br>
+ * By default Tomcat runs every request on one of at most
+ * <tt>server.tomcat.threads.max</tt> (200) platform threads, and a request
+ * keeps its thread while it waits for JDBC - in <code>processTaco</code>,
+ * <code>processOrder</code> or the user lookup at login. When all of them wait,
+ * further requests queue even though the CPU is idle. In virtual-thread mode
+ * the connector hands each request to a new virtual thread; a virtual thread
+ * that blocks on I/O or a <tt>java.util.concurrent</tt> lock unmounts from its
+ * carrier (platform) thread, so the number of requests in flight is bounded by
+ * <tt>server.tomcat.max-connections</tt> and the database pool
+ * (<tt>spring.datasource.hikari.maximum-pool-size</tt>) rather than by a thread
+ * count. <tt>server.tomcat.threads.*</tt> no longer apply. The
+ * <tt>applicationTaskExecutor</tt> - used for <tt>@Async</tt> methods and
+ * asynchronous MVC requests - runs its tasks on virtual threads as well.<br>
+ * <br>
+ * A virtual thread that blocks inside a <tt>synchronized</tt> block or method
+ * stays pinned to its carrier, and there are only as many carriers as cores.
+ * Audit of the request paths (JDK 21, <tt>-Djdk.tracePinnedThreads=short</tt>,
+ * see <tt>RequestThreadsBenchmark</tt>):
+ * <ul>
+ * <li>H2 1.4.200 executes every statement inside
+ * <tt>synchronized (session)</tt>. The in-memory database does no I/O there,
+ * so the carrier is mostly held for the CPU time of the statement only; under
+ * load the trace reports a few pins where a commit
+ * (<tt>JdbcConnection.commit</tt>) waits for a concurrent one. A file-based or
+ * remote database in its place should be one whose driver does not block in
+ * monitors.</li>
+ * <li>HikariCP waits for a free connection with <tt>SynchronousQueue</tt> and
+ * <tt>LockSupport.parkNanos</tt>: no pinning. datasource-proxy and the
+ * Hibernate statistics use concurrent collections only.</li>
+ * <li>BCrypt is pure computation without monitors, so it does not pin, but it
+ * would occupy a carrier for tens of milliseconds per hash;
+ * <code>OffloadingPasswordEncoder</code> already runs it on its own bounded
+ * platform pool, and the waiting request thread parks on a
+ * <tt>FutureTask</tt>, which unmounts.</li>
+ * <li><code>UserDetailsCache</code> loads a missing user inside Caffeine's
+ * (<tt>ConcurrentHashMap</tt>) bin lock - one query per login of a user that
+ * is not cached. Kept: it happens once per user and TTL, and it is what keeps
+ * an eviction from racing a load.</li>
+ * <li>Tomcat up to 9.0.6x processes each request (<tt>SocketProcessorBase.run</tt>)
+ * and each HTTP/2 stream (<tt>StreamProcessor.process</tt>) inside
+ * <tt>synchronized (socketWrapper)</tt>, which pinned a virtual thread for the
+ * whole request, JDBC waits included - slower than the platform pool. The
+ * build uses a later Tomcat 9.0.x (<tt>tomcat.version</tt> in
+ * <tt>pom.xml</tt>) that locks with a <tt>ReentrantLock</tt>.</li>
+ * <li>The logging pipeline hands events to <tt>AsyncAppender</tt>'s
+ * <tt>ArrayBlockingQueue</tt> (<tt>ReentrantLock</tt>), and
+ * <code>OrderWriteBehind</code>, <code>IngredientCatalog</code> and
+ * <code>UsernameRegistry</code> use <tt>java.util.concurrent</tt> queues and
+ * atomics: no pinning.</li>
+ * </ul>
+ * The virtual-thread API is looked up reflectively, so the application still
+ * compiles and runs on Java 8 with the mode switched off.
+ *
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Configuration
+@ConditionalOnProperty(name = "tacocloud.server.virtual-threads", havingValue = "true")
+public class VirtualThreadsConfig implements DisposableBean {
+
+	private final ExecutorService requestExecutor = newVirtualThreadPerTaskExecutor("http-vt-");
+	private final ExecutorService taskExecutor = newVirtualThreadPerTaskExecutor("task-vt-");
+
+	private Logger logger = LoggerFactory.getLogger(VirtualThreadsConfig.class);
+
+	/**
+	 * Replaces the connector's internal platform-thread pool. Tomcat does not
+	 * stop an executor it did not create; {@link #destroy()} does.
+	 *
+	 * @return TomcatProtocolHandlerCustomizer
+	 */
+	@Bean
+	public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+		return protocolHandler -> {
+			protocolHandler.setExecutor(requestExecutor);
+			logger.info("Tomcat requests run on virtual threads");
+		};
+	}
+
+	/**
+	 * Registered under the names Spring Boot (asynchronous MVC requests) and
+	 * <tt>@EnableAsync</tt> look for; Boot's own
+	 * <tt>ThreadPoolTaskExecutor</tt> backs off.
+	 *
+	 * @return AsyncTaskExecutor running each task on a new virtual thread
+	 */
+	@Bean(name = { TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME, "taskExecutor" })
+	public AsyncTaskExecutor applicationTaskExecutor() {
+		return new TaskExecutorAdapter(taskExecutor);
+	}
+
+	@Override
+	public void destroy() {
+		requestExecutor.shutdown();
+		taskExecutor.shutdown();
+	}
+
+	/**
+	 * <tt>Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefix, 0).factory())</tt>,
+	 * called reflectively.
+	 *
+	 * @param prefix thread name prefix, followed by a counter
+	 * @return ExecutorService that starts a new virtual thread for each task
+	 * @throws IllegalStateException if the JDK has no virtual threads
+	 */
+	static ExecutorService newVirtualThreadPerTaskExecutor(String prefix) {
+		try {
+			Class<?> builder = Class.forName("java.lang.Thread$Builder");
+			Class<?> ofVirtual = Class.forName("java.lang.Thread$Builder$OfVirtual");
+			Object virtual = Thread.class.getMethod("ofVirtual").invoke(null);
+			virtual = ofVirtual.getMethod("name", String.class, long.class).invoke(virtual, prefix, 0L);
+			ThreadFactory threadFactory = (ThreadFactory) builder.getMethod("factory").invoke(virtual);
+			return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+					.invoke(null, threadFactory);
+		} catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException
+				| InvocationTargetException e) {
+			throw new IllegalStateException("tacocloud.server.virtual-threads=true requires JDK 21 or later, running on "
+					+ System.getProperty("java.version"), e);
+		}
+	}// newVirtualThreadPerTaskExecutor() END
+
+}
@@ -0,0 +1,42 @@
+package tacos.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers work until the current transaction commits, for the entity listeners
+ * that keep in-memory state ({@link IngredientCatalog},
+ * {@link UserDetailsCache}) in sync with the database: a change applied before
+ * the commit could be seen - or cached again - while the database still holds
+ * the old row, and a rolled back one would never be undone.<br>
+ * Outside of a transaction (no synchronization active) the work runs right
+ * away. If the transaction rolls back, it does not run at all.
+ *
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+public final class AfterCommit {
+
+	private AfterCommit() {
+	}
+
+	/**
+	 * Runs the action once the current transaction has committed, or right away
+	 * if there is none.
+	 * 
+	 * @param action
+	 */
+	public static void run(Runnable action) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			action.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				action.run();
+			}
+		});
+	}// run() END
+
+}
@@ -0,0 +1,119 @@
+package tacos.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread-safe Bloom filter of strings.<br>
+ * <br>
+ * A Bloom filter answers "might this string have been added?" from a fixed
+ * bit array: <tt>false</tt> is always correct, <tt>true</tt> is wrong with a
+ * small, configurable probability (a false positive). Each string sets
+ * <tt>k</tt> bits, chosen by double hashing of one 64-bit hash; the number of
+ * bits and hashes is derived from the expected number of strings and the
+ * desired false positive probability.<br>
+ * Bits are set with a CAS on an <code>AtomicLongArray</code>, so adding and
+ * querying need no lock. Strings cannot be removed.
+ * 
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+public final class BloomFilter {
+
+	private final AtomicLongArray words;
+	private final long bits;
+	private final int hashes;
+
+	/**
+	 * @param expectedInsertions expected number of strings
+	 * @param fpp                desired false positive probability, e.g.
+	 *                           <tt>0.01</tt>
+	 */
+	public BloomFilter(long expectedInsertions, double fpp) {
+		if (expectedInsertions < 1) {
+			expectedInsertions = 1;
+		}
+		if (fpp <= 0 || fpp >= 1) {
+			throw new IllegalArgumentException("fpp must be between 0 and 1: " + fpp);
+		}
+		// m = -n ln(p) / (ln 2)^2, k = m/n ln 2
+		long m = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+		this.words = new AtomicLongArray((int) ((m + 63) / 64));
+		this.bits = words.length() * 64L;
+		this.hashes = Math.max(1, (int) Math.round((double) m / expectedInsertions * Math.log(2)));
+	}
+
+	/**
+	 * @param value
+	 */
+	public void add(String value) {
+		long hash = hash(value);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 1; i <= hashes; i++) {
+			long bit = index(h1 + i * h2);
+			int word = (int) (bit >>> 6);
+			long mask = 1L << bit;
+			long current;
+			while (((current = words.get(word)) & mask) == 0) {
+				if (words.compareAndSet(word, current, current | mask)) {
+					break;
+				}
+			}
+		}
+	}// add() END
+
+	/**
+	 * @param value
+	 * @return <tt>false</tt> if the value has definitely not been added,
+	 *         <tt>true</tt> if it probably has
+	 */
+	public boolean mightContain(String value) {
+		long hash = hash(value);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 1; i <= hashes; i++) {
+			long bit = index(h1 + i * h2);
+			if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}// mightContain() END
+
+	/**
+	 * @return size of the bit array
+	 */
+	public long bitSize() {
+		return bits;
+	}
+
+	/**
+	 * @return number of bits set per value
+	 */
+	public int hashCount() {
+		return hashes;
+	}
+
+	// maps a (possibly negative) combined hash to a bit index
+	private long index(int combined) {
+		return (combined & 0xFFFFFFFFL) % bits;
+	}
+
+	// 64-bit FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 fmix64
+	// mixer so that both halves are well distributed; shared with HeavyHitters
+	static long hash(String value) {
+		long hash = 0xcbf29ce484222325L;
+		for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+			hash ^= b & 0xFF;
+			hash *= 0x100000001b3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+}
@@ -0,0 +1,56 @@
+package tacos.service;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Counters of business events, next to the technical metrics (latency, pool
+ * usage, ...) that Spring Boot Actuator records:
+ * <ul>
+ * <li><tt>tacocloud.tacos.designed</tt> - tacos added to an order</li>
+ * <li><tt>tacocloud.orders.placed</tt> - orders accepted, tagged
+ * <tt>mode=sync|write-behind</tt></li>
+ * <li><tt>tacocloud.users.registered</tt> - new users</li>
+ * </ul>
+ * 
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Component
+public class BusinessMetrics {
+
+	private final Counter tacosDesigned;
+	private final Counter ordersPlaced;
+	private final Counter ordersQueued;
+	private final Counter usersRegistered;
+
+	public BusinessMetrics(MeterRegistry meterRegistry) {
+		this.tacosDesigned = Counter.builder("tacocloud.tacos.designed").description("Tacos designed")
+				.register(meterRegistry);
+		this.ordersPlaced = Counter.builder("tacocloud.orders.placed").tag("mode", "sync")
+				.description("Orders placed").register(meterRegistry);
+		this.ordersQueued = Counter.builder("tacocloud.orders.placed").tag("mode", "write-behind")
+				.description("Orders placed").register(meterRegistry);
+		this.usersRegistered = Counter.builder("tacocloud.users.registered").description("Users registered")
+				.register(meterRegistry);
+	}
+
+	public void tacoDesigned() {
+		tacosDesigned.increment();
+	}
+
+	/**
+	 * @param writeBehind <tt>true</tt> if the order was queued for write-behind
+	 *                    persistence
+	 */
+	public void orderPlaced(boolean writeBehind) {
+		(writeBehind ? ordersQueued : ordersPlaced).increment();
+	}
+
+	public void userRegistered() {
+		usersRegistered.increment();
+	}
+
+}
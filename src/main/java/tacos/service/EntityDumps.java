@@ -0,0 +1,52 @@
+package tacos.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * <code>EntityDumps</code> decides when a full dump of an entity graph (e.g. a
+ * <tt>TacoOrder</tt> with all its tacos and ingredients) is worth logging.<br>
+ * <br>
+ * Rendering an entity graph with <code>toString</code> builds a large string
+ * and may trigger lazy loads, so request handlers log a short, parameterised
+ * summary at INFO and leave the dump to this class, which logs it:
+ * <ul>
+ * <li>at DEBUG, if DEBUG is enabled for the logger, or otherwise</li>
+ * <li>at INFO for every <tt>tacocloud.logging.entity-dump-sample-rate</tt>-th
+ * call (0, the default, disables sampled dumps)</li>
+ * </ul>
+ * The arguments are only rendered if the dump is actually logged.
+ * 
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Component
+public class EntityDumps {
+
+	private final int sampleRate;
+	private final AtomicLong calls = new AtomicLong();
+
+	public EntityDumps(@Value("${tacocloud.logging.entity-dump-sample-rate:0}") int sampleRate) {
+		this.sampleRate = sampleRate;
+	}
+
+	/**
+	 * Logs a parameterised message (typically with entities as arguments), if
+	 * DEBUG is enabled or the call is sampled.
+	 * 
+	 * @param logger
+	 * @param format SLF4J message format, e.g. <tt>"Order processed: {}"</tt>
+	 * @param args
+	 */
+	public void dump(Logger logger, String format, Object... args) {
+		if (logger.isDebugEnabled()) {
+			logger.debug(format, args);
+		} else if (sampleRate > 0 && calls.incrementAndGet() % sampleRate == 0 && logger.isInfoEnabled()) {
+			logger.info(format, args);
+		}
+	}// dump() END
+
+}
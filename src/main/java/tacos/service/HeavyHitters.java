@@ -0,0 +1,152 @@
+package tacos.service;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Approximate, thread-safe counts of the most frequent strings of a stream
+ * (heavy hitters) in fixed memory.<br>
+ * <br>
+ * Every string is counted in a Count-Min sketch: <tt>depth</tt> rows of
+ * <tt>width</tt> counters, one counter per row chosen by double hashing. The
+ * estimate of a string is the smallest of its counters; it is never below the
+ * true count, and above it by at most <tt>e / width</tt> of the total count
+ * with probability <tt>1 - e<sup>-depth</sup></tt>. Counters are incremented
+ * with <code>AtomicLongArray.addAndGet</code>, so adding needs no lock.<br>
+ * The sketch cannot list its strings; the <tt>capacity</tt> strings with the
+ * highest estimates are kept as candidates next to it. A string whose estimate
+ * rises above the smallest candidate's replaces it; the (rare) eviction runs
+ * under a lock that adders only try to take.
+ * 
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+public final class HeavyHitters {
+
+	private final AtomicLongArray counters;
+	private final int width;
+	private final int depth;
+	private final int capacity;
+	private final LongAdder total = new LongAdder();
+
+	// candidate -> estimate when it was last added
+	private final Map<String, Long> candidates = new ConcurrentHashMap<>();
+	private final ReentrantLock evictionLock = new ReentrantLock();
+	// smallest estimate among the candidates after the last eviction
+	private volatile long floor = 0;
+
+	/**
+	 * @param capacity number of strings tracked, i.e. the largest <tt>k</tt> of
+	 *                 {@link #top(int)}
+	 * @param width    counters per row; the error bound is
+	 *                 <tt>e / width</tt> of the total count
+	 * @param depth    rows; the bound fails with probability
+	 *                 <tt>e<sup>-depth</sup></tt>
+	 */
+	public HeavyHitters(int capacity, int width, int depth) {
+		if (capacity < 1 || width < 1 || depth < 1) {
+			throw new IllegalArgumentException("capacity, width and depth must be positive");
+		}
+		this.capacity = capacity;
+		this.width = width;
+		this.depth = depth;
+		this.counters = new AtomicLongArray(width * depth);
+	}
+
+	/**
+	 * @param item
+	 * @param count occurrences to add
+	 */
+	public void add(String item, long count) {
+		total.add(count);
+		long hash = BloomFilter.hash(item);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		long estimate = Long.MAX_VALUE;
+		for (int row = 0; row < depth; row++) {
+			estimate = Math.min(estimate, counters.addAndGet(cell(row, h1 + (row + 1) * h2), count));
+		}
+		if (estimate > floor || candidates.containsKey(item) || candidates.size() < capacity) {
+			candidates.put(item, estimate);
+			if (candidates.size() > capacity && evictionLock.tryLock()) {
+				try {
+					evict();
+				} finally {
+					evictionLock.unlock();
+				}
+			}
+		}
+	}// add() END
+
+	/**
+	 * @param item
+	 * @return estimated count of the string; never below its true count
+	 */
+	public long estimate(String item) {
+		long hash = BloomFilter.hash(item);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		long estimate = Long.MAX_VALUE;
+		for (int row = 0; row < depth; row++) {
+			estimate = Math.min(estimate, counters.get(cell(row, h1 + (row + 1) * h2)));
+		}
+		return estimate;
+	}
+
+	/**
+	 * @param k
+	 * @return up to <tt>k</tt> strings with their estimated counts, highest
+	 *         first
+	 */
+	public List<Map.Entry<String, Long>> top(int k) {
+		List<Map.Entry<String, Long>> top = new ArrayList<>(candidates.size());
+		for (String item : candidates.keySet()) {
+			top.add(new SimpleImmutableEntry<>(item, estimate(item)));
+		}
+		top.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+		return top.subList(0, Math.min(k, top.size()));
+	}
+
+	/**
+	 * @return sum of all counts added
+	 */
+	public long total() {
+		return total.sum();
+	}
+
+	/**
+	 * @return upper bound (with high probability) of the overestimate of any
+	 *         count, <tt>e / width</tt> of the total
+	 */
+	public long maxError() {
+		return (long) Math.ceil(Math.E / width * total());
+	}
+
+	// drops the candidates with the smallest estimates until capacity is met
+	private void evict() {
+		while (candidates.size() > capacity) {
+			String smallest = null;
+			long smallestEstimate = Long.MAX_VALUE;
+			for (Map.Entry<String, Long> candidate : candidates.entrySet()) {
+				if (candidate.getValue() < smallestEstimate) {
+					smallest = candidate.getKey();
+					smallestEstimate = candidate.getValue();
+				}
+			}
+			candidates.remove(smallest);
+			floor = smallestEstimate;
+		}
+	}// evict() END
+
+	// maps a (possibly negative) combined hash to a counter of the given row
+	private int cell(int row, int combined) {
+		return row * width + (int) ((combined & 0xFFFFFFFFL) % width);
+	}
+
+}
@@ -0,0 +1,229 @@
+package tacos.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import tacos.data.IngredientRepository;
+import tacos.model.bean.Ingredient;
+import tacos.model.bean.IngredientType;
+
+/**
+ * <code>IngredientCatalog</code> holds an immutable, in-memory snapshot of all
+ * <tt>Ingredient</tt> objects grouped by <tt>IngredientType</tt>.<br>
+ * <br>
+ * Ingredients almost never change, so there is no need to run
+ * <code>findAll</code> against the database on every request to
+ * <tt>/design</tt>. The snapshot is loaded once, when the application is ready,
+ * and readers only ever see a complete snapshot - they never touch the
+ * database.<br>
+ * When an ingredient is created, updated or deleted, a new snapshot is built
+ * from the current one (copy-on-write) and swapped in atomically through an
+ * <code>AtomicReference</code>. Writes are rare, reads are frequent, so the
+ * cost of copying the (small) catalog on every write is negligible.<br>
+ * <br>
+ * Lookups by id are read-through: an id that is not in the snapshot is loaded
+ * from the database and added to the snapshot, so each ingredient costs at most
+ * one query for the lifetime of the application.
+ *
+ * @see IngredientCatalogListener
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Service
+public class IngredientCatalog {
+
+	private final IngredientRepository ingredientRepository;
+
+	private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.EMPTY);
+
+	private Logger logger = LoggerFactory.getLogger(IngredientCatalog.class);
+
+	public IngredientCatalog(IngredientRepository ingredientRepository) {
+		this.ingredientRepository = ingredientRepository;
+	}
+
+	/**
+	 * Rebuilds the snapshot from the database. Invoked once the application is
+	 * ready, i.e. after every <tt>CommandLineRunner</tt> (including the ingredient
+	 * data loader) has run.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void reload() {
+		List<Ingredient> ingredients = new ArrayList<>();
+		ingredientRepository.findAll().forEach(ingredients::add);
+		snapshot.set(new Snapshot(ingredients));
+		logger.info("Ingredient catalog loaded: {} ingredients", ingredients.size());
+	}// reload() END
+
+	/**
+	 * @return the current, immutable snapshot of the catalog
+	 */
+	public Snapshot snapshot() {
+		return snapshot.get();
+	}
+
+	/**
+	 * @param ingredientType
+	 * @return unmodifiable list of ingredients of the given type
+	 */
+	public List<Ingredient> findByType(IngredientType ingredientType) {
+		return snapshot.get().findByType(ingredientType);
+	}
+
+	/**
+	 * Looks up an ingredient by id. Falls back to the database if the id is not in
+	 * the snapshot.
+	 *
+	 * @param id
+	 * @return <b>Ingredient</b> object, or <tt>null</tt> if there is no ingredient
+	 *         with the given id
+	 */
+	public Ingredient findById(String id) {
+		Ingredient ingredient = snapshot.get().findById(id);
+		if (ingredient != null) {
+			return ingredient;
+		}
+		ingredient = ingredientRepository.findById(id).orElse(null);
+		if (ingredient != null) {
+			put(ingredient);
+		}
+		return ingredient;
+	}// findById() END
+
+	/**
+	 * Looks up ingredients by their ids, in the order of the given ids. Ids that
+	 * are not in the snapshot are loaded from the database with a single
+	 * <tt>IN (...)</tt> query. Unknown ids are skipped.
+	 *
+	 * @param ids
+	 * @return list of <b>Ingredient</b> objects
+	 */
+	public List<Ingredient> findAllById(Collection<String> ids) {
+		Snapshot current = snapshot.get();
+		List<String> misses = new ArrayList<>();
+		for (String id : ids) {
+			if (current.findById(id) == null) {
+				misses.add(id);
+			}
+		}
+		if (!misses.isEmpty()) {
+			for (Ingredient ingredient : ingredientRepository.findAllById(misses)) {
+				put(ingredient);
+			}
+			current = snapshot.get();
+		}
+
+		List<Ingredient> ingredients = new ArrayList<>(ids.size());
+		for (String id : ids) {
+			Ingredient ingredient = current.findById(id);
+			if (ingredient != null) {
+				ingredients.add(ingredient);
+			}
+		}
+		return ingredients;
+	}// findAllById() END
+
+	/**
+	 * Swaps in a snapshot that contains the given (new or changed) ingredient.
+	 *
+	 * @param ingredient
+	 */
+	public void put(Ingredient ingredient) {
+		snapshot.updateAndGet(current -> current.with(ingredient));
+	}
+
+	/**
+	 * Swaps in a snapshot without the ingredient with the given id.
+	 *
+	 * @param id
+	 */
+	public void remove(String id) {
+		snapshot.updateAndGet(current -> current.without(id));
+	}
+
+	/**
+	 * Immutable view of the ingredient catalog. Instances are never modified after
+	 * construction; <code>with</code> and <code>without</code> return new
+	 * snapshots.
+	 */
+	public static final class Snapshot {
+
+		static final Snapshot EMPTY = new Snapshot(Collections.<Ingredient>emptyList());
+
+		// insertion ordered, so ingredients keep the order in which they were loaded
+		private final Map<String, Ingredient> byId;
+		private final Map<IngredientType, List<Ingredient>> byType;
+
+		Snapshot(List<Ingredient> ingredients) {
+			Map<String, Ingredient> ids = new LinkedHashMap<>();
+			for (Ingredient ingredient : ingredients) {
+				ids.put(ingredient.getId(), ingredient);
+			}
+			this.byId = Collections.unmodifiableMap(ids);
+
+			EnumMap<IngredientType, List<Ingredient>> types = new EnumMap<>(IngredientType.class);
+			for (IngredientType type : IngredientType.values()) {
+				types.put(type, new ArrayList<>());
+			}
+			for (Ingredient ingredient : ids.values()) {
+				types.get(ingredient.getIngredientType()).add(ingredient);
+			}
+			for (IngredientType type : IngredientType.values()) {
+				types.put(type, Collections.unmodifiableList(types.get(type)));
+			}
+			this.byType = Collections.unmodifiableMap(types);
+		}
+
+		public Ingredient findById(String id) {
+			return byId.get(id);
+		}
+
+		/**
+		 * @return all ingredients, in the order in which they were loaded
+		 */
+		public Collection<Ingredient> findAll() {
+			return byId.values();
+		}
+
+		public List<Ingredient> findByType(IngredientType ingredientType) {
+			return byType.get(ingredientType);
+		}
+
+		public Map<IngredientType, List<Ingredient>> byType() {
+			return byType;
+		}
+
+		public int size() {
+			return byId.size();
+		}
+
+		Snapshot with(Ingredient ingredient) {
+			Map<String, Ingredient> ids = new LinkedHashMap<>(byId);
+			ids.put(ingredient.getId(), ingredient);
+			return new Snapshot(new ArrayList<>(ids.values()));
+		}
+
+		Snapshot without(String id) {
+			if (!byId.containsKey(id)) {
+				return this;
+			}
+			Map<String, Ingredient> ids = new LinkedHashMap<>(byId);
+			ids.remove(id);
+			return new Snapshot(new ArrayList<>(ids.values()));
+		}
+
+	}// Snapshot END
+
+}
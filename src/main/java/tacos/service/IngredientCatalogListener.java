@@ -0,0 +1,48 @@
+package tacos.service;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+import org.springframework.beans.factory.ObjectProvider;
+
+import tacos.model.bean.Ingredient;
+
+/**
+ * JPA entity listener that keeps the {@link IngredientCatalog} snapshot in sync
+ * with the <tt>ingredient</tt> table.<br>
+ * <br>
+ * Spring Boot configures Hibernate to obtain entity listeners from the Spring
+ * bean factory, so the catalog can be injected. It is injected through an
+ * <code>ObjectProvider</code> because the listener is created while the
+ * <tt>EntityManagerFactory</tt> is being built, i.e. before the catalog (which
+ * depends on a repository, which depends on the <tt>EntityManagerFactory</tt>)
+ * can exist.<br>
+ * Changes are applied to the catalog only after the surrounding transaction
+ * commits ({@link AfterCommit}), so a rolled back write never becomes visible
+ * to readers.
+ *
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+public class IngredientCatalogListener {
+
+	private final ObjectProvider<IngredientCatalog> ingredientCatalog;
+
+	public IngredientCatalogListener(ObjectProvider<IngredientCatalog> ingredientCatalog) {
+		this.ingredientCatalog = ingredientCatalog;
+	}
+
+	@PostPersist
+	@PostUpdate
+	public void ingredientSaved(Ingredient ingredient) {
+		AfterCommit.run(() -> ingredientCatalog.ifAvailable(catalog -> catalog.put(ingredient)));
+	}
+
+	@PostRemove
+	public void ingredientRemoved(Ingredient ingredient) {
+		String id = ingredient.getId();
+		AfterCommit.run(() -> ingredientCatalog.ifAvailable(catalog -> catalog.remove(id)));
+	}
+
+}
@@ -0,0 +1,329 @@
+package tacos.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import tacos.data.id.TimeOrderedIdGenerator;
+import tacos.model.bean.Ingredient;
+import tacos.model.bean.Taco;
+
+/**
+ * Live counts of how often each ingredient is designed into a taco and
+ * ordered, and of the ingredient pairs ordered together - without
+ * <tt>GROUP BY</tt> queries over <tt>taco_ingredients</tt>.<br>
+ * <br>
+ * <ul>
+ * <li>Per ingredient, one <code>LongAdder</code> per counter, in arrays
+ * indexed by the ingredient's position in the <code>IngredientCatalog</code>
+ * snapshot. Request threads increment their own adder cells, so counting does
+ * not contend. When the catalog snapshot changes, the arrays are rebuilt for
+ * the new positions, reusing the adders of the ingredients that remain.</li>
+ * <li>Pairs of ordered ingredients go into a <code>HeavyHitters</code> sketch:
+ * fixed memory however many combinations exist, with approximate counts for
+ * the most frequent ones.</li>
+ * <li>The counts are written to <tt>ingredient_popularity</tt> every
+ * <tt>tacocloud.popularity.checkpoint-interval</tt> and when the application
+ * stops, and added back when it starts. Rows are keyed by the configured
+ * node id (<tt>tacocloud.id.node-id</tt>), so every instance restores its own
+ * counts. A node id derived from the process id changes with every restart,
+ * so without a configured one - a single development instance - the rows are
+ * kept under the fixed key {@value #SINGLE_NODE}. Counts since the last
+ * checkpoint are lost if the instance dies.</li>
+ * </ul>
+ * Fed by <code>DesignTacoController.processTaco</code> and the reactive API's
+ * <code>DesignApiHandler</code> (designed), and by
+ * <code>OrderController.processOrder</code>, <code>OrderWriteBehind</code> and
+ * <code>OrderApiHandler</code> (ordered, pairs); read by
+ * <code>IngredientPopularityEndpoint</code>. Bulk-imported orders are not
+ * counted.
+ *
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Service
+public class IngredientPopularity implements SmartLifecycle {
+
+	static final String DESIGNED = "designed";
+	static final String ORDERED = "ordered";
+	static final String PAIRS = "pairs";
+	private static final int PAIR_SKETCH_DEPTH = 4;
+	// checkpoint key of an instance without a configured node id
+	static final int SINGLE_NODE = -1;
+
+	private final IngredientCatalog ingredientCatalog;
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final IngredientPopularityProps props;
+	private final int nodeId;
+
+	private final AtomicReference<Counters> counters = new AtomicReference<>(
+			new Counters(IngredientCatalog.Snapshot.EMPTY, null));
+	private final HeavyHitters pairs;
+
+	private volatile boolean running = false;
+	private ScheduledExecutorService checkpointer;
+
+	private Logger logger = LoggerFactory.getLogger(IngredientPopularity.class);
+
+	public IngredientPopularity(IngredientCatalog ingredientCatalog, JdbcTemplate jdbcTemplate,
+			PlatformTransactionManager transactionManager, IngredientPopularityProps props,
+			@Value("${tacocloud.id.node-id:}") String nodeId) {
+		this.ingredientCatalog = ingredientCatalog;
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.props = props;
+		this.nodeId = TimeOrderedIdGenerator.isSet(nodeId) ? TimeOrderedIdGenerator.resolveNodeId(nodeId)
+				: SINGLE_NODE;
+		this.pairs = new HeavyHitters(props.getTrackedPairs(), props.getPairSketchWidth(), PAIR_SKETCH_DEPTH);
+	}
+
+	/**
+	 * Counts the ingredients of a designed taco.
+	 *
+	 * @param ingredients
+	 */
+	public void tacoDesigned(Collection<Ingredient> ingredients) {
+		Counters current = counters();
+		for (Ingredient ingredient : ingredients) {
+			int position = current.position(ingredient.getId());
+			if (position >= 0) {
+				current.designed[position].increment();
+			}
+		}
+	}
+
+	/**
+	 * Counts the ingredients of the tacos of a placed order and the pairs of
+	 * ingredients of each taco.
+	 *
+	 * @param tacos
+	 */
+	public void orderPlaced(List<Taco> tacos) {
+		Counters current = counters();
+		for (Taco taco : tacos) {
+			// sorted, so a pair has one name whatever the order of selection
+			TreeSet<String> ids = new TreeSet<>();
+			for (Ingredient ingredient : taco.getIngredients()) {
+				ids.add(ingredient.getId());
+			}
+			List<String> counted = new ArrayList<>(ids.size());
+			for (String id : ids) {
+				int position = current.position(id);
+				if (position >= 0) {
+					current.ordered[position].increment();
+					counted.add(id);
+				}
+			}
+			for (int i = 0; i < counted.size(); i++) {
+				for (int j = i + 1; j < counted.size(); j++) {
+					pairs.add(pair(counted.get(i), counted.get(j)), 1);
+				}
+			}
+		}
+	}// orderPlaced() END
+
+	/**
+	 * @param limit entries per list
+	 * @return the most designed and most ordered ingredients and the most ordered
+	 *         pairs, each entry with its count, most popular first;
+	 *         <tt>pairsMaxError</tt> bounds how much a pair count may be too high
+	 */
+	public Map<String, Object> top(int limit) {
+		Counters current = counters();
+		Map<String, Object> top = new LinkedHashMap<>();
+		top.put(DESIGNED, current.top(current.designed, limit));
+		top.put(ORDERED, current.top(current.ordered, limit));
+		List<Map<String, Object>> topPairs = new ArrayList<>();
+		for (Map.Entry<String, Long> pair : pairs.top(limit)) {
+			Map<String, Object> entry = new LinkedHashMap<>();
+			entry.put("ingredients", pair.getKey().split("\\+"));
+			entry.put("count", pair.getValue());
+			topPairs.add(entry);
+		}
+		top.put(PAIRS, topPairs);
+		top.put("pairsMaxError", pairs.maxError());
+		return top;
+	}// top() END
+
+	/**
+	 * Replaces this node's rows of <tt>ingredient_popularity</tt> with the
+	 * current counts, in one transaction.
+	 */
+	public void checkpoint() {
+		Counters current = counters();
+		List<Object[]> rows = new ArrayList<>();
+		for (int i = 0; i < current.ids.length; i++) {
+			rows.add(new Object[] { nodeId, DESIGNED, current.ids[i], current.designed[i].sum() });
+			rows.add(new Object[] { nodeId, ORDERED, current.ids[i], current.ordered[i].sum() });
+		}
+		for (Map.Entry<String, Long> pair : pairs.top(props.getTrackedPairs())) {
+			rows.add(new Object[] { nodeId, PAIRS, pair.getKey(), pair.getValue() });
+		}
+		transactionTemplate.executeWithoutResult(status -> {
+			jdbcTemplate.update("delete from ingredient_popularity where node = ?", nodeId);
+			jdbcTemplate.batchUpdate("insert into ingredient_popularity (node, counter, item, count) "
+					+ "values (?, ?, ?, ?)", rows);
+		});
+		logger.debug("Ingredient popularity checkpointed: {} rows", rows.size());
+	}// checkpoint() END
+
+	/**
+	 * Adds this node's checkpointed counts to the counters. Pair counts come back
+	 * for the tracked pairs only.
+	 */
+	public void restore() {
+		Map<String, Map<String, Long>> saved = new HashMap<>();
+		jdbcTemplate.query("select counter, item, count from ingredient_popularity where node = ?",
+				rs -> {
+					saved.computeIfAbsent(rs.getString("counter"), counter -> new HashMap<>())
+							.put(rs.getString("item"), rs.getLong("count"));
+				}, nodeId);
+		Map<String, Long> designed = saved.getOrDefault(DESIGNED, new HashMap<>());
+		Map<String, Long> ordered = saved.getOrDefault(ORDERED, new HashMap<>());
+		if (!designed.isEmpty() || !ordered.isEmpty()) {
+			// read-through: puts the ingredients into the catalog, so they have a position
+			List<String> ids = new ArrayList<>(designed.keySet());
+			ids.addAll(ordered.keySet());
+			ingredientCatalog.findAllById(ids);
+		}
+		Counters current = counters();
+		for (int i = 0; i < current.ids.length; i++) {
+			current.designed[i].add(designed.getOrDefault(current.ids[i], 0L));
+			current.ordered[i].add(ordered.getOrDefault(current.ids[i], 0L));
+		}
+		saved.getOrDefault(PAIRS, new HashMap<>()).forEach(pairs::add);
+		logger.info("Ingredient popularity restored: {} ingredients, {} pairs", designed.size(),
+				saved.getOrDefault(PAIRS, new HashMap<>()).size());
+	}// restore() END
+
+	@Override
+	public void start() {
+		restore();
+		long interval = props.getCheckpointInterval().toMillis();
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("popularity-checkpoint-");
+		threadFactory.setDaemon(true);
+		checkpointer = Executors.newSingleThreadScheduledExecutor(threadFactory);
+		checkpointer.scheduleWithFixedDelay(() -> {
+			try {
+				checkpoint();
+			} catch (RuntimeException e) {
+				logger.warn("Ingredient popularity checkpoint failed; retrying in {} ms", interval, e);
+			}
+		}, interval, interval, TimeUnit.MILLISECONDS);
+		running = true;
+	}// start() END
+
+	/**
+	 * Stops checkpointing and writes a last checkpoint, before the data source is
+	 * closed.
+	 */
+	@Override
+	public void stop() {
+		running = false;
+		checkpointer.shutdownNow();
+		try {
+			checkpoint();
+		} catch (RuntimeException e) {
+			logger.warn("Final ingredient popularity checkpoint failed", e);
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	// the counters for the current catalog snapshot
+	private Counters counters() {
+		IngredientCatalog.Snapshot catalog = ingredientCatalog.snapshot();
+		while (true) {
+			Counters current = counters.get();
+			if (current.catalog == catalog) {
+				return current;
+			}
+			Counters rebuilt = new Counters(catalog, current);
+			if (counters.compareAndSet(current, rebuilt)) {
+				return rebuilt;
+			}
+		}
+	}// counters() END
+
+	// helper method
+	static String pair(String first, String second) {
+		return first + "+" + second;
+	}
+
+	/**
+	 * Counter arrays for one catalog snapshot, indexed by ingredient position.
+	 */
+	private static final class Counters {
+
+		final IngredientCatalog.Snapshot catalog;
+		final String[] ids;
+		final String[] names;
+		final Map<String, Integer> positions;
+		final LongAdder[] designed;
+		final LongAdder[] ordered;
+
+		// the counters of the given snapshot, reusing the adders of previous
+		Counters(IngredientCatalog.Snapshot catalog, Counters previous) {
+			this.catalog = catalog;
+			int size = catalog.size();
+			this.ids = new String[size];
+			this.names = new String[size];
+			this.positions = new HashMap<>();
+			this.designed = new LongAdder[size];
+			this.ordered = new LongAdder[size];
+			int position = 0;
+			for (Ingredient ingredient : catalog.findAll()) {
+				int before = previous == null ? -1 : previous.position(ingredient.getId());
+				ids[position] = ingredient.getId();
+				names[position] = ingredient.getName();
+				positions.put(ingredient.getId(), position);
+				designed[position] = before >= 0 ? previous.designed[before] : new LongAdder();
+				ordered[position] = before >= 0 ? previous.ordered[before] : new LongAdder();
+				position++;
+			}
+		}
+
+		int position(String id) {
+			Integer position = positions.get(id);
+			return position == null ? -1 : position;
+		}
+
+		List<Map<String, Object>> top(LongAdder[] counts, int limit) {
+			List<Map<String, Object>> top = new ArrayList<>(ids.length);
+			for (int i = 0; i < ids.length; i++) {
+				Map<String, Object> entry = new LinkedHashMap<>();
+				entry.put("id", ids[i]);
+				entry.put("name", names[i]);
+				entry.put("count", counts[i].sum());
+				top.add(entry);
+			}
+			top.sort((a, b) -> Long.compare((Long) b.get("count"), (Long) a.get("count")));
+			return top.subList(0, Math.min(limit, top.size()));
+		}
+
+	}// Counters END
+
+}
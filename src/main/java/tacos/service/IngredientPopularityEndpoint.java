@@ -0,0 +1,40 @@
+package tacos.service;
+
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Management endpoint <tt>/actuator/popularity</tt> that lists the most
+ * designed and most ordered ingredients and the most ordered ingredient pairs
+ * of this instance, e.g. <tt>/actuator/popularity?limit=5</tt>.<br>
+ * Served on the management port, to the administrator only.
+ * 
+ * @see IngredientPopularity
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Component
+@Endpoint(id = "popularity")
+public class IngredientPopularityEndpoint {
+
+	private final IngredientPopularity ingredientPopularity;
+
+	public IngredientPopularityEndpoint(IngredientPopularity ingredientPopularity) {
+		this.ingredientPopularity = ingredientPopularity;
+	}
+
+	/**
+	 * @param limit entries per list, 10 by default
+	 * @return <tt>designed</tt>, <tt>ordered</tt> and <tt>pairs</tt>, most
+	 *         popular first
+	 */
+	@ReadOperation
+	public Map<String, Object> top(@Nullable Integer limit) {
+		return ingredientPopularity.top(limit != null ? limit : 10);
+	}
+
+}
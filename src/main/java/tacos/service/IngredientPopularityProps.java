@@ -0,0 +1,54 @@
+package tacos.service;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration of the ingredient popularity counters, bound from the
+ * <tt>tacocloud.popularity.*</tt> properties (see
+ * <tt>application.properties</tt>).
+ * 
+ * @see IngredientPopularity
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Component
+@ConfigurationProperties(prefix = "tacocloud.popularity")
+public class IngredientPopularityProps {
+
+	// how often the counters are written to the database
+	private Duration checkpointInterval = Duration.ofMinutes(1);
+	// ingredient pairs tracked as top-K candidates
+	private int trackedPairs = 100;
+	// counters per row of the pair sketch; the overestimate of a pair's count
+	// stays below e / width of all pairs counted
+	private int pairSketchWidth = 2048;
+
+	// getters and setters || accessors and mutators
+	public Duration getCheckpointInterval() {
+		return checkpointInterval;
+	}
+
+	public void setCheckpointInterval(Duration checkpointInterval) {
+		this.checkpointInterval = checkpointInterval;
+	}
+
+	public int getTrackedPairs() {
+		return trackedPairs;
+	}
+
+	public void setTrackedPairs(int trackedPairs) {
+		this.trackedPairs = trackedPairs;
+	}
+
+	public int getPairSketchWidth() {
+		return pairSketchWidth;
+	}
+
+	public void setPairSketchWidth(int pairSketchWidth) {
+		this.pairSketchWidth = pairSketchWidth;
+	}// getters, setters END
+
+}
@@ -0,0 +1,154 @@
+package tacos.service;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import tacos.data.OrderExportRow;
+import tacos.data.OrderRepository;
+
+/**
+ * Writes the orders placed in a date range as CSV or newline-delimited JSON,
+ * row by row as they are read.<br>
+ * <br>
+ * Memory use does not grow with the number of orders: the rows come from
+ * <code>OrderRepository.streamForExport</code> (a forward-only JDBC result
+ * set, <tt>1000</tt> rows per fetch), are <code>OrderExportRow</code>
+ * projections that never enter the persistence context, and each one is
+ * written and dropped before the next is read. What stays in memory is one
+ * fetch of rows and the output buffer.<br>
+ * The embedded H2 database, without <tt>LAZY_QUERY_EXECUTION</tt>, builds a
+ * query's whole result before returning its first row, whatever the fetch size;
+ * a server database streams it in fetch-size pieces.
+ *
+ * @see OrderExportEndpoint
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Service
+public class OrderExport {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Export formats; the name is the <tt>format</tt> request parameter, in lower
+	 * case.
+	 */
+	public enum Format {
+
+		CSV("text/csv"), NDJSON("application/x-ndjson");
+
+		private final String contentType;
+
+		Format(String contentType) {
+			this.contentType = contentType;
+		}
+
+		public String getContentType() {
+			return contentType;
+		}
+
+	}// Format END
+
+	private final OrderRepository orderRepository;
+	private final ObjectMapper objectMapper;
+
+	public OrderExport(OrderRepository orderRepository, ObjectMapper objectMapper) {
+		this.orderRepository = orderRepository;
+		this.objectMapper = objectMapper;
+	}
+
+	/**
+	 * Holds one database connection, in a read-only transaction, for as long as
+	 * the output accepts the data.
+	 * 
+	 * @param from   first placement date exported
+	 * @param to     placement dates before this one are exported
+	 * @param format
+	 * @param out    written through a buffer, flushed but not closed
+	 * @return number of exported orders
+	 * @throws IOException if the output fails, e.g. the client went away
+	 */
+	@Transactional(readOnly = true)
+	public long export(Date from, Date to, Format format, OutputStream out) throws IOException {
+		try (Stream<OrderExportRow> rows = orderRepository.streamForExport(from, to)) {
+			return format == Format.CSV ? writeCsv(rows.iterator(), out) : writeNdjson(rows.iterator(), out);
+		}
+	}
+
+	// the output gets whole buffers, not the encoder's 8 KB pieces
+	private static Writer newWriter(OutputStream out) {
+		return new BufferedWriter(
+				new OutputStreamWriter(new BufferedOutputStream(out, BUFFER_SIZE), StandardCharsets.UTF_8));
+	}
+
+	// helper method; RFC 4180, with a header line
+	private static long writeCsv(Iterator<OrderExportRow> rows, OutputStream out) throws IOException {
+		Writer writer = newWriter(out);
+		writer.write("id,date_order_placed,username,delivery_name,delivery_street,delivery_city,"
+				+ "delivery_state,delivery_zip,taco_count\r\n");
+		long count = 0;
+		while (rows.hasNext()) {
+			OrderExportRow row = rows.next();
+			writer.write(String.valueOf(row.getId()));
+			writer.write(',');
+			writer.write(row.getDateOrderPlaced().toInstant().toString());
+			for (String field : new String[] { row.getUsername(), row.getDeliveryName(), row.getDeliveryStreet(),
+					row.getDeliveryCity(), row.getDeliveryState(), row.getDeliveryZip() }) {
+				writer.write(',');
+				writeCsvField(writer, field);
+			}
+			writer.write(',');
+			writer.write(String.valueOf(row.getTacoCount()));
+			writer.write("\r\n");
+			count++;
+		}
+		writer.flush();
+		return count;
+	}// writeCsv() END
+
+	// quoted if it contains a separator, quote or line break; quotes are doubled
+	private static void writeCsvField(Writer writer, String field) throws IOException {
+		if (field == null) {
+			return;
+		}
+		if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0
+				&& field.indexOf('\r') < 0) {
+			writer.write(field);
+			return;
+		}
+		writer.write('"');
+		writer.write(field.replace("\"", "\"\""));
+		writer.write('"');
+	}
+
+	// helper method; one JSON object per line, dates as the API writes them
+	private long writeNdjson(Iterator<OrderExportRow> rows, OutputStream out) throws IOException {
+		Writer writer = newWriter(out);
+		ObjectWriter json = objectMapper.writerFor(OrderExportRow.class)
+				.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET).without(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+		long count = 0;
+		while (rows.hasNext()) {
+			json.writeValue(writer, rows.next());
+			writer.write('\n');
+			count++;
+		}
+		writer.flush();
+		return count;
+	}
+
+}
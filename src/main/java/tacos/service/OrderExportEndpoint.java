@@ -0,0 +1,186 @@
+package tacos.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.actuate.endpoint.web.annotation.RestControllerEndpoint;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+/**
+ * Management endpoint <tt>/actuator/orderexport</tt> that exports the orders
+ * placed in a date range for the finance team, e.g.
+ * <tt>/actuator/orderexport?from=2021-01-01&amp;to=2022-01-01&amp;format=ndjson</tt>
+ * for the orders placed from <tt>from</tt> up to, not including, <tt>to</tt> -
+ * the same range as <tt>ordersearch</tt> and <tt>sales</tt> take
+ * (<tt>format</tt> is <tt>csv</tt> by default).
+ * Served on the management port, to the administrator only - names,
+ * usernames and addresses leave with every export; see
+ * <code>SecurityConfig.managementSecurityFilterChain</code>.<br>
+ * <br>
+ * The response is streamed: headers go out at once, then the data in chunks
+ * (chunked transfer encoding) as <code>OrderExport</code> reads it, so an
+ * export of millions of orders needs neither the memory nor the time to build
+ * it first. The request thread is released as soon as the export has been
+ * handed to one of <tt>tacocloud.orders.export.max-concurrent</tt> export
+ * threads; while it runs, it holds that thread and one database connection,
+ * and no Tomcat thread. Requests beyond the limit are answered with
+ * <tt>503</tt>.<br>
+ * An export that fails midway - or is still running after
+ * <tt>tacocloud.orders.export.timeout</tt> - ends the response without its
+ * final chunk, so the client sees an incomplete transfer rather than a short
+ * file.
+ * 
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Component
+@RestControllerEndpoint(id = "orderexport")
+public class OrderExportEndpoint implements DisposableBean {
+
+	private final OrderExport orderExport;
+	private final OrderExportProps props;
+	private final ThreadPoolExecutor executor;
+
+	private Logger logger = LoggerFactory.getLogger(OrderExportEndpoint.class);
+
+	public OrderExportEndpoint(OrderExport orderExport, OrderExportProps props) {
+		this.orderExport = orderExport;
+		this.props = props;
+		// no queue: a request either gets a thread right away or is rejected
+		this.executor = new ThreadPoolExecutor(props.getMaxConcurrent(), props.getMaxConcurrent(), 0L,
+				TimeUnit.MILLISECONDS, new SynchronousQueue<>(), new CustomizableThreadFactory("order-export-"),
+				new ThreadPoolExecutor.AbortPolicy());
+	}
+
+	/**
+	 * Problems with the request are answered with a plain text message: the
+	 * management context has no exception resolvers that would map them to a
+	 * status.
+	 * 
+	 * @param from   first day exported, <tt>yyyy-MM-dd</tt>
+	 * @param to     day after the last exported, <tt>yyyy-MM-dd</tt>
+	 * @param format <tt>csv</tt> or <tt>ndjson</tt>
+	 * @return the streamed export, as an attachment
+	 */
+	@GetMapping
+	public ResponseEntity<ResponseBodyEmitter> export(@RequestParam(name = "from", required = false) String from,
+			@RequestParam(name = "to", required = false) String to,
+			@RequestParam(name = "format", defaultValue = "csv") String format) {
+		LocalDate fromDate;
+		LocalDate toDate;
+		OrderExport.Format exportFormat;
+		try {
+			fromDate = LocalDate.parse(String.valueOf(from));
+			toDate = LocalDate.parse(String.valueOf(to));
+		} catch (DateTimeParseException e) {
+			return message(HttpStatus.BAD_REQUEST, "from and to must be dates, yyyy-MM-dd");
+		}
+		try {
+			exportFormat = OrderExport.Format.valueOf(format.toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			return message(HttpStatus.BAD_REQUEST, "Unknown format: " + format);
+		}
+		if (!toDate.isAfter(fromDate)) {
+			return message(HttpStatus.BAD_REQUEST, "to must be after from");
+		}
+
+		ResponseBodyEmitter emitter = new ResponseBodyEmitter(props.getTimeout().toMillis());
+		try {
+			executor.execute(() -> run(fromDate, toDate, exportFormat, emitter));
+		} catch (RejectedExecutionException e) {
+			return message(HttpStatus.SERVICE_UNAVAILABLE, "Too many exports running, try again later");
+		}
+
+		// named after the first and the last day exported
+		String filename = "orders-" + fromDate + "-" + toDate.minusDays(1) + "."
+				+ exportFormat.name().toLowerCase(Locale.ROOT);
+		return ResponseEntity.ok().contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+				.header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build()
+						.toString())
+				.body(emitter);
+	}// export() END
+
+	@Override
+	public void destroy() {
+		executor.shutdownNow();
+	}
+
+	// helper method; runs on an export thread
+	private void run(LocalDate from, LocalDate to, OrderExport.Format format, ResponseBodyEmitter emitter) {
+		long started = System.nanoTime();
+		try {
+			long count = orderExport.export(toDate(from), toDate(to), format, new EmitterOutputStream(emitter));
+			emitter.complete();
+			logger.info("Exported {} orders placed from {} up to {} as {} in {} ms", count, from, to, format,
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+		} catch (Exception e) {
+			// IOException: the client went away; IllegalStateException: timed out
+			logger.warn("Export of orders placed from {} up to {} failed after {} ms: {}", from, to,
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), e.toString());
+			emitter.completeWithError(e);
+		}
+	}// run() END
+
+	private static ResponseEntity<ResponseBodyEmitter> message(HttpStatus status, String message) {
+		ResponseBodyEmitter emitter = new ResponseBodyEmitter();
+		try {
+			emitter.send(message + "\n", MediaType.TEXT_PLAIN);
+		} catch (IOException e) {
+			// not possible: the message is held until the response is set up
+		}
+		emitter.complete();
+		return ResponseEntity.status(status).contentType(MediaType.TEXT_PLAIN).body(emitter);
+	}
+
+	private static Date toDate(LocalDate date) {
+		return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+	}
+
+	/**
+	 * Sends every write as one chunk of the response; <code>OrderExport</code>
+	 * writes through a 64 KB buffer.
+	 */
+	private static final class EmitterOutputStream extends OutputStream {
+
+		private final ResponseBodyEmitter emitter;
+
+		EmitterOutputStream(ResponseBodyEmitter emitter) {
+			this.emitter = emitter;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			// copied: the emitter may hold on to it until the response is ready
+			emitter.send(Arrays.copyOfRange(b, off, off + len));
+		}
+
+	}// EmitterOutputStream END
+
+}
@@ -0,0 +1,44 @@
+package tacos.service;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration of the order export, bound from the
+ * <tt>tacocloud.orders.export.*</tt> properties (see
+ * <tt>application.properties</tt>).
+ * 
+ * @see OrderExportEndpoint
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Component
+@ConfigurationProperties(prefix = "tacocloud.orders.export")
+public class OrderExportProps {
+
+	// exports running at the same time, each on a thread and a database
+	// connection of its own; further requests are answered with 503
+	private int maxConcurrent = 2;
+	// an export still running after this long is abandoned
+	private Duration timeout = Duration.ofHours(1);
+
+	// getters and setters || accessors and mutators
+	public int getMaxConcurrent() {
+		return maxConcurrent;
+	}
+
+	public void setMaxConcurrent(int maxConcurrent) {
+		this.maxConcurrent = maxConcurrent;
+	}
+
+	public Duration getTimeout() {
+		return timeout;
+	}
+
+	public void setTimeout(Duration timeout) {
+		this.timeout = timeout;
+	}// getters, setters END
+
+}
@@ -0,0 +1,72 @@
+package tacos.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import tacos.data.OrderRepository;
+import tacos.data.TacoRepositry;
+import tacos.model.bean.Taco;
+import tacos.model.bean.TacoOrder;
+
+/**
+ * <code>OrderGraphService</code> loads a <code>TacoOrder</code> together with
+ * the parts of its object graph that the caller is going to walk, in a fixed
+ * number of queries:
+ * <ul>
+ * <li>{@link #findWithTacos(Long)} - order, user and tacos: 1 query</li>
+ * <li>{@link #findWithTacosAndIngredients(Long)} - order, user, tacos and the
+ * ingredients of every taco: 2 queries</li>
+ * </ul>
+ * Without a fetch plan, rendering or logging an order (e.g.
+ * <code>TacoOrder.toString</code>) triggers one lazy load for the tacos and one
+ * more for the ingredients of every taco (N+1). The returned order is fully
+ * initialized, so it can be rendered or serialised after the transaction has
+ * ended.
+ * 
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Service
+public class OrderGraphService {
+
+	private final OrderRepository orderRepository;
+	private final TacoRepositry tacoRepositry;
+
+	public OrderGraphService(OrderRepository orderRepository, TacoRepositry tacoRepositry) {
+		this.orderRepository = orderRepository;
+		this.tacoRepositry = tacoRepositry;
+	}
+
+	@Transactional(readOnly = true)
+	public Optional<TacoOrder> findWithTacos(Long id) {
+		return orderRepository.findWithTacosById(id);
+	}
+
+	/**
+	 * The second query runs in the same transaction (persistence context) as the
+	 * first one, so it initializes the <tt>ingredients</tt> of exactly the taco
+	 * instances held by the order.
+	 * 
+	 * @param id
+	 * @return <b>TacoOrder</b> object with initialized tacos and ingredients
+	 */
+	@Transactional(readOnly = true)
+	public Optional<TacoOrder> findWithTacosAndIngredients(Long id) {
+		Optional<TacoOrder> tacoOrder = orderRepository.findWithTacosById(id);
+		tacoOrder.ifPresent(order -> {
+			if (!order.getTacos().isEmpty()) {
+				List<Long> tacoIds = new ArrayList<>(order.getTacos().size());
+				for (Taco taco : order.getTacos()) {
+					tacoIds.add(taco.getId());
+				}
+				tacoRepositry.findWithIngredientsByIdIn(tacoIds);
+			}
+		});
+		return tacoOrder;
+	}// findWithTacosAndIngredients() END
+
+}
@@ -0,0 +1,141 @@
+package tacos.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import tacos.data.OrderRepository;
+import tacos.data.OrderSummary;
+
+/**
+ * Management endpoint <tt>/actuator/ordersearch</tt> with which support staff
+ * look up orders by delivery address and placement date, e.g.
+ * <tt>/actuator/ordersearch?state=CO&amp;city=Denver&amp;from=2021-07-01&amp;to=2021-07-08</tt>:
+ * <ul>
+ * <li><tt>zip</tt>, <tt>state</tt>, or <tt>state</tt> and <tt>city</tt> -
+ * where the orders were delivered; none for all orders</li>
+ * <li><tt>from</tt>, <tt>to</tt> - the days the orders were placed in, from
+ * <tt>from</tt> up to, not including, <tt>to</tt>; all days by default</li>
+ * <li><tt>limit</tt> - orders per page, 20 by default, at most 100</li>
+ * <li><tt>before</tt> - the <tt>next</tt> cursor of the previous page</li>
+ * </ul>
+ * Returns <tt>{"items": [...], "next": cursor}</tt>, newest first, as
+ * <code>OrderSummary</code> projections - no card details. Every search is
+ * served by an index of its own; see <code>OrderRepository.search*</code>.
+ * Invalid parameters are answered with <tt>400</tt> and an <tt>error</tt>
+ * message. Served on the management port, to the administrator only: the
+ * summaries carry customers' names and addresses.
+ *
+ * @see OrderRepository
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Component
+@Endpoint(id = "ordersearch")
+public class OrderSearchEndpoint {
+
+	private static final int MAX_LIMIT = 100;
+
+	private final OrderRepository orderRepository;
+
+	public OrderSearchEndpoint(OrderRepository orderRepository) {
+		this.orderRepository = orderRepository;
+	}
+
+	/**
+	 * @param zip    delivery zip code
+	 * @param state  delivery state
+	 * @param city   delivery city, together with <code>state</code>
+	 * @param from   first day, ISO format
+	 * @param to     day after the last, ISO format
+	 * @param before keyset cursor of the page to continue from
+	 * @param limit  orders per page
+	 * @return <tt>items</tt> and the <tt>next</tt> cursor, <tt>null</tt> on the
+	 *         last page
+	 */
+	@ReadOperation
+	public WebEndpointResponse<Object> search(@Nullable String zip, @Nullable String state, @Nullable String city,
+			@Nullable String from, @Nullable String to, @Nullable String before, @Nullable Integer limit) {
+		int pageSize = limit != null ? limit : 20;
+		if (pageSize < 1 || pageSize > MAX_LIMIT) {
+			return badRequest("limit must be between 1 and " + MAX_LIMIT);
+		}
+		if (zip != null && (state != null || city != null)) {
+			return badRequest("Search by zip, or by state and optionally city, not both");
+		}
+		if (city != null && state == null) {
+			return badRequest("city needs a state");
+		}
+
+		Date since;
+		Date placed;
+		long id = Long.MIN_VALUE;
+		try {
+			since = from != null ? day("from", from) : new Date(0);
+			placed = to != null ? day("to", to) : Timestamp.valueOf(LocalDate.now().plusDays(1).atStartOfDay());
+			if (before != null) {
+				String[] cursor = before.split("_");
+				if (cursor.length != 2) {
+					return badRequest("Malformed cursor: " + before);
+				}
+				// the cursor replaces the end of the range
+				placed = new Date(Long.parseLong(cursor[0]));
+				id = Long.parseLong(cursor[1]);
+			}
+		} catch (NumberFormatException e) {
+			return badRequest("Malformed cursor: " + before);
+		} catch (IllegalArgumentException e) {
+			return badRequest(e.getMessage());
+		}
+
+		// one extra row tells whether there is a next page
+		PageRequest page = PageRequest.of(0, pageSize + 1);
+		List<OrderSummary> orders;
+		if (zip != null) {
+			orders = orderRepository.searchByZip(zip, since, placed, id, page);
+		} else if (city != null) {
+			orders = orderRepository.searchByCity(state, city, since, placed, id, page);
+		} else if (state != null) {
+			orders = orderRepository.searchByState(state, since, placed, id, page);
+		} else {
+			orders = orderRepository.searchByDate(since, placed, id, page);
+		}
+
+		boolean hasNext = orders.size() > pageSize;
+		if (hasNext) {
+			orders = orders.subList(0, pageSize);
+		}
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("items", orders);
+		result.put("next", hasNext ? orders.get(orders.size() - 1).getCursor() : null);
+		return new WebEndpointResponse<>(result);
+	}// search() END
+
+	// helper methods
+	private static Date day(String name, String value) {
+		try {
+			return Timestamp.valueOf(LocalDate.parse(value).atStartOfDay());
+		} catch (DateTimeParseException e) {
+			throw new IllegalArgumentException(name + " must be a date like 2021-07-01, not " + value);
+		}
+	}
+
+	// thrown exceptions are answered with 500 on the management port
+	private static WebEndpointResponse<Object> badRequest(String message) {
+		return new WebEndpointResponse<>(Collections.singletonMap("error", message),
+				WebEndpointResponse.STATUS_BAD_REQUEST);
+	}
+
+}
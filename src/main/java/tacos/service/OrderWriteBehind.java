@@ -0,0 +1,303 @@
+package tacos.service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import tacos.data.id.TimeOrderedIdGenerator;
+import tacos.data.id.TimeOrderedIds;
+import tacos.model.bean.Ingredient;
+import tacos.model.bean.Taco;
+import tacos.model.bean.TacoOrder;
+
+/**
+ * <code>OrderWriteBehind</code> implements the optional write-behind order
+ * persistence mode (<tt>tacocloud.orders.write-behind.enabled=true</tt>).<br>
+ * <br>
+ * Instead of saving every order in its own transaction on the Tomcat request
+ * thread, {@link #submit(TacoOrder)} assigns the order its id - the
+ * time-ordered id it is saved under - puts the (already validated) order on a
+ * bounded in-memory queue and returns the id right away. A single background
+ * writer drains the queue in micro-batches: after the first order arrives it
+ * waits up to <tt>linger-millis</tt> for more orders, or until
+ * <tt>max-batch-size</tt> orders are collected, and commits the whole batch in
+ * one transaction (group commit).<br>
+ * <br>
+ * <b>Backpressure:</b> if the queue is full, the request thread waits up to
+ * <tt>offer-timeout-millis</tt> for space; if there is still none, the order is
+ * saved synchronously on the request thread, so a slow database slows callers
+ * down instead of losing orders or growing the heap.<br>
+ * <b>Failures:</b> if a batch fails, its orders are retried one by one, so a
+ * single bad order does not take the rest of the batch down with it. An order
+ * that still cannot be written is kept in the <tt>taco_order_failed</tt> table
+ * (without card details) for support to follow up, and only its id is
+ * logged.<br>
+ * Ingredient popularity and sales rollups count an order once it has been
+ * committed, never an order that is only queued.<br>
+ * <b>Shutdown:</b> as a <tt>SmartLifecycle</tt> bean, the writer is stopped
+ * before the data source and the <tt>EntityManagerFactory</tt> are closed. It
+ * stops accepting orders and flushes everything still queued.<br>
+ * <br>
+ * Metrics: <tt>tacocloud.orders.write-behind.queue.depth</tt> (gauge),
+ * <tt>tacocloud.orders.write-behind.commit</tt> (timer, one sample per batch),
+ * <tt>tacocloud.orders.write-behind.batch.size</tt> (distribution),
+ * <tt>tacocloud.orders.write-behind.rejected</tt> (orders saved synchronously
+ * because the queue was full) and <tt>tacocloud.orders.write-behind.failed</tt>.
+ * 
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Service
+public class OrderWriteBehind implements SmartLifecycle {
+
+	private final EntityManager entityManager;
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final OrderWriteBehindProps props;
+	private final IngredientPopularity ingredientPopularity;
+	private final SalesRollups salesRollups;
+	private final TimeOrderedIds ids;
+	private final BlockingQueue<TacoOrder> queue;
+
+	private final Timer commitTimer;
+	private final DistributionSummary batchSize;
+	private final Counter rejected;
+	private final Counter failed;
+
+	private volatile boolean running = false;
+	private Thread writer;
+
+	private Logger logger = LoggerFactory.getLogger(OrderWriteBehind.class);
+
+	public OrderWriteBehind(EntityManager entityManager, JdbcTemplate jdbcTemplate,
+			PlatformTransactionManager transactionManager, OrderWriteBehindProps props,
+			IngredientPopularity ingredientPopularity, SalesRollups salesRollups, MeterRegistry meterRegistry,
+			@Value("${tacocloud.id.node-id:}") String nodeId) {
+		this.entityManager = entityManager;
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.props = props;
+		this.ingredientPopularity = ingredientPopularity;
+		this.salesRollups = salesRollups;
+		// the generator Hibernate uses for this node; the id is kept when the order is saved
+		this.ids = TimeOrderedIds.forNode(TimeOrderedIdGenerator.resolveNodeId(nodeId));
+		this.queue = new ArrayBlockingQueue<>(props.getQueueCapacity());
+
+		Gauge.builder("tacocloud.orders.write-behind.queue.depth", queue, BlockingQueue::size)
+				.description("Orders waiting to be written").register(meterRegistry);
+		this.commitTimer = Timer.builder("tacocloud.orders.write-behind.commit")
+				.description("Time to commit one batch of orders").publishPercentileHistogram()
+				.register(meterRegistry);
+		this.batchSize = DistributionSummary.builder("tacocloud.orders.write-behind.batch.size").description("Orders committed per transaction")
+				.register(meterRegistry);
+		this.rejected = Counter.builder("tacocloud.orders.write-behind.rejected")
+				.description("Orders saved synchronously because the queue was full").register(meterRegistry);
+		this.failed = Counter.builder("tacocloud.orders.write-behind.failed")
+				.description("Orders that could not be written").register(meterRegistry);
+	}
+
+	/**
+	 * @return <tt>true</tt> if orders should be submitted to the write-behind
+	 *         queue instead of being saved synchronously
+	 */
+	public boolean isEnabled() {
+		return props.isEnabled();
+	}
+
+	/**
+	 * Queues a validated order for persistence.
+	 * 
+	 * @param tacoOrder
+	 * @return <b>Long</b> - the id the order is saved under
+	 */
+	public Long submit(TacoOrder tacoOrder) {
+		tacoOrder.assignId(ids.nextId());
+		boolean queued = false;
+		if (running) {
+			try {
+				queued = queue.offer(tacoOrder, props.getOfferTimeoutMillis(), TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		if (!queued) {
+			// backpressure: the caller pays for the write
+			rejected.increment();
+			write(Collections.singletonList(tacoOrder));
+		}
+		logger.debug("Order {} accepted", tacoOrder.getId());
+		return tacoOrder.getId();
+	}// submit() END
+
+	// background writer loop; runs until stopped and the queue is empty
+	private void drain() {
+		List<TacoOrder> batch = new ArrayList<>(props.getMaxBatchSize());
+		while ((running || !queue.isEmpty()) && !Thread.currentThread().isInterrupted()) {
+			try {
+				TacoOrder first = queue.poll(100, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(props.getLingerMillis());
+				while (batch.size() < props.getMaxBatchSize()) {
+					long remaining = deadline - System.nanoTime();
+					TacoOrder next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+					if (next == null) {
+						break;
+					}
+					batch.add(next);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			write(batch);
+			batch.clear();
+		}
+	}// drain() END
+
+	// commits the batch in one transaction; falls back to one transaction per order
+	private void write(List<TacoOrder> batch) {
+		if (batch.isEmpty()) {
+			return;
+		}
+		List<TacoOrder> committed;
+		try {
+			commitTimer.record(() -> insert(batch));
+			batchSize.record(batch.size());
+			committed = batch;
+		} catch (RuntimeException batchFailure) {
+			logger.warn("Writing a batch of {} orders failed ({}), retrying one by one", batch.size(),
+					batchFailure.getClass().getName());
+			committed = new ArrayList<>(batch.size());
+			for (TacoOrder tacoOrder : batch) {
+				try {
+					// taco ids assigned in the rolled back transaction; the order keeps its id
+					for (Taco taco : tacoOrder.getTacos()) {
+						taco.setId(null);
+					}
+					insert(Collections.singletonList(tacoOrder));
+					committed.add(tacoOrder);
+				} catch (RuntimeException e) {
+					failed.increment();
+					deadLetter(tacoOrder, e);
+				}
+			}
+		}
+		// outside the try: counting must neither re-insert nor dead-letter a committed order
+		committed.forEach(this::written);
+	}// write() END
+
+	/*
+	 * Session.save(), unlike persist(), takes an entity whose id is already set for
+	 * a new one; TimeOrderedIdGenerator keeps the id set by TacoOrder.assignId().
+	 * The tacos are cascaded when the transaction is flushed.
+	 */
+	private void insert(List<TacoOrder> orders) {
+		transactionTemplate.executeWithoutResult(status -> {
+			Session session = entityManager.unwrap(Session.class);
+			for (TacoOrder tacoOrder : orders) {
+				session.save(tacoOrder);
+			}
+		});
+	}
+
+	// counted once committed; the order stays written if counting fails
+	private void written(TacoOrder tacoOrder) {
+		try {
+			ingredientPopularity.orderPlaced(tacoOrder.getTacos());
+			salesRollups.orderPlaced(tacoOrder);
+		} catch (RuntimeException e) {
+			logger.warn("Order {} was written but not counted in popularity and rollups ({})", tacoOrder.getId(),
+					e.getClass().getName());
+		}
+	}
+
+	/*
+	 * Keeps what support needs to contact the customer and re-place the order;
+	 * card details are not stored, and nothing of the order goes to the log
+	 */
+	private void deadLetter(TacoOrder tacoOrder, RuntimeException failure) {
+		try {
+			String tacos = tacoOrder.getTacos().stream()
+					.map(taco -> taco.getName() + ": " + taco.getIngredients().stream().map(Ingredient::getId)
+							.collect(Collectors.joining(",")))
+					.collect(Collectors.joining("; "));
+			jdbcTemplate.update("insert into taco_order_failed (id, user_id, delivery_name, delivery_street, "
+					+ "delivery_city, delivery_state, delivery_zip, tacos, error, failed) "
+					+ "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", tacoOrder.getId(),
+					tacoOrder.getUser() != null ? tacoOrder.getUser().getId() : null, tacoOrder.getDeliveryName(),
+					tacoOrder.getDeliveryStreet(), tacoOrder.getDeliveryCity(), tacoOrder.getDeliveryState(),
+					tacoOrder.getDeliveryZip(), truncate(tacos, 4000), truncate(String.valueOf(failure), 1000),
+					new Timestamp(System.currentTimeMillis()));
+			logger.error("Order {} could not be written ({}), kept in taco_order_failed", tacoOrder.getId(),
+					failure.getClass().getName());
+		} catch (RuntimeException e) {
+			logger.error("Order {} could not be written ({}) nor kept in taco_order_failed ({}); it is lost",
+					tacoOrder.getId(), failure.getClass().getName(), e.getClass().getName());
+		}
+	}// deadLetter() END
+
+	private static String truncate(String value, int length) {
+		return value.length() > length ? value.substring(0, length) : value;
+	}
+
+	@Override
+	public void start() {
+		if (!props.isEnabled()) {
+			return;
+		}
+		running = true;
+		writer = new Thread(this::drain, "order-write-behind");
+		writer.start();
+		logger.info("Write-behind order persistence started (batch size {}, linger {} ms)", props.getMaxBatchSize(),
+				props.getLingerMillis());
+	}
+
+	@Override
+	public void stop() {
+		if (writer == null) {
+			return;
+		}
+		running = false;
+		try {
+			// the writer keeps draining until the queue is empty
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		// orders offered while the writer was finishing
+		List<TacoOrder> rest = new ArrayList<>();
+		queue.drainTo(rest);
+		write(rest);
+		logger.info("Write-behind order persistence stopped, queue flushed");
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+}
@@ -0,0 +1,72 @@
+package tacos.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration of the write-behind order persistence mode, bound from the
+ * <tt>tacocloud.orders.write-behind.*</tt> properties (see
+ * <tt>application.properties</tt>).
+ * 
+ * @see OrderWriteBehind
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Component
+@ConfigurationProperties(prefix = "tacocloud.orders.write-behind")
+public class OrderWriteBehindProps {
+
+	// write-behind mode is opt-in; orders are saved synchronously by default
+	private boolean enabled = false;
+	// maximum number of orders waiting to be written
+	private int queueCapacity = 10_000;
+	// maximum number of orders committed in one transaction
+	private int maxBatchSize = 100;
+	// how long the writer waits for a batch to fill up after the first order
+	private long lingerMillis = 20;
+	// how long a request waits for space in a full queue before the order is
+	// saved synchronously on the request thread
+	private long offerTimeoutMillis = 50;
+
+	// getters and setters || accessors and mutators
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	public void setQueueCapacity(int queueCapacity) {
+		this.queueCapacity = queueCapacity;
+	}
+
+	public int getMaxBatchSize() {
+		return maxBatchSize;
+	}
+
+	public void setMaxBatchSize(int maxBatchSize) {
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	public long getLingerMillis() {
+		return lingerMillis;
+	}
+
+	public void setLingerMillis(long lingerMillis) {
+		this.lingerMillis = lingerMillis;
+	}
+
+	public long getOfferTimeoutMillis() {
+		return offerTimeoutMillis;
+	}
+
+	public void setOfferTimeoutMillis(long offerTimeoutMillis) {
+		this.offerTimeoutMillis = offerTimeoutMillis;
+	}
+
+}
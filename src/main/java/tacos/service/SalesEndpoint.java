@@ -0,0 +1,117 @@
+package tacos.service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Management endpoint <tt>/actuator/sales</tt> serving the sales reports of
+ * <code>SalesReports</code> and running <code>SalesRollupBackfill</code>:
+ * <ul>
+ * <li><tt>GET /actuator/sales/{hourly|daily|cities|ingredients}?from=2021-07-01&amp;to=2021-07-08&amp;limit=20</tt>
+ * - the days from <tt>from</tt> up to, not including, <tt>to</tt>; the last 7
+ * days including today by default. <tt>limit</tt> applies to
+ * <tt>cities</tt>.</li>
+ * <li><tt>POST /actuator/sales</tt> with
+ * <tt>{"from":"2021-01-01","to":"2021-07-01"}</tt> - rebuilds the rollups of
+ * those days; <tt>to</tt> is today by default.</li>
+ * </ul>
+ * Invalid parameters are answered with <tt>400</tt> and an <tt>error</tt>
+ * message. Served on the management port, to the administrator only: a
+ * backfill deletes and recomputes the rollups of its days.
+ *
+ * @see SalesReports
+ * @see SalesRollupBackfill
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Component
+@Endpoint(id = "sales")
+public class SalesEndpoint {
+
+	private final SalesReports salesReports;
+	private final SalesRollupBackfill salesRollupBackfill;
+
+	public SalesEndpoint(SalesReports salesReports, SalesRollupBackfill salesRollupBackfill) {
+		this.salesReports = salesReports;
+		this.salesRollupBackfill = salesRollupBackfill;
+	}
+
+	/**
+	 * @param report <tt>hourly</tt>, <tt>daily</tt>, <tt>cities</tt> or
+	 *               <tt>ingredients</tt>
+	 * @param from   first day, ISO format
+	 * @param to     day after the last, ISO format
+	 * @param limit  number of cities, 20 by default
+	 * @return the rows of the report
+	 */
+	@ReadOperation
+	public WebEndpointResponse<Object> report(@Selector String report, @Nullable String from, @Nullable String to,
+			@Nullable Integer limit) {
+		try {
+			LocalDate until = to != null ? day("to", to) : LocalDate.now().plusDays(1);
+			LocalDate since = from != null ? day("from", from) : until.minusDays(7);
+			switch (report) {
+			case "hourly":
+				return new WebEndpointResponse<>(salesReports.hourly(since, until));
+			case "daily":
+				return new WebEndpointResponse<>(salesReports.daily(since, until));
+			case "cities":
+				return new WebEndpointResponse<>(salesReports.cities(since, until, limit != null ? limit : 20));
+			case "ingredients":
+				return new WebEndpointResponse<>(salesReports.ingredients(since, until));
+			default:
+				return badRequest("Unknown report " + report + "; one of hourly, daily, cities, ingredients");
+			}
+		} catch (IllegalArgumentException e) {
+			return badRequest(e.getMessage());
+		}
+	}// report() END
+
+	/**
+	 * @param from first day, ISO format
+	 * @param to   day after the last, ISO format
+	 * @return <tt>days</tt> rebuilt and <tt>millis</tt> taken
+	 */
+	@WriteOperation
+	public WebEndpointResponse<Object> backfill(String from, @Nullable String to) {
+		try {
+			LocalDate since = day("from", from);
+			LocalDate until = to != null ? day("to", to) : LocalDate.now();
+			long start = System.currentTimeMillis();
+			long days = salesRollupBackfill.rebuild(since, until);
+			Map<String, Object> result = new LinkedHashMap<>();
+			result.put("days", days);
+			result.put("millis", System.currentTimeMillis() - start);
+			return new WebEndpointResponse<>(result);
+		} catch (IllegalArgumentException e) {
+			return badRequest(e.getMessage());
+		}
+	}// backfill() END
+
+	// helper methods
+	private static LocalDate day(String name, String value) {
+		try {
+			return LocalDate.parse(value);
+		} catch (DateTimeParseException e) {
+			throw new IllegalArgumentException(name + " must be a date like 2021-07-01, not " + value);
+		}
+	}
+
+	// thrown exceptions are answered with 500 on the management port
+	private static WebEndpointResponse<Object> badRequest(String message) {
+		return new WebEndpointResponse<>(Collections.singletonMap("error", message),
+				WebEndpointResponse.STATUS_BAD_REQUEST);
+	}
+
+}
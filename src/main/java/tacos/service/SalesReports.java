@@ -0,0 +1,117 @@
+package tacos.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import tacos.model.bean.Ingredient;
+
+/**
+ * Sales reports over a date range, read from the rollup tables of
+ * <code>SalesRollups</code> only - a report costs one row per hour (and city
+ * or ingredient) of the range, however many orders were placed.<br>
+ * Every method reports the days from <code>from</code> up to, not including,
+ * <code>to</code>; each row is a map, ready to be rendered as JSON.
+ *
+ * @see SalesRollups
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Service
+public class SalesReports {
+
+	private final JdbcTemplate jdbcTemplate;
+	private final IngredientCatalog ingredientCatalog;
+
+	public SalesReports(JdbcTemplate jdbcTemplate, IngredientCatalog ingredientCatalog) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.ingredientCatalog = ingredientCatalog;
+	}
+
+	/**
+	 * @param from
+	 * @param to
+	 * @return <tt>hour</tt>, <tt>orders</tt>, <tt>tacos</tt> of every hour with
+	 *         orders, in order
+	 */
+	public List<Map<String, Object>> hourly(LocalDate from, LocalDate to) {
+		return jdbcTemplate.query("select hour, orders, tacos from sales_by_hour where hour >= ? and hour < ? "
+				+ "order by hour", (rs, rowNum) -> {
+					Map<String, Object> row = new LinkedHashMap<>();
+					row.put("hour", rs.getTimestamp("hour").toLocalDateTime().toString());
+					row.put("orders", rs.getLong("orders"));
+					row.put("tacos", rs.getLong("tacos"));
+					return row;
+				}, start(from), start(to));
+	}// hourly() END
+
+	/**
+	 * @param from
+	 * @param to
+	 * @return <tt>day</tt>, <tt>orders</tt>, <tt>tacos</tt> of every day with
+	 *         orders, in order
+	 */
+	public List<Map<String, Object>> daily(LocalDate from, LocalDate to) {
+		return jdbcTemplate.query("select cast(hour as date) as day, sum(orders) as orders, sum(tacos) as tacos "
+				+ "from sales_by_hour where hour >= ? and hour < ? group by cast(hour as date) order by day",
+				(rs, rowNum) -> {
+					Map<String, Object> row = new LinkedHashMap<>();
+					row.put("day", rs.getDate("day").toLocalDate().toString());
+					row.put("orders", rs.getLong("orders"));
+					row.put("tacos", rs.getLong("tacos"));
+					return row;
+				}, start(from), start(to));
+	}// daily() END
+
+	/**
+	 * @param from
+	 * @param to
+	 * @param limit number of cities
+	 * @return <tt>state</tt>, <tt>city</tt>, <tt>orders</tt>, <tt>tacos</tt> of
+	 *         the cities with the most orders, most first
+	 */
+	public List<Map<String, Object>> cities(LocalDate from, LocalDate to, int limit) {
+		return jdbcTemplate.query("select delivery_state, delivery_city, sum(orders) as orders, sum(tacos) as tacos "
+				+ "from sales_by_city where hour >= ? and hour < ? group by delivery_state, delivery_city "
+				+ "order by orders desc, tacos desc limit ?", (rs, rowNum) -> {
+					Map<String, Object> row = new LinkedHashMap<>();
+					row.put("state", rs.getString("delivery_state"));
+					row.put("city", rs.getString("delivery_city"));
+					row.put("orders", rs.getLong("orders"));
+					row.put("tacos", rs.getLong("tacos"));
+					return row;
+				}, start(from), start(to), limit);
+	}// cities() END
+
+	/**
+	 * @param from
+	 * @param to
+	 * @return <tt>id</tt>, <tt>name</tt>, <tt>orders</tt>, <tt>tacos</tt> of
+	 *         every ordered ingredient, most tacos first
+	 */
+	public List<Map<String, Object>> ingredients(LocalDate from, LocalDate to) {
+		return jdbcTemplate.query("select ingredient_id, sum(orders) as orders, sum(tacos) as tacos "
+				+ "from sales_by_ingredient where hour >= ? and hour < ? group by ingredient_id "
+				+ "order by tacos desc, orders desc", (rs, rowNum) -> {
+					String id = rs.getString("ingredient_id");
+					Map<String, Object> row = new LinkedHashMap<>();
+					row.put("id", id);
+					Ingredient ingredient = ingredientCatalog.findById(id);
+					row.put("name", ingredient != null ? ingredient.getName() : null);
+					row.put("orders", rs.getLong("orders"));
+					row.put("tacos", rs.getLong("tacos"));
+					return row;
+				}, start(from), start(to));
+	}// ingredients() END
+
+	// helper method
+	private static Timestamp start(LocalDate day) {
+		return Timestamp.valueOf(day.atStartOfDay());
+	}
+
+}
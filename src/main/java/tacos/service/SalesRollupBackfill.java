@@ -0,0 +1,142 @@
+package tacos.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Rebuilds the sales rollup tables of <code>SalesRollups</code> from
+ * <tt>taco_order</tt> - after a bulk import, when the rollups are introduced
+ * on an existing database, or for days whose live counts were lost.<br>
+ * <br>
+ * The date range is split in halves down to single days on a
+ * <code>ForkJoinPool</code> of <tt>tacocloud.rollups.backfill-parallelism</tt>
+ * threads. Each day is rebuilt in a transaction of its own: its rollup rows
+ * are deleted and recomputed with one <tt>INSERT ... SELECT ... GROUP BY</tt>
+ * per table over that day's orders (<tt>taco_order_date_idx</tt>). Days are
+ * independent, so a failed backfill can simply be run again.<br>
+ * Only days before today are rebuilt: today's rows are still being added to
+ * by <code>SalesRollups</code>, and recomputing them would count the orders
+ * placed meanwhile twice.
+ *
+ * @see SalesRollups
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Service
+public class SalesRollupBackfill {
+
+	private static final String HOUR = "date_trunc('HOUR', o.date_order_placed)";
+	private static final String DAY = " where o.date_order_placed >= ? and o.date_order_placed < ?";
+	private static final String[] TABLES = { "sales_by_hour", "sales_by_city", "sales_by_ingredient" };
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final SalesRollupProps props;
+
+	private Logger logger = LoggerFactory.getLogger(SalesRollupBackfill.class);
+
+	public SalesRollupBackfill(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+			SalesRollupProps props) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.props = props;
+	}
+
+	/**
+	 * Rebuilds the rollups of the days from <code>from</code> up to, not
+	 * including, <code>to</code> or today, whichever is earlier.
+	 *
+	 * @param from first day
+	 * @param to   day after the last
+	 * @return the number of days rebuilt
+	 */
+	public long rebuild(LocalDate from, LocalDate to) {
+		LocalDate today = LocalDate.now();
+		LocalDate until = to.isAfter(today) ? today : to;
+		if (!from.isBefore(until)) {
+			return 0;
+		}
+		long start = System.nanoTime();
+		ForkJoinPool pool = new ForkJoinPool(props.getBackfillParallelism());
+		try {
+			long rows = pool.invoke(new Days(from, until));
+			long days = ChronoUnit.DAYS.between(from, until);
+			logger.info("Sales rollups rebuilt for {} days from {}: {} rows in {} ms", days, from, rows,
+					(System.nanoTime() - start) / 1_000_000);
+			return days;
+		} finally {
+			pool.shutdown();
+		}
+	}// rebuild() END
+
+	/**
+	 * Rebuilds the rollups of one day, in one transaction.
+	 *
+	 * @param day
+	 * @return the number of rollup rows written
+	 */
+	long rebuildDay(LocalDate day) {
+		Timestamp start = Timestamp.valueOf(day.atStartOfDay());
+		Timestamp end = Timestamp.valueOf(day.plusDays(1).atStartOfDay());
+		return transactionTemplate.execute(status -> {
+			for (String table : TABLES) {
+				jdbcTemplate.update("delete from " + table + " where hour >= ? and hour < ?", start, end);
+			}
+			long rows = jdbcTemplate.update("insert into sales_by_hour (hour, orders, tacos) "
+					+ "select " + HOUR + ", count(distinct o.id), count(t.tacos_id) from taco_order o "
+					+ "left join taco_order_tacos t on t.taco_order_id = o.id" + DAY
+					+ " group by " + HOUR, start, end);
+			rows += jdbcTemplate.update("insert into sales_by_city (hour, delivery_state, delivery_city, orders, tacos) "
+					+ "select " + HOUR + ", o.delivery_state, o.delivery_city, count(distinct o.id), count(t.tacos_id) "
+					+ "from taco_order o left join taco_order_tacos t on t.taco_order_id = o.id" + DAY
+					+ " group by " + HOUR + ", o.delivery_state, o.delivery_city", start, end);
+			rows += jdbcTemplate.update("insert into sales_by_ingredient (hour, ingredient_id, orders, tacos) "
+					+ "select " + HOUR + ", i.ingredients_id, count(distinct o.id), count(distinct t.tacos_id) "
+					+ "from taco_order o join taco_order_tacos t on t.taco_order_id = o.id "
+					+ "join taco_ingredients i on i.taco_id = t.tacos_id" + DAY
+					+ " group by " + HOUR + ", i.ingredients_id", start, end);
+			return rows;
+		});
+	}// rebuildDay() END
+
+	/**
+	 * The days from <code>from</code> up to <code>to</code>, split in halves until
+	 * a task has one day left.
+	 */
+	private final class Days extends RecursiveTask<Long> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final LocalDate from;
+		private final LocalDate to;
+
+		Days(LocalDate from, LocalDate to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Long compute() {
+			long days = ChronoUnit.DAYS.between(from, to);
+			if (days == 1) {
+				return rebuildDay(from);
+			}
+			LocalDate middle = from.plusDays(days / 2);
+			Days first = new Days(from, middle);
+			first.fork();
+			return new Days(middle, to).compute() + first.join();
+		}
+
+	}// Days END
+
+}
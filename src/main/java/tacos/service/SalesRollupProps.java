@@ -0,0 +1,44 @@
+package tacos.service;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration of the sales rollups, bound from the
+ * <tt>tacocloud.rollups.*</tt> properties (see
+ * <tt>application.properties</tt>).
+ * 
+ * @see SalesRollups
+ * @see SalesRollupBackfill
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Component
+@ConfigurationProperties(prefix = "tacocloud.rollups")
+public class SalesRollupProps {
+
+	// how often the counts of placed orders are added to the rollup tables
+	private Duration flushInterval = Duration.ofSeconds(1);
+	// days rebuilt at the same time by a backfill, each holding a database connection
+	private int backfillParallelism = 2;
+
+	// getters and setters || accessors and mutators
+	public Duration getFlushInterval() {
+		return flushInterval;
+	}
+
+	public void setFlushInterval(Duration flushInterval) {
+		this.flushInterval = flushInterval;
+	}
+
+	public int getBackfillParallelism() {
+		return backfillParallelism;
+	}
+
+	public void setBackfillParallelism(int backfillParallelism) {
+		this.backfillParallelism = backfillParallelism;
+	}// getters, setters END
+
+}
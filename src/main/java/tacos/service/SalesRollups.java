@@ -0,0 +1,276 @@
+package tacos.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import tacos.model.bean.Ingredient;
+import tacos.model.bean.Taco;
+import tacos.model.bean.TacoOrder;
+
+/**
+ * Keeps the sales rollup tables up to date as orders are placed, so reports
+ * (<code>SalesReports</code>) never scan <tt>taco_order</tt> and its join
+ * tables:
+ * <ul>
+ * <li><tt>sales_by_hour</tt> - orders and tacos per hour</li>
+ * <li><tt>sales_by_city</tt> - the same per hour, delivery state and
+ * city</li>
+ * <li><tt>sales_by_ingredient</tt> - orders and tacos containing an
+ * ingredient, per hour</li>
+ * </ul>
+ * Adding every order to its rows in the order's transaction would make all
+ * concurrent orders update the same row - the current hour's - one after the
+ * other. Instead, {@link #orderPlaced(TacoOrder)} merges the order's counts
+ * into in-memory deltas, one per row, and a background thread adds the deltas
+ * to the tables every <tt>tacocloud.rollups.flush-interval</tt>, in one
+ * transaction: each row is updated once per interval however many orders it
+ * counts. A failed flush puts its deltas back for the next one; deltas not yet
+ * flushed when the instance dies are lost, and
+ * <code>SalesRollupBackfill</code> rebuilds the affected days from the
+ * orders.<br>
+ * Orders are counted wherever they are placed: <code>OrderController</code>,
+ * <code>OrderWriteBehind</code> and the reactive API's
+ * <code>OrderApiHandler</code>, each once the order is committed. Orders
+ * inserted by other means - a bulk import, or SQL - are not counted until
+ * their days are backfilled.
+ *
+ * @see SalesRollupBackfill
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Service
+public class SalesRollups implements SmartLifecycle {
+
+	private final Rollup byHour = new Rollup("sales_by_hour", "hour");
+	private final Rollup byCity = new Rollup("sales_by_city", "hour", "delivery_state", "delivery_city");
+	private final Rollup byIngredient = new Rollup("sales_by_ingredient", "hour", "ingredient_id");
+	private final List<Rollup> rollups = Arrays.asList(byHour, byCity, byIngredient);
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final SalesRollupProps props;
+
+	private volatile boolean running = false;
+	private ScheduledExecutorService flusher;
+
+	private Logger logger = LoggerFactory.getLogger(SalesRollups.class);
+
+	public SalesRollups(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+			SalesRollupProps props) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.props = props;
+	}
+
+	/**
+	 * Counts a placed (saved) order in the rollups.
+	 *
+	 * @param tacoOrder
+	 */
+	public void orderPlaced(TacoOrder tacoOrder) {
+		Timestamp hour = hour(tacoOrder.getDateOrderPlaced() != null ? tacoOrder.getDateOrderPlaced() : new Date());
+		Delta order = new Delta(1, tacoOrder.getTacos().size());
+		byHour.add(Arrays.<Object>asList(hour), order);
+		byCity.add(Arrays.<Object>asList(hour, tacoOrder.getDeliveryState(), tacoOrder.getDeliveryCity()), order);
+
+		Map<String, Long> tacosByIngredient = new HashMap<>();
+		for (Taco taco : tacoOrder.getTacos()) {
+			Set<String> ids = new HashSet<>();
+			for (Ingredient ingredient : taco.getIngredients()) {
+				ids.add(ingredient.getId());
+			}
+			for (String id : ids) {
+				tacosByIngredient.merge(id, 1L, Long::sum);
+			}
+		}
+		tacosByIngredient.forEach((id, tacos) -> byIngredient.add(Arrays.<Object>asList(hour, id), new Delta(1, tacos)));
+	}// orderPlaced() END
+
+	/**
+	 * Adds the deltas collected since the last flush to the rollup tables, in one
+	 * transaction. On failure the deltas are kept for the next flush.
+	 */
+	public void flush() {
+		Map<Rollup, Map<List<Object>, Delta>> drained = new HashMap<>();
+		for (Rollup rollup : rollups) {
+			drained.put(rollup, rollup.drain());
+		}
+		if (drained.values().stream().allMatch(Map::isEmpty)) {
+			return;
+		}
+		try {
+			transactionTemplate.executeWithoutResult(status -> {
+				for (Rollup rollup : rollups) {
+					write(rollup, drained.get(rollup));
+				}
+			});
+		} catch (RuntimeException e) {
+			drained.forEach((rollup, deltas) -> deltas.forEach(rollup::add));
+			throw e;
+		}
+	}// flush() END
+
+	// update-then-insert: a row exists for all but the first flush of its hour
+	private void write(Rollup rollup, Map<List<Object>, Delta> deltas) {
+		if (deltas.isEmpty()) {
+			return;
+		}
+		List<List<Object>> keys = new ArrayList<>(deltas.keySet());
+		List<Object[]> updates = new ArrayList<>(keys.size());
+		for (List<Object> key : keys) {
+			Delta delta = deltas.get(key);
+			List<Object> args = new ArrayList<>(Arrays.<Object>asList(delta.orders, delta.tacos));
+			args.addAll(key);
+			updates.add(args.toArray());
+		}
+		int[] updated = jdbcTemplate.batchUpdate(rollup.updateSql, updates);
+		List<Object[]> inserts = new ArrayList<>();
+		for (int i = 0; i < keys.size(); i++) {
+			if (updated[i] == 0) {
+				Delta delta = deltas.get(keys.get(i));
+				List<Object> args = new ArrayList<>(keys.get(i));
+				args.add(delta.orders);
+				args.add(delta.tacos);
+				inserts.add(args.toArray());
+			}
+		}
+		if (!inserts.isEmpty()) {
+			// a concurrent insert by another instance fails the flush; it is retried as an update
+			jdbcTemplate.batchUpdate(rollup.insertSql, inserts);
+		}
+	}// write() END
+
+	@Override
+	public void start() {
+		long interval = props.getFlushInterval().toMillis();
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("sales-rollups-");
+		threadFactory.setDaemon(true);
+		flusher = Executors.newSingleThreadScheduledExecutor(threadFactory);
+		flusher.scheduleWithFixedDelay(() -> {
+			try {
+				flush();
+			} catch (RuntimeException e) {
+				logger.warn("Sales rollup flush failed; retrying in {} ms", interval, e);
+			}
+		}, interval, interval, TimeUnit.MILLISECONDS);
+		running = true;
+	}
+
+	/**
+	 * Stops the background flushes and flushes what is left, before the data
+	 * source is closed.
+	 */
+	@Override
+	public void stop() {
+		running = false;
+		flusher.shutdown();
+		try {
+			flusher.awaitTermination(10, TimeUnit.SECONDS);
+			flush();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (RuntimeException e) {
+			logger.warn("Final sales rollup flush failed", e);
+		}
+	}// stop() END
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * @param date
+	 * @return the start of the hour of the date, in the time zone the database's
+	 *         timestamps are written in (the JVM's); the same as
+	 *         <tt>DATE_TRUNC('HOUR', ...)</tt> of the stored timestamp
+	 */
+	static Timestamp hour(Date date) {
+		return Timestamp.valueOf(
+				LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault()).truncatedTo(ChronoUnit.HOURS));
+	}
+
+	/**
+	 * Counts to add to one rollup row; immutable, so deltas can be merged
+	 * atomically into a <code>ConcurrentMap</code>.
+	 */
+	private static final class Delta {
+
+		final long orders;
+		final long tacos;
+
+		Delta(long orders, long tacos) {
+			this.orders = orders;
+			this.tacos = tacos;
+		}
+
+		Delta plus(Delta other) {
+			return new Delta(orders + other.orders, tacos + other.tacos);
+		}
+
+	}// Delta END
+
+	/**
+	 * A rollup table: its key columns and the deltas of its rows, by key.
+	 */
+	private static final class Rollup {
+
+		final String updateSql;
+		final String insertSql;
+		private final ConcurrentMap<List<Object>, Delta> deltas = new ConcurrentHashMap<>();
+
+		Rollup(String table, String... keyColumns) {
+			List<String> conditions = new ArrayList<>();
+			for (String column : keyColumns) {
+				conditions.add(column + " = ?");
+			}
+			this.updateSql = "update " + table + " set orders = orders + ?, tacos = tacos + ? where "
+					+ String.join(" and ", conditions);
+			this.insertSql = "insert into " + table + " (" + String.join(", ", keyColumns) + ", orders, tacos) values ("
+					+ String.join(", ", Collections.nCopies(keyColumns.length + 2, "?")) + ")";
+		}
+
+		void add(List<Object> key, Delta delta) {
+			deltas.merge(key, delta, Delta::plus);
+		}
+
+		// removes every delta; a delta merged meanwhile starts a new entry
+		Map<List<Object>, Delta> drain() {
+			Map<List<Object>, Delta> drained = new HashMap<>();
+			for (List<Object> key : deltas.keySet()) {
+				Delta delta = deltas.remove(key);
+				if (delta != null) {
+					drained.put(key, delta);
+				}
+			}
+			return drained;
+		}
+
+	}// Rollup END
+
+}
@@ -0,0 +1,76 @@
+package tacos.service;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import tacos.data.UserRepository;
+import tacos.model.bean.User;
+
+/**
+ * <code>UserDetailsCache</code> is a bounded, expiring cache of <tt>User</tt>
+ * records in front of <code>UserRepository.findByUsername</code>.<br>
+ * <br>
+ * Spring Security loads the user on every authentication, i.e. on every login
+ * and on every request that authenticates with credentials. User records almost
+ * never change, so most of those lookups can be answered from memory.<br>
+ * The cache holds at most <tt>tacocloud.users.cache.max-size</tt> users, each
+ * for at most <tt>tacocloud.users.cache.ttl</tt> after it was loaded, so memory
+ * stays bounded and a change made by another node becomes visible within the
+ * TTL. Changes made by this node are applied right away:
+ * {@link UserDetailsCacheListener} evicts the user once a save or delete
+ * commits. Unknown usernames are not cached, so a user who registers is found
+ * on the next lookup.<br>
+ * <br>
+ * Metrics (tag <tt>cache=users</tt>): <tt>cache.gets</tt> with
+ * <tt>result=hit|miss</tt>, <tt>cache.evictions</tt>, <tt>cache.size</tt> and
+ * others provided by Micrometer's <code>CaffeineCacheMetrics</code>.
+ * 
+ * @see tacos.security.SecurityConfig#userDetailsService(UserDetailsCache)
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Service
+public class UserDetailsCache {
+
+	private final UserRepository userRepository;
+	private final Cache<String, User> cache;
+
+	public UserDetailsCache(UserRepository userRepository,
+			@Value("${tacocloud.users.cache.max-size:10000}") long maxSize,
+			@Value("${tacocloud.users.cache.ttl:10m}") Duration ttl, MeterRegistry meterRegistry) {
+		this.userRepository = userRepository;
+		this.cache = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).recordStats().build();
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, "users");
+	}
+
+	/**
+	 * Looks up a user by username, loading it from the database on a cache miss.
+	 * 
+	 * @param username
+	 * @return <b>User</b> object, or <tt>null</tt> if there is no user with the
+	 *         given username
+	 */
+	public User findByUsername(String username) {
+		// a null result of the mapping function is not cached
+		return cache.get(username, userRepository::findByUsername);
+	}
+
+	/**
+	 * Removes the user with the given username from the cache.
+	 * 
+	 * @param username
+	 */
+	public void evict(String username) {
+		if (username != null) {
+			cache.invalidate(username);
+		}
+	}
+
+}
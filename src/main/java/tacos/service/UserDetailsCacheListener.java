@@ -0,0 +1,71 @@
+package tacos.service;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import javax.persistence.PreUpdate;
+
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.ObjectProvider;
+
+import tacos.model.bean.User;
+
+/**
+ * JPA entity listener that evicts saved or deleted users from the
+ * {@link UserDetailsCache}, e.g. when <tt>RegistrationController</tt> saves a
+ * user. When a user is renamed, the entry under the old username is evicted as
+ * well; the old username is the one Hibernate loaded, read before the update
+ * is written.<br>
+ * <br>
+ * Like {@link IngredientCatalogListener}, the cache is injected through an
+ * <code>ObjectProvider</code> and the eviction is deferred until the
+ * surrounding transaction commits ({@link AfterCommit}): evicting earlier would
+ * let a concurrent authentication reload and cache the old row before the
+ * change is visible.
+ *
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+public class UserDetailsCacheListener {
+
+	private final ObjectProvider<UserDetailsCache> userDetailsCache;
+	private final ObjectProvider<EntityManager> entityManager;
+
+	public UserDetailsCacheListener(ObjectProvider<UserDetailsCache> userDetailsCache,
+			ObjectProvider<EntityManager> entityManager) {
+		this.userDetailsCache = userDetailsCache;
+		this.entityManager = entityManager;
+	}
+
+	@PreUpdate
+	public void userChanging(User user) {
+		String loadedUsername = loadedUsername(user);
+		if (loadedUsername != null && !loadedUsername.equals(user.getUsername())) {
+			evictAfterCommit(loadedUsername);
+		}
+	}
+
+	@PostPersist
+	@PostUpdate
+	@PostRemove
+	public void userChanged(User user) {
+		evictAfterCommit(user.getUsername());
+	}
+
+	private void evictAfterCommit(String username) {
+		AfterCommit.run(() -> userDetailsCache.ifAvailable(cache -> cache.evict(username)));
+	}
+
+	// username as loaded by the session that is flushing the user; null if unknown
+	private String loadedUsername(User user) {
+		EntityManager em = entityManager.getIfAvailable();
+		if (em == null) {
+			return null;
+		}
+		EntityEntry entry = em.unwrap(SessionImplementor.class).getPersistenceContext().getEntry(user);
+		return entry != null && entry.getLoadedState() != null ? (String) entry.getLoadedValue("username") : null;
+	}
+
+}
@@ -0,0 +1,129 @@
+package tacos.service;
+
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import tacos.data.UserRepository;
+
+/**
+ * <code>UsernameRegistry</code> answers whether a username is still available,
+ * mostly without a database round trip.<br>
+ * <br>
+ * It keeps a {@link BloomFilter} of every username in the <tt>user</tt> table.
+ * The filter is built when the application is ready and every new user is
+ * added to it ({@link UsernameRegistryListener}). If the filter says a username
+ * has never been seen, the username is free - a Bloom filter has no false
+ * negatives. Only on a possible hit (a taken username, or a false positive with
+ * probability <tt>tacocloud.users.username-filter.fpp</tt>) is the database
+ * asked.<br>
+ * Until the filter is built, every check goes to the database.<br>
+ * <br>
+ * The filter only knows users registered through this node (and those present
+ * at startup), so an answer of "available" is advisory when several nodes
+ * share the database; the unique index on <tt>user.username</tt> stays the
+ * authority when the user is saved.<br>
+ * <br>
+ * Metric: <tt>tacocloud.users.username-check</tt> (counter), tag
+ * <tt>result=filtered</tt> (answered by the filter), <tt>false-positive</tt> or
+ * <tt>taken</tt> (answered by the database).
+ * 
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Service
+public class UsernameRegistry {
+
+	private final UserRepository userRepository;
+	private final long expectedUsers;
+	private final double fpp;
+
+	private volatile BloomFilter filter;
+	private volatile boolean ready = false;
+
+	private final Counter filtered;
+	private final Counter falsePositive;
+	private final Counter taken;
+
+	private Logger logger = LoggerFactory.getLogger(UsernameRegistry.class);
+
+	public UsernameRegistry(UserRepository userRepository,
+			@Value("${tacocloud.users.username-filter.expected-users:100000}") long expectedUsers,
+			@Value("${tacocloud.users.username-filter.fpp:0.01}") double fpp, MeterRegistry meterRegistry) {
+		this.userRepository = userRepository;
+		this.expectedUsers = expectedUsers;
+		this.fpp = fpp;
+		this.filter = new BloomFilter(expectedUsers, fpp);
+
+		this.filtered = counter(meterRegistry, "filtered");
+		this.falsePositive = counter(meterRegistry, "false-positive");
+		this.taken = counter(meterRegistry, "taken");
+	}
+
+	/**
+	 * Builds the filter from the <tt>user</tt> table. The filter is sized for
+	 * twice the current number of users, but at least for
+	 * <tt>expected-users</tt>. Usernames added while the table is read go to the
+	 * new filter as well.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Transactional(readOnly = true)
+	public void rebuild() {
+		ready = false;
+		long users = userRepository.count();
+		filter = new BloomFilter(Math.max(expectedUsers, 2 * users), fpp);
+		long added = 0;
+		try (Stream<String> usernames = userRepository.streamAllUsernames()) {
+			for (String username : (Iterable<String>) usernames::iterator) {
+				filter.add(username);
+				added++;
+			}
+		}
+		ready = true;
+		logger.info("Username filter built: {} usernames, {} bits, {} hashes", added, filter.bitSize(),
+				filter.hashCount());
+	}// rebuild() END
+
+	/**
+	 * @param username
+	 * @return <tt>true</tt> if no user has the given username
+	 */
+	public boolean isAvailable(String username) {
+		if (ready && !filter.mightContain(username)) {
+			filtered.increment();
+			return true;
+		}
+		if (userRepository.existsByUsername(username)) {
+			taken.increment();
+			return false;
+		}
+		falsePositive.increment();
+		return true;
+	}// isAvailable() END
+
+	/**
+	 * Records a username as taken.
+	 * 
+	 * @param username
+	 */
+	public void add(String username) {
+		if (username != null) {
+			filter.add(username);
+		}
+	}
+
+	// helper method
+	private static Counter counter(MeterRegistry meterRegistry, String result) {
+		return Counter.builder("tacocloud.users.username-check").tag("result", result)
+				.description("Username availability checks").register(meterRegistry);
+	}
+
+}
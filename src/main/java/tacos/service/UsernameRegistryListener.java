@@ -0,0 +1,32 @@
+package tacos.service;
+
+import javax.persistence.PostPersist;
+
+import org.springframework.beans.factory.ObjectProvider;
+
+import tacos.model.bean.User;
+
+/**
+ * JPA entity listener that adds the username of every new user to the
+ * {@link UsernameRegistry}.<br>
+ * The username is added right away, not after commit: if the transaction rolls
+ * back, the filter merely holds one more false positive, which costs a database
+ * lookup but never a wrong answer.
+ *
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+public class UsernameRegistryListener {
+
+	private final ObjectProvider<UsernameRegistry> usernameRegistry;
+
+	public UsernameRegistryListener(ObjectProvider<UsernameRegistry> usernameRegistry) {
+		this.usernameRegistry = usernameRegistry;
+	}
+
+	@PostPersist
+	public void userCreated(User user) {
+		usernameRegistry.ifAvailable(registry -> registry.add(user.getUsername()));
+	}
+
+}
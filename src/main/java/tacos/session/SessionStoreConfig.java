@@ -0,0 +1,148 @@
+package tacos.session;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.function.LongSupplier;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.GenericConversionService;
+import org.springframework.core.serializer.DefaultDeserializer;
+import org.springframework.core.serializer.DefaultSerializer;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Configuration of the shared, JDBC-backed session store (Spring Session).<br>
+ * <br>
+ * By default sessions live in the local <tt>HttpSession</tt> of the servlet
+ * container (<tt>spring.session.store-type=none</tt>), which means running more
+ * than one instance needs sticky sessions. With the <tt>shared-session</tt>
+ * profile (<tt>application-shared-session.properties</tt>) sessions - the
+ * taco order draft, the registration form and the Spring Security context -
+ * are kept in the <tt>SPRING_SESSION</tt> tables of the application's data
+ * source, so any instance can serve any request behind a round-robin
+ * balancer. The H2 data source stands in for a real shared database.<br>
+ * <br>
+ * Spring Session's JDBC repository stores every attribute in its own row and,
+ * with <tt>save-mode=on-set-attribute</tt>, writes only the attributes that
+ * were set during the request. Expired sessions are deleted by a background
+ * job (<tt>spring.session.jdbc.cleanup-cron</tt>), off the request path.<br>
+ * <br>
+ * This class supplies the <tt>springSessionConversionService</tt> used to
+ * (de)serialise attribute values: Java serialisation, deflate-compressed, which
+ * roughly halves the size of the stored security context.<br>
+ * The number of stored sessions is published as the
+ * <tt>tacocloud.sessions.stored</tt> gauge. The <tt>count(*)</tt> behind it
+ * scans the session table, so it runs at most once per
+ * <tt>tacocloud.sessions.stored.refresh-interval</tt> (default 1 minute, the
+ * cleanup interval); scrapes in between read the last count. With the default
+ * store, Tomcat's <tt>tomcat.sessions.*</tt> meters apply.
+ * 
+ * @author Dejan Smiljić <dej4n.s@gmail.com>
+ *
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.session.store-type", havingValue = "jdbc")
+public class SessionStoreConfig {
+
+	/**
+	 * The bean name is fixed: Spring Session's JDBC configuration looks the
+	 * conversion service up by this name.
+	 * 
+	 * @return ConversionService
+	 */
+	@Bean
+	public ConversionService springSessionConversionService() {
+		GenericConversionService conversionService = new GenericConversionService();
+		conversionService.addConverter(Object.class, byte[].class,
+				new SerializingConverter(new CompressingSerializer()));
+		conversionService.addConverter(byte[].class, Object.class,
+				new DeserializingConverter(new DecompressingDeserializer()));
+		return conversionService;
+	}
+
+	/**
+	 * @param jdbcTemplate
+	 * @param tableName
+	 * @param refreshInterval how long a count is reported before it is queried
+	 *                        again
+	 * @return MeterBinder of the stored session count gauge
+	 */
+	@Bean
+	public MeterBinder storedSessionsMetrics(JdbcTemplate jdbcTemplate,
+			@Value("${spring.session.jdbc.table-name:SPRING_SESSION}") String tableName,
+			@Value("${tacocloud.sessions.stored.refresh-interval:1m}") Duration refreshInterval) {
+		String count = "select count(*) from " + tableName;
+		CachedCount storedSessions = new CachedCount(() -> jdbcTemplate.queryForObject(count, Long.class),
+				refreshInterval);
+		return meterRegistry -> Gauge.builder("tacocloud.sessions.stored", storedSessions, CachedCount::get)
+				.description("Sessions in the shared session store").register(meterRegistry);
+	}
+
+	// a count that is queried again only once it is older than the refresh interval
+	static class CachedCount {
+
+		private final LongSupplier query;
+		private final long refreshNanos;
+		private double value = Double.NaN;
+		private long queriedAt;
+
+		CachedCount(LongSupplier query, Duration refreshInterval) {
+			this.query = query;
+			this.refreshNanos = refreshInterval.toNanos();
+		}
+
+		// concurrent scrapes wait for one query instead of running their own
+		synchronized double get() {
+			long now = System.nanoTime();
+			if (Double.isNaN(value) || now - queriedAt >= refreshNanos) {
+				value = query.getAsLong();
+				queriedAt = now;
+			}
+			return value;
+		}
+
+	}// CachedCount END
+
+	// Java serialisation, compressed with deflate
+	static class CompressingSerializer extends DefaultSerializer {
+
+		@Override
+		public void serialize(Object object, OutputStream outputStream) throws IOException {
+			DeflaterOutputStream deflater = new DeflaterOutputStream(outputStream,
+					new Deflater(Deflater.BEST_SPEED));
+			super.serialize(object, deflater);
+			deflater.finish();
+		}
+
+	}// CompressingSerializer END
+
+	// reads what CompressingSerializer wrote; classes are resolved with the
+	// thread context class loader (works with the DevTools restart class loader)
+	static class DecompressingDeserializer extends DefaultDeserializer {
+
+		DecompressingDeserializer() {
+			super(Thread.currentThread().getContextClassLoader());
+		}
+
+		@Override
+		public Object deserialize(InputStream inputStream) throws IOException {
+			return super.deserialize(new InflaterInputStream(inputStream));
+		}
+
+	}// DecompressingDeserializer END
+
+}
@@ -10,6 +10,10 @@ create table if not exists `user` (
 	phone_number varchar(255)
 );
 
+-- users are looked up by username on every authentication
+-- (with ddl-auto=create-drop Hibernate creates the same index from User's @Table)
+create unique index if not exists user_username_idx on `user` (username);
+
 
 CREATE TABLE IF NOT EXISTS `taco_order` (
 	id identity,  
@@ -28,15 +32,48 @@ CREATE TABLE IF NOT EXISTS `taco_order` (
 -- uncomment if [spring.jpa.hibernate.ddl-auto] property is set to [validate] or [none]
 --alter table taco_order add foreign key (user_id) references user(id);
 
+-- keyset-paginated order history: WHERE user_id = ? ORDER BY date_order_placed DESC, id DESC
+-- (with ddl-auto=create-drop Hibernate creates the same index from TacoOrder's @Table)
+create index if not exists taco_order_user_history_idx on taco_order (user_id, date_order_placed, id);
+-- date range scans of the sales rollup backfill (tacos.service.SalesRollupBackfill)
+-- and the order search (OrderRepository.search*): WHERE <column> = ? AND date_order_placed
+-- BETWEEN ? AND ? ORDER BY <column> DESC, date_order_placed DESC, id DESC. Descending, so H2
+-- reads one page in index order instead of sorting all matches
+create index if not exists taco_order_date_idx on taco_order (date_order_placed desc, id desc);
+create index if not exists taco_order_zip_idx on taco_order (delivery_zip desc, date_order_placed desc, id desc);
+create index if not exists taco_order_state_idx on taco_order (delivery_state desc, date_order_placed desc, id desc);
+create index if not exists taco_order_state_city_idx
+	on taco_order (delivery_state desc, delivery_city desc, date_order_placed desc, id desc);
+
+-- orders of the write-behind writer (tacos.service.OrderWriteBehind) that could not be
+-- written, for support to follow up; without card details
+create table if not exists taco_order_failed (
+	id bigint not null primary key,
+	user_id bigint,
+	delivery_name varchar(50),
+	delivery_street varchar(50),
+	delivery_city varchar(50),
+	delivery_state varchar(50),
+	delivery_zip varchar(10),
+	tacos varchar(4000),
+	error varchar(1000),
+	failed timestamp not null
+);
+
 
 create table if not exists taco (  
 	id identity,  
 	name varchar(50) not null,  
 --	taco_order bigint not null,  
 --	taco_order_key bigint not null,  
-	date_created timestamp not null
+	date_created timestamp not null,
+	user_id bigint
 );
 
+-- the reactive API's pages of a user's tacos: WHERE user_id = ? AND id < ? ORDER BY id DESC
+-- (with ddl-auto=create-drop Hibernate creates the same index from Taco's @Table)
+create index if not exists taco_user_idx on taco (user_id, id);
+
 
 create table if not exists ingredient (  
 	id varchar(4) not null,  
@@ -68,11 +105,63 @@ create table if not exists ingredient (
 --alter table taco_order_tacos
 --    add foreign key (tacos_id) references taco(id);
 
+
+-- bulk import (tacos.importer.BulkImport): last line of each import file (by absolute path) committed,
+-- written in the same transaction as the line's chunk, with the SHA-256 hash of the lines up to it;
+-- a failed import resumes after it if the file still starts with those lines
+create table if not exists import_progress (
+	source varchar(1024) not null primary key,
+	line bigint not null,
+	prefix_hash varchar(64) not null,
+	updated timestamp not null
+);
+
+-- ingredient popularity counters (tacos.service.IngredientPopularity), checkpointed by every
+-- node; counter is designed or ordered (item = ingredient id) or pairs (item = 'CHED+FLTO')
+create table if not exists ingredient_popularity (
+	node int not null,
+	counter varchar(10) not null,
+	item varchar(16) not null,
+	count bigint not null,
+	primary key (node, counter, item)
+);
+
+-- sales rollups (tacos.service.SalesRollups), by the hour the orders were placed in;
+-- reports read only these. Kept up to date as orders are placed, rebuilt from
+-- taco_order by tacos.service.SalesRollupBackfill
+create table if not exists sales_by_hour (
+	hour timestamp not null primary key,
+	orders bigint not null,
+	tacos bigint not null
+);
+
+create table if not exists sales_by_city (
+	hour timestamp not null,
+	delivery_state varchar(255) not null,
+	delivery_city varchar(255) not null,
+	orders bigint not null,
+	tacos bigint not null,
+	primary key (hour, delivery_state, delivery_city)
+);
+
+-- orders: orders with a taco containing the ingredient; tacos: tacos containing it
+create table if not exists sales_by_ingredient (
+	hour timestamp not null,
+	ingredient_id varchar(4) not null,
+	orders bigint not null,
+	tacos bigint not null,
+	primary key (hour, ingredient_id)
+);
+
     
--- uncomment if [spring.jpa.hibernate.ddl-auto] property is set to [validate] or [none]
---create sequence hibernate_sequence;
---create sequence taco_sequence_generator;
---create sequence user_sequence_generator;
+-- ids of taco, taco_order and user are assigned by the application
+-- (tacos.data.id.TimeOrderedIdGenerator); no sequences are needed.
+-- Migration of an existing database: existing rows keep their ids - generated
+-- ids start above 10^17, far above any value issued by the former sequences.
+-- Once every application instance runs the new generator, drop the sequences:
+--drop sequence if exists hibernate_sequence;
+--drop sequence if exists taco_sequence_generator;
+--drop sequence if exists user_sequence_generator;
 
 
 --*******************************************************
@@ -0,0 +1,62 @@
+package tacos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import tacos.model.bean.Taco;
+import tacos.model.bean.TacoOrder;
+import tacos.model.bean.User;
+import tacos.service.IngredientCatalog;
+
+/**
+ * Users, orders and tacos for the tests that work against the shared
+ * in-memory database: every user gets a username of its own, so tests do not
+ * see each other's orders. Nothing is saved here; tests change what they need
+ * through the setters and save with the repositories.
+ *
+ * @author Dejan Smiljić - dej4n.s@gmail.com
+ *
+ */
+public final class TestOrders {
+
+	public static final String FULL_NAME = "Test User";
+	public static final String STREET = "1 Test St";
+	public static final String CITY = "Testville";
+	public static final String STATE = "CO";
+	public static final String ZIP = "80000";
+	public static final String CC_NUMBER = "4111111111111111";
+	public static final String CC_EXPIRATION = "12/30";
+
+	private TestOrders() {
+	}
+
+	/**
+	 * @param prefix   of the username, followed by a unique suffix
+	 * @param password as stored, e.g. <tt>{noop}secret</tt> or a BCrypt hash
+	 * @return a new user living at the test address
+	 */
+	public static User user(String prefix, String password) {
+		return new User(prefix + "-" + System.nanoTime(), password, FULL_NAME, STREET, CITY, STATE, ZIP, "555-0100");
+	}
+
+	/**
+	 * @param user who placed the order, <tt>null</tt> for none
+	 * @param tacos
+	 * @return a new order delivered to the test address, paid with the test card
+	 */
+	public static TacoOrder order(User user, Taco... tacos) {
+		return new TacoOrder(FULL_NAME, STREET, CITY, STATE, ZIP, CC_NUMBER, CC_EXPIRATION, "123",
+				new ArrayList<>(Arrays.asList(tacos)), null, user);
+	}
+
+	/**
+	 * @param ingredientCatalog
+	 * @param name
+	 * @param ingredients       ingredient ids
+	 * @return a new taco of the given ingredients
+	 */
+	public static Taco taco(IngredientCatalog ingredientCatalog, String name, String... ingredients) {
+		return new Taco(name, ingredientCatalog.findAllById(Arrays.asList(ingredients)), null);
+	}
+
+}
@@ -0,0 +1,229 @@
+package tacos.controller.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import tacos.TestOrders;
+import tacos.data.UserRepository;
+import tacos.model.bean.TacoOrder;
+import tacos.model.bean.User;
+import tacos.service.IngredientPopularity;
+import tacos.service.OrderGraphService;
+import tacos.service.SalesRollups;
+
+/**
+ * Designs a taco and orders it through the reactive API (R2DBC), then reads
+ * the order back through JPA and through the API: conditional GETs, cursor
+ * pagination, tacos and orders that only their user sees, and the counts an
+ * order placed through the API adds to the sales rollups and the ingredient
+ * popularity.
+ * 
+ * @author Dejan Smiljić - dej4n.s@gmail.com
+ *
+ */
+@SpringBootTest(properties = "tacocloud.reactive-api.page-size=2")
+class ReactiveApiTest {
+
+	@Autowired
+	private RouterFunction<ServerResponse> apiRouterFunction;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+	@Autowired
+	private OrderGraphService orderGraphService;
+	@Autowired
+	private SalesRollups salesRollups;
+	@Autowired
+	private IngredientPopularity ingredientPopularity;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private WebTestClient client;
+	private User user;
+
+	@BeforeEach
+	void setUp() {
+		user = userRepository.save(TestOrders.user("api", passwordEncoder.encode("api")));
+		client = WebTestClient.bindToRouterFunction(apiRouterFunction).configureClient()
+				.defaultHeaders(headers -> headers.setBasicAuth(user.getUsername(), "api")).build();
+	}
+
+	@Test
+	void testDesignAndOrderTaco() {
+		Map<String, Object> taco = new HashMap<>();
+		taco.put("name", "Reactive Taco");
+		taco.put("ingredients", Arrays.asList("COTO", "CARN", "JACK"));
+		// ids are strings: above 2^53, a JavaScript client would round numbers
+		String tacoId = (String) client.post().uri(ApiRoutes.TACOS).contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(taco).exchange().expectStatus().isCreated().expectBody(Map.class).returnResult()
+				.getResponseBody().get("id");
+
+		String orderId = (String) client.post().uri(ApiRoutes.ORDERS).contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(order(tacoId)).exchange().expectStatus().isCreated().expectHeader()
+				.valueMatches(HttpHeaders.LOCATION, ApiRoutes.ORDERS + "/\\d+").expectBody(Map.class)
+				.returnResult().getResponseBody().get("id");
+
+		TacoOrder tacoOrder = orderGraphService.findWithTacosAndIngredients(Long.valueOf(orderId)).get();
+		assertEquals(user.getId(), tacoOrder.getUser().getId());
+		assertEquals(1, tacoOrder.getTacos().size());
+		assertTrue(tacoOrder.toString().contains("Monterrey Jack"));
+	}
+
+	@Test
+	void testConditionalGet() {
+		String etag = client.get().uri(ApiRoutes.INGREDIENTS).exchange().expectStatus().isOk().expectHeader()
+				.cacheControl(CacheControl.noCache()).returnResult(String.class).getResponseHeaders().getETag();
+		client.get().uri(ApiRoutes.INGREDIENTS).ifNoneMatch(etag).exchange().expectStatus().isNotModified()
+				.expectHeader().valueEquals(HttpHeaders.ETAG, etag).expectBody().isEmpty();
+		client.get().uri(ApiRoutes.INGREDIENTS).ifNoneMatch("\"stale\"").exchange().expectStatus().isOk();
+
+		String tacoId = designTaco();
+		String orderId = (String) client.post().uri(ApiRoutes.ORDERS).contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(order(tacoId)).exchange().expectBody(Map.class).returnResult().getResponseBody().get("id");
+		String orderEtag = client.get().uri(ApiRoutes.ORDER, orderId).exchange().expectStatus().isOk().expectBody()
+				.jsonPath("$.tacos[0].ingredients[0].name").isEqualTo("Flour Tortilla")
+				.jsonPath("$.ccNumber").doesNotExist().returnResult().getResponseHeaders().getETag();
+		client.get().uri(ApiRoutes.ORDER, orderId).ifNoneMatch(orderEtag).exchange().expectStatus()
+				.isNotModified();
+
+		User other = userRepository.save(TestOrders.user("api", passwordEncoder.encode("api")));
+		client.get().uri(ApiRoutes.ORDER, orderId)
+				.headers(headers -> headers.setBasicAuth(other.getUsername(), "api")).exchange().expectStatus()
+				.isNotFound();
+	}// testConditionalGet() END
+
+	@Test
+	void testOrderPages() {
+		String tacoId = designTaco();
+		for (int i = 0; i < 3; i++) {
+			client.post().uri(ApiRoutes.ORDERS).contentType(MediaType.APPLICATION_JSON).bodyValue(order(tacoId))
+					.exchange().expectStatus().isCreated();
+		}
+		Map<?, ?> first = client.get().uri(ApiRoutes.ORDERS).exchange().expectStatus().isOk().expectHeader()
+				.exists(HttpHeaders.LINK).expectBody(Map.class).returnResult().getResponseBody();
+		assertEquals(2, ((List<?>) first.get("items")).size());
+		Map<?, ?> last = client.get().uri(ApiRoutes.ORDERS + "?before={cursor}", first.get("next")).exchange()
+				.expectStatus().isOk().expectBody(Map.class).returnResult().getResponseBody();
+		assertEquals(1, ((List<?>) last.get("items")).size());
+		assertNull(last.get("next"));
+
+		String newestTacoId = designTaco();
+		client.get().uri(ApiRoutes.TACOS).exchange().expectStatus().isOk().expectBody().jsonPath("$.items.length()")
+				.isEqualTo(2).jsonPath("$.items[0].id").isEqualTo(newestTacoId).jsonPath("$.items[1].id")
+				.isEqualTo(tacoId);
+		client.get().uri(ApiRoutes.ORDERS + "?before=x").exchange().expectStatus().isBadRequest();
+	}// testOrderPages() END
+
+	@Test
+	void testOrderCounted() {
+		String tacoId = designTaco();
+		long designed = count("designed", "GRBF");
+		long ordered = count("ordered", "GRBF");
+		Map<String, Object> order = order(tacoId);
+		// the same taco twice, in a city of this test's own
+		String city = "Api City " + System.nanoTime();
+		order.put("deliveryCity", city);
+		order.put("tacos", Arrays.asList(tacoId, tacoId));
+		client.post().uri(ApiRoutes.ORDERS).contentType(MediaType.APPLICATION_JSON).bodyValue(order).exchange()
+				.expectStatus().isCreated();
+		designTaco();
+
+		salesRollups.flush();
+		Map<String, Object> byCity = jdbcTemplate.queryForMap(
+				"select sum(orders) orders, sum(tacos) tacos from sales_by_city where delivery_city = ?", city);
+		assertEquals(1L, ((Number) byCity.get("ORDERS")).longValue());
+		assertEquals(2L, ((Number) byCity.get("TACOS")).longValue());
+		assertEquals(ordered + 2, count("ordered", "GRBF"));
+		assertEquals(designed + 1, count("designed", "GRBF"));
+	}
+
+	@Test
+	void testOtherUsersTacos() {
+		String tacoId = designTaco();
+		User other = userRepository.save(TestOrders.user("api", passwordEncoder.encode("api")));
+		WebTestClient otherClient = client.mutate()
+				.defaultHeaders(headers -> headers.setBasicAuth(other.getUsername(), "api")).build();
+
+		otherClient.get().uri(ApiRoutes.TACOS).exchange().expectStatus().isOk().expectBody()
+				.jsonPath("$.items.length()").isEqualTo(0);
+		otherClient.get().uri(ApiRoutes.TACO, tacoId).exchange().expectStatus().isNotFound();
+		otherClient.post().uri(ApiRoutes.ORDERS).contentType(MediaType.APPLICATION_JSON).bodyValue(order(tacoId))
+				.exchange().expectStatus().isBadRequest().expectBody().jsonPath("$.errors.tacos")
+				.isEqualTo("Unknown taco");
+		// still there for its designer
+		client.get().uri(ApiRoutes.TACO, tacoId).exchange().expectStatus().isOk();
+	}
+
+	@Test
+	void testValidationErrors() {
+		Map<String, Object> taco = new HashMap<>();
+		taco.put("name", "Taco");
+		client.post().uri(ApiRoutes.TACOS).contentType(MediaType.APPLICATION_JSON).bodyValue(taco).exchange()
+				.expectStatus().isBadRequest().expectBody().jsonPath("$.errors.name").exists()
+				.jsonPath("$.errors.ingredients").exists();
+
+		Map<String, Object> order = order("-1");
+		order.put("ccNumber", "1234");
+		client.post().uri(ApiRoutes.ORDERS).contentType(MediaType.APPLICATION_JSON).bodyValue(order).exchange()
+				.expectStatus().isBadRequest().expectBody().jsonPath("$.errors.ccNumber").exists()
+				.jsonPath("$.errors.tacos").isEqualTo("Unknown taco");
+	}
+
+	@Test
+	void testUnauthorized() {
+		client.get().uri(ApiRoutes.INGREDIENTS).headers(headers -> headers.setBasicAuth(user.getUsername(), "wrong"))
+				.exchange().expectStatus().isUnauthorized();
+		client.get().uri(ApiRoutes.INGREDIENTS).exchange().expectStatus().isOk().expectBody()
+				.jsonPath("$.length()").isEqualTo(10);
+	}
+
+	private String designTaco() {
+		Map<String, Object> taco = new HashMap<>();
+		taco.put("name", "Paged Taco");
+		taco.put("ingredients", Arrays.asList("FLTO", "GRBF"));
+		return (String) client.post().uri(ApiRoutes.TACOS).contentType(MediaType.APPLICATION_JSON).bodyValue(taco)
+				.exchange().expectBody(Map.class).returnResult().getResponseBody().get("id");
+	}
+
+	// count of the ingredient in one of the popularity lists
+	private long count(String counter, String ingredient) {
+		List<?> entries = (List<?>) ingredientPopularity.top(Integer.MAX_VALUE).get(counter);
+		return entries.stream().map(entry -> (Map<?, ?>) entry).filter(entry -> ingredient.equals(entry.get("id")))
+				.mapToLong(entry -> (Long) entry.get("count")).sum();
+	}
+
+	private static Map<String, Object> order(String tacoId) {
+		Map<String, Object> order = new HashMap<>();
+		order.put("deliveryName", TestOrders.FULL_NAME);
+		order.put("deliveryStreet", TestOrders.STREET);
+		order.put("deliveryCity", TestOrders.CITY);
+		order.put("deliveryState", TestOrders.STATE);
+		order.put("deliveryZip", TestOrders.ZIP);
+		order.put("ccNumber", TestOrders.CC_NUMBER);
+		order.put("ccExpiration", TestOrders.CC_EXPIRATION);
+		order.put("ccCVV", "123");
+		order.put("tacos", Arrays.asList(tacoId));
+		return order;
+	}
+
+}
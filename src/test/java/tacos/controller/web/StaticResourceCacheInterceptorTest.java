@@ -0,0 +1,52 @@
+package tacos.controller.web;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.resource.ResourceUrlProvider;
+
+/**
+ * <tt>Cache-Control</tt> of static resources: a year for a fingerprinted URL
+ * that is found, <tt>no-cache</tt> for one that is not and for URLs without a
+ * fingerprint.
+ *
+ * @author Dejan Smiljić - dej4n.s@gmail.com
+ *
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class StaticResourceCacheInterceptorTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private ResourceUrlProvider resourceUrlProvider;
+
+	@Test
+	void testFingerprinted() throws Exception {
+		String url = resourceUrlProvider.getForLookupPath("/images/mex_home.png");
+		mockMvc.perform(get(url)).andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, StaticResourceCacheInterceptor.IMMUTABLE));
+	}
+
+	@Test
+	void testNotFound() throws Exception {
+		mockMvc.perform(get("/images/missing-0123456789abcdef0123456789abcdef.png"))
+				.andExpect(status().isNotFound())
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, StaticResourceCacheInterceptor.REVALIDATE));
+	}
+
+	@Test
+	void testNotFingerprinted() throws Exception {
+		mockMvc.perform(get("/images/mex_home.png")).andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, StaticResourceCacheInterceptor.REVALIDATE));
+	}
+
+}
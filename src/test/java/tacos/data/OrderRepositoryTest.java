@@ -0,0 +1,130 @@
+package tacos.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import tacos.TestOrders;
+import tacos.model.bean.User;
+import tacos.service.IngredientCatalog;
+
+/**
+ * Pages through a user's order history with the keyset queries
+ * <code>findHistoryByUser</code> / <code>findHistoryByUserBefore</code>:
+ * every order shows up exactly once, orders placed at the same time are
+ * ordered by id, and the order history page falls back to the first page for
+ * a malformed cursor.
+ *
+ * @author Dejan Smiljić - dej4n.s@gmail.com
+ *
+ */
+@SpringBootTest(properties = "tacocloud.orders.history.page-size=2")
+@AutoConfigureMockMvc
+class OrderRepositoryTest {
+
+	private static final LocalDate DAY = LocalDate.of(2004, 9, 10);
+
+	@Autowired
+	private OrderRepository orderRepository;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private IngredientCatalog ingredientCatalog;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private MockMvc mockMvc;
+
+	private User user;
+	// newest first
+	private List<Long> ids;
+
+	@BeforeEach
+	void setUp() {
+		user = userRepository.save(TestOrders.user("history", "{noop}history"));
+		// the last three are placed at the same time: the id breaks the tie
+		int[] hours = { 10, 11, 12, 12, 12 };
+		ids = new ArrayList<>();
+		for (int hour : hours) {
+			Long id = orderRepository
+					.save(TestOrders.order(user, TestOrders.taco(ingredientCatalog, "History Taco", "FLTO"))).getId();
+			// dates are set on insert; moved to the day afterwards
+			jdbcTemplate.update("update taco_order set date_order_placed = ? where id = ?",
+					Timestamp.valueOf(DAY.atTime(hour, 0)), id);
+			ids.add(0, id);
+		}
+	}
+
+	@Test
+	void testPages() {
+		PageRequest limit = PageRequest.of(0, 2);
+		List<OrderSummary> page = orderRepository.findHistoryByUser(user.getId(), limit);
+		List<List<Long>> pages = new ArrayList<>();
+		while (!page.isEmpty()) {
+			pages.add(ids(page));
+			OrderSummary last = page.get(page.size() - 1);
+			page = orderRepository.findHistoryByUserBefore(user.getId(), last.getDateOrderPlaced(), last.getId(),
+					limit);
+		}
+		// the first page ends inside the tie, the second one starts in it
+		assertEquals(3, pages.size());
+		assertEquals(ids.subList(0, 2), pages.get(0));
+		assertEquals(ids.subList(2, 4), pages.get(1));
+		assertEquals(ids.subList(4, 5), pages.get(2));
+	}
+
+	@Test
+	void testTies() {
+		OrderSummary newest = orderRepository.findHistoryByUser(user.getId(), PageRequest.of(0, 1)).get(0);
+		assertEquals(ids.get(0), newest.getId());
+		// same time, lower ids only
+		List<OrderSummary> rest = orderRepository.findHistoryByUserBefore(user.getId(), newest.getDateOrderPlaced(),
+				ids.get(1), PageRequest.of(0, 10));
+		assertEquals(ids.subList(2, 5), ids(rest));
+		assertEquals(Timestamp.valueOf(DAY.atTime(12, 0)).getTime(), rest.get(0).getDateOrderPlaced().getTime());
+	}
+
+	@Test
+	void testMalformedCursor() throws Exception {
+		List<Long> firstPage = ids.subList(0, 2);
+		assertEquals(firstPage, history(null));
+		for (String before : new String[] { "yesterday", "1094817600000", "1094817600000_x", "_" }) {
+			assertEquals(firstPage, history(before), before);
+		}
+		String cursor = orderRepository.findHistoryByUser(user.getId(), PageRequest.of(0, 2)).get(1).getCursor();
+		assertEquals(ids.subList(2, 4), history(cursor));
+	}
+
+	// ids on a page of the order history, as the user sees it
+	private List<Long> history(String before) throws Exception {
+		MockHttpServletRequestBuilder request = get("/orders/history").with(user(user));
+		if (before != null) {
+			request.param("before", before);
+		}
+		Object orders = mockMvc.perform(request).andReturn().getModelAndView().getModel().get("orders");
+		assertTrue(orders instanceof List);
+		return ids((List<?>) orders);
+	}
+
+	private static List<Long> ids(List<?> page) {
+		return page.stream().map(summary -> ((OrderSummary) summary).getId()).collect(Collectors.toList());
+	}
+
+}
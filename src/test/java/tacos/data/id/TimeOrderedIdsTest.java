@@ -0,0 +1,148 @@
+package tacos.data.id;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.MappingException;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Dejan Smiljić - dej4n.s@gmail.com
+ *
+ */
+class TimeOrderedIdsTest {
+
+	private static final int THREADS = 16;
+	private static final int IDS_PER_THREAD = 50_000;
+
+	@Test
+	void testNoCollisionsUnderConcurrency() throws Exception {
+		// four "nodes" sharing one database, each hammered by several threads
+		TimeOrderedIds[] nodes = { new TimeOrderedIds(1), new TimeOrderedIds(2), new TimeOrderedIds(3),
+				new TimeOrderedIds(1023) };
+		Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			TimeOrderedIds node = nodes[t % nodes.length];
+			futures.add(executor.submit(() -> {
+				start.await();
+				long previous = 0;
+				for (int i = 0; i < IDS_PER_THREAD; i++) {
+					long id = node.nextId();
+					// ids of one node are strictly increasing, also as seen by a single thread
+					assertTrue(id > previous);
+					previous = id;
+					ids.add(id);
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get(1, TimeUnit.MINUTES);
+		}
+		executor.shutdown();
+
+		assertEquals(THREADS * IDS_PER_THREAD, ids.size());
+	}// testNoCollisionsUnderConcurrency() END
+
+	@Test
+	void testCounterOverflowWaitsForTheClock() throws Exception {
+		AtomicLong clock = new AtomicLong(TimeOrderedIds.EPOCH + 1000);
+		TimeOrderedIds node = new TimeOrderedIds(7, clock::get);
+
+		long previous = 0;
+		// all the counter holds within one millisecond
+		for (int i = 0; i < 4096; i++) {
+			long id = node.nextId();
+			assertTrue(id > previous);
+			previous = id;
+		}
+		// the next id waits for the next millisecond instead of borrowing it
+		long next = nextIdAfter(node, clock, 1, 100);
+		assertTrue(next > previous);
+		assertEquals(clock.get(), TimeOrderedIds.timestampOf(next));
+	}
+
+	@Test
+	void testClockGoingBackwards() throws Exception {
+		AtomicLong clock = new AtomicLong(TimeOrderedIds.EPOCH + 10_000);
+		TimeOrderedIds node = new TimeOrderedIds(7, clock::get);
+		long previous = node.nextId();
+
+		clock.addAndGet(-50);
+		// no id is issued until the clock is past the last one again
+		long next = nextIdAfter(node, clock, 51, 200);
+		assertTrue(next > previous);
+		assertEquals(clock.get(), TimeOrderedIds.timestampOf(next));
+		assertEquals(7, TimeOrderedIds.nodeIdOf(next));
+
+		clock.addAndGet(-TimeOrderedIds.MAX_CLOCK_WAIT_MILLIS - 1);
+		assertThrows(IllegalStateException.class, node::nextId);
+	}
+
+	// asks for an id while the clock stands still, then moves the clock on
+	private static long nextIdAfter(TimeOrderedIds node, AtomicLong clock, long advanceMillis, long delayMillis)
+			throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<Long> id = executor.submit(node::nextId);
+			Thread.sleep(delayMillis);
+			assertFalse(id.isDone());
+			clock.addAndGet(advanceMillis);
+			return id.get(10, TimeUnit.SECONDS);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void testIdLayout() {
+		long now = TimeOrderedIds.EPOCH + 123_456_789L;
+		TimeOrderedIds node = new TimeOrderedIds(42, () -> now);
+
+		long id = node.nextId();
+		assertEquals(now, TimeOrderedIds.timestampOf(id));
+		assertEquals(42, TimeOrderedIds.nodeIdOf(id));
+		assertThrows(IllegalArgumentException.class, () -> new TimeOrderedIds(TimeOrderedIds.MAX_NODE_ID + 1));
+	}
+
+	@Test
+	void testNodeIdRequired() {
+		assertThrows(MappingException.class, () -> configure("", "true"));
+		configure("", "false");
+		configure("5", "true");
+	}
+
+	// configures a generator the way Hibernate does at startup
+	private static void configure(String nodeId, String required) {
+		StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+				.applySetting(TimeOrderedIdGenerator.NODE_ID_SETTING, nodeId)
+				.applySetting(TimeOrderedIdGenerator.NODE_ID_REQUIRED_SETTING, required).build();
+		try {
+			new TimeOrderedIdGenerator().configure(null, new Properties(), registry);
+		} finally {
+			StandardServiceRegistryBuilder.destroy(registry);
+		}
+	}
+
+}
@@ -0,0 +1,72 @@
+package tacos.data.sql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.PreparedStatement;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+/**
+ * Statement normalisation and bind parameter shapes of the
+ * <code>SqlStatementRecorder</code>, and the <tt>limit</tt> of the
+ * <tt>sqlstatements</tt> endpoint.
+ *
+ * @author Dejan Smiljić - dej4n.s@gmail.com
+ *
+ */
+class SqlStatementRecorderTest {
+
+	@Test
+	void testNormaliseLiterals() {
+		assertEquals("select * from taco_order where delivery_zip = ? and id > ? and total = ?",
+				SqlStatementRecorder.normalise(
+						"select * from taco_order where delivery_zip = '80000' and id > -42 and total = 12.50"));
+		// quotes escaped inside a string, digits inside names
+		assertEquals("update ingredient set name = ? where id = ?",
+				SqlStatementRecorder.normalise("update ingredient set name = 'Pico de ''Gallo''' where id = 'PICO'"));
+		assertEquals("select t1.id from taco t1 where t1.taco_order_id = ?",
+				SqlStatementRecorder.normalise("select t1.id from taco t1 where t1.taco_order_id = 7"));
+	}
+
+	@Test
+	void testNormaliseInLists() {
+		String one = SqlStatementRecorder.normalise("select * from ingredient where id in (?)");
+		assertEquals("select * from ingredient where id in (?)", one);
+		assertEquals(one, SqlStatementRecorder.normalise("select * from ingredient where id in (?, ?, ?)"));
+		assertEquals(one, SqlStatementRecorder.normalise("select * from ingredient where id IN ( ?,? , ? )"));
+		assertEquals(one, SqlStatementRecorder.normalise("select * from ingredient where id in ('FLTO', 'GRBF', 7)"));
+	}
+
+	@Test
+	void testNormaliseWhitespace() {
+		assertEquals("select id, name from ingredient where type = ?",
+				SqlStatementRecorder.normalise("  select id,\tname\n  from   ingredient\r\n where type = ?  "));
+	}
+
+	@Test
+	void testShapes() throws NoSuchMethodException {
+		ParameterSetOperation name = new ParameterSetOperation(
+				PreparedStatement.class.getMethod("setString", int.class, String.class), new Object[] { 10, "Queued" });
+		ParameterSetOperation id = new ParameterSetOperation(
+				PreparedStatement.class.getMethod("setLong", int.class, long.class), new Object[] { 2, 42L });
+		ParameterSetOperation zip = new ParameterSetOperation(
+				PreparedStatement.class.getMethod("setNull", int.class, int.class), new Object[] { 1, 12 });
+		// by index as a number: 10 after 2; string lengths, never the values
+		assertEquals("[1:Null, 2:Long, 10:String(6)]", SqlStatementRecorder.shapes(Arrays.asList(name, id, zip)));
+	}
+
+	@Test
+	void testLimit() {
+		SqlStatementsEndpoint endpoint = new SqlStatementsEndpoint(
+				new SqlStatementRecorder(new SimpleMeterRegistry(), new SqlProps()));
+		assertEquals(400, endpoint.top(-1, null).getStatus());
+		assertEquals(400, endpoint.top(0, "mean").getStatus());
+		assertEquals(200, endpoint.top(null, null).getStatus());
+		assertEquals(200, endpoint.top(5, "count").getStatus());
+	}
+
+}
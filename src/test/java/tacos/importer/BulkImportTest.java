@@ -0,0 +1,153 @@
+package tacos.importer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Imports users and orders from NDJSON files: valid lines are imported,
+ * invalid ones end up in the <tt>.rejected</tt> file, and a failed import
+ * resumes after its last committed chunk.
+ *
+ * @author Dejan Smiljić - dej4n.s@gmail.com
+ *
+ */
+@SpringBootTest(properties = "tacocloud.import.chunk-size=2")
+class BulkImportTest {
+
+	@Autowired
+	private BulkImport bulkImport;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@TempDir
+	Path dir;
+
+	private String prefix;
+	private String hash;
+
+	@BeforeEach
+	void setUp() {
+		prefix = "import-" + System.nanoTime();
+		hash = new BCryptPasswordEncoder(4).encode("secret");
+	}
+
+	@Test
+	void testImport() throws IOException {
+		Path users = write(prefix + "-users.ndjson", user("ann"), user("bob"), "", user("ann"),
+				user("cid").replace(hash, "secret"));
+		BulkImport.Result userResult = bulkImport.importUsers(users);
+		assertEquals(5, userResult.getLines());
+		assertEquals(2, userResult.getImported());
+		assertEquals(2, userResult.getRejected());
+
+		Path orders = write(prefix + "-orders.ndjson", order("ann", "80000", "FLTO", "GRBF"),
+				order("bob", "80000", "COTO"), order("dan", "80000", "FLTO"), order("ann", "80000", "XXXX"),
+				"{not json");
+		BulkImport.Result orderResult = bulkImport.importOrders(orders);
+		assertEquals(2, orderResult.getImported());
+		assertEquals(3, orderResult.getRejected());
+		assertEquals(1, count("select count(*) from taco_order o join `user` u on u.id = o.user_id "
+				+ "where u.username = ? and o.date_order_placed = ?", prefix + "-ann",
+				Timestamp.from(Instant.parse("2019-05-01T12:30:00Z"))));
+		assertEquals(2, count("select count(*) from taco_ingredients i join taco_order_tacos t on t.tacos_id = "
+				+ "i.taco_id join taco_order o on o.id = t.taco_order_id join `user` u on u.id = o.user_id "
+				+ "where u.username = ?", prefix + "-ann"));
+
+		List<String> userRejects = Files.readAllLines(dir.resolve(prefix + "-users.ndjson.rejected"));
+		assertEquals(2, userRejects.size());
+		assertTrue(userRejects.get(0).startsWith("4\tusername: Username is taken\t"));
+		assertTrue(userRejects.get(1).startsWith("5\tpassword: Password must be a BCrypt hash\t"));
+		List<String> orderRejects = Files.readAllLines(dir.resolve(prefix + "-orders.ndjson.rejected"));
+		assertTrue(orderRejects.get(0).startsWith("3\tusername: Unknown user\t"));
+		assertTrue(orderRejects.get(1).startsWith("4\ttacos[0].ingredients: Unknown ingredient; "
+				+ "tacos[0].ingredients: You must choose at least 1 ingredient\t"));
+		assertTrue(orderRejects.get(2).startsWith("5\tNot valid JSON: "));
+	}
+
+	@Test
+	void testResume() throws IOException {
+		bulkImport.importUsers(write(prefix + "-users.ndjson", user("eve")));
+		// the zip code passes validation but does not fit its column: the second chunk fails
+		String tooLong = order("eve", String.format("%0300d", 8), "FLTO");
+		Path orders = write(prefix + "-orders.ndjson", order("eve", "80001", "FLTO"), order("eve", "80002", "FLTO"),
+				order("eve", "80003", "FLTO"), tooLong, order("eve", "80005", "FLTO"));
+		assertThrows(DataAccessException.class, () -> bulkImport.importOrders(orders));
+		assertEquals(2, countOrders("eve"));
+
+		Files.write(orders, new String(Files.readAllBytes(orders), StandardCharsets.UTF_8)
+				.replace(tooLong, order("eve", "80004", "FLTO")).getBytes(StandardCharsets.UTF_8));
+		BulkImport.Result result = bulkImport.importOrders(orders);
+		assertEquals(2, result.getSkipped());
+		assertEquals(3, result.getImported());
+		assertEquals(5, countOrders("eve"));
+		assertEquals(5, count("select count(distinct o.delivery_zip) from taco_order o join `user` u "
+				+ "on u.id = o.user_id where u.username = ?", prefix + "-eve"));
+	}
+
+	@Test
+	void testResumeChangedFile() throws IOException {
+		bulkImport.importUsers(write(prefix + "-users.ndjson", user("fay")));
+		String tooLong = order("fay", String.format("%0300d", 8), "FLTO");
+		Path orders = write(prefix + "-orders.ndjson", order("fay", "80001", "FLTO"), order("fay", "80002", "FLTO"),
+				tooLong);
+		assertThrows(DataAccessException.class, () -> bulkImport.importOrders(orders));
+
+		// a committed line changed, the size did not: its lines cannot be skipped
+		write(prefix + "-orders.ndjson", order("fay", "80009", "FLTO"), order("fay", "80002", "FLTO"),
+				order("fay", "80003", "FLTO"));
+		assertThrows(IllegalStateException.class, () -> bulkImport.importOrders(orders));
+		// a file of the same name in another directory is a file of its own
+		Path other = Files.createDirectory(dir.resolve("other")).resolve(prefix + "-orders.ndjson");
+		Files.copy(orders, other);
+		assertEquals(0, bulkImport.importOrders(other).getSkipped());
+		assertEquals(5, countOrders("fay"));
+	}
+
+	private String user(String name) {
+		return "{\"username\":\"" + prefix + "-" + name + "\",\"password\":\"" + hash + "\",\"fullname\":\"Imported "
+				+ name + "\",\"street\":\"1 Import St\",\"city\":\"Importville\",\"state\":\"CO\","
+				+ "\"zip\":\"80000\",\"phoneNumber\":\"555-0100\"}";
+	}
+
+	private String order(String name, String zip, String... ingredients) {
+		return "{\"username\":\"" + prefix + "-" + name + "\",\"dateOrderPlaced\":\"2019-05-01T12:30:00.000+00:00\","
+				+ "\"deliveryName\":\"Imported " + name + "\",\"deliveryStreet\":\"1 Import St\","
+				+ "\"deliveryCity\":\"Importville\",\"deliveryState\":\"CO\",\"deliveryZip\":\"" + zip + "\","
+				+ "\"ccNumber\":\"4111111111111111\",\"ccExpiration\":\"12/30\",\"ccCVV\":\"123\","
+				+ "\"tacos\":[{\"name\":\"Imported Taco\",\"ingredients\":[\"" + String.join("\",\"", ingredients)
+				+ "\"]}]}";
+	}
+
+	private Path write(String name, String... lines) throws IOException {
+		return Files.write(dir.resolve(name), Arrays.asList(lines), StandardCharsets.UTF_8);
+	}
+
+	private int countOrders(String name) {
+		return count("select count(*) from taco_order o join `user` u on u.id = o.user_id where u.username = ?",
+				prefix + "-" + name);
+	}
+
+	private int count(String sql, Object... args) {
+		return jdbcTemplate.queryForObject(sql, Integer.class, args);
+	}
+
+}
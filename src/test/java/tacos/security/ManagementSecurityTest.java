@@ -0,0 +1,97 @@
+package tacos.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.web.server.LocalManagementPort;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.RestTemplate;
+
+import tacos.TestOrders;
+import tacos.data.UserRepository;
+import tacos.model.bean.User;
+
+/**
+ * Calls the management endpoints over HTTP: only <tt>health</tt> is open,
+ * everything else needs the administrator account - anonymous callers and
+ * application users are refused.
+ *
+ * @author Dejan Smiljić - dej4n.s@gmail.com
+ *
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = { "management.server.port=0",
+		"tacocloud.reactive-api.enabled=false", "tacocloud.management.username=ops" })
+class ManagementSecurityTest {
+
+	@LocalManagementPort
+	private int managementPort;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+
+	@DynamicPropertySource
+	static void administrator(DynamicPropertyRegistry registry) {
+		registry.add("tacocloud.management.password-hash", () -> new BCryptPasswordEncoder(4).encode("ops-secret"));
+	}
+
+	@Test
+	void testAdministratorOnly() {
+		String orders = "/actuator/ordersearch?state=CO";
+		assertEquals(200, call(HttpMethod.GET, "/actuator/health", null, null, null));
+		assertEquals(401, call(HttpMethod.GET, orders, null, null, null));
+		assertEquals(401, call(HttpMethod.GET, orders, null, "ops", "wrong"));
+		assertEquals(200, call(HttpMethod.GET, orders, null, "ops", "ops-secret"));
+
+		// an application user is authenticated, but not an administrator
+		User user = userRepository.save(TestOrders.user("mgmt", passwordEncoder.encode("mgmt")));
+		assertEquals(403, call(HttpMethod.GET, orders, null, user.getUsername(), "mgmt"));
+	}
+
+	@Test
+	void testWriteOperation() {
+		// a backfill of days long past, before any order
+		String backfill = "{\"from\":\"1999-01-01\",\"to\":\"1999-01-03\"}";
+		assertEquals(401, call(HttpMethod.POST, "/actuator/sales", backfill, null, null));
+		assertEquals(200, call(HttpMethod.POST, "/actuator/sales", backfill, "ops", "ops-secret"));
+	}
+
+	// status of a request to the management port
+	private int call(HttpMethod method, String path, String body, String username, String password) {
+		SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+		// a streamed request cannot be read back for a 401
+		requestFactory.setOutputStreaming(false);
+		RestTemplate restTemplate = new RestTemplate(requestFactory);
+		restTemplate.setErrorHandler(new DefaultResponseErrorHandler() {
+			@Override
+			public boolean hasError(ClientHttpResponse response) throws IOException {
+				return false;
+			}
+		});
+		HttpHeaders headers = new HttpHeaders();
+		if (username != null) {
+			headers.setBasicAuth(username, password);
+		}
+		if (body != null) {
+			headers.setContentType(MediaType.APPLICATION_JSON);
+		}
+		return restTemplate.exchange("http://127.0.0.1:" + managementPort + path, method, new HttpEntity<>(body, headers),
+				String.class).getStatusCodeValue();
+	}
+
+}
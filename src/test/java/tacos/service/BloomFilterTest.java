@@ -0,0 +1,42 @@
+package tacos.service;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Dejan Smiljić - dej4n.s@gmail.com
+ *
+ */
+class BloomFilterTest {
+
+	private static final int USERS = 100_000;
+
+	@Test
+	void testNoFalseNegatives() {
+		BloomFilter filter = new BloomFilter(USERS, 0.01);
+		for (int i = 0; i < USERS; i++) {
+			filter.add("user" + i);
+		}
+		for (int i = 0; i < USERS; i++) {
+			assertTrue(filter.mightContain("user" + i), "user" + i);
+		}
+	}
+
+	@Test
+	void testFalsePositiveRateNearConfigured() {
+		BloomFilter filter = new BloomFilter(USERS, 0.01);
+		for (int i = 0; i < USERS; i++) {
+			filter.add("user" + i);
+		}
+		int falsePositives = 0;
+		for (int i = 0; i < USERS; i++) {
+			if (filter.mightContain("other" + i)) {
+				falsePositives++;
+			}
+		}
+		// 1 % expected; allow for variance
+		assertTrue(falsePositives < USERS * 0.015, "false positives: " + falsePositives);
+	}
+
+}
@@ -0,0 +1,41 @@
+package tacos.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Dejan Smiljić - dej4n.s@gmail.com
+ *
+ */
+class HeavyHittersTest {
+
+	@Test
+	void testFindsHeavyHittersAmongManyItems() {
+		HeavyHitters heavyHitters = new HeavyHitters(20, 2048, 4);
+		// 10 frequent items in a long tail of 50,000 items seen once or twice
+		for (int i = 0; i < 50_000; i++) {
+			heavyHitters.add("rare" + i, 1 + i % 2);
+			if (i % 50 == 0) {
+				for (int hot = 0; hot < 10; hot++) {
+					heavyHitters.add("hot" + hot, hot + 1);
+				}
+			}
+		}
+		List<Map.Entry<String, Long>> top = heavyHitters.top(10);
+		assertEquals(10, top.size());
+		for (int i = 0; i < 10; i++) {
+			String item = "hot" + (9 - i);
+			long count = 1000L * (10 - i);
+			assertEquals(item, top.get(i).getKey());
+			// never below the true count, above it by at most the error bound
+			assertTrue(top.get(i).getValue() >= count);
+			assertTrue(top.get(i).getValue() <= count + heavyHitters.maxError(), item + ": " + top.get(i).getValue());
+		}
+	}
+
+}
@@ -0,0 +1,92 @@
+package tacos.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import tacos.data.id.TimeOrderedIdGenerator;
+import tacos.model.bean.Taco;
+
+/**
+ * Counts designed and ordered ingredients and ordered pairs, and restores the
+ * counts from a checkpoint.
+ * 
+ * @author Dejan Smiljić - dej4n.s@gmail.com
+ *
+ */
+@SpringBootTest
+class IngredientPopularityTest {
+
+	@Autowired
+	private IngredientCatalog ingredientCatalog;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void testCountsAndRestore() {
+		IngredientPopularityProps props = new IngredientPopularityProps();
+		// a node of its own, so the application's checkpoints do not interfere
+		IngredientPopularity popularity = new IngredientPopularity(ingredientCatalog, jdbcTemplate,
+				transactionManager, props, "1000");
+		popularity.restore();
+
+		popularity.tacoDesigned(ingredientCatalog.findAllById(Arrays.asList("FLTO", "GRBF")));
+		popularity.orderPlaced(Arrays.asList(taco("CHED", "FLTO", "GRBF"), taco("GRBF", "FLTO")));
+		assertCounts(popularity.top(3));
+
+		popularity.checkpoint();
+		IngredientPopularity restored = new IngredientPopularity(ingredientCatalog, jdbcTemplate, transactionManager,
+				props, "1000");
+		restored.restore();
+		assertCounts(restored.top(3));
+	}
+
+	@Test
+	void testUnconfiguredNode() {
+		// a derived node id changes with every restart: the checkpoint goes under a fixed key
+		IngredientPopularity popularity = new IngredientPopularity(ingredientCatalog, jdbcTemplate,
+				transactionManager, new IngredientPopularityProps(), "");
+		jdbcTemplate.update("delete from ingredient_popularity where node = ?", IngredientPopularity.SINGLE_NODE);
+		popularity.checkpoint();
+		assertTrue(rows(IngredientPopularity.SINGLE_NODE) > 0);
+		assertEquals(0, rows(TimeOrderedIdGenerator.resolveNodeId("")));
+	}
+
+	private int rows(int node) {
+		return jdbcTemplate.queryForObject("select count(*) from ingredient_popularity where node = ?",
+				Integer.class, node);
+	}
+
+	private void assertCounts(Map<String, Object> top) {
+		List<?> designed = (List<?>) top.get(IngredientPopularity.DESIGNED);
+		assertEquals(1L, ((Map<?, ?>) designed.get(0)).get("count"));
+		assertEquals(0L, ((Map<?, ?>) designed.get(2)).get("count"));
+
+		List<?> ordered = (List<?>) top.get(IngredientPopularity.ORDERED);
+		assertEquals(2L, ((Map<?, ?>) ordered.get(0)).get("count"));
+		assertEquals(2L, ((Map<?, ?>) ordered.get(1)).get("count"));
+		assertEquals("CHED", ((Map<?, ?>) ordered.get(2)).get("id"));
+		assertEquals(1L, ((Map<?, ?>) ordered.get(2)).get("count"));
+
+		Map<?, ?> topPair = (Map<?, ?>) ((List<?>) top.get(IngredientPopularity.PAIRS)).get(0);
+		assertArrayEquals(new String[] { "FLTO", "GRBF" }, (String[]) topPair.get("ingredients"));
+		assertEquals(2L, topPair.get("count"));
+	}
+
+	private Taco taco(String... ingredients) {
+		return new Taco("Popular Taco", ingredientCatalog.findAllById(Arrays.asList(ingredients)), null);
+	}
+
+}
@@ -0,0 +1,116 @@
+package tacos.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import tacos.TestOrders;
+import tacos.data.OrderRepository;
+import tacos.data.UserRepository;
+import tacos.model.bean.TacoOrder;
+import tacos.model.bean.User;
+
+/**
+ * Exports orders as CSV and NDJSON and checks the rows, the escaping, the
+ * date range and the placement order.
+ * 
+ * @author Dejan Smiljić - dej4n.s@gmail.com
+ *
+ */
+@SpringBootTest
+class OrderExportTest {
+
+	@Autowired
+	private OrderExport orderExport;
+	@Autowired
+	private OrderRepository orderRepository;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private IngredientCatalog ingredientCatalog;
+	@Autowired
+	private ObjectMapper objectMapper;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private User user;
+	private Date from;
+	private Long laterId;
+
+	@BeforeEach
+	void setUp() {
+		user = userRepository.save(TestOrders.user("export", "{noop}export"));
+		from = new Date(System.currentTimeMillis() - 1000);
+		placeOrder("Doe, \"JD\"", 2);
+		laterId = placeOrder("Export User", 1);
+	}
+
+	@Test
+	void testCsv() throws IOException {
+		List<String> lines = export(OrderExport.Format.CSV, new Date(System.currentTimeMillis() + 1000));
+		assertEquals(2, lines.size());
+		assertTrue(lines.get(0).contains("," + user.getUsername() + ",\"Doe, \"\"JD\"\"\",1 Test St,"));
+		assertTrue(lines.get(0).endsWith(",2"));
+		assertTrue(lines.get(1).endsWith(",Export User,1 Test St,Testville,CO,80000,1"));
+	}
+
+	@Test
+	void testNdjson() throws IOException {
+		List<String> lines = export(OrderExport.Format.NDJSON, new Date(System.currentTimeMillis() + 1000));
+		assertEquals(2, lines.size());
+		Map<?, ?> first = objectMapper.readValue(lines.get(0), Map.class);
+		assertEquals("Doe, \"JD\"", first.get("deliveryName"));
+		assertEquals(2, first.get("tacoCount"));
+		assertTrue(!first.containsKey("ccNumber"));
+	}
+
+	@Test
+	void testDateRange() throws IOException {
+		assertEquals(0, export(OrderExport.Format.CSV, from).size());
+	}
+
+	@Test
+	void testPlacementOrder() throws IOException {
+		// like a bulk-imported order: a newer id, an older date
+		jdbcTemplate.update("update taco_order set date_order_placed = ? where id = ?",
+				new Timestamp(from.getTime() + 1), laterId);
+		List<String> lines = export(OrderExport.Format.CSV, new Date(System.currentTimeMillis() + 1000));
+		assertEquals(2, lines.size());
+		assertTrue(lines.get(0).startsWith(laterId + ","));
+	}
+
+	// this test's lines of an export from 'from' up to 'to'
+	private List<String> export(OrderExport.Format format, Date to) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		orderExport.export(from, to, format, out);
+		return Arrays.stream(new String(out.toByteArray(), StandardCharsets.UTF_8).split("\r?\n"))
+				.filter(line -> line.contains(user.getUsername())).collect(Collectors.toList());
+	}
+
+	private Long placeOrder(String deliveryName, int tacos) {
+		TacoOrder tacoOrder = TestOrders.order(user);
+		tacoOrder.setDeliveryName(deliveryName);
+		for (int i = 0; i < tacos; i++) {
+			tacoOrder.addTaco(TestOrders.taco(ingredientCatalog, "Export Taco " + i, "COTO", "CARN", "JACK"));
+		}
+		return orderRepository.save(tacoOrder).getId();
+	}
+
+}
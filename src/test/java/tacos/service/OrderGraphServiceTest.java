@@ -0,0 +1,90 @@
+package tacos.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import tacos.TestOrders;
+import tacos.data.OrderRepository;
+import tacos.data.UserRepository;
+import tacos.model.bean.TacoOrder;
+import tacos.model.bean.User;
+
+/**
+ * Asserts that loading and walking a whole order → taco → ingredient graph
+ * costs a fixed number of queries, whatever the number of tacos.
+ * 
+ * @author Dejan Smiljić - dej4n.s@gmail.com
+ *
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class OrderGraphServiceTest {
+
+	@Autowired
+	private OrderGraphService orderGraphService;
+	@Autowired
+	private OrderRepository orderRepository;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private IngredientCatalog ingredientCatalog;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+	private User user;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		user = userRepository.save(TestOrders.user("graph", "{noop}graph"));
+	}
+
+	@Test
+	void testOrderWithTacosAndIngredientsQueryCount() {
+		assertEquals(2, queriesToLoadAndWalk(placeOrder(1)));
+		assertEquals(2, queriesToLoadAndWalk(placeOrder(5)));
+		assertEquals(2, queriesToLoadAndWalk(placeOrder(20)));
+	}
+
+	@Test
+	void testOrderWithTacosQueryCount() {
+		Long id = placeOrder(10);
+		statistics.clear();
+		TacoOrder tacoOrder = orderGraphService.findWithTacos(id).get();
+		assertEquals(10, tacoOrder.getTacos().size());
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+	// loads the order and walks the whole graph outside of any transaction
+	private long queriesToLoadAndWalk(Long id) {
+		statistics.clear();
+		TacoOrder tacoOrder = orderGraphService.findWithTacosAndIngredients(id).get();
+		// toString walks order -> user, tacos -> ingredients; throws
+		// LazyInitializationException if anything was not fetched
+		String dump = tacoOrder.toString();
+		assertTrue(dump.contains("Monterrey Jack"));
+		// dumped to the log: no card details, no password hash
+		assertFalse(dump.contains(TestOrders.CC_NUMBER) || dump.contains(TestOrders.CC_EXPIRATION)
+				|| dump.contains("{noop}graph"));
+		return statistics.getPrepareStatementCount();
+	}
+
+	private Long placeOrder(int tacos) {
+		TacoOrder tacoOrder = TestOrders.order(user);
+		for (int i = 0; i < tacos; i++) {
+			tacoOrder.addTaco(TestOrders.taco(ingredientCatalog, "Graph Taco " + i, "COTO", "CARN", "JACK"));
+		}
+		return orderRepository.save(tacoOrder).getId();
+	}
+
+}
@@ -0,0 +1,127 @@
+package tacos.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import tacos.TestOrders;
+import tacos.data.OrderRepository;
+import tacos.data.OrderSummary;
+import tacos.data.UserRepository;
+import tacos.model.bean.TacoOrder;
+import tacos.model.bean.User;
+
+/**
+ * Searches orders by zip, state, city and date range, page by page, and
+ * rejects invalid searches.
+ *
+ * @author Dejan Smiljić - dej4n.s@gmail.com
+ *
+ */
+@SpringBootTest
+class OrderSearchEndpointTest {
+
+	private static final LocalDate DAY = LocalDate.of(2003, 7, 8);
+
+	@Autowired
+	private OrderSearchEndpoint orderSearchEndpoint;
+	@Autowired
+	private OrderRepository orderRepository;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private IngredientCatalog ingredientCatalog;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private String zip;
+	private String state;
+	// newest first
+	private List<Long> ids;
+
+	@BeforeEach
+	void setUp() {
+		String prefix = Long.toString(System.nanoTime());
+		zip = "z" + prefix;
+		state = "S" + prefix;
+		User user = userRepository.save(TestOrders.user("search", "{noop}search"));
+		// the last two are placed at the same time: the id breaks the tie
+		int[] hours = { 10, 11, 12, 13, 13 };
+		ids = new ArrayList<>();
+		for (int i = 0; i < hours.length; i++) {
+			TacoOrder tacoOrder = TestOrders.order(user, TestOrders.taco(ingredientCatalog, "Search Taco", "FLTO"));
+			tacoOrder.setDeliveryCity(i < 3 ? "Alpha" : "Beta");
+			tacoOrder.setDeliveryState(state);
+			tacoOrder.setDeliveryZip(zip);
+			Long id = orderRepository.save(tacoOrder).getId();
+			// dates are set on insert; moved to the day afterwards
+			jdbcTemplate.update("update taco_order set date_order_placed = ? where id = ?",
+					Timestamp.valueOf(DAY.atTime(hours[i], 0)), id);
+			ids.add(0, id);
+		}
+	}
+
+	@Test
+	void testPages() {
+		List<Long> found = new ArrayList<>();
+		String before = null;
+		int pages = 0;
+		do {
+			Map<?, ?> page = search(zip, null, null, null, null, before, 2);
+			found.addAll(ids(page));
+			before = (String) page.get("next");
+			pages++;
+		} while (before != null);
+		assertEquals(3, pages);
+		assertEquals(ids, found);
+	}
+
+	@Test
+	void testSearches() {
+		assertEquals(ids.subList(2, 5), ids(search(null, state, "Alpha", null, null, null, null)));
+		assertEquals(ids, ids(search(null, state, null, DAY.toString(), DAY.plusDays(1).toString(), null, null)));
+		assertEquals(0, ids(search(null, state, null, DAY.plusDays(1).toString(), null, null, null)).size());
+		// other tests' orders are placed on the same day
+		List<Long> sameDay = ids(search(null, null, null, DAY.toString(), DAY.plusDays(1).toString(), null, 100));
+		sameDay.retainAll(ids);
+		assertEquals(ids, sameDay);
+		assertNull(search(zip, null, null, null, null, null, 5).get("next"));
+	}
+
+	@Test
+	void testInvalid() {
+		assertEquals(400, orderSearchEndpoint.search(null, null, "Alpha", null, null, null, null).getStatus());
+		assertEquals(400, orderSearchEndpoint.search(zip, state, null, null, null, null, null).getStatus());
+		assertEquals(400, orderSearchEndpoint.search(zip, null, null, "July", null, null, null).getStatus());
+		assertEquals(400, orderSearchEndpoint.search(zip, null, null, null, null, "123", null).getStatus());
+		assertEquals(400, orderSearchEndpoint.search(zip, null, null, null, null, null, 1000).getStatus());
+	}
+
+	private Map<?, ?> search(String zip, String state, String city, String from, String to, String before,
+			Integer limit) {
+		WebEndpointResponse<Object> response = orderSearchEndpoint.search(zip, state, city, from, to, before, limit);
+		assertEquals(200, response.getStatus());
+		return (Map<?, ?>) response.getBody();
+	}
+
+	private List<Long> ids(Map<?, ?> page) {
+		List<Long> found = new ArrayList<>();
+		for (Object item : (List<?>) page.get("items")) {
+			found.add(((OrderSummary) item).getId());
+		}
+		return found;
+	}
+
+}
@@ -0,0 +1,127 @@
+package tacos.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import tacos.TestOrders;
+import tacos.data.OrderRepository;
+import tacos.data.UserRepository;
+import tacos.model.bean.TacoOrder;
+import tacos.model.bean.User;
+
+/**
+ * Queues orders with the write-behind writer: each is saved under the id
+ * <code>submit</code> returned, and an order that cannot be written is kept
+ * in <tt>taco_order_failed</tt>, without taking its batch down. An order
+ * that was written stays written if counting it fails, and an id the order
+ * carries without <code>assignId</code> is not kept.
+ *
+ * @author Dejan Smiljić - dej4n.s@gmail.com
+ *
+ */
+@SpringBootTest
+class OrderWriteBehindTest {
+
+	@Autowired
+	private EntityManager entityManager;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+	@Autowired
+	private IngredientPopularity ingredientPopularity;
+	@Autowired
+	private SalesRollups salesRollups;
+	@Autowired
+	private OrderRepository orderRepository;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private IngredientCatalog ingredientCatalog;
+
+	@Test
+	void testSubmit() {
+		OrderWriteBehindProps props = new OrderWriteBehindProps();
+		props.setEnabled(true);
+		// one batch for all the orders
+		props.setLingerMillis(500);
+		OrderWriteBehind orderWriteBehind = new OrderWriteBehind(entityManager, jdbcTemplate, transactionManager,
+				props, ingredientPopularity, salesRollups, new SimpleMeterRegistry(), "");
+		User user = userRepository.save(TestOrders.user("write-behind", "{noop}write-behind"));
+
+		orderWriteBehind.start();
+		Long first = orderWriteBehind.submit(order("Queued User", user));
+		// blank delivery name: fails validation when it is saved
+		Long bad = orderWriteBehind.submit(order(" ", user));
+		Long last = orderWriteBehind.submit(order("Queued User", user));
+		// flushes the queue
+		orderWriteBehind.stop();
+
+		assertTrue(first < bad && bad < last);
+		TacoOrder saved = orderRepository.findById(first).get();
+		assertEquals("Queued User", saved.getDeliveryName());
+		assertTrue(saved.getDateOrderPlaced() != null);
+		assertTrue(orderRepository.findById(last).isPresent());
+		assertFalse(orderRepository.findById(bad).isPresent());
+		Map<String, Object> failed = jdbcTemplate.queryForMap("select * from taco_order_failed where id = ?", bad);
+		assertEquals(user.getId(), failed.get("USER_ID"));
+		assertEquals("Queued Taco: FLTO,GRBF", failed.get("TACOS"));
+	}
+
+	@Test
+	void testCountingFails() {
+		OrderWriteBehindProps props = new OrderWriteBehindProps();
+		SalesRollups failingRollups = mock(SalesRollups.class);
+		doThrow(new IllegalStateException("rollups")).when(failingRollups).orderPlaced(any());
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		// not started: written on the calling thread
+		OrderWriteBehind orderWriteBehind = new OrderWriteBehind(entityManager, jdbcTemplate, transactionManager,
+				props, ingredientPopularity, failingRollups, meterRegistry, "");
+		User user = userRepository.save(TestOrders.user("write-behind", "{noop}write-behind"));
+
+		Long id = orderWriteBehind.submit(order("Counted User", user));
+
+		assertTrue(orderRepository.findById(id).isPresent());
+		assertEquals(0, jdbcTemplate.queryForObject("select count(*) from taco_order_failed where id = ?",
+				Integer.class, id));
+		assertEquals(0, meterRegistry.counter("tacocloud.orders.write-behind.failed").count());
+	}
+
+	@Test
+	void testUnassignedId() {
+		User user = userRepository.save(TestOrders.user("write-behind", "{noop}write-behind"));
+		TacoOrder tacoOrder = order("Bound User", user);
+		// e.g. bound from a request
+		tacoOrder.setId(42L);
+		// Session.save(), like the writer: any id the generator returns is used
+		Long id = new TransactionTemplate(transactionManager)
+				.execute(status -> (Long) entityManager.unwrap(Session.class).save(tacoOrder));
+		assertNotEquals(42L, id);
+		assertTrue(orderRepository.findById(id).isPresent());
+	}
+
+	private TacoOrder order(String deliveryName, User user) {
+		TacoOrder tacoOrder = TestOrders.order(user, TestOrders.taco(ingredientCatalog, "Queued Taco", "FLTO", "GRBF"));
+		tacoOrder.setDeliveryName(deliveryName);
+		return tacoOrder;
+	}
+
+}
@@ -0,0 +1,129 @@
+package tacos.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import tacos.TestOrders;
+import tacos.data.OrderRepository;
+import tacos.data.UserRepository;
+import tacos.model.bean.Taco;
+import tacos.model.bean.TacoOrder;
+import tacos.model.bean.User;
+
+/**
+ * Counts placed orders into the sales rollups, rebuilds the rollups of a day
+ * from its orders, and checks the reports read from them. Each test uses a
+ * day of its own, long past, so the application's live rollups do not
+ * interfere.
+ *
+ * @author Dejan Smiljić - dej4n.s@gmail.com
+ *
+ */
+@SpringBootTest
+class SalesRollupsTest {
+
+	@Autowired
+	private SalesReports salesReports;
+	@Autowired
+	private SalesRollupBackfill salesRollupBackfill;
+	@Autowired
+	private OrderRepository orderRepository;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private IngredientCatalog ingredientCatalog;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void testLiveRollups() {
+		LocalDate day = LocalDate.of(2001, 3, 4);
+		SalesRollups rollups = new SalesRollups(jdbcTemplate, transactionManager, new SalesRollupProps());
+		rollups.orderPlaced(order(day.atTime(10, 15), "Boulder", null, taco("FLTO", "GRBF"), taco("FLTO")));
+		rollups.flush();
+		// the 10:00 rows exist now: updated, not inserted
+		rollups.orderPlaced(order(day.atTime(10, 45), "Boulder", null, taco("FLTO", "CHED")));
+		rollups.orderPlaced(order(day.atTime(11, 5), "Denver", null, taco("GRBF")));
+		rollups.flush();
+		assertReports(day);
+	}
+
+	@Test
+	void testBackfill() {
+		LocalDate day = LocalDate.of(2002, 5, 6);
+		User user = userRepository.save(TestOrders.user("rollups", "{noop}rollups"));
+		// dates are set on insert; moved to the day afterwards
+		List<Long> ids = new ArrayList<>();
+		ids.add(orderRepository.save(order(null, "Boulder", user, taco("FLTO", "GRBF"), taco("FLTO"))).getId());
+		ids.add(orderRepository.save(order(null, "Boulder", user, taco("FLTO", "CHED"))).getId());
+		ids.add(orderRepository.save(order(null, "Denver", user, taco("GRBF"))).getId());
+		LocalDateTime[] placed = { day.atTime(10, 15), day.atTime(10, 45), day.atTime(11, 5) };
+		for (int i = 0; i < ids.size(); i++) {
+			jdbcTemplate.update("update taco_order set date_order_placed = ? where id = ?",
+					Timestamp.valueOf(placed[i]), ids.get(i));
+		}
+
+		assertEquals(3, salesRollupBackfill.rebuild(day.minusDays(1), day.plusDays(2)));
+		assertReports(day);
+		// rebuilding replaces the rows of the day, it does not add to them
+		salesRollupBackfill.rebuild(day, day.plusDays(1));
+		assertReports(day);
+		// today is left to the live rollups
+		assertEquals(0, salesRollupBackfill.rebuild(LocalDate.now(), LocalDate.now().plusDays(3)));
+	}
+
+	private void assertReports(LocalDate day) {
+		List<Map<String, Object>> hourly = salesReports.hourly(day, day.plusDays(1));
+		assertEquals(2, hourly.size());
+		assertEquals(day.atTime(10, 0).toString(), hourly.get(0).get("hour"));
+		assertEquals(2L, hourly.get(0).get("orders"));
+		assertEquals(3L, hourly.get(0).get("tacos"));
+		assertEquals(1L, hourly.get(1).get("orders"));
+
+		List<Map<String, Object>> daily = salesReports.daily(day.minusDays(1), day.plusDays(2));
+		assertEquals(1, daily.size());
+		assertEquals(day.toString(), daily.get(0).get("day"));
+		assertEquals(3L, daily.get(0).get("orders"));
+		assertEquals(4L, daily.get(0).get("tacos"));
+
+		List<Map<String, Object>> cities = salesReports.cities(day, day.plusDays(1), 1);
+		assertEquals(1, cities.size());
+		assertEquals("Boulder", cities.get(0).get("city"));
+		assertEquals(2L, cities.get(0).get("orders"));
+
+		List<Map<String, Object>> ingredients = salesReports.ingredients(day, day.plusDays(1));
+		assertEquals(3, ingredients.size());
+		assertEquals("FLTO", ingredients.get(0).get("id"));
+		assertEquals(2L, ingredients.get(0).get("orders"));
+		assertEquals(3L, ingredients.get(0).get("tacos"));
+		assertEquals("GRBF", ingredients.get(1).get("id"));
+		assertEquals(2L, ingredients.get(1).get("tacos"));
+		assertEquals("CHED", ingredients.get(2).get("id"));
+	}
+
+	private TacoOrder order(LocalDateTime placed, String city, User user, Taco... tacos) {
+		TacoOrder tacoOrder = TestOrders.order(user, tacos);
+		tacoOrder.setDeliveryCity(city);
+		tacoOrder.setDateOrderPlaced(placed != null ? Timestamp.valueOf(placed) : null);
+		return tacoOrder;
+	}
+
+	private Taco taco(String... ingredients) {
+		return TestOrders.taco(ingredientCatalog, "Rollup Taco", ingredients);
+	}
+
+}
@@ -0,0 +1,44 @@
+package tacos.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import tacos.TestOrders;
+import tacos.data.UserRepository;
+import tacos.model.bean.User;
+
+/**
+ * Renames a cached user: neither the old nor the new username is served from
+ * the <code>UserDetailsCache</code> afterwards.
+ *
+ * @author Dejan Smiljić - dej4n.s@gmail.com
+ *
+ */
+@SpringBootTest
+class UserDetailsCacheListenerTest {
+
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private UserDetailsCache userDetailsCache;
+
+	@Test
+	void testRename() {
+		User user = userRepository.save(TestOrders.user("renamed", "{noop}renamed"));
+		String oldUsername = user.getUsername();
+		// cached
+		User cached = userDetailsCache.findByUsername(oldUsername);
+		assertEquals(user.getId(), cached.getId());
+
+		cached.setUsername(oldUsername + "-new");
+		userRepository.save(cached);
+
+		assertNull(userDetailsCache.findByUsername(oldUsername));
+		assertEquals(user.getId(), userDetailsCache.findByUsername(oldUsername + "-new").getId());
+	}
+
+}